@@ -38,4 +38,9 @@ public interface AArch64LoweringProviderMixin extends LoweringProvider {
     default boolean supportsBulkZeroing() {
         return true;
     }
+
+    @Override
+    default boolean supportsLoopVectorization() {
+        return false;
+    }
 }
@@ -55,6 +55,7 @@ import org.graalvm.compiler.asm.amd64.AVXKind.AVXSize;
 import org.graalvm.compiler.core.common.LIRKind;
 import org.graalvm.compiler.core.common.NumUtil;
 import org.graalvm.compiler.core.common.calc.Condition;
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
 import org.graalvm.compiler.core.common.spi.ForeignCallLinkage;
 import org.graalvm.compiler.core.common.spi.LIRKindTool;
 import org.graalvm.compiler.debug.GraalError;
@@ -101,6 +102,7 @@ import org.graalvm.compiler.lir.amd64.AMD64Move.StackLeaOp;
 import org.graalvm.compiler.lir.amd64.AMD64PauseOp;
 import org.graalvm.compiler.lir.amd64.AMD64StringLatin1InflateOp;
 import org.graalvm.compiler.lir.amd64.AMD64StringUTF16CompressOp;
+import org.graalvm.compiler.lir.amd64.AMD64VectorizedArrayLoopOp;
 import org.graalvm.compiler.lir.amd64.AMD64ZapRegistersOp;
 import org.graalvm.compiler.lir.amd64.AMD64ZapStackOp;
 import org.graalvm.compiler.lir.amd64.AMD64ZeroMemoryOp;
@@ -609,6 +611,27 @@ public abstract class AMD64LIRGenerator extends LIRGenerator {
         return result;
     }
 
+    @Override
+    public Variable emitVectorizedArrayLoop(JavaKind kind, int arrayLengthOffset, ElementwiseOperation[] operations, int[] operands, Value start, Value end, Value[] arrays, Value[] invariants) {
+        Variable result = newVariable(LIRKind.value(AMD64Kind.DWORD));
+        if (!AMD64VectorizedArrayLoopOp.isSupported(this, getMaxVectorSize())) {
+            // Leave all iterations to the scalar loop.
+            emitMove(result, start);
+            return result;
+        }
+        Value[] arrayValues = new Value[arrays.length];
+        for (int i = 0; i < arrays.length; i++) {
+            arrayValues[i] = asAllocatable(arrays[i]);
+        }
+        Value[] invariantValues = new Value[invariants.length];
+        for (int i = 0; i < invariants.length; i++) {
+            invariantValues[i] = asAllocatable(invariants[i]);
+        }
+        append(new AMD64VectorizedArrayLoopOp(this, kind, arrayLengthOffset, operations, operands, getMaxVectorSize(), result, asAllocatable(start), asAllocatable(end), arrayValues,
+                        invariantValues));
+        return result;
+    }
+
     /**
      * Return the maximum size of vector registers used in SSE/AVX instructions.
      */
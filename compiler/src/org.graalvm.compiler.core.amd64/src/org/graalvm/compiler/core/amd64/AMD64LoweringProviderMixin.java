@@ -38,4 +38,9 @@ public interface AMD64LoweringProviderMixin extends LoweringProvider {
     default boolean supportsBulkZeroing() {
         return true;
     }
+
+    @Override
+    default boolean supportsLoopVectorization() {
+        return true;
+    }
 }
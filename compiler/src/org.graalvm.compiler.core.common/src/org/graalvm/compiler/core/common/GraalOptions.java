@@ -105,6 +105,18 @@ public final class GraalOptions {
     @Option(help = "", type = OptionType.Debug)
     public static final OptionKey<Boolean> PartialUnroll = new OptionKey<>(true);
 
+    @Option(help = "Perform the iterations of simple counted loops over primitive arrays with vector instructions where the target supports it.", type = OptionType.Expert)
+    public static final OptionKey<Boolean> LoopVectorization = new OptionKey<>(false);
+
+    @Option(help = "Split long counted loops into an inner loop without safepoint polls and an outer loop that polls once per strip of iterations.", type = OptionType.Expert)
+    public static final OptionKey<Boolean> LoopStripMining = new OptionKey<>(false);
+
+    @Option(help = "Maximum number of iterations of the inner loop of a strip mined loop.", type = OptionType.Expert)
+    public static final OptionKey<Integer> LoopStripMiningIterations = new OptionKey<>(1000);
+
+    @Option(help = "Replace range checks and invariant guards in counted loops by speculative guards in front of the loop.", type = OptionType.Expert)
+    public static final OptionKey<Boolean> LoopPredication = new OptionKey<>(false);
+
     @Option(help = "", type = OptionType.Expert)
     public static final OptionKey<Float> MinimumPeelFrequency = new OptionKey<>(0.35f);
 
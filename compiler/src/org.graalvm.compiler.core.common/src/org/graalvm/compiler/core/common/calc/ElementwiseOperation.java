@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.core.common.calc;
+
+/**
+ * Operations of an element-wise array expression, as evaluated by a vectorized array loop. An
+ * expression is a sequence of operations in postfix order: {@link #ArrayElement} and
+ * {@link #Invariant} push an operand, all other operations pop two operands and push the result.
+ */
+public enum ElementwiseOperation {
+    /** Pushes the element of an input array at the current index. */
+    ArrayElement,
+    /** Pushes a loop-invariant value. */
+    Invariant,
+    Add,
+    Sub,
+    Mul,
+    Div,
+    And,
+    Or,
+    Xor;
+
+    public boolean isLeaf() {
+        return this == ArrayElement || this == Invariant;
+    }
+
+    /**
+     * Returns the maximum number of array elements and intermediate results that are live at the
+     * same time while {@code expression} is evaluated. Invariants are not counted.
+     */
+    public static int maxLiveValues(ElementwiseOperation[] expression) {
+        boolean[] computed = new boolean[expression.length];
+        int sp = 0;
+        int live = 0;
+        int max = 0;
+        for (ElementwiseOperation operation : expression) {
+            if (operation.isLeaf()) {
+                computed[sp++] = operation == ArrayElement;
+                live += operation == ArrayElement ? 1 : 0;
+            } else {
+                boolean y = computed[--sp];
+                boolean x = computed[--sp];
+                if (!x && !y) {
+                    live++;
+                } else if (x && y) {
+                    live--;
+                }
+                computed[sp++] = true;
+            }
+            max = Math.max(max, live);
+        }
+        return max;
+    }
+}
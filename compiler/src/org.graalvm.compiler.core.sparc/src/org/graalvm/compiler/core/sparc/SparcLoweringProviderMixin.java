@@ -38,4 +38,9 @@ public interface SparcLoweringProviderMixin extends LoweringProvider {
     default boolean supportsBulkZeroing() {
         return false;
     }
+
+    @Override
+    default boolean supportsLoopVectorization() {
+        return false;
+    }
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.lir.amd64;
+
+import static jdk.vm.ci.code.ValueUtil.asRegister;
+import static org.graalvm.compiler.lir.LIRInstruction.OperandFlag.REG;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+import org.graalvm.compiler.asm.Label;
+import org.graalvm.compiler.asm.amd64.AMD64Address;
+import org.graalvm.compiler.asm.amd64.AMD64Address.Scale;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.ConditionFlag;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexMoveOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRMOp;
+import org.graalvm.compiler.asm.amd64.AMD64Assembler.VexRVMOp;
+import org.graalvm.compiler.asm.amd64.AMD64MacroAssembler;
+import org.graalvm.compiler.asm.amd64.AVXKind.AVXSize;
+import org.graalvm.compiler.core.common.LIRKind;
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
+import org.graalvm.compiler.debug.GraalError;
+import org.graalvm.compiler.lir.LIRInstructionClass;
+import org.graalvm.compiler.lir.Opcode;
+import org.graalvm.compiler.lir.asm.CompilationResultBuilder;
+import org.graalvm.compiler.lir.gen.LIRGeneratorTool;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.amd64.AMD64.CPUFeature;
+import jdk.vm.ci.amd64.AMD64Kind;
+import jdk.vm.ci.code.Register;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Emits an AVX2 loop for the vectorizable iterations of an element-wise array loop, see
+ * {@link LIRGeneratorTool#emitVectorizedArrayLoop}. Only whole vectors are processed, so the result
+ * is the index of the first of the remaining iterations, which are left to the scalar loop. If
+ * {@code start} is negative, the range is empty, or any array is null or shorter than {@code end},
+ * nothing is processed and the result is {@code start}.
+ */
+@Opcode("VECTORIZED_ARRAY_LOOP")
+public final class AMD64VectorizedArrayLoopOp extends AMD64LIRInstruction {
+    public static final LIRInstructionClass<AMD64VectorizedArrayLoopOp> TYPE = LIRInstructionClass.create(AMD64VectorizedArrayLoopOp.class);
+
+    private final JavaKind kind;
+    private final int arrayBaseOffset;
+    private final int arrayLengthOffset;
+    private final Scale arrayIndexScale;
+    private final AVXSize vectorSize;
+    private final ElementwiseOperation[] operations;
+    private final int[] operands;
+
+    @Def({REG}) protected Value resultValue;
+    @Alive({REG}) protected Value startValue;
+    @Alive({REG}) protected Value endValue;
+    @Alive({REG}) protected Value[] arrayValues;
+    @Alive({REG}) protected Value[] invariantValues;
+    @Temp({REG}) protected Value indexValue;
+    @Temp({REG}) protected Value limitValue;
+    @Temp({REG}) protected Value[] broadcastTemps;
+    @Temp({REG}) protected Value[] vectorTemps;
+
+    public AMD64VectorizedArrayLoopOp(LIRGeneratorTool tool, JavaKind kind, int arrayLengthOffset, ElementwiseOperation[] operations, int[] operands, int maxVectorSize, Value result,
+                    Value start, Value end, Value[] arrays, Value[] invariants) {
+        super(TYPE);
+        assert isSupported(tool, maxVectorSize);
+        this.kind = kind;
+        this.arrayBaseOffset = tool.getProviders().getMetaAccess().getArrayBaseOffset(kind);
+        this.arrayLengthOffset = arrayLengthOffset;
+        this.arrayIndexScale = Objects.requireNonNull(Scale.fromInt(tool.getProviders().getMetaAccess().getArrayIndexScale(kind)));
+        this.vectorSize = maxVectorSize < 0 || maxVectorSize >= 32 ? AVXSize.YMM : AVXSize.XMM;
+        this.operations = operations;
+        this.operands = operands;
+
+        this.resultValue = result;
+        this.startValue = start;
+        this.endValue = end;
+        this.arrayValues = arrays;
+        this.invariantValues = invariants;
+
+        this.indexValue = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        this.limitValue = tool.newVariable(LIRKind.value(tool.target().arch.getWordKind()));
+        LIRKind vectorKind = LIRKind.value(vectorSize == AVXSize.YMM ? AMD64Kind.V256_BYTE : AMD64Kind.V128_BYTE);
+        this.broadcastTemps = new Value[invariants.length];
+        for (int i = 0; i < broadcastTemps.length; i++) {
+            broadcastTemps[i] = tool.newVariable(vectorKind);
+        }
+        this.vectorTemps = new Value[Math.max(1, ElementwiseOperation.maxLiveValues(operations))];
+        for (int i = 0; i < vectorTemps.length; i++) {
+            vectorTemps[i] = tool.newVariable(vectorKind);
+        }
+    }
+
+    /**
+     * Determines if the target supports the instructions emitted by this op. Vectors must be at
+     * least 16 bytes wide.
+     */
+    public static boolean isSupported(LIRGeneratorTool tool, int maxVectorSize) {
+        return ((AMD64) tool.target().arch).getFeatures().contains(CPUFeature.AVX2) && (maxVectorSize < 0 || maxVectorSize >= 16);
+    }
+
+    @Override
+    public void emitCode(CompilationResultBuilder crb, AMD64MacroAssembler masm) {
+        Register result = asRegister(resultValue);
+        Register start = asRegister(startValue);
+        Register end = asRegister(endValue);
+        Register index = asRegister(indexValue);
+        Register limit = asRegister(limitValue);
+        int elementsPerVector = vectorSize.getBytes() / kind.getByteCount();
+
+        Label loop = new Label();
+        Label done = new Label();
+
+        masm.movl(result, start);
+        masm.testl(start, start);
+        masm.jcc(ConditionFlag.Less, done);
+        masm.cmpl(end, start);
+        masm.jcc(ConditionFlag.LessEqual, done);
+        for (Value array : arrayValues) {
+            Register arrayRegister = asRegister(array);
+            masm.testq(arrayRegister, arrayRegister);
+            masm.jcc(ConditionFlag.Zero, done);
+            masm.cmpl(end, new AMD64Address(arrayRegister, arrayLengthOffset));
+            masm.jcc(ConditionFlag.Greater, done);
+        }
+
+        // Number of iterations that fill whole vectors, rounded down.
+        masm.movl(limit, end);
+        masm.subl(limit, start);
+        masm.andl(limit, -elementsPerVector);
+        masm.jcc(ConditionFlag.Zero, done);
+        masm.addl(limit, start);
+
+        for (int i = 0; i < invariantValues.length; i++) {
+            emitBroadcast(masm, asRegister(broadcastTemps[i]), asRegister(invariantValues[i]));
+        }
+
+        // The index is non-negative, so the 32-bit move also yields a valid 64-bit index.
+        masm.movl(index, start);
+        masm.align(crb.target.wordSize * 2);
+        masm.bind(loop);
+        Register value = emitExpression(masm, index);
+        VexMoveOp.VMOVDQU32.emit(masm, vectorSize, elementAddress(asRegister(arrayValues[0]), index), value);
+        masm.addl(index, elementsPerVector);
+        masm.cmpl(index, limit);
+        masm.jcc(ConditionFlag.Less, loop);
+
+        masm.movl(result, limit);
+        masm.bind(done);
+    }
+
+    private AMD64Address elementAddress(Register array, Register index) {
+        return new AMD64Address(array, index, arrayIndexScale, arrayBaseOffset);
+    }
+
+    private void emitBroadcast(AMD64MacroAssembler masm, Register dst, Register src) {
+        if (kind.isNumericFloat()) {
+            // The scalar is already in the low lane of an XMM register.
+            (kind == JavaKind.Float ? VexRMOp.VPBROADCASTD : VexRMOp.VPBROADCASTQ).emit(masm, vectorSize, dst, src);
+            return;
+        }
+        (kind == JavaKind.Long ? VexMoveOp.VMOVQ : VexMoveOp.VMOVD).emit(masm, AVXSize.XMM, dst, src);
+        switch (kind) {
+            case Byte:
+                VexRMOp.VPBROADCASTB.emit(masm, vectorSize, dst, dst);
+                break;
+            case Short:
+            case Char:
+                VexRMOp.VPBROADCASTW.emit(masm, vectorSize, dst, dst);
+                break;
+            case Int:
+                VexRMOp.VPBROADCASTD.emit(masm, vectorSize, dst, dst);
+                break;
+            case Long:
+                VexRMOp.VPBROADCASTQ.emit(masm, vectorSize, dst, dst);
+                break;
+            default:
+                throw GraalError.shouldNotReachHere("unexpected kind " + kind);
+        }
+    }
+
+    /**
+     * Evaluates the expression for the elements at {@code index} and returns the register holding
+     * the result. Array elements and intermediate results are kept in the vector temporaries, which
+     * are handed out and returned like a stack.
+     */
+    private Register emitExpression(AMD64MacroAssembler masm, Register index) {
+        ArrayDeque<Register> free = new ArrayDeque<>();
+        for (Value temp : vectorTemps) {
+            free.push(asRegister(temp));
+        }
+        Register[] stack = new Register[operations.length];
+        boolean[] computed = new boolean[operations.length];
+        int sp = 0;
+        for (int i = 0; i < operations.length; i++) {
+            ElementwiseOperation operation = operations[i];
+            if (operation == ElementwiseOperation.ArrayElement) {
+                Register dst = free.pop();
+                VexMoveOp.VMOVDQU32.emit(masm, vectorSize, dst, elementAddress(asRegister(arrayValues[operands[i]]), index));
+                computed[sp] = true;
+                stack[sp++] = dst;
+            } else if (operation == ElementwiseOperation.Invariant) {
+                computed[sp] = false;
+                stack[sp++] = asRegister(broadcastTemps[operands[i]]);
+            } else {
+                Register y = stack[--sp];
+                boolean yComputed = computed[sp];
+                Register x = stack[--sp];
+                boolean xComputed = computed[sp];
+                Register dst;
+                if (xComputed) {
+                    dst = x;
+                    if (yComputed) {
+                        free.push(y);
+                    }
+                } else if (yComputed) {
+                    dst = y;
+                } else {
+                    dst = free.pop();
+                }
+                getOp(operation).emit(masm, vectorSize, dst, x, y);
+                computed[sp] = true;
+                stack[sp++] = dst;
+            }
+        }
+        assert sp == 1;
+        return stack[0];
+    }
+
+    private VexRVMOp getOp(ElementwiseOperation operation) {
+        switch (operation) {
+            case Add:
+                return select(operation, VexRVMOp.VPADDB, VexRVMOp.VPADDW, VexRVMOp.VPADDD, VexRVMOp.VPADDQ, VexRVMOp.VADDPS, VexRVMOp.VADDPD);
+            case Sub:
+                return select(operation, VexRVMOp.VPSUBB, VexRVMOp.VPSUBW, VexRVMOp.VPSUBD, VexRVMOp.VPSUBQ, VexRVMOp.VSUBPS, VexRVMOp.VSUBPD);
+            case Mul:
+                return select(operation, null, VexRVMOp.VPMULLW, VexRVMOp.VPMULLD, null, VexRVMOp.VMULPS, VexRVMOp.VMULPD);
+            case Div:
+                return select(operation, null, null, null, null, VexRVMOp.VDIVPS, VexRVMOp.VDIVPD);
+            case And:
+                return VexRVMOp.VPAND;
+            case Or:
+                return VexRVMOp.VPOR;
+            case Xor:
+                return VexRVMOp.VPXOR;
+            default:
+                throw GraalError.shouldNotReachHere("unexpected operation " + operation);
+        }
+    }
+
+    private VexRVMOp select(ElementwiseOperation operation, VexRVMOp byteOp, VexRVMOp wordOp, VexRVMOp dwordOp, VexRVMOp qwordOp, VexRVMOp singleOp, VexRVMOp doubleOp) {
+        VexRVMOp op;
+        switch (kind) {
+            case Byte:
+                op = byteOp;
+                break;
+            case Short:
+            case Char:
+                op = wordOp;
+                break;
+            case Int:
+                op = dwordOp;
+                break;
+            case Long:
+                op = qwordOp;
+                break;
+            case Float:
+                op = singleOp;
+                break;
+            case Double:
+                op = doubleOp;
+                break;
+            default:
+                op = null;
+        }
+        if (op == null) {
+            throw GraalError.shouldNotReachHere(operation + " is not supported for " + kind);
+        }
+        return op;
+    }
+}
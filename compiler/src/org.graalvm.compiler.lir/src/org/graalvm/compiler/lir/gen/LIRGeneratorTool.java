@@ -27,6 +27,7 @@ package org.graalvm.compiler.lir.gen;
 import org.graalvm.compiler.core.common.CompressEncoding;
 import org.graalvm.compiler.core.common.LIRKind;
 import org.graalvm.compiler.core.common.calc.Condition;
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
 import org.graalvm.compiler.core.common.cfg.AbstractBlockBase;
 import org.graalvm.compiler.core.common.spi.CodeGenProviders;
 import org.graalvm.compiler.core.common.spi.ForeignCallLinkage;
@@ -314,4 +315,20 @@ public interface LIRGeneratorTool extends DiagnosticLIRGeneratorTool, ValueKindF
     default void emitZeroMemory(Value address, Value length, boolean isAligned) {
         throw GraalError.unimplemented("Bulk zeroing is not implemented on this architecture");
     }
+
+    /**
+     * Emits vector code for the iterations {@code [start, end)} of a loop that computes
+     * {@code arrays[0][i] = expression(i)} for each {@code i}. The expression is given in postfix
+     * order by {@code operations} and {@code operands}; the operand of a leaf is an index into
+     * {@code arrays} or {@code invariants}. If any array is null or too short for the range, no
+     * element is written.
+     *
+     * @return the index of the first iteration that was not performed, a value between
+     *         {@code start} and {@code end}. Platforms without suitable vector instructions may
+     *         simply return {@code start}.
+     */
+    @SuppressWarnings("unused")
+    default Variable emitVectorizedArrayLoop(JavaKind kind, int arrayLengthOffset, ElementwiseOperation[] operations, int[] operands, Value start, Value end, Value[] arrays, Value[] invariants) {
+        throw GraalError.unimplemented("Loop vectorization is not implemented on this architecture");
+    }
 }
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.core.common.type.Stamp;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.loop.BasicInductionVariable;
+import org.graalvm.compiler.loop.CountedLoopInfo;
+import org.graalvm.compiler.loop.DerivedOffsetInductionVariable;
+import org.graalvm.compiler.loop.DerivedScaledInductionVariable;
+import org.graalvm.compiler.loop.InductionVariable;
+import org.graalvm.compiler.loop.LoopEx;
+import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.loop.MathUtil;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.GuardNode;
+import org.graalvm.compiler.nodes.LogicNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.BinaryArithmeticNode;
+import org.graalvm.compiler.nodes.calc.IntegerBelowNode;
+import org.graalvm.compiler.nodes.calc.IntegerConvertNode;
+import org.graalvm.compiler.nodes.calc.IntegerEqualsNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.tiers.MidTierContext;
+import org.graalvm.compiler.serviceprovider.SpeculationReasonGroup;
+
+import jdk.vm.ci.meta.DeoptimizationAction;
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.SpeculationLog;
+import jdk.vm.ci.meta.SpeculationLog.SpeculationReason;
+
+/**
+ * Replaces guards in counted loops by speculative guards in front of the loop that cover all
+ * iterations at once. Two kinds of guards are predicated:
+ *
+ * <ul>
+ * <li>Guards with a loop invariant condition, such as type checks of invariant values.</li>
+ * <li>Range checks {@code iv |<| length} of a {@linkplain BasicInductionVariable basic} or
+ * {@linkplain DerivedOffsetInductionVariable offset} or {@linkplain DerivedScaledInductionVariable
+ * scaled} induction variable against a non-negative invariant bound. Since the induction variable
+ * is monotonic, it is sufficient to check its initial value and its extremum. Both are computed
+ * with 64-bit arithmetic, so a successful check also proves that the 32-bit values do not
+ * overflow.</li>
+ * </ul>
+ *
+ * The predicated guards only hold if the loop is entered, so they are combined with a check that
+ * the loop performs no iteration. As a loop may also leave early through another exit, the new
+ * guards can fail where the original guards would not. They therefore deoptimize with a
+ * speculation of the loop, which prevents predication of the loop when the method is compiled
+ * again.
+ */
+public class LoopPredicationPhase extends BasePhase<MidTierContext> {
+
+    private static final CounterKey PREDICATED_GUARDS = DebugContext.counter("LoopPredicatedGuards");
+
+    private static final SpeculationReasonGroup LOOP_PREDICATION_SPECULATIONS = new SpeculationReasonGroup("LoopPredication", ResolvedJavaMethod.class, int.class);
+
+    /**
+     * Larger strides could overflow the 64-bit computation of the extremum.
+     */
+    private static final long MAX_STRIDE = 1L << 30;
+
+    /**
+     * Probability that a predicate is decided by its first operand, i.e., that the loop is not
+     * entered or that a check fails.
+     */
+    private static final double SHORT_CIRCUIT_PROBABILITY = 0.01;
+
+    @Override
+    protected void run(StructuredGraph graph, MidTierContext context) {
+        SpeculationLog speculationLog = graph.getSpeculationLog();
+        if (speculationLog == null || !graph.hasLoops() || !graph.getGuardsStage().allowsFloatingGuards()) {
+            return;
+        }
+        LoopsData data = new LoopsData(graph);
+        data.detectedCountedLoops();
+        List<LoopEx> loops = data.countedLoops();
+        /*
+         * Inner loops first, so that guards that are predicated in front of an inner loop can be
+         * predicated again for the outer loop.
+         */
+        for (int i = loops.size() - 1; i >= 0; i--) {
+            predicateGuards(graph, loops.get(i), speculationLog, context);
+        }
+        data.deleteUnusedNodes();
+    }
+
+    private static void predicateGuards(StructuredGraph graph, LoopEx loop, SpeculationLog speculationLog, MidTierContext context) {
+        FrameState state = loop.loopBegin().stateAfter();
+        if (state == null || state.getMethod() == null) {
+            return;
+        }
+        SpeculationReason reason = LOOP_PREDICATION_SPECULATIONS.createSpeculationReason(state.getMethod(), state.bci);
+        if (!speculationLog.maySpeculate(reason)) {
+            return;
+        }
+        /* Guards predicated for inner loops are new nodes of this loop. */
+        loop.invalidateFragments();
+        List<GuardNode> guards = new ArrayList<>();
+        for (GuardNode guard : graph.getNodes(GuardNode.TYPE)) {
+            if (guard.getAnchor() != null && loop.whole().contains(guard.getAnchor().asNode()) && SpeculationLog.NO_SPECULATION.equals(guard.getSpeculation())) {
+                guards.add(guard);
+            }
+        }
+        if (guards.isEmpty()) {
+            return;
+        }
+
+        DebugContext debug = graph.getDebug();
+        CountedLoopInfo counted = loop.counted();
+        NodeView view = NodeView.DEFAULT;
+        ValueNode maxTripCount = counted.maxTripCountNode();
+        LogicNode notEntered = graph.addOrUniqueWithInputs(IntegerEqualsNode.create(maxTripCount, ConstantNode.forIntegerStamp(maxTripCount.stamp(view), 0), view));
+        AbstractBeginNode anchor = AbstractBeginNode.prevBegin(loop.entryPoint());
+        boolean counterChecked = false;
+        for (GuardNode guard : guards) {
+            LogicNode predicate;
+            boolean negated = guard.isNegated();
+            if (loop.isOutsideLoop(guard.getCondition())) {
+                predicate = guard.getCondition();
+            } else {
+                boolean needsOverflowGuard = !counterChecked && !counted.counterNeverOverflows();
+                if (needsOverflowGuard && !context.getOptimisticOptimizations().useLoopLimitChecks(graph.getOptions())) {
+                    continue;
+                }
+                predicate = createRangePredicate(graph, loop, guard);
+                negated = false;
+                if (predicate == null) {
+                    continue;
+                }
+                if (needsOverflowGuard) {
+                    /* The extremum of the induction variables is only meaningful without overflow. */
+                    counted.createOverFlowGuard();
+                }
+                counterChecked = true;
+            }
+            LogicNode condition = LogicNode.or(notEntered, false, predicate, negated, SHORT_CIRCUIT_PROBABILITY);
+            GuardNode predicated = graph.unique(new GuardNode(condition, anchor, guard.getReason(), DeoptimizationAction.InvalidateRecompile, false, speculationLog.speculate(reason), null));
+            debug.log("Predicated %s of %s with %s", guard, loop, predicated);
+            guard.replaceAtUsages(predicated);
+            GraphUtil.killWithUnusedFloatingInputs(guard);
+            PREDICATED_GUARDS.increment(debug);
+        }
+        debug.dump(DebugContext.VERY_DETAILED_LEVEL, graph, "After predicating guards of %s", loop);
+    }
+
+    /**
+     * Creates the condition that {@code iv |<| bound} holds for all values of the induction
+     * variable, or returns {@code null} if the guard is not a supported range check.
+     */
+    private static LogicNode createRangePredicate(StructuredGraph graph, LoopEx loop, GuardNode guard) {
+        if (guard.isNegated() || !(guard.getCondition() instanceof IntegerBelowNode)) {
+            return null;
+        }
+        IntegerBelowNode below = (IntegerBelowNode) guard.getCondition();
+        NodeView view = NodeView.DEFAULT;
+        ValueNode bound = below.getY();
+        if (!loop.isOutsideLoop(bound) || !((IntegerStamp) bound.stamp(view)).isPositive() || ((IntegerStamp) below.getX().stamp(view)).getBits() != 32) {
+            return null;
+        }
+        InductionVariable iv = loop.getInductionVariables().get(below.getX());
+        if (iv == null || !iv.isConstantStride() || Math.abs(iv.constantStride()) > MAX_STRIDE) {
+            return null;
+        }
+        Stamp wide = StampFactory.forKind(JavaKind.Long);
+        ValueNode init = initNode(graph, iv, wide);
+        if (init == null) {
+            return null;
+        }
+        /*
+         * The trip count is unsigned, so its 64-bit extension is only correct if it is not
+         * negative as a signed value.
+         */
+        ValueNode maxTripCount = loop.counted().maxTripCountNode();
+        LogicNode tripCountOverflows = graph.addOrUniqueWithInputs(IntegerLessThanNode.create(maxTripCount, ConstantNode.forIntegerStamp(maxTripCount.stamp(view), 0), view));
+        ValueNode wideBound = IntegerConvertNode.convert(bound, wide, graph, view);
+        LogicNode initInRange = graph.addOrUniqueWithInputs(IntegerBelowNode.create(init, wideBound, view));
+        LogicNode extremumInRange = graph.addOrUniqueWithInputs(IntegerBelowNode.create(iv.extremumNode(false, wide), wideBound, view));
+        return LogicNode.and(tripCountOverflows, true, LogicNode.and(initInRange, extremumInRange, SHORT_CIRCUIT_PROBABILITY), false, SHORT_CIRCUIT_PROBABILITY);
+    }
+
+    /**
+     * Computes the initial value of the induction variable in the given stamp, avoiding the
+     * overflows of {@link InductionVariable#initNode()}.
+     */
+    private static ValueNode initNode(StructuredGraph graph, InductionVariable iv, Stamp stamp) {
+        NodeView view = NodeView.DEFAULT;
+        if (iv instanceof BasicInductionVariable) {
+            return IntegerConvertNode.convert(iv.initNode(), stamp, graph, view);
+        } else if (iv instanceof DerivedOffsetInductionVariable) {
+            DerivedOffsetInductionVariable offsetIv = (DerivedOffsetInductionVariable) iv;
+            ValueNode base = initNode(graph, offsetIv.getBase(), stamp);
+            if (base == null) {
+                return null;
+            }
+            ValueNode offset = IntegerConvertNode.convert(offsetIv.getOffset(), stamp, graph, view);
+            if (offsetIv.valueNode() instanceof AddNode) {
+                return MathUtil.add(graph, base, offset);
+            } else if (((BinaryArithmeticNode<?>) offsetIv.valueNode()).getX() == offsetIv.getBase().valueNode()) {
+                return MathUtil.sub(graph, base, offset);
+            } else {
+                return MathUtil.sub(graph, offset, base);
+            }
+        } else if (iv instanceof DerivedScaledInductionVariable) {
+            DerivedScaledInductionVariable scaledIv = (DerivedScaledInductionVariable) iv;
+            ValueNode base = initNode(graph, scaledIv.getBase(), stamp);
+            if (base == null || !scaledIv.getScale().isConstant()) {
+                return null;
+            }
+            return MathUtil.mul(graph, base, IntegerConvertNode.convert(scaledIv.getScale(), stamp, graph, view));
+        }
+        return null;
+    }
+}
@@ -24,6 +24,12 @@
  */
 package org.graalvm.compiler.loop.phases;
 
+import static org.graalvm.compiler.core.common.GraalOptions.LoopStripMining;
+import static org.graalvm.compiler.core.common.GraalOptions.LoopStripMiningIterations;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import org.graalvm.compiler.loop.LoopEx;
 import org.graalvm.compiler.loop.LoopsData;
 import org.graalvm.compiler.nodes.FixedNode;
@@ -35,14 +41,28 @@ import org.graalvm.compiler.nodes.extended.ForeignCallNode;
 import org.graalvm.compiler.phases.BasePhase;
 import org.graalvm.compiler.phases.tiers.MidTierContext;
 
+/**
+ * Removes safepoints from loops that do not need them. Safepoints are removed from the ends of
+ * innermost counted loops with at most 32-bit counters and from loops that already execute a
+ * safepoint on each iteration because of a call.
+ *
+ * With {@link org.graalvm.compiler.core.common.GraalOptions#LoopStripMining} enabled, innermost
+ * counted loops are {@linkplain LoopTransformations#stripMine strip mined} instead, independent of
+ * the size of their counter: the iterations are performed in strips without safepoints, and a
+ * safepoint is executed between the strips. This bounds the time to the next safepoint without
+ * paying for a poll on every iteration.
+ */
 public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
 
     @Override
     protected void run(StructuredGraph graph, MidTierContext context) {
         LoopsData loops = new LoopsData(graph);
         loops.detectedCountedLoops();
+        int stripLength = LoopStripMining.getValue(graph.getOptions()) ? LoopStripMiningIterations.getValue(graph.getOptions()) : 0;
+        List<LoopEx> stripMinedLoops = new ArrayList<>();
         for (LoopEx loop : loops.countedLoops()) {
-            if (loop.loop().getChildren().isEmpty() && (loop.counted().getStamp().getBits() <= 32 || loop.loopBegin().isPreLoop() || loop.loopBegin().isPostLoop())) {
+            boolean stripMine = stripLength > 0 && LoopTransformations.isStripMinableLoop(loop, stripLength);
+            if (loop.loop().getChildren().isEmpty() && (stripMine || loop.counted().getStamp().getBits() <= 32 || loop.loopBegin().isPreLoop() || loop.loopBegin().isPostLoop())) {
                 boolean hasSafepoint = false;
                 for (LoopEndNode loopEnd : loop.loopBegin().loopEnds()) {
                     hasSafepoint |= loopEnd.canSafepoint();
@@ -57,7 +77,12 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
                             continue;
                         }
                     }
-                    loop.loopBegin().disableSafepoint();
+                    if (stripMine) {
+                        // Decided below, once it is known whether the loop calls a safepoint.
+                        stripMinedLoops.add(loop);
+                    } else {
+                        loop.loopBegin().disableSafepoint();
+                    }
                 }
             }
         }
@@ -76,6 +101,11 @@ public class LoopSafepointEliminationPhase extends BasePhase<MidTierContext> {
                 }
             }
         }
+        for (LoopEx loop : stripMinedLoops) {
+            if (loop.loopBegin().getSingleLoopEnd().canSafepoint()) {
+                LoopTransformations.stripMine(loop, stripLength);
+            }
+        }
         loops.deleteUnusedNodes();
     }
 }
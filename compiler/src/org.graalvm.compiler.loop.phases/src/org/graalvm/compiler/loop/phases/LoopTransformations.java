@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.graalvm.collections.EconomicMap;
+import org.graalvm.compiler.core.common.NumUtil;
 import org.graalvm.compiler.core.common.RetryableBailoutException;
 import org.graalvm.compiler.core.common.calc.CanonicalCondition;
 import org.graalvm.compiler.debug.DebugContext;
@@ -41,6 +42,7 @@ import org.graalvm.compiler.graph.Node;
 import org.graalvm.compiler.graph.Position;
 import org.graalvm.compiler.graph.spi.Simplifiable;
 import org.graalvm.compiler.graph.spi.SimplifierTool;
+import org.graalvm.compiler.loop.BasicInductionVariable;
 import org.graalvm.compiler.loop.CountedLoopInfo;
 import org.graalvm.compiler.loop.DefaultLoopPolicies;
 import org.graalvm.compiler.loop.InductionVariable.Direction;
@@ -53,6 +55,7 @@ import org.graalvm.compiler.nodes.AbstractBeginNode;
 import org.graalvm.compiler.nodes.AbstractEndNode;
 import org.graalvm.compiler.nodes.AbstractMergeNode;
 import org.graalvm.compiler.nodes.BeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
 import org.graalvm.compiler.nodes.ControlSplitNode;
 import org.graalvm.compiler.nodes.EndNode;
 import org.graalvm.compiler.nodes.FixedGuardNode;
@@ -64,6 +67,7 @@ import org.graalvm.compiler.nodes.GuardProxyNode;
 import org.graalvm.compiler.nodes.IfNode;
 import org.graalvm.compiler.nodes.LogicNode;
 import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
 import org.graalvm.compiler.nodes.LoopExitNode;
 import org.graalvm.compiler.nodes.MemoryProxyNode;
 import org.graalvm.compiler.nodes.NodeView;
@@ -79,6 +83,7 @@ import org.graalvm.compiler.nodes.VirtualState.NodePositionClosure;
 import org.graalvm.compiler.nodes.calc.AddNode;
 import org.graalvm.compiler.nodes.calc.CompareNode;
 import org.graalvm.compiler.nodes.calc.ConditionalNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
 import org.graalvm.compiler.nodes.extended.GuardingNode;
 import org.graalvm.compiler.nodes.extended.OpaqueNode;
 import org.graalvm.compiler.nodes.extended.SwitchNode;
@@ -561,6 +566,163 @@ public abstract class LoopTransformations {
         compareNode.replaceFirstInput(ub, compareNode.graph().addOrUniqueWithInputs(newLimit));
     }
 
+    /**
+     * Strip mines a counted loop, i.e., splits it into an inner loop that performs at most
+     * {@code stripLength} iterations and an outer loop that re-enters the inner loop until the
+     * original limit is reached:
+     *
+     * <pre>
+     * for (i = start; i &lt; limit; i += stride) {
+     *     body;
+     * }
+     * </pre>
+     *
+     * becomes
+     *
+     * <pre>
+     * i = start;
+     * do {
+     *     stripLimit = min(i + stripLength * stride, limit);
+     *     for (; i &lt; stripLimit; i += stride) {
+     *         body;
+     *     }
+     * } while (i &lt; limit);
+     * </pre>
+     *
+     * Safepoints are disabled for the inner loop while the end of the outer loop keeps its
+     * safepoint, so a poll is executed once per strip. The inner loop remains a simple counted
+     * loop, so it is still subject to the other loop transformations. Must only be applied to loops
+     * accepted by {@link #isStripMinableLoop}.
+     *
+     * @return the {@link LoopBeginNode} of the new outer loop
+     */
+    public static LoopBeginNode stripMine(LoopEx loop, int stripLength) {
+        assert isStripMinableLoop(loop, stripLength);
+        LoopBeginNode innerBegin = loop.loopBegin();
+        StructuredGraph graph = innerBegin.graph();
+        graph.getDebug().log("LoopTransformations.stripMine %s", loop);
+
+        CountedLoopInfo counted = loop.counted();
+        IfNode limitTest = counted.getLimitTest();
+        CompareNode condition = (CompareNode) limitTest.condition();
+        ValuePhiNode counter = ((BasicInductionVariable) counted.getCounter()).valueNode();
+        ValueNode limit = counted.getLimit();
+        LoopExitNode innerExit = (LoopExitNode) counted.getCountedExit();
+        boolean continueIfTrue = limitTest.trueSuccessor() == counted.getBody();
+        AbstractEndNode innerEntry = innerBegin.forwardEnd();
+
+        /*
+         * All values leaving the loop have to leave the outer loop as well, so route every usage
+         * of the proxies of the inner loop through proxies of the outer loop. This includes the
+         * state of the exit, which becomes the state of the outer loop exit.
+         */
+        LoopBeginNode outerBegin = graph.add(new LoopBeginNode());
+        LoopExitNode outerExit = graph.add(new LoopExitNode(outerBegin));
+        for (ProxyNode proxy : innerExit.proxies().snapshot()) {
+            ProxyNode outerProxy = proxyProxy(proxy, outerExit);
+            proxy.replaceAtMatchingUsages(outerProxy, usage -> usage != outerProxy);
+        }
+        FrameState exitState = innerExit.stateAfter();
+        innerExit.setStateAfter(null);
+        outerExit.setStateAfter(exitState);
+
+        /* Enter the outer loop instead of the inner loop. */
+        EndNode outerEntry = graph.add(new EndNode());
+        innerEntry.replaceAtPredecessor(outerEntry);
+        outerBegin.addForwardEnd(outerEntry);
+        outerBegin.setNext(innerEntry);
+
+        /*
+         * Every value carried by the inner loop is also carried by the outer loop: it enters the
+         * inner loop with the value of the outer phi and leaves it through the inner loop exit.
+         */
+        EconomicMap<PhiNode, PhiNode> outerPhis = EconomicMap.create();
+        for (PhiNode innerPhi : innerBegin.phis().snapshot()) {
+            ProxyNode exitValue = (ProxyNode) proxy(graph, innerPhi, innerExit);
+            PhiNode outerPhi = exitValue.createPhi(outerBegin);
+            outerPhi.addInput(innerPhi.valueAt(innerEntry));
+            outerPhi.addInput(exitValue);
+            innerPhi.setValueAt(innerEntry, outerPhi);
+            outerPhis.put(innerPhi, outerPhi);
+        }
+        FrameState outerState = innerBegin.stateAfter().duplicateWithVirtualState();
+        outerState.applyToNonVirtual(new NodePositionClosure<Node>() {
+            @Override
+            public void apply(Node from, Position p) {
+                ValueNode usage = (ValueNode) p.get(from);
+                if (innerBegin.isPhiAtMerge(usage)) {
+                    p.set(from, outerPhis.get((PhiNode) usage));
+                }
+            }
+        });
+        outerBegin.setStateAfter(outerState);
+        if (exitState != null) {
+            createExitState(innerBegin);
+        }
+
+        /* Limit the inner loop to one strip, taking care not to overflow the counter. */
+        NodeView view = NodeView.DEFAULT;
+        ValueNode stripStart = outerPhis.get(counter);
+        int bits = counted.getStamp().getBits();
+        long stripStride = counted.getCounter().constantStride() * stripLength;
+        ValueNode stripEnd = AddNode.create(stripStart, ConstantNode.forIntegerBits(bits, stripStride), view);
+        LogicNode noOverflow;
+        LogicNode stripIsShorter;
+        if (counted.getDirection() == Direction.Up) {
+            noOverflow = IntegerLessThanNode.create(stripStart, ConstantNode.forIntegerBits(bits, NumUtil.maxValue(bits) - stripStride + 1), view);
+            stripIsShorter = IntegerLessThanNode.create(stripEnd, limit, view);
+        } else {
+            noOverflow = IntegerLessThanNode.create(ConstantNode.forIntegerBits(bits, NumUtil.minValue(bits) - stripStride - 1), stripStart, view);
+            stripIsShorter = IntegerLessThanNode.create(limit, stripEnd, view);
+        }
+        ValueNode stripLimit = ConditionalNode.create(noOverflow, ConditionalNode.create(stripIsShorter, stripEnd, limit, view), limit, view);
+        limitTest.setCondition(substituteInput(graph, condition, limit, graph.addOrUniqueWithInputs(stripLimit)));
+
+        /* Re-enter the inner loop as long as the original condition holds. */
+        LogicNode outerCondition = substituteInput(graph, condition, counter, proxy(graph, counter, innerExit));
+        GraphUtil.tryKillUnused(condition);
+        FixedNode continuation = innerExit.next();
+        innerExit.setNext(null);
+        outerExit.setNext(continuation);
+        BeginNode outerBody = graph.add(new BeginNode());
+        outerBody.setNext(graph.add(new LoopEndNode(outerBegin)));
+
+        double frequency = innerBegin.loopFrequency();
+        double outerFrequency = Math.max(1.0, frequency / stripLength);
+        double continueProbability = 1.0 - 1.0 / outerFrequency;
+        IfNode outerTest;
+        if (continueIfTrue) {
+            outerTest = graph.add(new IfNode(outerCondition, outerBody, outerExit, continueProbability));
+        } else {
+            outerTest = graph.add(new IfNode(outerCondition, outerExit, outerBody, 1.0 - continueProbability));
+        }
+        innerExit.setNext(outerTest);
+
+        innerBegin.disableSafepoint();
+        innerBegin.setLoopFrequency(Math.min(frequency, stripLength));
+        outerBegin.setLoopFrequency(outerFrequency);
+        graph.getDebug().dump(DebugContext.DETAILED_LEVEL, graph, "StripMine %s", loop);
+        return outerBegin;
+    }
+
+    private static ProxyNode proxyProxy(ProxyNode proxy, LoopExitNode lex) {
+        if (proxy instanceof ValueProxyNode) {
+            return ProxyNode.forValue(proxy, lex);
+        } else if (proxy instanceof GuardProxyNode) {
+            return ProxyNode.forGuard((GuardProxyNode) proxy, lex);
+        } else if (proxy instanceof MemoryProxyNode) {
+            return ProxyNode.forMemory((MemoryProxyNode) proxy, lex, ((MemoryProxyNode) proxy).getKilledLocationIdentity());
+        } else {
+            throw GraalError.shouldNotReachHere("Unknown proxy type " + proxy);
+        }
+    }
+
+    private static LogicNode substituteInput(StructuredGraph graph, CompareNode compare, ValueNode oldInput, ValueNode newInput) {
+        ValueNode x = compare.getX() == oldInput ? newInput : compare.getX();
+        ValueNode y = compare.getY() == oldInput ? newInput : compare.getY();
+        return CompareNode.createCompareNode(graph, compare.condition(), x, y, null, NodeView.DEFAULT);
+    }
+
     public static List<ControlSplitNode> findUnswitchable(LoopEx loop) {
         List<ControlSplitNode> controls = null;
         ValueNode invariantValue = null;
@@ -635,4 +797,40 @@ public abstract class LoopTransformations {
         }
         return false;
     }
+
+    /**
+     * Determines if {@link #stripMine} can be applied to the loop. Loops that are known to perform
+     * no more than {@code stripLength} iterations do not need strip mining.
+     */
+    public static boolean isStripMinableLoop(LoopEx loop, int stripLength) {
+        if (!loop.isCounted() || !loop.loop().getChildren().isEmpty() || !(loop.counted().getCounter() instanceof BasicInductionVariable) ||
+                        !loop.counted().getCounter().isConstantStride() || loop.counted().isUnsignedCheck()) {
+            return false;
+        }
+        LoopBeginNode loopBegin = loop.loopBegin();
+        if (!loopBegin.isSimpleLoop() || loopBegin.loopEnds().count() != 1 || loopBegin.loopExits().count() != 1 || loopBegin.stateAfter() == null || !loopBegin.graph().hasValueProxies()) {
+            return false;
+        }
+        CountedLoopInfo counted = loop.counted();
+        LogicNode condition = counted.getLimitTest().condition();
+        if (!(condition instanceof CompareNode) || ((CompareNode) condition).condition() != CanonicalCondition.LT) {
+            return false;
+        }
+        CompareNode compare = (CompareNode) condition;
+        ValueNode counter = ((BasicInductionVariable) counted.getCounter()).valueNode();
+        if (!(compare.getX() == counter && compare.getY() == counted.getLimit()) && !(compare.getX() == counted.getLimit() && compare.getY() == counter)) {
+            return false;
+        }
+        if (counted.isConstantMaxTripCount() && counted.constantMaxTripCount().isLessThan(stripLength + 1L)) {
+            return false;
+        }
+        int bits = counted.getStamp().getBits();
+        long stripStride;
+        try {
+            stripStride = Math.multiplyExact(counted.getCounter().constantStride(), stripLength);
+        } catch (ArithmeticException ae) {
+            return false;
+        }
+        return stripStride > NumUtil.minValue(bits) && stripStride <= NumUtil.maxValue(bits);
+    }
 }
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.phases;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.collections.MapCursor;
+
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
+import org.graalvm.compiler.core.common.type.IntegerStamp;
+import org.graalvm.compiler.debug.CounterKey;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.loop.BasicInductionVariable;
+import org.graalvm.compiler.loop.CountedLoopInfo;
+import org.graalvm.compiler.loop.InductionVariable;
+import org.graalvm.compiler.loop.LoopEx;
+import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.AndNode;
+import org.graalvm.compiler.nodes.calc.BinaryNode;
+import org.graalvm.compiler.nodes.calc.FloatDivNode;
+import org.graalvm.compiler.nodes.calc.IntegerConvertNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.NarrowNode;
+import org.graalvm.compiler.nodes.calc.OrNode;
+import org.graalvm.compiler.nodes.calc.SignExtendNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.calc.XorNode;
+import org.graalvm.compiler.nodes.calc.ZeroExtendNode;
+import org.graalvm.compiler.nodes.extended.VectorizedArrayLoopNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.spi.CoreProviders;
+import org.graalvm.compiler.phases.BasePhase;
+
+import jdk.vm.ci.meta.JavaKind;
+
+/**
+ * Vectorizes innermost counted loops of the form
+ *
+ * <pre>
+ * for (int i = start; i &lt; end; i++) {
+ *     a[i] = expression;
+ * }
+ * </pre>
+ *
+ * where {@code a} is a primitive array and the expression combines loop invariants and elements of
+ * other arrays at the same index {@code i} with element-wise arithmetic. Since every iteration only
+ * touches index {@code i}, the iterations are independent even if arrays alias, and whole vectors
+ * of them can be performed at once.
+ *
+ * The loop itself is left in place: a {@link VectorizedArrayLoopNode} is inserted in front of it and
+ * performs as many iterations as fit into whole vectors, and its result becomes the new initial
+ * value of the induction variable. The remaining iterations, as well as all iterations when an
+ * array is null or too short, are performed by the original scalar loop, so exceptions are thrown
+ * exactly where they would be thrown without vectorization. Since the scalar loop keeps its shape,
+ * the later loop phases such as unrolling still apply to it.
+ */
+public class LoopVectorizationPhase extends BasePhase<CoreProviders> {
+
+    private static final CounterKey VECTORIZED_LOOPS = DebugContext.counter("VectorizedLoops");
+
+    /**
+     * Loops with a known trip count below this limit are not worth vectorizing.
+     */
+    private static final int MIN_TRIP_COUNT = 16;
+
+    private static final int MAX_ARRAYS = 4;
+    private static final int MAX_INVARIANTS = 4;
+    private static final int MAX_LIVE_VALUES = 4;
+    private static final int MAX_OPERATIONS = 32;
+
+    @Override
+    @SuppressWarnings("try")
+    protected void run(StructuredGraph graph, CoreProviders context) {
+        if (!graph.hasLoops() || !context.getLowerer().supportsLoopVectorization()) {
+            return;
+        }
+        DebugContext debug = graph.getDebug();
+        EconomicMap<LoopBeginNode, List<ArrayLengthNode>> hoisted = hoistArrayLengths(graph);
+        if (!hoisted.isEmpty()) {
+            debug.dump(DebugContext.VERY_DETAILED_LEVEL, graph, "After hoisting array lengths");
+        }
+        LoopsData data = new LoopsData(graph);
+        try (DebugContext.Scope s = debug.scope("vectorization", data.getCFG())) {
+            data.detectedCountedLoops();
+            for (LoopEx loop : data.countedLoops()) {
+                if (loop.loop().getChildren().isEmpty() && tryVectorize(graph, loop, context)) {
+                    debug.log("Vectorized %s", loop);
+                    VECTORIZED_LOOPS.increment(debug);
+                    debug.dump(DebugContext.DETAILED_LEVEL, graph, "Vectorized %s", loop);
+                    hoisted.removeKey(loop.loopBegin());
+                }
+            }
+            data.deleteUnusedNodes();
+        } catch (Throwable t) {
+            throw debug.handle(t);
+        }
+        restoreArrayLengths(graph, hoisted);
+    }
+
+    /**
+     * Moves the array length loads of invariant arrays at the start of innermost loop headers in
+     * front of the loops, which makes loops like {@code for (i = 0; i < a.length; i++)} counted.
+     * The header is executed at least once when the loop is entered, and no side effect happens
+     * in between, so any exception is still thrown at the same point.
+     *
+     * @return the hoisted loads of each loop, in their original order
+     */
+    private static EconomicMap<LoopBeginNode, List<ArrayLengthNode>> hoistArrayLengths(StructuredGraph graph) {
+        EconomicMap<LoopBeginNode, List<ArrayLengthNode>> hoisted = EconomicMap.create(Equivalence.IDENTITY);
+        LoopsData data = new LoopsData(graph);
+        for (LoopEx loop : data.loops()) {
+            if (!loop.loop().getChildren().isEmpty()) {
+                continue;
+            }
+            LoopBeginNode loopBegin = loop.loopBegin();
+            List<ArrayLengthNode> lengths = new ArrayList<>();
+            while (loopBegin.next() instanceof ArrayLengthNode && loop.isOutsideLoop(((ArrayLengthNode) loopBegin.next()).array())) {
+                ArrayLengthNode length = (ArrayLengthNode) loopBegin.next();
+                graph.removeFixed(length);
+                graph.addBeforeFixed(loopBegin.forwardEnd(), length);
+                lengths.add(length);
+            }
+            if (!lengths.isEmpty()) {
+                hoisted.put(loopBegin, lengths);
+            }
+        }
+        return hoisted;
+    }
+
+    /**
+     * Moves the array length loads hoisted out of loops that were not vectorized back to the loop
+     * headers, so that the graph of such loops is left as it was.
+     */
+    private static void restoreArrayLengths(StructuredGraph graph, EconomicMap<LoopBeginNode, List<ArrayLengthNode>> hoisted) {
+        MapCursor<LoopBeginNode, List<ArrayLengthNode>> cursor = hoisted.getEntries();
+        while (cursor.advance()) {
+            LoopBeginNode loopBegin = cursor.getKey();
+            List<ArrayLengthNode> lengths = cursor.getValue();
+            for (int i = lengths.size() - 1; i >= 0; i--) {
+                ArrayLengthNode length = lengths.get(i);
+                graph.removeFixed(length);
+                graph.addAfterFixed(loopBegin, length);
+            }
+        }
+    }
+
+    private static boolean tryVectorize(StructuredGraph graph, LoopEx loop, CoreProviders context) {
+        LoopBeginNode loopBegin = loop.loopBegin();
+        CountedLoopInfo counted = loop.counted();
+        InductionVariable counter = counted.getCounter();
+        if (!(counter instanceof BasicInductionVariable) || !counter.isConstantStride() || counter.constantStride() != 1 || counted.isLimitIncluded() || counted.isUnsignedCheck()) {
+            return false;
+        }
+        ValuePhiNode phi = ((BasicInductionVariable) counter).valueNode();
+        if (phi.merge() != loopBegin || ((IntegerStamp) phi.stamp(NodeView.DEFAULT)).getBits() != 32) {
+            return false;
+        }
+        if (counted.isConstantMaxTripCount() && counted.constantMaxTripCount().isLessThan(MIN_TRIP_COUNT)) {
+            return false;
+        }
+        /* The only value carried across iterations must be the counter. */
+        if (loopBegin.phis().count() != 1 || loopBegin.getLoopEndCount() != 1 || loopBegin.loopExits().count() != 1 || loopBegin.next() != counted.getLimitTest()) {
+            return false;
+        }
+
+        /* The body must be straight-line code of indexed loads followed by a single store. */
+        List<LoadIndexedNode> loads = new ArrayList<>();
+        StoreIndexedNode store = null;
+        FixedNode current = counted.getBody().next();
+        while (!(current instanceof LoopEndNode)) {
+            if (current instanceof LoadIndexedNode && store == null) {
+                loads.add((LoadIndexedNode) current);
+            } else if (current instanceof StoreIndexedNode && store == null) {
+                store = (StoreIndexedNode) current;
+            } else {
+                return false;
+            }
+            current = ((FixedWithNextNode) current).next();
+        }
+        if (store == null || ((LoopEndNode) current).loopBegin() != loopBegin) {
+            return false;
+        }
+        JavaKind kind = store.elementKind();
+        if (!kind.isPrimitive() || kind == JavaKind.Boolean || store.index() != phi || !loop.isOutsideLoop(store.array())) {
+            return false;
+        }
+
+        Expression expression = new Expression(loop, phi, kind);
+        expression.arrays.add(store.array());
+        if (!expression.add(store.value()) || !expression.loads.containsAll(loads) || expression.arrays.size() > MAX_ARRAYS || expression.invariants.size() > MAX_INVARIANTS ||
+                        expression.operations.size() > MAX_OPERATIONS) {
+            return false;
+        }
+        ElementwiseOperation[] operations = expression.operations.toArray(new ElementwiseOperation[0]);
+        if (ElementwiseOperation.maxLiveValues(operations) > MAX_LIVE_VALUES) {
+            return false;
+        }
+
+        FrameState state = null;
+        if (graph.getGuardsStage().areFrameStatesAtSideEffects()) {
+            FrameState loopState = loopBegin.stateAfter();
+            if (loopState == null || loopState.virtualObjectMappingCount() > 0) {
+                return false;
+            }
+            state = loopState.duplicate();
+        }
+
+        int[] operands = expression.operands.stream().mapToInt(Integer::intValue).toArray();
+        VectorizedArrayLoopNode vectorized = graph.add(new VectorizedArrayLoopNode(kind, context.getLowerer().arrayLengthOffset(), operations, operands, counted.getStart(), counted.getLimit(),
+                        expression.arrays, expression.invariants));
+        graph.addBeforeFixed(loopBegin.forwardEnd(), vectorized);
+        if (state != null) {
+            /* After the vectorized iterations, the loop is entered with the updated counter. */
+            state.replaceAllInputs(phi, vectorized);
+            vectorized.setStateAfter(state);
+        }
+        phi.setValueAt(loopBegin.forwardEnd(), vectorized);
+        return true;
+    }
+
+    /**
+     * Translates the value stored by the loop body into a postfix sequence of
+     * {@link ElementwiseOperation element-wise operations}.
+     */
+    private static final class Expression {
+        private final LoopEx loop;
+        private final ValuePhiNode counter;
+        private final JavaKind kind;
+
+        final List<ElementwiseOperation> operations = new ArrayList<>();
+        final List<Integer> operands = new ArrayList<>();
+        final List<ValueNode> arrays = new ArrayList<>();
+        final List<ValueNode> invariants = new ArrayList<>();
+        final List<LoadIndexedNode> loads = new ArrayList<>();
+
+        Expression(LoopEx loop, ValuePhiNode counter, JavaKind kind) {
+            this.loop = loop;
+            this.counter = counter;
+            this.kind = kind;
+        }
+
+        boolean add(ValueNode value) {
+            if (value.getStackKind() != kind.getStackKind()) {
+                return false;
+            }
+            if (loop.isOutsideLoop(value)) {
+                return addLeaf(ElementwiseOperation.Invariant, invariants, value);
+            }
+            if (value instanceof LoadIndexedNode) {
+                LoadIndexedNode load = (LoadIndexedNode) value;
+                if (load.elementKind() != kind || load.index() != counter || !loop.isOutsideLoop(load.array())) {
+                    return false;
+                }
+                loads.add(load);
+                return addLeaf(ElementwiseOperation.ArrayElement, arrays, load.array());
+            }
+            if (isSubIntKind() && (value instanceof NarrowNode || value instanceof SignExtendNode || value instanceof ZeroExtendNode)) {
+                /* Only the low bits of the value are stored, and they are not changed. */
+                IntegerConvertNode<?, ?> convert = (IntegerConvertNode<?, ?>) value;
+                int bits = kind.getBitCount();
+                return convert.getInputBits() >= bits && convert.getResultBits() >= bits && add(convert.getValue());
+            }
+            ElementwiseOperation operation = getOperation(value);
+            if (operation == null || !isSupported(operation)) {
+                return false;
+            }
+            BinaryNode binary = (BinaryNode) value;
+            if (!add(binary.getX()) || !add(binary.getY())) {
+                return false;
+            }
+            operations.add(operation);
+            operands.add(0);
+            return true;
+        }
+
+        private boolean addLeaf(ElementwiseOperation operation, List<ValueNode> values, ValueNode value) {
+            int index = values.indexOf(value);
+            if (index < 0) {
+                index = values.size();
+                values.add(value);
+            }
+            operations.add(operation);
+            operands.add(index);
+            return true;
+        }
+
+        private boolean isSubIntKind() {
+            return kind == JavaKind.Byte || kind == JavaKind.Short || kind == JavaKind.Char;
+        }
+
+        /**
+         * Determines if the operation is available for the element kind. For sub-int kinds, only
+         * operations whose low result bits depend only on the low bits of the operands qualify.
+         */
+        private boolean isSupported(ElementwiseOperation operation) {
+            switch (operation) {
+                case Add:
+                case Sub:
+                    return true;
+                case Mul:
+                    return kind != JavaKind.Byte && kind != JavaKind.Long;
+                case Div:
+                    return kind.isNumericFloat();
+                case And:
+                case Or:
+                case Xor:
+                    return kind.isNumericInteger();
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Maps a node to its operation. Subclasses such as the exact arithmetic nodes have
+         * different semantics, so the classes must match exactly.
+         */
+        private static ElementwiseOperation getOperation(Node node) {
+            Class<?> c = node.getClass();
+            if (c == AddNode.class) {
+                return ElementwiseOperation.Add;
+            } else if (c == SubNode.class) {
+                return ElementwiseOperation.Sub;
+            } else if (c == MulNode.class) {
+                return ElementwiseOperation.Mul;
+            } else if (c == FloatDivNode.class) {
+                return ElementwiseOperation.Div;
+            } else if (c == AndNode.class) {
+                return ElementwiseOperation.And;
+            } else if (c == OrNode.class) {
+                return ElementwiseOperation.Or;
+            } else if (c == XorNode.class) {
+                return ElementwiseOperation.Xor;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.test;
+
+import java.util.ListIterator;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.loop.LoopEx;
+import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.loop.phases.LoopPredicationPhase;
+import org.graalvm.compiler.nodes.GuardNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.calc.IntegerBelowNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.Phase;
+import org.graalvm.compiler.phases.tiers.MidTierContext;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.junit.Test;
+
+import jdk.vm.ci.meta.SpeculationLog;
+
+public class LoopPredicationTest extends GraalCompilerTest {
+
+    @Override
+    protected SpeculationLog getSpeculationLog() {
+        return getCodeCache().createSpeculationLog();
+    }
+
+    private int predicatedGuards;
+    private int guardsInLoops;
+    private int rangeChecksInLoops;
+
+    @Override
+    protected Suites createSuites(OptionValues opts) {
+        Suites suites = super.createSuites(opts);
+        ListIterator<BasePhase<? super MidTierContext>> position = suites.getMidTier().findPhase(LoopPredicationPhase.class, true);
+        if (position != null) {
+            position.add(new Phase() {
+                @Override
+                protected void run(StructuredGraph graph) {
+                    LoopsData data = new LoopsData(graph);
+                    predicatedGuards = 0;
+                    guardsInLoops = 0;
+                    rangeChecksInLoops = 0;
+                    for (GuardNode guard : graph.getNodes(GuardNode.TYPE)) {
+                        if (!SpeculationLog.NO_SPECULATION.equals(guard.getSpeculation())) {
+                            predicatedGuards++;
+                        }
+                        for (LoopEx loop : data.loops()) {
+                            if (guard.getAnchor() != null && loop.whole().contains(guard.getAnchor().asNode())) {
+                                guardsInLoops++;
+                                if (guard.getCondition() instanceof IntegerBelowNode) {
+                                    rangeChecksInLoops++;
+                                }
+                                break;
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        return suites;
+    }
+
+    private OptionValues getPredicationOptions() {
+        return new OptionValues(getInitialOptions(), GraalOptions.LoopPredication, true);
+    }
+
+    /**
+     * Compiles {@code name} with a fresh speculation log and checks that all guards of its loop
+     * were moved in front of it.
+     */
+    private void assertPredicated(String name) {
+        getCode(getResolvedJavaMethod(name), null, true, false, getPredicationOptions());
+        assertTrue(predicatedGuards > 0, "expected predicated guards in %s", name);
+        assertTrue(rangeChecksInLoops == 0, "%d range checks left in the loop of %s", rangeChecksInLoops, name);
+        assertTrue(guardsInLoops == 0, "%d guards left in the loop of %s", guardsInLoops, name);
+    }
+
+    public static int sumPrefix(int[] array, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSumPrefix() {
+        assertPredicated("sumPrefix");
+        int[] array = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        test(getPredicationOptions(), "sumPrefix", array, 0);
+        test(getPredicationOptions(), "sumPrefix", array, 10);
+        test(getPredicationOptions(), "sumPrefix", array, 11);
+        test(getPredicationOptions(), "sumPrefix", null, 0);
+        test(getPredicationOptions(), "sumPrefix", null, 1);
+    }
+
+    public static int sumSuffixDown(int[] array, int start) {
+        int sum = 0;
+        for (int i = start; i >= 0; i--) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSumSuffixDown() {
+        assertPredicated("sumSuffixDown");
+        int[] array = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        test(getPredicationOptions(), "sumSuffixDown", array, -1);
+        test(getPredicationOptions(), "sumSuffixDown", array, 9);
+        test(getPredicationOptions(), "sumSuffixDown", array, 10);
+    }
+
+    public static int derivedIndices(int[] array, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += array[i + 1] * array[2 * i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testDerivedIndices() {
+        assertPredicated("derivedIndices");
+        int[] array = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        test(getPredicationOptions(), "derivedIndices", array, 5);
+        test(getPredicationOptions(), "derivedIndices", array, 6);
+        test(getPredicationOptions(), "derivedIndices", array, Integer.MAX_VALUE);
+    }
+
+    public static int earlyExit(int[] array, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            if (sum > 100) {
+                break;
+            }
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testEarlyExit() {
+        int[] array = {50, 50, 50, 50};
+        test(getPredicationOptions(), "earlyExit", array, 4);
+        test(getPredicationOptions(), "earlyExit", array, 100);
+    }
+
+    public static int invariantCast(Object value, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += (Integer) value;
+        }
+        return sum;
+    }
+
+    @Test
+    public void testInvariantCast() {
+        assertPredicated("invariantCast");
+        test(getPredicationOptions(), "invariantCast", 3, 10);
+        test(getPredicationOptions(), "invariantCast", "3", 0);
+        test(getPredicationOptions(), "invariantCast", "3", 10);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.test;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.SafepointNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.options.OptionValues;
+import org.junit.Test;
+
+public class LoopStripMiningTest extends GraalCompilerTest {
+
+    private static final int STRIP_LENGTH = 7;
+
+    @Override
+    protected void checkMidTierGraph(StructuredGraph graph) {
+        assertTrue(graph.getNodes().filter(LoopBeginNode.class).count() >= 2, "expected a strip mined loop");
+        assertTrue(graph.getNodes().filter(SafepointNode.class).isNotEmpty(), "expected a safepoint in the outer loop");
+    }
+
+    private OptionValues getStripMiningOptions() {
+        return new OptionValues(getInitialOptions(), GraalOptions.LoopStripMining, true, GraalOptions.LoopStripMiningIterations, STRIP_LENGTH);
+    }
+
+    public static int sumArray(int[] array) {
+        int sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Test
+    public void testSumArray() {
+        for (int length : new int[]{0, 1, STRIP_LENGTH - 1, STRIP_LENGTH, STRIP_LENGTH + 1, 100}) {
+            int[] array = new int[length];
+            for (int i = 0; i < length; i++) {
+                array[i] = i * 31;
+            }
+            test(getStripMiningOptions(), "sumArray", array);
+        }
+    }
+
+    public static int countDown(int start, int end) {
+        int result = 0;
+        for (int i = start; i > end; i -= 2) {
+            result = result * 31 + i;
+        }
+        return result;
+    }
+
+    @Test
+    public void testCountDown() {
+        test(getStripMiningOptions(), "countDown", 100, 0);
+        test(getStripMiningOptions(), "countDown", 0, 100);
+        test(getStripMiningOptions(), "countDown", Integer.MIN_VALUE + 20, Integer.MIN_VALUE + 1);
+    }
+
+    public static int countUpToLimit(int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            result = result * 31 + i;
+        }
+        return result;
+    }
+
+    @Test
+    public void testCountUpToLimit() {
+        test(getStripMiningOptions(), "countUpToLimit", 0, 100);
+        test(getStripMiningOptions(), "countUpToLimit", Integer.MAX_VALUE - 20, Integer.MAX_VALUE);
+        test(getStripMiningOptions(), "countUpToLimit", Integer.MIN_VALUE, Integer.MIN_VALUE + 50);
+    }
+
+    public static long longCounter(long start, long end) {
+        long result = 0;
+        for (long i = start; i < end; i += 3) {
+            result = result * 31 + i;
+        }
+        return result;
+    }
+
+    @Test
+    public void testLongCounter() {
+        test(getStripMiningOptions(), "longCounter", 0L, 100L);
+        test(getStripMiningOptions(), "longCounter", Long.MAX_VALUE - 100, Long.MAX_VALUE - 2);
+    }
+}
@@ -0,0 +1,672 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.loop.test;
+
+import java.lang.reflect.Array;
+import java.util.ListIterator;
+
+import org.graalvm.compiler.core.common.GraalOptions;
+import org.graalvm.compiler.core.test.GraalCompilerTest;
+import org.graalvm.compiler.loop.LoopEx;
+import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.loop.phases.LoopVectorizationPhase;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.extended.VectorizedArrayLoopNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.options.OptionValues;
+import org.graalvm.compiler.phases.BasePhase;
+import org.graalvm.compiler.phases.Phase;
+import org.graalvm.compiler.phases.tiers.HighTierContext;
+import org.graalvm.compiler.phases.tiers.Suites;
+import org.junit.Test;
+
+import jdk.vm.ci.amd64.AMD64;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+
+/**
+ * Compares vectorized array loops against the interpreter for all element kinds and operations.
+ * The trip counts cover empty loops, loops shorter than a vector, exactly one vector and loops that
+ * leave a scalar remainder. The loops also start at unaligned indices and run over aliased arrays.
+ */
+public class LoopVectorizationTest extends GraalCompilerTest {
+
+    /**
+     * The size of an AVX2 vector in bytes.
+     */
+    private static final int VECTOR_BYTES = 32;
+
+    private int vectorizedLoops;
+    private int arrayLengthsInLoops;
+
+    @Override
+    protected Suites createSuites(OptionValues opts) {
+        Suites suites = super.createSuites(opts);
+        ListIterator<BasePhase<? super HighTierContext>> position = suites.getHighTier().findPhase(LoopVectorizationPhase.class);
+        if (position != null) {
+            position.add(new Phase() {
+                @Override
+                protected void run(StructuredGraph graph) {
+                    vectorizedLoops = graph.getNodes().filter(VectorizedArrayLoopNode.class).count();
+                    LoopsData data = new LoopsData(graph);
+                    arrayLengthsInLoops = 0;
+                    for (ArrayLengthNode length : graph.getNodes().filter(ArrayLengthNode.class)) {
+                        for (LoopEx loop : data.loops()) {
+                            if (!loop.isOutsideLoop(length)) {
+                                arrayLengthsInLoops++;
+                                break;
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        return suites;
+    }
+
+    private OptionValues getVectorizationOptions() {
+        return new OptionValues(getInitialOptions(), GraalOptions.LoopVectorization, true);
+    }
+
+    private boolean canVectorize() {
+        return getTarget().arch instanceof AMD64;
+    }
+
+    /**
+     * Compiles {@code name} and checks whether its loop was vectorized, then compares it against
+     * the interpreter for all combinations of trip count, start index and aliasing.
+     */
+    private void testLoop(String name, Class<?> elementType, boolean expectVectorized) {
+        ResolvedJavaMethod method = getResolvedJavaMethod(name);
+        OptionValues options = getVectorizationOptions();
+        vectorizedLoops = 0;
+        getCode(method, null, true, false, options);
+        if (canVectorize()) {
+            assertTrue(vectorizedLoops == (expectVectorized ? 1 : 0), "unexpected number of vectorized loops in %s: %d", name, vectorizedLoops);
+        }
+
+        int width = VECTOR_BYTES / elementSize(elementType);
+        for (int start : new int[]{0, 1, 3}) {
+            for (int tripCount : new int[]{0, 1, width - 1, width, width + 1, 2 * width + 3, 100}) {
+                int end = start + tripCount;
+                for (Aliasing aliasing : Aliasing.values()) {
+                    testLoop(options, method, elementType, start, end, end + 2, aliasing);
+                }
+                if (tripCount > 0) {
+                    // The scalar loop must throw at the same index as the interpreter.
+                    testLoop(options, method, elementType, start, end, end - 1, Aliasing.NONE);
+                    testLoop(options, method, elementType, start, end, -1, Aliasing.NONE);
+                }
+            }
+        }
+    }
+
+    private enum Aliasing {
+        NONE,
+        /** The destination is also the first input. */
+        INPUT,
+        /** The destination is used for both inputs. */
+        ALL
+    }
+
+    /**
+     * Runs one loop in the interpreter and compiled on identical copies of the arrays and compares
+     * the result as well as the contents of all arrays afterwards.
+     *
+     * @param inputLength the length of the second input, or -1 to pass {@code null}
+     */
+    private void testLoop(OptionValues options, ResolvedJavaMethod method, Class<?> elementType, int start, int end, int inputLength, Aliasing aliasing) {
+        Object[] expectedArgs = createArguments(elementType, start, end, inputLength, aliasing);
+        Object[] actualArgs = createArguments(elementType, start, end, inputLength, aliasing);
+        Result expect = executeExpected(method, null, expectedArgs);
+        Result actual = executeActual(options, method, null, actualArgs);
+        String context = String.format("%s start=%d end=%d inputLength=%d aliasing=%s", method.getName(), start, end, inputLength, aliasing);
+        try {
+            assertEquals(expect, actual);
+        } catch (AssertionError e) {
+            throw new AssertionError(context, e);
+        }
+        assertDeepEquals(context, expectedArgs, actualArgs);
+    }
+
+    private static Object[] createArguments(Class<?> elementType, int start, int end, int inputLength, Aliasing aliasing) {
+        int length = end + 2;
+        Object a = createArray(elementType, length, 1);
+        Object b = aliasing == Aliasing.NONE ? createArray(elementType, length, 2) : a;
+        Object c = aliasing == Aliasing.ALL ? a : (inputLength < 0 ? null : createArray(elementType, inputLength, 3));
+        return new Object[]{a, b, c, element(elementType, 7, 4), start, end};
+    }
+
+    private static Object createArray(Class<?> elementType, int length, int seed) {
+        Object array = Array.newInstance(elementType, length);
+        for (int i = 0; i < length; i++) {
+            Array.set(array, i, element(elementType, i, seed));
+        }
+        return array;
+    }
+
+    /**
+     * Creates element values that overflow the sub-int kinds and are never zero or NaN for the
+     * floating point kinds.
+     */
+    private static Object element(Class<?> elementType, int index, int seed) {
+        int value = index * 37 + seed * 101;
+        if (elementType == byte.class) {
+            return (byte) value;
+        } else if (elementType == short.class) {
+            return (short) (value * 331);
+        } else if (elementType == char.class) {
+            return (char) (value * 331);
+        } else if (elementType == int.class) {
+            return value * 0x01000193;
+        } else if (elementType == long.class) {
+            return value * 0x100000001B3L;
+        } else if (elementType == float.class) {
+            return (value % 97) * 0.75f + 0.5f;
+        } else {
+            assert elementType == double.class;
+            return (value % 97) * 0.375 + 0.25;
+        }
+    }
+
+    private static int elementSize(Class<?> elementType) {
+        if (elementType == byte.class) {
+            return Byte.BYTES;
+        } else if (elementType == short.class || elementType == char.class) {
+            return Short.BYTES;
+        } else if (elementType == int.class || elementType == float.class) {
+            return Integer.BYTES;
+        } else {
+            return Long.BYTES;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static byte[] byteAdd(byte[] a, byte[] b, byte[] c, byte x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (byte) (b[i] + c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static byte[] byteSub(byte[] a, byte[] b, byte[] c, byte x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (byte) (b[i] - c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static byte[] byteMul(byte[] a, byte[] b, byte[] c, byte x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (byte) (b[i] * c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static byte[] byteAnd(byte[] a, byte[] b, byte[] c, byte x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (byte) (b[i] & c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static byte[] byteOr(byte[] a, byte[] b, byte[] c, byte x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (byte) (b[i] | c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static byte[] byteXor(byte[] a, byte[] b, byte[] c, byte x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (byte) (b[i] ^ c[i]);
+        }
+        return a;
+    }
+
+    public static byte[] byteInvariant(byte[] a, byte[] b, byte[] c, byte x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (byte) ((b[i] + x) ^ c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static short[] shortAdd(short[] a, short[] b, short[] c, short x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (short) (b[i] + c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static short[] shortSub(short[] a, short[] b, short[] c, short x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (short) (b[i] - c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static short[] shortMul(short[] a, short[] b, short[] c, short x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (short) (b[i] * c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static short[] shortAnd(short[] a, short[] b, short[] c, short x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (short) (b[i] & c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static short[] shortOr(short[] a, short[] b, short[] c, short x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (short) (b[i] | c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static short[] shortXor(short[] a, short[] b, short[] c, short x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (short) (b[i] ^ c[i]);
+        }
+        return a;
+    }
+
+    public static short[] shortInvariant(short[] a, short[] b, short[] c, short x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (short) ((b[i] + x) ^ c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static char[] charAdd(char[] a, char[] b, char[] c, char x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (char) (b[i] + c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static char[] charSub(char[] a, char[] b, char[] c, char x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (char) (b[i] - c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static char[] charMul(char[] a, char[] b, char[] c, char x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (char) (b[i] * c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static char[] charAnd(char[] a, char[] b, char[] c, char x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (char) (b[i] & c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static char[] charOr(char[] a, char[] b, char[] c, char x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (char) (b[i] | c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static char[] charXor(char[] a, char[] b, char[] c, char x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (char) (b[i] ^ c[i]);
+        }
+        return a;
+    }
+
+    public static char[] charInvariant(char[] a, char[] b, char[] c, char x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (char) ((b[i] + x) ^ c[i]);
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static int[] intAdd(int[] a, int[] b, int[] c, int x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] + c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static int[] intSub(int[] a, int[] b, int[] c, int x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] - c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static int[] intMul(int[] a, int[] b, int[] c, int x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] * c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static int[] intAnd(int[] a, int[] b, int[] c, int x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] & c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static int[] intOr(int[] a, int[] b, int[] c, int x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] | c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static int[] intXor(int[] a, int[] b, int[] c, int x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] ^ c[i];
+        }
+        return a;
+    }
+
+    public static int[] intInvariant(int[] a, int[] b, int[] c, int x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (b[i] + x) ^ c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static long[] longAdd(long[] a, long[] b, long[] c, long x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] + c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static long[] longSub(long[] a, long[] b, long[] c, long x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] - c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static long[] longMul(long[] a, long[] b, long[] c, long x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] * c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static long[] longAnd(long[] a, long[] b, long[] c, long x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] & c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static long[] longOr(long[] a, long[] b, long[] c, long x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] | c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static long[] longXor(long[] a, long[] b, long[] c, long x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] ^ c[i];
+        }
+        return a;
+    }
+
+    public static long[] longInvariant(long[] a, long[] b, long[] c, long x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (b[i] + x) ^ c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static float[] floatAdd(float[] a, float[] b, float[] c, float x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] + c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static float[] floatSub(float[] a, float[] b, float[] c, float x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] - c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static float[] floatMul(float[] a, float[] b, float[] c, float x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] * c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static float[] floatDiv(float[] a, float[] b, float[] c, float x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] / c[i];
+        }
+        return a;
+    }
+
+    public static float[] floatInvariant(float[] a, float[] b, float[] c, float x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (b[i] + x) * c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static double[] doubleAdd(double[] a, double[] b, double[] c, double x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] + c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static double[] doubleSub(double[] a, double[] b, double[] c, double x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] - c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static double[] doubleMul(double[] a, double[] b, double[] c, double x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] * c[i];
+        }
+        return a;
+    }
+
+    @SuppressWarnings("unused")
+    public static double[] doubleDiv(double[] a, double[] b, double[] c, double x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = b[i] / c[i];
+        }
+        return a;
+    }
+
+    public static double[] doubleInvariant(double[] a, double[] b, double[] c, double x, int start, int end) {
+        for (int i = start; i < end; i++) {
+            a[i] = (b[i] + x) * c[i];
+        }
+        return a;
+    }
+
+    @Test
+    public void testByte() {
+        testLoop("byteAdd", byte.class, true);
+        testLoop("byteSub", byte.class, true);
+        // There is no byte multiplication in AVX2.
+        testLoop("byteMul", byte.class, false);
+        testLoop("byteAnd", byte.class, true);
+        testLoop("byteOr", byte.class, true);
+        testLoop("byteXor", byte.class, true);
+        testLoop("byteInvariant", byte.class, true);
+    }
+
+    @Test
+    public void testShort() {
+        testLoop("shortAdd", short.class, true);
+        testLoop("shortSub", short.class, true);
+        testLoop("shortMul", short.class, true);
+        testLoop("shortAnd", short.class, true);
+        testLoop("shortOr", short.class, true);
+        testLoop("shortXor", short.class, true);
+        testLoop("shortInvariant", short.class, true);
+    }
+
+    @Test
+    public void testChar() {
+        testLoop("charAdd", char.class, true);
+        testLoop("charSub", char.class, true);
+        testLoop("charMul", char.class, true);
+        testLoop("charAnd", char.class, true);
+        testLoop("charOr", char.class, true);
+        testLoop("charXor", char.class, true);
+        testLoop("charInvariant", char.class, true);
+    }
+
+    @Test
+    public void testInt() {
+        testLoop("intAdd", int.class, true);
+        testLoop("intSub", int.class, true);
+        testLoop("intMul", int.class, true);
+        testLoop("intAnd", int.class, true);
+        testLoop("intOr", int.class, true);
+        testLoop("intXor", int.class, true);
+        testLoop("intInvariant", int.class, true);
+    }
+
+    @Test
+    public void testLong() {
+        testLoop("longAdd", long.class, true);
+        testLoop("longSub", long.class, true);
+        // There is no 64-bit multiplication in AVX2.
+        testLoop("longMul", long.class, false);
+        testLoop("longAnd", long.class, true);
+        testLoop("longOr", long.class, true);
+        testLoop("longXor", long.class, true);
+        testLoop("longInvariant", long.class, true);
+    }
+
+    @Test
+    public void testFloat() {
+        testLoop("floatAdd", float.class, true);
+        testLoop("floatSub", float.class, true);
+        testLoop("floatMul", float.class, true);
+        testLoop("floatDiv", float.class, true);
+        testLoop("floatInvariant", float.class, true);
+    }
+
+    @Test
+    public void testDouble() {
+        testLoop("doubleAdd", double.class, true);
+        testLoop("doubleSub", double.class, true);
+        testLoop("doubleMul", double.class, true);
+        testLoop("doubleDiv", double.class, true);
+        testLoop("doubleInvariant", double.class, true);
+    }
+
+    public static int[] incrementAll(int[] a) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] = a[i] + 1;
+        }
+        return a;
+    }
+
+    static int sideEffect;
+
+    public static int[] incrementAllWithSideEffect(int[] a) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] = a[i] + 1;
+            sideEffect = i;
+        }
+        return a;
+    }
+
+    /**
+     * The array length is only hoisted out of the loop header if the loop is vectorized.
+     */
+    @Test
+    public void testArrayLengthHoisting() {
+        OptionValues options = getVectorizationOptions();
+        getCode(getResolvedJavaMethod("incrementAll"), null, true, false, options);
+        if (canVectorize()) {
+            assertTrue(vectorizedLoops == 1, "expected a vectorized loop");
+            assertTrue(arrayLengthsInLoops == 0, "expected the array length to be hoisted");
+        }
+        getCode(getResolvedJavaMethod("incrementAllWithSideEffect"), null, true, false, options);
+        assertTrue(vectorizedLoops == 0, "expected no vectorized loop");
+        assertTrue(arrayLengthsInLoops == 1, "expected the array length to stay in the loop");
+
+        for (int length : new int[]{0, 1, 7, 8, 9, 100}) {
+            test(options, "incrementAll", supply(() -> new int[length]));
+            test(options, "incrementAllWithSideEffect", supply(() -> new int[length]));
+        }
+        test(options, "incrementAll", (Object) null);
+        test(options, "incrementAllWithSideEffect", (Object) null);
+    }
+}
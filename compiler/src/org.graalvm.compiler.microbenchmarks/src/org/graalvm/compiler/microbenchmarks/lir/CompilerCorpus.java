@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.microbenchmarks.lir;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Large methods with the shapes that dominate compile time in real-world code. They are only
+ * compiled by {@link CompilerCorpusBenchmark} and never executed.
+ */
+public final class CompilerCorpus {
+
+    // Opcodes of the stack machine executed by interpret.
+    static final int NOP = 0;
+    static final int PUSH = 1;
+    static final int POP = 2;
+    static final int DUP = 3;
+    static final int SWAP = 4;
+    static final int LOAD = 5;
+    static final int STORE = 6;
+    static final int ADD = 7;
+    static final int SUB = 8;
+    static final int MUL = 9;
+    static final int DIV = 10;
+    static final int REM = 11;
+    static final int NEG = 12;
+    static final int AND = 13;
+    static final int OR = 14;
+    static final int XOR = 15;
+    static final int SHL = 16;
+    static final int SHR = 17;
+    static final int USHR = 18;
+    static final int INC = 19;
+    static final int DEC = 20;
+    static final int EQ = 21;
+    static final int NE = 22;
+    static final int LT = 23;
+    static final int LE = 24;
+    static final int GT = 25;
+    static final int GE = 26;
+    static final int JMP = 27;
+    static final int JZ = 28;
+    static final int JNZ = 29;
+    static final int CALL = 30;
+    static final int RET = 31;
+    static final int ALOAD = 32;
+    static final int ASTORE = 33;
+    static final int ALEN = 34;
+    static final int MIN = 35;
+    static final int MAX = 36;
+    static final int ABS = 37;
+    static final int HALT = 38;
+
+    private CompilerCorpus() {
+    }
+
+    /**
+     * A switch based bytecode interpreter as found in language implementations that are not based
+     * on partial evaluation.
+     */
+    public static long interpret(byte[] code, long[] locals, long[] heap, long[] stack) {
+        int pc = 0;
+        int sp = 0;
+        int[] returnStack = new int[64];
+        int rsp = 0;
+        while (true) {
+            int opcode = code[pc++];
+            switch (opcode) {
+                case NOP:
+                    break;
+                case PUSH:
+                    stack[sp++] = (code[pc] << 8) | (code[pc + 1] & 0xFF);
+                    pc += 2;
+                    break;
+                case POP:
+                    sp--;
+                    break;
+                case DUP:
+                    stack[sp] = stack[sp - 1];
+                    sp++;
+                    break;
+                case SWAP: {
+                    long tmp = stack[sp - 1];
+                    stack[sp - 1] = stack[sp - 2];
+                    stack[sp - 2] = tmp;
+                    break;
+                }
+                case LOAD:
+                    stack[sp++] = locals[code[pc++]];
+                    break;
+                case STORE:
+                    locals[code[pc++]] = stack[--sp];
+                    break;
+                case ADD:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] + stack[sp];
+                    break;
+                case SUB:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] - stack[sp];
+                    break;
+                case MUL:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] * stack[sp];
+                    break;
+                case DIV:
+                    sp--;
+                    if (stack[sp] == 0) {
+                        throw new ArithmeticException("division by zero at " + (pc - 1));
+                    }
+                    stack[sp - 1] = stack[sp - 1] / stack[sp];
+                    break;
+                case REM:
+                    sp--;
+                    if (stack[sp] == 0) {
+                        throw new ArithmeticException("division by zero at " + (pc - 1));
+                    }
+                    stack[sp - 1] = stack[sp - 1] % stack[sp];
+                    break;
+                case NEG:
+                    stack[sp - 1] = -stack[sp - 1];
+                    break;
+                case AND:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] & stack[sp];
+                    break;
+                case OR:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] | stack[sp];
+                    break;
+                case XOR:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] ^ stack[sp];
+                    break;
+                case SHL:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] << stack[sp];
+                    break;
+                case SHR:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] >> stack[sp];
+                    break;
+                case USHR:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] >>> stack[sp];
+                    break;
+                case INC:
+                    locals[code[pc++]]++;
+                    break;
+                case DEC:
+                    locals[code[pc++]]--;
+                    break;
+                case EQ:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] == stack[sp] ? 1 : 0;
+                    break;
+                case NE:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] != stack[sp] ? 1 : 0;
+                    break;
+                case LT:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] < stack[sp] ? 1 : 0;
+                    break;
+                case LE:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] <= stack[sp] ? 1 : 0;
+                    break;
+                case GT:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] > stack[sp] ? 1 : 0;
+                    break;
+                case GE:
+                    sp--;
+                    stack[sp - 1] = stack[sp - 1] >= stack[sp] ? 1 : 0;
+                    break;
+                case JMP:
+                    pc = (code[pc] << 8) | (code[pc + 1] & 0xFF);
+                    break;
+                case JZ:
+                    if (stack[--sp] == 0) {
+                        pc = (code[pc] << 8) | (code[pc + 1] & 0xFF);
+                    } else {
+                        pc += 2;
+                    }
+                    break;
+                case JNZ:
+                    if (stack[--sp] != 0) {
+                        pc = (code[pc] << 8) | (code[pc + 1] & 0xFF);
+                    } else {
+                        pc += 2;
+                    }
+                    break;
+                case CALL:
+                    if (rsp == returnStack.length) {
+                        returnStack = Arrays.copyOf(returnStack, rsp * 2);
+                    }
+                    returnStack[rsp++] = pc + 2;
+                    pc = (code[pc] << 8) | (code[pc + 1] & 0xFF);
+                    break;
+                case RET:
+                    if (rsp == 0) {
+                        return sp == 0 ? 0 : stack[sp - 1];
+                    }
+                    pc = returnStack[--rsp];
+                    break;
+                case ALOAD: {
+                    int index = (int) stack[sp - 1];
+                    if (index < 0 || index >= heap.length) {
+                        throw new IndexOutOfBoundsException("heap index " + index + " at " + (pc - 1));
+                    }
+                    stack[sp - 1] = heap[index];
+                    break;
+                }
+                case ASTORE: {
+                    sp -= 2;
+                    int index = (int) stack[sp];
+                    if (index < 0 || index >= heap.length) {
+                        throw new IndexOutOfBoundsException("heap index " + index + " at " + (pc - 1));
+                    }
+                    heap[index] = stack[sp + 1];
+                    break;
+                }
+                case ALEN:
+                    stack[sp++] = heap.length;
+                    break;
+                case MIN:
+                    sp--;
+                    stack[sp - 1] = Math.min(stack[sp - 1], stack[sp]);
+                    break;
+                case MAX:
+                    sp--;
+                    stack[sp - 1] = Math.max(stack[sp - 1], stack[sp]);
+                    break;
+                case ABS:
+                    stack[sp - 1] = Math.abs(stack[sp - 1]);
+                    break;
+                case HALT:
+                    return sp == 0 ? 0 : stack[sp - 1];
+                default:
+                    throw new IllegalStateException("invalid opcode " + opcode + " at " + (pc - 1));
+            }
+        }
+    }
+
+    /**
+     * Stream pipelines with many small lambdas that all need to be inlined.
+     */
+    public static Map<Integer, List<String>> streamStatistics(List<String> words, int minLength) {
+        Map<Integer, List<String>> byLength = words.stream().filter(Objects::nonNull).map(String::trim).filter(w -> w.length() >= minLength).distinct().collect(
+                        Collectors.groupingBy(String::length, TreeMap::new, Collectors.toList()));
+        int total = byLength.values().stream().mapToInt(List::size).sum();
+        String longest = words.stream().filter(Objects::nonNull).max(Comparator.comparingInt(String::length).thenComparing(Function.identity())).orElse("");
+        List<String> histogram = IntStream.rangeClosed(minLength, longest.length()).filter(byLength::containsKey).mapToObj(
+                        length -> length + ":" + byLength.get(length).stream().sorted().collect(Collectors.joining(",", "[", "]"))).collect(Collectors.toList());
+        byLength.put(-1, histogram);
+        byLength.put(-2, Arrays.asList(String.valueOf(total), longest));
+        return byLength;
+    }
+
+    /**
+     * The shape of a node generated by the Truffle DSL for an operation with several
+     * specializations: a state bit set guards the fast paths and a slow path activates new
+     * specializations under a lock.
+     */
+    public static final class AddNodeGen {
+
+        private static final int INT_ADD = 0b1;
+        private static final int LONG_ADD = 0b10;
+        private static final int DOUBLE_ADD = 0b100;
+        private static final int STRING_CONCAT = 0b1000;
+        private static final int CACHED_ARRAY = 0b10000;
+        private static final int GENERIC = 0b100000;
+
+        private static final int CACHE_LIMIT = 3;
+
+        private int state;
+        private int exclude;
+        private ArrayCache arrayCache;
+
+        static final class ArrayCache {
+            final Class<?> cachedClass;
+            final ArrayCache next;
+
+            ArrayCache(Class<?> cachedClass, ArrayCache next) {
+                this.cachedClass = cachedClass;
+                this.next = next;
+            }
+
+            int count() {
+                return next == null ? 1 : next.count() + 1;
+            }
+        }
+
+        public Object execute(Object left, Object right) {
+            int s = state;
+            if ((s & INT_ADD) != 0 && left instanceof Integer && right instanceof Integer) {
+                int l = (Integer) left;
+                int r = (Integer) right;
+                int result = l + r;
+                if (((l ^ result) & (r ^ result)) >= 0) {
+                    return result;
+                }
+                return executeAndSpecializeOverflow(left, right);
+            }
+            if ((s & LONG_ADD) != 0 && isLong(left) && isLong(right)) {
+                return Math.addExact(asLong(left), asLong(right));
+            }
+            if ((s & DOUBLE_ADD) != 0 && left instanceof Double && right instanceof Double) {
+                return (Double) left + (Double) right;
+            }
+            if ((s & STRING_CONCAT) != 0 && (left instanceof String || right instanceof String)) {
+                return String.valueOf(left).concat(String.valueOf(right));
+            }
+            if ((s & CACHED_ARRAY) != 0 && left != null && right != null) {
+                for (ArrayCache c = arrayCache; c != null; c = c.next) {
+                    if (left.getClass() == c.cachedClass && right.getClass() == c.cachedClass) {
+                        return concatArrays(left, right);
+                    }
+                }
+            }
+            if ((s & GENERIC) != 0) {
+                return generic(left, right);
+            }
+            return executeAndSpecialize(left, right);
+        }
+
+        private synchronized Object executeAndSpecializeOverflow(Object left, Object right) {
+            exclude |= INT_ADD;
+            state = (state & ~INT_ADD) | LONG_ADD;
+            return Math.addExact(asLong(left), asLong(right));
+        }
+
+        private synchronized Object executeAndSpecialize(Object left, Object right) {
+            int s = state;
+            int e = exclude;
+            if ((e & INT_ADD) == 0 && left instanceof Integer && right instanceof Integer) {
+                state = s | INT_ADD;
+                return execute(left, right);
+            }
+            if (isLong(left) && isLong(right)) {
+                state = (s & ~INT_ADD) | LONG_ADD;
+                exclude = e | INT_ADD;
+                return Math.addExact(asLong(left), asLong(right));
+            }
+            if (left instanceof Double && right instanceof Double) {
+                state = s | DOUBLE_ADD;
+                return (Double) left + (Double) right;
+            }
+            if (left instanceof String || right instanceof String) {
+                state = s | STRING_CONCAT;
+                return String.valueOf(left).concat(String.valueOf(right));
+            }
+            if ((e & CACHED_ARRAY) == 0 && left != null && right != null && left.getClass().isArray() && left.getClass() == right.getClass()) {
+                ArrayCache c = arrayCache;
+                if (c == null || c.count() < CACHE_LIMIT) {
+                    arrayCache = new ArrayCache(left.getClass(), c);
+                    state = s | CACHED_ARRAY;
+                    return concatArrays(left, right);
+                }
+            }
+            arrayCache = null;
+            exclude = e | CACHED_ARRAY;
+            state = (s & ~CACHED_ARRAY) | GENERIC;
+            return generic(left, right);
+        }
+
+        private static boolean isLong(Object value) {
+            return value instanceof Long || value instanceof Integer;
+        }
+
+        private static long asLong(Object value) {
+            return value instanceof Long ? (Long) value : (long) (Integer) value;
+        }
+
+        private static Object concatArrays(Object left, Object right) {
+            if (left instanceof int[]) {
+                int[] l = (int[]) left;
+                int[] r = (int[]) right;
+                int[] result = Arrays.copyOf(l, l.length + r.length);
+                System.arraycopy(r, 0, result, l.length, r.length);
+                return result;
+            }
+            if (left instanceof double[]) {
+                double[] l = (double[]) left;
+                double[] r = (double[]) right;
+                double[] result = Arrays.copyOf(l, l.length + r.length);
+                System.arraycopy(r, 0, result, l.length, r.length);
+                return result;
+            }
+            Object[] l = (Object[]) left;
+            Object[] r = (Object[]) right;
+            Object[] result = Arrays.copyOf(l, l.length + r.length);
+            System.arraycopy(r, 0, result, l.length, r.length);
+            return result;
+        }
+
+        private static Object generic(Object left, Object right) {
+            if (left instanceof Number && right instanceof Number) {
+                return ((Number) left).doubleValue() + ((Number) right).doubleValue();
+            }
+            throw new UnsupportedOperationException("cannot add " + left + " and " + right);
+        }
+    }
+}
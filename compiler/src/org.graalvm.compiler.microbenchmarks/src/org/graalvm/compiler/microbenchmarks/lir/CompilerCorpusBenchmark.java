@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.microbenchmarks.lir;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.graalvm.compiler.code.CompilationResult;
+import org.graalvm.compiler.microbenchmarks.graal.GraalBenchmark;
+import org.graalvm.compiler.nodes.StructuredGraph;
+
+/**
+ * Compiles the large methods of {@link CompilerCorpus} and a few big JDK methods through the
+ * complete pipeline, the front end (high, mid and low tier) and the back end.
+ *
+ * The time and the allocated bytes of single phases are measured by the separate
+ * {@link #phaseMetrics} benchmark, which enables the {@link PhaseMetrics phase timers and memory
+ * use trackers}. They slow down compilation, so its score is not comparable to the others. The
+ * metrics of the phase selected by {@link PhaseMetricsState#phase} are reported as
+ * {@linkplain PhaseCounters auxiliary counters}.
+ */
+public class CompilerCorpusBenchmark extends GraalBenchmark {
+
+    public static class CompileState extends GraalCompilerState.Compile {
+        @MethodDescString @Param({
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus#interpret",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus#streamStatistics",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus$AddNodeGen#execute",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus$AddNodeGen#executeAndSpecialize",
+                        "java.util.HashMap#putVal",
+                        "java.util.regex.Pattern#sequence"
+        }) public String method;
+    }
+
+    @Benchmark
+    public CompilationResult compile(CompileState s) {
+        return s.compile();
+    }
+
+    public static class FrontEndState extends GraalCompilerState.FrontEndOnly {
+        @MethodDescString @Param({
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus#interpret",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus#streamStatistics",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus$AddNodeGen#execute",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus$AddNodeGen#executeAndSpecialize",
+                        "java.util.HashMap#putVal",
+                        "java.util.regex.Pattern#sequence"
+        }) public String method;
+    }
+
+    @Benchmark
+    public StructuredGraph frontend(FrontEndState s) {
+        return s.compile();
+    }
+
+    public static class BackEndState extends GraalCompilerState.BackEndOnly {
+        @MethodDescString @Param({
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus#interpret",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus#streamStatistics",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus$AddNodeGen#execute",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus$AddNodeGen#executeAndSpecialize",
+                        "java.util.HashMap#putVal",
+                        "java.util.regex.Pattern#sequence"
+        }) public String method;
+    }
+
+    @Benchmark
+    public CompilationResult backend(BackEndState s) {
+        return s.compile();
+    }
+
+    public static class PhaseMetricsState extends GraalCompilerState.Compile {
+        @MethodDescString @Param({
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus#interpret",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus#streamStatistics",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus$AddNodeGen#execute",
+                        "org.graalvm.compiler.microbenchmarks.lir.CompilerCorpus$AddNodeGen#executeAndSpecialize",
+                        "java.util.HashMap#putVal",
+                        "java.util.regex.Pattern#sequence"
+        }) public String method;
+
+        /**
+         * The simple class name of the phase or LIR phase to measure. Any phase of the pipeline
+         * can be selected with {@code -p phase=<name>}.
+         */
+        @Param({
+                        "HighTier",
+                        "MidTier",
+                        "LowTier",
+                        "PreAllocationOptimizationStage",
+                        "AllocationStage",
+                        "PostAllocationOptimizationStage"
+        }) public String phase;
+
+        @Override
+        protected boolean collectPhaseMetrics() {
+            return true;
+        }
+    }
+
+    /**
+     * The metrics of the selected phase, summed over the compilations of an iteration. Dividing
+     * them by {@link #compilations} yields the time and the allocated bytes of the phase per
+     * compilation.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PhaseCounters {
+        /** The time spent in the phase, in nanoseconds. */
+        public long phaseTimeNanos;
+        /** The bytes allocated by the phase. */
+        public long phaseAllocatedBytes;
+        /** The number of compilations. */
+        public long compilations;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            phaseTimeNanos = 0;
+            phaseAllocatedBytes = 0;
+            compilations = 0;
+        }
+    }
+
+    @Benchmark
+    public CompilationResult phaseMetrics(PhaseMetricsState s, PhaseCounters counters) {
+        CompilationResult result = s.compile();
+        PhaseMetrics metrics = s.recordPhaseMetrics();
+        counters.phaseTimeNanos += metrics.get("PhaseTime_" + s.phase) + metrics.get("LIRPhaseTime_" + s.phase);
+        counters.phaseAllocatedBytes += metrics.get("PhaseMemUse_" + s.phase) + metrics.get("LIRPhaseMemUse_" + s.phase);
+        counters.compilations++;
+        return result;
+    }
+}
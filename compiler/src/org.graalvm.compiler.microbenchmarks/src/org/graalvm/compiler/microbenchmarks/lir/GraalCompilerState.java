@@ -130,6 +130,17 @@ public abstract class GraalCompilerState {
         return false;
     }
 
+    /**
+     * Determines if the time and the memory allocated by each compiler phase are collected for the
+     * compilations of this state. The collected metrics are available through
+     * {@link #recordPhaseMetrics()}.
+     *
+     * @see PhaseMetrics
+     */
+    protected boolean collectPhaseMetrics() {
+        return false;
+    }
+
     @SuppressWarnings("try")
     protected void initializeMethod() {
         GraalState graal = new GraalState();
@@ -310,6 +321,7 @@ public abstract class GraalCompilerState {
     private ScheduleResult schedule;
     private AbstractBlockBase<?>[] codeEmittingOrder;
     private AbstractBlockBase<?>[] linearScanOrder;
+    private PhaseMetrics phaseMetrics;
 
     /**
      * Copies the {@link #originalGraph original graph} and prepares the {@link #request}.
@@ -320,7 +332,14 @@ public abstract class GraalCompilerState {
     protected final void prepareRequest() {
         assert originalGraph != null : "call initialzeMethod first";
         CompilationIdentifier compilationId = backend.getCompilationIdentifier(originalGraph.method());
-        graph = originalGraph.copyWithIdentifier(compilationId, originalGraph.getDebug());
+        DebugContext compilationDebug = originalGraph.getDebug();
+        if (collectPhaseMetrics()) {
+            if (phaseMetrics == null) {
+                phaseMetrics = new PhaseMetrics(getOptions());
+            }
+            compilationDebug = phaseMetrics.open();
+        }
+        graph = originalGraph.copyWithIdentifier(compilationId, compilationDebug);
         assert !graph.isFrozen();
         ResolvedJavaMethod installedCodeOwner = graph.method();
         request = new Request<>(graph, installedCodeOwner, getProviders(), getBackend(), getDefaultGraphBuilderSuite(), OptimisticOptimizations.ALL,
@@ -328,6 +347,16 @@ public abstract class GraalCompilerState {
                         true);
     }
 
+    /**
+     * Takes the metrics of the last compilation and returns them. Must only be called once per
+     * compilation and if {@link #collectPhaseMetrics()} is enabled.
+     */
+    protected final PhaseMetrics recordPhaseMetrics() {
+        assert collectPhaseMetrics() && phaseMetrics != null;
+        phaseMetrics.close(graph.getDebug());
+        return phaseMetrics;
+    }
+
     /**
      * Executes the high-level (FrontEnd) part of the compiler.
      */
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.microbenchmarks.lir;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.DebugContext.Builder;
+import org.graalvm.compiler.debug.DebugOptions;
+import org.graalvm.compiler.debug.MemUseTrackerKey;
+import org.graalvm.compiler.debug.MetricKey;
+import org.graalvm.compiler.debug.TimerKey;
+import org.graalvm.compiler.options.OptionValues;
+
+/**
+ * Collects the {@linkplain DebugContext#timer(CharSequence) timers} and
+ * {@linkplain DebugContext#memUseTracker(CharSequence) memory use trackers} of the compilations
+ * done by a {@link GraalCompilerState}. Each compilation gets its own {@link DebugContext} with all
+ * timers and memory use trackers enabled. The values are taken when the context is
+ * {@linkplain #close(DebugContext) closed}, and {@link #get(String)} yields the time and the
+ * allocated bytes of every compiler phase, tier and LIR stage in that compilation.
+ *
+ * Enabling the metrics slows down compilation, so they must not be collected in the runs whose
+ * scores are compared.
+ */
+final class PhaseMetrics {
+
+    private final OptionValues options;
+    private final Map<String, Long> values = new HashMap<>();
+
+    PhaseMetrics(OptionValues options) {
+        this.options = new OptionValues(options, DebugOptions.Timers, "", DebugOptions.MemUseTrackers, "");
+    }
+
+    /**
+     * Creates the {@link DebugContext} for a new compilation.
+     */
+    DebugContext open() {
+        return new Builder(options).build();
+    }
+
+    /**
+     * Takes the metrics of a compilation, replacing those of the previous one, and closes its
+     * {@link DebugContext}.
+     */
+    void close(DebugContext debug) {
+        values.clear();
+        for (Map.Entry<MetricKey, Long> e : debug.getMetricsSnapshot().entrySet()) {
+            MetricKey key = e.getKey();
+            if (isPhaseMetric(key)) {
+                long value = e.getValue();
+                if (key instanceof TimerKey) {
+                    value = ((TimerKey) key).getTimeUnit().toNanos(value);
+                }
+                values.merge(key.getDocName(), value, Long::sum);
+            }
+        }
+        debug.close();
+    }
+
+    /**
+     * Only the accumulated values are recorded, which include the nested phases. The flat values
+     * can be derived from them. The flat keys derived from accumulated keys are the ones without a
+     * {@linkplain MetricKey#getDocName() doc name}.
+     */
+    private static boolean isPhaseMetric(MetricKey key) {
+        return (key instanceof TimerKey || key instanceof MemUseTrackerKey) && key.getDocName() != null;
+    }
+
+    /**
+     * Gets the value of the timer or memory use tracker named {@code name} in the last closed
+     * compilation, e.g., {@code PhaseTime_HighTier} or {@code LIRPhaseMemUse_AllocationStage}.
+     * Times are in nanoseconds, memory in bytes. Metrics that were not recorded are 0.
+     */
+    long get(String name) {
+        return values.getOrDefault(name, 0L);
+    }
+}
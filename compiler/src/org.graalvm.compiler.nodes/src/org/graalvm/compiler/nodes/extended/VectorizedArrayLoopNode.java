@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package org.graalvm.compiler.nodes.extended;
+
+import static org.graalvm.compiler.nodeinfo.InputType.Memory;
+import static org.graalvm.compiler.nodeinfo.NodeCycles.CYCLES_UNKNOWN;
+import static org.graalvm.compiler.nodeinfo.NodeSize.SIZE_64;
+
+import java.util.List;
+
+import org.graalvm.compiler.core.common.calc.ElementwiseOperation;
+import org.graalvm.compiler.core.common.type.StampFactory;
+import org.graalvm.compiler.graph.NodeClass;
+import org.graalvm.compiler.graph.NodeInputList;
+import org.graalvm.compiler.nodeinfo.NodeInfo;
+import org.graalvm.compiler.nodes.AbstractStateSplit;
+import org.graalvm.compiler.nodes.NamedLocationIdentity;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.memory.SingleMemoryKill;
+import org.graalvm.compiler.nodes.spi.LIRLowerable;
+import org.graalvm.compiler.nodes.spi.NodeLIRBuilderTool;
+import org.graalvm.word.LocationIdentity;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.Value;
+
+/**
+ * Performs a prefix of the iterations {@code [start, end)} of a counted loop that computes
+ * {@code arrays[0][i] = expression(i)} with vector instructions, and produces the index of the
+ * first iteration that still has to be performed by the scalar loop. The expression only reads
+ * elements at index {@code i}, so iterations can be performed in any grouping.
+ *
+ * Nothing is written if one of the arrays is null or shorter than {@code end}; the scalar loop
+ * then performs all iterations and throws the appropriate exception.
+ */
+@NodeInfo(allowedUsageTypes = Memory, cycles = CYCLES_UNKNOWN, size = SIZE_64)
+public final class VectorizedArrayLoopNode extends AbstractStateSplit implements LIRLowerable, SingleMemoryKill {
+
+    public static final NodeClass<VectorizedArrayLoopNode> TYPE = NodeClass.create(VectorizedArrayLoopNode.class);
+
+    @Input protected ValueNode start;
+    @Input protected ValueNode end;
+    @Input protected NodeInputList<ValueNode> arrays;
+    @Input protected NodeInputList<ValueNode> invariants;
+
+    protected final JavaKind elementKind;
+    protected final int arrayLengthOffset;
+    protected final ElementwiseOperation[] operations;
+    protected final int[] operands;
+
+    public VectorizedArrayLoopNode(JavaKind elementKind, int arrayLengthOffset, ElementwiseOperation[] operations, int[] operands, ValueNode start, ValueNode end, List<ValueNode> arrays,
+                    List<ValueNode> invariants) {
+        super(TYPE, StampFactory.forKind(JavaKind.Int));
+        assert operations.length == operands.length;
+        this.elementKind = elementKind;
+        this.arrayLengthOffset = arrayLengthOffset;
+        this.operations = operations;
+        this.operands = operands;
+        this.start = start;
+        this.end = end;
+        this.arrays = new NodeInputList<>(this, arrays);
+        this.invariants = new NodeInputList<>(this, invariants);
+    }
+
+    public JavaKind getElementKind() {
+        return elementKind;
+    }
+
+    @Override
+    public LocationIdentity getKilledLocationIdentity() {
+        return NamedLocationIdentity.getArrayLocation(elementKind);
+    }
+
+    @Override
+    public void generate(NodeLIRBuilderTool gen) {
+        Value[] arrayValues = new Value[arrays.size()];
+        for (int i = 0; i < arrayValues.length; i++) {
+            arrayValues[i] = gen.operand(arrays.get(i));
+        }
+        Value[] invariantValues = new Value[invariants.size()];
+        for (int i = 0; i < invariantValues.length; i++) {
+            invariantValues[i] = gen.operand(invariants.get(i));
+        }
+        Value result = gen.getLIRGeneratorTool().emitVectorizedArrayLoop(elementKind, arrayLengthOffset, operations, operands, gen.operand(start), gen.operand(end), arrayValues,
+                        invariantValues);
+        gen.setResult(this, result);
+    }
+}
@@ -56,4 +56,14 @@ public interface LoweringProvider {
      * Indicates whether this target platform supports bulk zeroing of arbitrary size.
      */
     boolean supportsBulkZeroing();
+
+    /**
+     * Indicates whether the LIR generator of this target platform can emit vectorized array loops.
+     */
+    boolean supportsLoopVectorization();
+
+    /**
+     * Gets the offset of the length field in an array object.
+     */
+    int arrayLengthOffset();
 }
@@ -1069,6 +1069,7 @@ public abstract class DefaultJavaLoweringProvider implements LoweringProvider {
 
     public abstract ValueNode staticFieldBase(StructuredGraph graph, ResolvedJavaField field);
 
+    @Override
     public abstract int arrayLengthOffset();
 
     public Stamp loadStamp(Stamp stamp, JavaKind kind) {
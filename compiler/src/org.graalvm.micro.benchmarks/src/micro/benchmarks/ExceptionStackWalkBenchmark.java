@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the stack walk for exceptions: each operation recurses to a given depth, throws an
+ * exception there, and materializes its stack trace in the handler. On a native image, the stack
+ * walk looks up the code information of every frame, so running it once with the default options
+ * and once with {@code -H:FrameInfoCacheSize=0} shows the effect of the frame information cache.
+ */
+public class ExceptionStackWalkBenchmark extends BenchmarkBase {
+
+    @State(Scope.Benchmark)
+    public static class ThreadState {
+        @Param({"10", "100", "500"}) int depth;
+    }
+
+    @Benchmark
+    public int stackTrace(ThreadState state) {
+        try {
+            return recurse(state.depth);
+        } catch (BenchmarkException e) {
+            return e.getStackTrace().length;
+        }
+    }
+
+    private static int recurse(int depth) {
+        if (depth == 0) {
+            throw new BenchmarkException();
+        }
+        /* Alternate between two call sites so that the frames are not all the same. */
+        if ((depth & 1) == 0) {
+            return recurse(depth - 1) + 1;
+        } else {
+            return recurse(depth - 1) + 2;
+        }
+    }
+
+    static final class BenchmarkException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Loops whose array bounds checks cannot be eliminated statically because the loop limit is not
+ * the array length. The benchmarks run once with the default options and once, in
+ * {@link Predicated}, with {@code LoopPredication} enabled, which replaces the checks in the loops
+ * by checks in front of the loops.
+ */
+@State(Scope.Thread)
+public class LoopPredicationBenchmark extends BenchmarkBase {
+
+    @Fork(value = BenchmarkBase.Defaults.FORKS, jvmArgsAppend = "-Dgraal.LoopPredication=true")
+    public static class Predicated extends LoopPredicationBenchmark {
+    }
+
+    @Param({"100", "10000"}) public int size;
+
+    int[] ints;
+    int[] result;
+    Object boxed;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ints = new int[2 * size + 1];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = random.nextInt();
+        }
+        result = new int[size];
+        boxed = Integer.valueOf(random.nextInt());
+    }
+
+    @Benchmark
+    public int sumPrefix() {
+        int[] array = ints;
+        int sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int sumBackwards() {
+        int[] array = ints;
+        int sum = 0;
+        for (int i = size - 1; i >= 0; i--) {
+            sum += array[i];
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int[] combineNeighbours() {
+        int[] array = ints;
+        int[] dest = result;
+        for (int i = 0; i < size; i++) {
+            dest[i] = array[2 * i] ^ array[i + 1];
+        }
+        return dest;
+    }
+
+    @Benchmark
+    public int invariantCast() {
+        Object value = boxed;
+        int sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += (Integer) value * ints[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package micro.benchmarks;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Element-wise array loops that are candidates for loop vectorization. The benchmarks run once with
+ * the default options and once, in {@link Vectorized}, with {@code LoopVectorization} enabled.
+ */
+@State(Scope.Thread)
+public class LoopVectorizationBenchmark extends BenchmarkBase {
+
+    @Fork(value = BenchmarkBase.Defaults.FORKS, jvmArgsAppend = "-Dgraal.LoopVectorization=true")
+    public static class Vectorized extends LoopVectorizationBenchmark {
+    }
+
+    @Param({"16", "1000", "100000"}) public int size;
+
+    byte[] bytesA;
+    byte[] bytesB;
+    char[] charsA;
+    char[] charsB;
+    int[] intsA;
+    int[] intsB;
+    int[] intsC;
+    long[] longsA;
+    long[] longsB;
+    float[] floatsA;
+    float[] floatsB;
+    double[] doublesA;
+    double[] doublesB;
+    double[] doublesC;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        bytesA = new byte[size];
+        bytesB = new byte[size];
+        charsA = new char[size];
+        charsB = new char[size];
+        intsA = new int[size];
+        intsB = new int[size];
+        intsC = new int[size];
+        longsA = new long[size];
+        longsB = new long[size];
+        floatsA = new float[size];
+        floatsB = new float[size];
+        doublesA = new double[size];
+        doublesB = new double[size];
+        doublesC = new double[size];
+        random.nextBytes(bytesB);
+        for (int i = 0; i < size; i++) {
+            charsB[i] = (char) random.nextInt();
+            intsB[i] = random.nextInt();
+            intsC[i] = random.nextInt();
+            longsB[i] = random.nextLong();
+            floatsB[i] = random.nextFloat();
+            doublesB[i] = random.nextDouble();
+            doublesC[i] = random.nextDouble() + 1.0;
+        }
+    }
+
+    @Benchmark
+    public int[] intFill() {
+        int[] a = intsA;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = 42;
+        }
+        return a;
+    }
+
+    @Benchmark
+    public int[] intAdd() {
+        int[] a = intsA;
+        int[] b = intsB;
+        int[] c = intsC;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = b[i] + c[i];
+        }
+        return a;
+    }
+
+    @Benchmark
+    public int[] intMulXor() {
+        int[] a = intsA;
+        int[] b = intsB;
+        int[] c = intsC;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (b[i] * 31) ^ c[i];
+        }
+        return a;
+    }
+
+    @Benchmark
+    public long[] longSubAnd() {
+        long[] a = longsA;
+        long[] b = longsB;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (b[i] - 7L) & 0xFFFFFFFFFFL;
+        }
+        return a;
+    }
+
+    @Benchmark
+    public byte[] byteXor() {
+        byte[] a = bytesA;
+        byte[] b = bytesB;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (byte) (b[i] ^ 0x5A);
+        }
+        return a;
+    }
+
+    @Benchmark
+    public char[] charMulAdd() {
+        char[] a = charsA;
+        char[] b = charsB;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = (char) (b[i] * 3 + 1);
+        }
+        return a;
+    }
+
+    @Benchmark
+    public float[] floatScale() {
+        float[] a = floatsA;
+        float[] b = floatsB;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = b[i] * 2.5f + 1.0f;
+        }
+        return a;
+    }
+
+    @Benchmark
+    public double[] doubleDiv() {
+        double[] a = doublesA;
+        double[] b = doublesB;
+        double[] c = doublesC;
+        for (int i = 0; i < a.length; i++) {
+            a[i] = b[i] / c[i];
+        }
+        return a;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.regex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.oracle.truffle.regex.tregex.test.TRegexTestDummyLanguage;
+import com.oracle.truffle.regex.util.CompilationResult;
+import com.oracle.truffle.regex.util.ConcurrentCompilationCache;
+
+public class RegexPrecompilationFeatureTest {
+
+    private Context context;
+    private Value engineBuilder;
+
+    @Before
+    public void setUp() {
+        context = Context.newBuilder().build();
+        context.enter();
+        engineBuilder = context.eval(TRegexTestDummyLanguage.ID, "");
+    }
+
+    @After
+    public void tearDown() {
+        context.leave();
+        context.close();
+    }
+
+    private static List<RegexPrecompilationFeature.Entry> parse(String... lines) {
+        try {
+            return RegexPrecompilationFeature.parse(new BufferedReader(new StringReader(String.join("\n", lines))), "test");
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static List<String> parseToStrings(String... lines) {
+        List<String> result = new ArrayList<>();
+        for (RegexPrecompilationFeature.Entry entry : parse(lines)) {
+            result.add(entry.toString());
+        }
+        return result;
+    }
+
+    private static void assertParseError(String expectedMessage, String... lines) {
+        try {
+            parse(lines);
+            Assert.fail("expected a parse error for: " + String.join("\n", lines));
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith(expectedMessage));
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertEquals(0, parse().size());
+        Assert.assertEquals(0, parse("", "   ", "# /a/g").size());
+        Assert.assertEquals(1, parse("/a/").size());
+        Assert.assertEquals(Arrays.asList(
+                        "/a+b/gi",
+                        "/a/b/",
+                        "U180EWhitespace=true /[0-9]+/y",
+                        "Flavor=PythonStr,U180EWhitespace=false /x\\s*/ UTF-8",
+                        "/ /g LATIN-1"),
+                        parseToStrings(
+                                        "/a+b/gi",
+                                        "  /a/b/  ",
+                                        "U180EWhitespace=true /[0-9]+/y",
+                                        "# comment",
+                                        "Flavor=PythonStr,U180EWhitespace=false   /x\\s*/   UTF-8",
+                                        "/ /g LATIN-1"));
+    }
+
+    @Test
+    public void testParseErrors() {
+        assertParseError("test:1: expected [options] /pattern/flags [encoding]", "abc");
+        assertParseError("test:2: expected [options] /pattern/flags [encoding]", "/a/", "/abc");
+        assertParseError("test:1: ", "Flavor=Perl /a/");
+        assertParseError("test:1: ", "U180EWhitespace /a/");
+        assertParseError("test:1: ", "NoSuchOption=true /a/");
+        assertParseError("test:1: unknown encoding: UTF-7", "/a/ UTF-7");
+        assertParseError("test:3: unknown encoding: UTF-8 trailing", "# comment", "", "/a/g UTF-8 trailing");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPattern() {
+        RegexPrecompilationFeature.precompile(RegexLanguage.getCurrentLanguage(), parse("/(/"));
+    }
+
+    @Test
+    public void testPrecompiledRegexIsNotCompiledAgain() {
+        RegexLanguage language = RegexLanguage.getCurrentLanguage();
+        RegexPrecompilationFeature.precompile(language, parse("/a+b/", "U180EWhitespace=true /[0-9]+/g"));
+        ConcurrentCompilationCache<RegexSource, CompilationResult<RegexObject>> defaultCache = language.getCompilationCache(RegexOptions.DEFAULT);
+        ConcurrentCompilationCache<RegexSource, CompilationResult<RegexObject>> u180eCache = language.getCompilationCache(RegexOptions.parse("U180EWhitespace=true"));
+        Assert.assertEquals(1, defaultCache.getMisses());
+        Assert.assertEquals(1, u180eCache.getMisses());
+
+        Value regex = engineBuilder.execute().execute("a+b", "");
+        Assert.assertTrue(regex.invokeMember("exec", "xaab", 0).getMember("isMatch").asBoolean());
+        Assert.assertEquals(1, defaultCache.getMisses());
+        Assert.assertEquals(1, defaultCache.getHits());
+
+        regex = engineBuilder.execute("U180EWhitespace=true").execute("[0-9]+", "g");
+        Assert.assertTrue(regex.invokeMember("exec", "x42", 0).getMember("isMatch").asBoolean());
+        Assert.assertEquals(1, u180eCache.getMisses());
+        Assert.assertEquals(1, u180eCache.getHits());
+
+        // a regex that was not precompiled is a miss
+        engineBuilder.execute().execute("c+d", "");
+        Assert.assertEquals(2, defaultCache.getMisses());
+    }
+}
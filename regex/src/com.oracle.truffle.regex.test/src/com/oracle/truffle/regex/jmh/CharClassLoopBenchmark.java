@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.regex.jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.oracle.truffle.regex.tregex.test.TRegexTestDummyLanguage;
+
+/**
+ * Expressions with a self-looping character class whose complement is too large for an
+ * {@code indexOf} search, matched against long runs of characters that stay in the loop. The
+ * inputs mix ASCII, BMP and astral code points, similar to {@link UTFBenchmark}.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CharClassLoopBenchmark extends BenchmarkBase {
+
+    private static final String IDENTIFIER_CHARS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_";
+
+    @State(Scope.Benchmark)
+    public static class BenchState {
+        @Param({"identifier", "markup", "nonLatin"}) public String kind;
+        @Param({"64", "4096", "262144"}) public int length;
+        String input;
+        Context context;
+        Value tregexPattern;
+        Pattern javaPattern;
+
+        @Setup
+        public void setup() {
+            String pattern;
+            Random random = new Random(42);
+            StringBuilder sb = new StringBuilder(length + 2);
+            switch (kind) {
+                case "identifier":
+                    pattern = "[a-zA-Z0-9_]+=";
+                    while (sb.length() < length) {
+                        sb.append(IDENTIFIER_CHARS.charAt(random.nextInt(IDENTIFIER_CHARS.length())));
+                    }
+                    sb.append('=');
+                    break;
+                case "markup":
+                    pattern = "<[^<>&\"']*>";
+                    sb.append('<');
+                    appendMixedText(sb, random, length, true);
+                    sb.append('>');
+                    break;
+                case "nonLatin":
+                    pattern = "[^\\x00-\\x7f]+!";
+                    appendMixedText(sb, random, length, false);
+                    sb.append('!');
+                    break;
+                default:
+                    throw new IllegalArgumentException(kind);
+            }
+            input = sb.toString();
+            javaPattern = Pattern.compile(pattern);
+            context = Context.newBuilder().build();
+            context.enter();
+            tregexPattern = context.eval(TRegexTestDummyLanguage.ID, "").execute("").execute(pattern, "");
+        }
+
+        @TearDown
+        public void tearDown() {
+            context.leave();
+            context.close();
+        }
+
+        private static void appendMixedText(StringBuilder sb, Random random, int length, boolean withAscii) {
+            int start = sb.length();
+            while (sb.length() - start < length) {
+                int r = random.nextInt(8);
+                if (withAscii && r < 4) {
+                    sb.append((char) ('a' + random.nextInt(26)));
+                } else if (r < 7) {
+                    sb.append((char) (0x100 + random.nextInt(0xd800 - 0x100)));
+                } else {
+                    sb.appendCodePoint(0x10000 + random.nextInt(0x100000));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean tregex(BenchState state) {
+        return state.tregexPattern.invokeMember("exec", state.input, 0).getMember("isMatch").asBoolean();
+    }
+
+    @Benchmark
+    public boolean javaPattern(BenchState state) {
+        return state.javaPattern.matcher(state.input).find();
+    }
+}
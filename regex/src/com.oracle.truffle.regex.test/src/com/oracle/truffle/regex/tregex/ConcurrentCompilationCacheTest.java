@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.regex.tregex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.truffle.regex.util.ConcurrentCompilationCache;
+
+public class ConcurrentCompilationCacheTest {
+
+    @Test
+    public void testHitsAndMisses() {
+        ConcurrentCompilationCache<String, String> cache = new ConcurrentCompilationCache<>(10);
+        AtomicInteger compilations = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("A", cache.get("a", k -> {
+                compilations.incrementAndGet();
+                return k.toUpperCase();
+            }));
+        }
+        Assert.assertEquals(1, compilations.get());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testSizeBound() {
+        ConcurrentCompilationCache<Integer, Integer> cache = new ConcurrentCompilationCache<>(16);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(Integer.valueOf(i * 2), cache.get(i, k -> k * 2));
+            Assert.assertTrue(cache.size() <= 16);
+        }
+        Assert.assertEquals(1000, cache.getMisses());
+        Assert.assertEquals(1000 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    public void testFrequentlyUsedEntriesSurviveEviction() {
+        ConcurrentCompilationCache<Integer, Integer> cache = new ConcurrentCompilationCache<>(16);
+        for (int i = 0; i < 1000; i++) {
+            cache.get(-1, k -> k);
+            cache.get(i, k -> k);
+        }
+        Assert.assertEquals(1001, cache.getMisses());
+    }
+
+    @Test
+    public void testFailedCompilationIsNotCached() {
+        ConcurrentCompilationCache<String, String> cache = new ConcurrentCompilationCache<>(10);
+        try {
+            cache.get("a", k -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals("a", cache.get("a", k -> k));
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void testFailedCompilationsDoNotFillCache() {
+        ConcurrentCompilationCache<Integer, Integer> cache = new ConcurrentCompilationCache<>(16);
+        for (int i = 0; i < 100; i++) {
+            try {
+                cache.get(i, k -> {
+                    throw new IllegalStateException();
+                });
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(0, cache.size());
+        for (int i = 0; i < 16; i++) {
+            cache.get(i, k -> k);
+        }
+        Assert.assertEquals(16, cache.size());
+        Assert.assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        int threads = 8;
+        ConcurrentCompilationCache<String, String> cache = new ConcurrentCompilationCache<>(10);
+        AtomicInteger compilations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("a", k -> {
+                        compilations.incrementAndGet();
+                        try {
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            throw new AssertionError(e);
+                        }
+                        return k.toUpperCase();
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                Assert.assertEquals("A", result.get());
+            }
+        } finally {
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(1, compilations.get());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(threads - 1, cache.getHits());
+    }
+}
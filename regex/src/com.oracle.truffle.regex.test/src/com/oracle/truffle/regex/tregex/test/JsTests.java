@@ -40,6 +40,9 @@
  */
 package com.oracle.truffle.regex.tregex.test;
 
+import org.graalvm.polyglot.PolyglotException;
+import org.graalvm.polyglot.Value;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class JsTests extends RegexTestBase {
@@ -84,6 +87,104 @@ public class JsTests extends RegexTestBase {
         test("(a||b){100,200}?$", "", "ab", 0, true, 0, 2, 1, 2);
     }
 
+    @Test
+    public void backtrackingMemoization() {
+        // the negative look-ahead forces the backtracking executor
+        String as = new String(new char[50]).replace('\0', 'a');
+        test("(?!x)(a+)+b", "", as + "!", 0, false);
+        test("(?!x)(a|a)*b", "", as + "!", 0, false);
+        test("(?!x)(a|aa)+$", "", as + "!", 0, false);
+        test("(?!x)(a+)+b", "", "aaab", 0, true, 0, 4, 0, 3);
+        test("(?!x)(a|aa)+$", "", "aaaa", 0, true, 0, 4, 3, 4);
+        test("(?!x)(a|ab)(c|bcd)(d*)", "", "abcd", 0, true, 0, 4, 0, 1, 1, 4, 4, 4);
+        // the memoization table starts at fromIndex and grows with the visited indices
+        String prefix = new String(new char[100]).replace('\0', 'z');
+        test("(?!x)(a|a)*b", "", prefix + as + "!", 100, false);
+        test("(?!x)(a+)+b", "", prefix + "aaab", 100, true, 100, 104, 100, 103);
+        String manyAs = new String(new char[5000]).replace('\0', 'a');
+        test("(?!x)(a|a)*b", "", manyAs + "!", 0, false);
+    }
+
+    @Test
+    public void loopOptTable() {
+        String word = new String(new char[37]).replace('\0', 'w');
+        test("^\\w*=", "", word + "=", 0, true, 0, 38);
+        test("\\w+=", "", "  " + word + "=" + word, 0, true, 2, 40);
+        test("\\w+=", "", word + "\u00e4=", 0, false);
+        test("[a-zA-Z0-9_]+!", "", "  hello_World42!", 0, true, 2, 16);
+        test("<[^<>&\"']*>", "", "<ab\ud83d\ude00cd\u00e4" + word + ">", 0, true, 0, 46);
+        test("<[^<>&\"']*>", "", "<ab\ud83d\ude00cd&" + word + ">", 0, false);
+        test("[a-z]+\\u{1F600}", "u", "xyz" + word + "\ud83d\ude00", 0, true, 0, 42);
+        test("[a-z]+\\u{1F600}", "u", "xyz" + word + "\ud83d\ude01", 0, false);
+    }
+
+    @Test
+    public void streamMatcher() {
+        StringBuilder longInput = new StringBuilder();
+        long[] longInputEnds = new long[200];
+        for (int i = 0; i < longInputEnds.length; i++) {
+            longInput.append("xba");
+            longInputEnds[i] = longInput.length();
+        }
+        for (int chunkSize : new int[]{1, 2, 3, 7, 1000}) {
+            testStream("(?<=b)a", "", longInput.toString(), chunkSize, longInputEnds);
+            testStream("^x|y", "", longInput.toString(), chunkSize, 1);
+            testStream("ab+", "", "xabbbyabzab", chunkSize, 5, 8, 11);
+            testStream("a+", "", "aaaa", chunkSize, 4);
+            testStream("x*", "", "ab", chunkSize, 0, 1, 2);
+            testStream("a|", "", "a", chunkSize, 1, 1);
+            testStream("^a", "", "aaa", chunkSize, 1);
+            testStream("a$", "", "aaa", chunkSize, 3);
+            testStream("(?<=b)a", "", "aababa", chunkSize, 3, 5);
+            testStream("\\bfoo\\b", "", "foo xfoo foo", chunkSize, 3, 12);
+            testStream("\\u{1F600}+|.", "u", "\ud83d\ude00\ud83d\ude00x", chunkSize, 4, 5);
+            testStream("q", "", "abc", chunkSize);
+        }
+    }
+
+    @Test
+    public void streamMatcherOpenMatch() {
+        // the tentative match "ab" is kept open until the last 'b' or the end of the stream
+        StringBuilder sb = new StringBuilder("ab");
+        for (int i = 0; i < 100000; i++) {
+            sb.append('x');
+        }
+        String unterminated = sb.toString();
+        String terminated = unterminated + "b";
+        for (int chunkSize : new int[]{1000, 4096}) {
+            testStream("a.*b", "", terminated, chunkSize, terminated.length());
+            testStream("a.*b", "", unterminated, chunkSize, 2);
+            testStreamBytes("a.*b", "", terminated, chunkSize, terminated.length());
+            testStreamBytes("a.*b", "", unterminated, chunkSize, 2);
+        }
+        testStream("a.*b", "", terminated, 1, terminated.length());
+        testStreamBytes("a.*b", "", terminated, 1, terminated.length());
+    }
+
+    @Test
+    public void streamMatcherRetainedLimit() {
+        StringBuilder sb = new StringBuilder("ab");
+        for (int i = 0; i < 200; i++) {
+            sb.append('x');
+        }
+        Value streamMatcher = compileRegex("a.*b", "").getMember("createStreamMatcher").execute(100);
+        assertRetainedLimitExceeded(streamMatcher, sb.toString());
+        // the limit is checked in the call that exceeds it, not in the next one
+        streamMatcher = compileRegex("a.*b", "").getMember("createStreamMatcher").execute(100);
+        Assert.assertEquals(0, streamMatcher.getMember("feed").execute(sb.substring(0, 80), false).getArraySize());
+        assertRetainedLimitExceeded(streamMatcher, sb.substring(80));
+    }
+
+    private static void assertRetainedLimitExceeded(Value streamMatcher, String chunk) {
+        try {
+            streamMatcher.getMember("feed").execute(chunk, false);
+            Assert.fail("expected the retained data to exceed the limit");
+        } catch (PolyglotException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("100 retained code units"));
+        }
+        Assert.assertTrue(streamMatcher.getMember("done").asBoolean());
+    }
+
     @Test
     public void escapedZero() {
         test("\\0", "u", "\u0000", 0, true, 0, 1);
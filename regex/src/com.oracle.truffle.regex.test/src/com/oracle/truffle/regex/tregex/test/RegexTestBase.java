@@ -42,6 +42,7 @@ package com.oracle.truffle.regex.tregex.test;
 
 import static org.junit.Assert.assertEquals;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 import org.graalvm.polyglot.Context;
@@ -102,6 +103,41 @@ public abstract class RegexTestBase {
         }
     }
 
+    /**
+     * Feeds {@code input} to a stream matcher in chunks of {@code chunkSize} code units and checks
+     * that the reported match end offsets are {@code expectedMatchEnds}.
+     */
+    void testStream(String pattern, String flags, String input, int chunkSize, long... expectedMatchEnds) {
+        testStream(compileRegex(pattern, flags), input, chunkSize, expectedMatchEnds);
+    }
+
+    /**
+     * Like {@link #testStream(String, String, String, int, long...)}, but feeds the UTF-8 encoded
+     * {@code input} as {@code byte[]} chunks.
+     */
+    void testStreamBytes(String pattern, String flags, String input, int chunkSize, long... expectedMatchEnds) {
+        testStream(getEngine().execute(pattern, flags, "UTF-8"), input.getBytes(StandardCharsets.UTF_8), chunkSize, expectedMatchEnds);
+    }
+
+    private static void testStream(Value compiledRegex, Object input, int chunkSize, long... expectedMatchEnds) {
+        Value streamMatcher = compiledRegex.getMember("createStreamMatcher").execute();
+        int length = input instanceof String ? ((String) input).length() : ((byte[]) input).length;
+        long[] matchEnds = new long[0];
+        for (int i = 0; i < length || i == 0; i += chunkSize) {
+            int end = Math.min(length, i + chunkSize);
+            Object chunk = input instanceof String ? ((String) input).substring(i, end) : Arrays.copyOfRange((byte[]) input, i, end);
+            Value chunkResult = streamMatcher.getMember("feed").execute(chunk, end == length);
+            int n = matchEnds.length;
+            matchEnds = Arrays.copyOf(matchEnds, n + (int) chunkResult.getArraySize());
+            for (int j = n; j < matchEnds.length; j++) {
+                matchEnds[j] = chunkResult.getArrayElement(j - n).asLong();
+            }
+        }
+        Assert.assertArrayEquals(expectedMatchEnds, matchEnds);
+        assertEquals(length, streamMatcher.getMember("position").asLong());
+        Assert.assertTrue(streamMatcher.getMember("done").asBoolean());
+    }
+
     private static void fail(Value result, int... captureGroupBounds) {
         StringBuilder sb = new StringBuilder("expected: ").append(Arrays.toString(captureGroupBounds)).append(", actual: [");
         for (int i = 0; i < captureGroupBounds.length / 2; i++) {
@@ -40,43 +40,39 @@
  */
 package com.oracle.truffle.regex;
 
-import java.util.Collections;
-import java.util.Map;
-
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
-import com.oracle.truffle.regex.tregex.TRegexOptions;
+import com.oracle.truffle.regex.tregex.util.Loggers;
 import com.oracle.truffle.regex.util.CompilationResult;
-import com.oracle.truffle.regex.util.LRUCache;
+import com.oracle.truffle.regex.util.ConcurrentCompilationCache;
 
+/**
+ * A {@link RegexEngine} that caches its compilation results in a
+ * {@link ConcurrentCompilationCache}. Engines without a fallback compiler share the cache of their
+ * {@link RegexLanguage} with all other engines with the same {@link RegexOptions}, see
+ * {@link RegexLanguage#getCompilationCache(RegexOptions)}.
+ */
 public class CachingRegexEngine extends RegexEngine {
 
-    private final Map<RegexSource, CompilationResult<RegexObject>> cache = Collections.synchronizedMap(new LRUCache<>(TRegexOptions.RegexMaxCacheSize));
+    private final ConcurrentCompilationCache<RegexSource, CompilationResult<RegexObject>> cache;
 
-    public CachingRegexEngine(RegexCompiler compiler, RegexOptions options) {
+    public CachingRegexEngine(RegexCompiler compiler, RegexOptions options, ConcurrentCompilationCache<RegexSource, CompilationResult<RegexObject>> cache) {
         super(compiler, options);
+        this.cache = cache;
     }
 
     @Override
     public RegexObject compile(RegexSource regexSource) throws RegexSyntaxException, UnsupportedRegexException {
-        CompilationResult<RegexObject> result = cacheGet(regexSource);
-        if (result == null) {
-            result = doCompile(regexSource);
-            cachePut(regexSource, result);
-        }
-        return result.unpack();
+        return cacheGet(regexSource).unpack();
     }
 
     private CompilationResult<RegexObject> doCompile(RegexSource regexSource) {
-        return CompilationResult.pack(() -> super.compile(regexSource));
+        CompilationResult<RegexObject> result = CompilationResult.pack(() -> super.compile(regexSource));
+        Loggers.LOG_COMPILATION_CACHE.fine(() -> "Compiled " + regexSource + ", cache " + cache);
+        return result;
     }
 
     @TruffleBoundary
     private CompilationResult<RegexObject> cacheGet(RegexSource source) {
-        return cache.get(source);
-    }
-
-    @TruffleBoundary
-    private CompilationResult<RegexObject> cachePut(RegexSource source, CompilationResult<RegexObject> result) {
-        return cache.put(source, result);
+        return cache.get(source, this::doCompile);
     }
 }
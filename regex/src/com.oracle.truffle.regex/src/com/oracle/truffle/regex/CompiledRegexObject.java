@@ -45,12 +45,18 @@ import com.oracle.truffle.api.Truffle;
 
 public class CompiledRegexObject {
 
+    private final RegexExecRootNode compiledRegex;
     private final CallTarget callTarget;
 
     public CompiledRegexObject(RegexLanguage language, RegexExecRootNode compiledRegex) {
+        this.compiledRegex = compiledRegex;
         callTarget = Truffle.getRuntime().createCallTarget(new RegexRootNode(language, compiledRegex));
     }
 
+    public RegexExecRootNode getCompiledRegex() {
+        return compiledRegex;
+    }
+
     public CallTarget getCallTarget() {
         return callTarget;
     }
@@ -57,6 +57,10 @@ public class RegexCompilerWithFallback implements RegexCompiler {
         this.fallbackCompiler = ForeignRegexCompiler.importRegexCompiler(fallbackCompiler);
     }
 
+    public RegexCompiler getMainCompiler() {
+        return mainCompiler;
+    }
+
     @Override
     @CompilerDirectives.TruffleBoundary
     public Object compile(RegexSource regexSource) throws RegexSyntaxException, UnsupportedRegexException {
@@ -210,8 +210,12 @@ public class RegexEngine extends AbstractConstantKeysObject {
         if (args.length == 3) {
             encoding = Encodings.getEncoding(encodingToStringNode.execute(args[2]));
         } else {
-            encoding = flags.indexOf('u') >= 0 && !options.isUTF16ExplodeAstralSymbols() ? Encodings.UTF_16 : Encodings.UTF_16_RAW;
+            encoding = getDefaultEncoding(flags);
         }
         return new RegexSource(pattern, flags, encoding);
     }
+
+    Encoding getDefaultEncoding(String flags) {
+        return flags.indexOf('u') >= 0 && !options.isUTF16ExplodeAstralSymbols() ? Encodings.UTF_16 : Encodings.UTF_16_RAW;
+    }
 }
@@ -52,6 +52,8 @@ import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
 import com.oracle.truffle.regex.runtime.nodes.ToStringNode;
 import com.oracle.truffle.regex.tregex.TRegexCompiler;
+import com.oracle.truffle.regex.tregex.TRegexOptions;
+import com.oracle.truffle.regex.util.ConcurrentCompilationCache;
 
 /**
  * {@link RegexEngineBuilder} is the entry point into using {@link RegexLanguage}. It is an
@@ -130,9 +132,16 @@ public final class RegexEngineBuilder extends AbstractRegexObject {
     }
 
     @TruffleBoundary
-    private static RegexEngine createRegexEngine(RegexLanguage regexLanguage, RegexOptions options, TruffleObject fallbackCompiler) {
+    static RegexEngine createRegexEngine(RegexLanguage regexLanguage, RegexOptions options, TruffleObject fallbackCompiler) {
         RegexCompiler compiler = createRegexCompiler(regexLanguage, options, fallbackCompiler);
-        return options.isRegressionTestMode() ? new RegexEngine(compiler, options) : new CachingRegexEngine(compiler, options);
+        if (options.isRegressionTestMode()) {
+            return new RegexEngine(compiler, options);
+        }
+        if (fallbackCompiler != null) {
+            // results of a fallback compiler belong to its context and must not be shared
+            return new CachingRegexEngine(compiler, options, new ConcurrentCompilationCache<>(TRegexOptions.RegexMaxCacheSize));
+        }
+        return new CachingRegexEngine(compiler, options, regexLanguage.getCompilationCache(options));
     }
 
     private static RegexCompiler createRegexCompiler(RegexLanguage regexLanguage, RegexOptions options, TruffleObject fallbackCompiler) {
@@ -41,15 +41,22 @@
 package com.oracle.truffle.regex;
 
 import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.graalvm.nativeimage.ImageInfo;
 
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Scope;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.instrumentation.ProvidedTags;
 import com.oracle.truffle.api.instrumentation.StandardTags;
 import com.oracle.truffle.api.nodes.RootNode;
+import com.oracle.truffle.regex.tregex.TRegexOptions;
+import com.oracle.truffle.regex.util.CompilationResult;
+import com.oracle.truffle.regex.util.ConcurrentCompilationCache;
 
 /**
  * Truffle Regular Expression Language
@@ -98,6 +105,8 @@ public final class RegexLanguage extends TruffleLanguage<RegexLanguage.RegexCont
 
     private final CallTarget getEngineBuilderCT = Truffle.getRuntime().createCallTarget(RootNode.createConstantNode(engineBuilder));
 
+    private final ConcurrentHashMap<RegexOptions, ConcurrentCompilationCache<RegexSource, CompilationResult<RegexObject>>> compilationCaches = new ConcurrentHashMap<>();
+
     @Override
     protected CallTarget parse(ParsingRequest parsingRequest) {
         return getEngineBuilderCT;
@@ -108,6 +117,13 @@ public final class RegexLanguage extends TruffleLanguage<RegexLanguage.RegexCont
         return new RegexContext(env);
     }
 
+    @Override
+    protected void initializeContext(RegexContext context) {
+        if (ImageInfo.inImageBuildtimeCode()) {
+            RegexPrecompilationFeature.precompileRegisteredRegexes(this);
+        }
+    }
+
     @Override
     protected boolean patchContext(RegexContext context, Env newEnv) {
         context.patchContext(newEnv);
@@ -135,10 +151,25 @@ public final class RegexLanguage extends TruffleLanguage<RegexLanguage.RegexCont
         return true;
     }
 
+    /**
+     * Gets the compilation cache for regular expressions compiled with {@code options}. Since
+     * {@link RegexLanguage} uses {@link TruffleLanguage.ContextPolicy#SHARED}, the cache is shared
+     * by all contexts of an engine, so a regular expression used in every context is compiled only
+     * once.
+     */
+    @TruffleBoundary
+    public ConcurrentCompilationCache<RegexSource, CompilationResult<RegexObject>> getCompilationCache(RegexOptions options) {
+        return compilationCaches.computeIfAbsent(options, o -> new ConcurrentCompilationCache<>(TRegexOptions.RegexMaxCacheSize));
+    }
+
     public static RegexContext getCurrentContext() {
         return getCurrentContext(RegexLanguage.class);
     }
 
+    public static RegexLanguage getCurrentLanguage() {
+        return getCurrentLanguage(RegexLanguage.class);
+    }
+
     public static final class RegexContext {
         @CompilerDirectives.CompilationFinal private Env env;
 
@@ -42,8 +42,10 @@ package com.oracle.truffle.regex;
 
 import java.util.Map;
 
+import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.GenerateUncached;
 import com.oracle.truffle.api.dsl.ImportStatic;
@@ -66,6 +68,8 @@ import com.oracle.truffle.regex.result.RegexResult;
 import com.oracle.truffle.regex.runtime.nodes.ExpectByteArrayHostObjectNode;
 import com.oracle.truffle.regex.runtime.nodes.ExpectStringOrTruffleObjectNode;
 import com.oracle.truffle.regex.runtime.nodes.ToLongNode;
+import com.oracle.truffle.regex.tregex.TRegexCompiler;
+import com.oracle.truffle.regex.tregex.nodes.dfa.TRegexDFAStreamRootNode;
 import com.oracle.truffle.regex.tregex.parser.flavors.PythonFlags;
 import com.oracle.truffle.regex.tregex.util.Exceptions;
 import com.oracle.truffle.regex.util.TruffleNull;
@@ -102,6 +106,15 @@ import com.oracle.truffle.regex.util.TruffleReadOnlyMap;
  * The return value is a {@link RegexResult}. The contents of the {@code exec} can be compiled
  * lazily and so its first invocation might involve a longer delay as the regular expression is
  * compiled on the fly.
+ * <li>{@link RegexObjectCreateStreamMatcherMethod} {@code createStreamMatcher}: an executable
+ * method that returns a new {@link RegexStreamMatcher}, for matching the regular expression against
+ * an input stream delivered in chunks. It accepts an optional parameter:
+ * <ol>
+ * <li>{@link Number} {@code maxRetainedLength}: the maximum number of code units the matcher may
+ * retain while it tries to extend a match, {@link RegexStreamMatcher#DEFAULT_MAX_RETAINED_LENGTH}
+ * by default.</li>
+ * </ol>
+ * </li>
  * </ol>
  * <p>
  */
@@ -114,7 +127,8 @@ public final class RegexObject extends AbstractConstantKeysObject {
     private static final String PROP_FLAGS = "flags";
     private static final String PROP_GROUP_COUNT = "groupCount";
     private static final String PROP_GROUPS = "groups";
-    private static final TruffleReadOnlyKeysArray KEYS = new TruffleReadOnlyKeysArray(PROP_EXEC, PROP_PATTERN, PROP_FLAGS, PROP_GROUP_COUNT, PROP_GROUPS);
+    private static final String PROP_CREATE_STREAM_MATCHER = "createStreamMatcher";
+    private static final TruffleReadOnlyKeysArray KEYS = new TruffleReadOnlyKeysArray(PROP_EXEC, PROP_PATTERN, PROP_FLAGS, PROP_GROUP_COUNT, PROP_GROUPS, PROP_CREATE_STREAM_MATCHER);
 
     private final RegexCompiler compiler;
     private final RegexSource source;
@@ -122,6 +136,9 @@ public final class RegexObject extends AbstractConstantKeysObject {
     private final int numberOfCaptureGroups;
     private final TruffleObject namedCaptureGroups;
     private Object compiledRegexObject;
+    private TRegexDFAStreamRootNode streamRootNode;
+    private CallTarget streamCallTarget;
+    private boolean streamExecutorCompiled;
 
     public RegexObject(RegexCompiler compiler, RegexSource source, TruffleObject flags, int numberOfCaptureGroups, Map<String, Integer> namedCaptureGroups) {
         this.compiler = compiler;
@@ -163,6 +180,36 @@ public final class RegexObject extends AbstractConstantKeysObject {
         this.compiledRegexObject = compiledRegexObject;
     }
 
+    /**
+     * Creates a new {@link RegexStreamMatcher}. The streaming DFA executor is compiled on the first
+     * call and shared by all stream matchers of this regex.
+     *
+     * @param maxRetainedLength the maximum number of code units the stream matcher may retain
+     *            while it tries to extend a match, see {@link RegexStreamMatcher}.
+     * @throws UnsupportedRegexException if the regex cannot be matched by a DFA.
+     */
+    @TruffleBoundary
+    public RegexStreamMatcher createStreamMatcher(int maxRetainedLength) {
+        if (!streamExecutorCompiled) {
+            RegexCompiler mainCompiler = compiler instanceof RegexCompilerWithFallback ? ((RegexCompilerWithFallback) compiler).getMainCompiler() : compiler;
+            if (!(mainCompiler instanceof TRegexCompiler)) {
+                throw new UnsupportedRegexException("stream matching is supported by TRegex only", source);
+            }
+            TRegexCompiler tRegexCompiler = (TRegexCompiler) mainCompiler;
+            streamRootNode = tRegexCompiler.compileStreamingDFAExecutor(source);
+            if (streamRootNode != null) {
+                streamCallTarget = Truffle.getRuntime().createCallTarget(new RegexRootNode(tRegexCompiler.getLanguage(), streamRootNode));
+            }
+            streamExecutorCompiled = true;
+        }
+        return new RegexStreamMatcher(streamRootNode, streamCallTarget, maxRetainedLength);
+    }
+
+    public RegexObjectCreateStreamMatcherMethod getCreateStreamMatcherMethod() {
+        // this allocation should get virtualized and optimized away by graal
+        return new RegexObjectCreateStreamMatcherMethod(this);
+    }
+
     public RegexObjectExecMethod getExecMethod() {
         // this allocation should get virtualized and optimized away by graal
         return new RegexObjectExecMethod(this);
@@ -193,6 +240,8 @@ public final class RegexObject extends AbstractConstantKeysObject {
                 return getNumberOfCaptureGroups();
             case PROP_GROUPS:
                 return getNamedCaptureGroups();
+            case PROP_CREATE_STREAM_MATCHER:
+                return getCreateStreamMatcherMethod();
             default:
                 CompilerDirectives.transferToInterpreterAndInvalidate();
                 throw UnknownIdentifierException.create(symbol);
@@ -452,4 +501,42 @@ public final class RegexObject extends AbstractConstantKeysObject {
             }
         }
     }
+
+    @ExportLibrary(InteropLibrary.class)
+    public static final class RegexObjectCreateStreamMatcherMethod extends AbstractRegexObject {
+
+        private final RegexObject regex;
+
+        public RegexObjectCreateStreamMatcherMethod(RegexObject regex) {
+            this.regex = regex;
+        }
+
+        public RegexObject getRegexObject() {
+            return regex;
+        }
+
+        @SuppressWarnings("static-method")
+        @ExportMessage
+        boolean isExecutable() {
+            return true;
+        }
+
+        @ExportMessage
+        Object execute(Object[] args,
+                        @CachedLibrary(limit = "2") InteropLibrary numbers) throws ArityException, UnsupportedTypeException, UnsupportedMessageException {
+            if (args.length > 1) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                throw ArityException.create(1, args.length);
+            }
+            int maxRetainedLength = RegexStreamMatcher.DEFAULT_MAX_RETAINED_LENGTH;
+            if (args.length == 1) {
+                if (!numbers.fitsInInt(args[0]) || numbers.asInt(args[0]) < 0) {
+                    CompilerDirectives.transferToInterpreterAndInvalidate();
+                    throw UnsupportedTypeException.create(args, "maxRetainedLength must be a non-negative int");
+                }
+                maxRetainedLength = numbers.asInt(args[0]);
+            }
+            return getRegexObject().createStreamMatcher(maxRetainedLength);
+        }
+    }
 }
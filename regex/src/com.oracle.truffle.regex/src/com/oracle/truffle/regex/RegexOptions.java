@@ -245,7 +245,7 @@ public final class RegexOptions {
             return false;
         }
         RegexOptions other = (RegexOptions) obj;
-        return this.options == other.options && this.flavor == other.flavor;
+        return this.options == other.options && this.flavor == other.flavor && this.featureSet == other.featureSet;
     }
 
     @Override
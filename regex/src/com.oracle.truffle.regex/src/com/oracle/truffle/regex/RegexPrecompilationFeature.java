@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.regex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.graalvm.nativeimage.hosted.Feature;
+
+import com.oracle.truffle.regex.tregex.nodes.TRegexExecRootNode;
+import com.oracle.truffle.regex.tregex.string.Encodings;
+import com.oracle.truffle.regex.tregex.util.Loggers;
+
+/**
+ * Precompiles regular expressions while building a native image, so that using them at run time is
+ * a lookup in the {@link RegexLanguage#getCompilationCache(RegexOptions) compilation cache} stored
+ * in the image heap, instead of running the parser, NFA and DFA generators on first use.
+ * <p>
+ * Regular expressions are registered by other features via
+ * {@link #register(String, String, String, String)}, or discovered in {@value #RESOURCE_NAME}
+ * resource files on the image class path. Every line of such a file that is not empty and does not
+ * start with {@code #} has the form {@code [options] /pattern/flags [encoding]}, where
+ * {@code options} is a comma-separated list of engine options as accepted by
+ * {@link RegexEngineBuilder}, and {@code encoding} is an encoding name as accepted by
+ * {@link RegexEngine}.
+ * <p>
+ * The regular expressions are compiled when the context of {@link RegexLanguage} is pre-initialized
+ * at image build time, see {@link RegexLanguage#initializeContext}. This feature adds
+ * {@link RegexLanguage#ID} to the {@code PreinitializeContexts} image build time option for that
+ * purpose. Precompilation includes the lazy DFA, which is otherwise generated only after a regex
+ * has been executed a number of times. Only engines that share the compilation cache of the
+ * language, i.e. engines without a fallback compiler, find the precompiled regexes.
+ */
+public final class RegexPrecompilationFeature implements Feature {
+
+    static final String RESOURCE_NAME = "META-INF/native-image/tregex-precompiled-regexes";
+    private static final String PREINITIALIZE_CONTEXTS_PROPERTY = "polyglot.image-build-time.PreinitializeContexts";
+
+    private static final List<Entry> entries = new ArrayList<>();
+
+    static final class Entry {
+
+        private final String options;
+        private final String pattern;
+        private final String flags;
+        private final String encoding;
+
+        Entry(String options, String pattern, String flags, String encoding) {
+            this.options = options;
+            this.pattern = pattern;
+            this.flags = flags;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public String toString() {
+            return (options.isEmpty() ? "" : options + " ") + "/" + pattern + "/" + flags + (encoding == null ? "" : " " + encoding);
+        }
+    }
+
+    /**
+     * Registers a regular expression for precompilation. Must be called before the analysis phase
+     * of the image build.
+     *
+     * @param options engine options, as accepted by {@link RegexEngineBuilder}.
+     * @param encoding the input encoding, as accepted by {@link RegexEngine}, or {@code null} for
+     *            the default encoding derived from {@code flags}.
+     */
+    public static synchronized void register(String options, String pattern, String flags, String encoding) {
+        entries.add(new Entry(options, pattern, flags, encoding));
+    }
+
+    @Override
+    public void afterRegistration(AfterRegistrationAccess access) {
+        try {
+            Enumeration<URL> resources = access.getApplicationClassLoader().getResources(RESOURCE_NAME);
+            while (resources.hasMoreElements()) {
+                loadResource(resources.nextElement());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("failed to read " + RESOURCE_NAME, e);
+        }
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        String languages = System.getProperty(PREINITIALIZE_CONTEXTS_PROPERTY, "");
+        for (String language : languages.split(",")) {
+            if (language.trim().equals(RegexLanguage.ID)) {
+                return;
+            }
+        }
+        System.setProperty(PREINITIALIZE_CONTEXTS_PROPERTY, languages.isEmpty() ? RegexLanguage.ID : languages + "," + RegexLanguage.ID);
+    }
+
+    private static void loadResource(URL url) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            List<Entry> resourceEntries = parse(reader, url.toString());
+            synchronized (RegexPrecompilationFeature.class) {
+                entries.addAll(resourceEntries);
+            }
+        }
+    }
+
+    /**
+     * Parses the contents of a {@value #RESOURCE_NAME} resource file. Options and encodings are
+     * validated right away, so that a bad entry is reported with its {@code location} and line
+     * number. Patterns and flags are checked when the entry is compiled.
+     *
+     * @throws IllegalArgumentException if a line is not a valid entry.
+     */
+    static List<Entry> parse(BufferedReader reader, String location) throws IOException {
+        List<Entry> result = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            int patternStart = line.indexOf('/');
+            int patternEnd = line.lastIndexOf('/');
+            if (patternStart < 0 || patternEnd == patternStart) {
+                throw new IllegalArgumentException(String.format("%s:%d: expected [options] /pattern/flags [encoding], got: %s", location, lineNumber, line));
+            }
+            String options = line.substring(0, patternStart).trim();
+            try {
+                RegexOptions.parse(options);
+            } catch (RegexSyntaxException e) {
+                throw new IllegalArgumentException(String.format("%s:%d: %s", location, lineNumber, e.getMessage()), e);
+            }
+            String[] flagsAndEncoding = line.substring(patternEnd + 1).trim().split("\\s+", 2);
+            String encoding = flagsAndEncoding.length > 1 ? flagsAndEncoding[1] : null;
+            if (encoding != null && Encodings.findEncoding(encoding) == null) {
+                throw new IllegalArgumentException(String.format("%s:%d: unknown encoding: %s", location, lineNumber, encoding));
+            }
+            result.add(new Entry(options, line.substring(patternStart + 1, patternEnd), flagsAndEncoding[0], encoding));
+        }
+        return result;
+    }
+
+    /**
+     * Compiles all registered regular expressions into the compilation caches of {@code language}.
+     * Called during context pre-initialization at image build time.
+     */
+    static synchronized void precompileRegisteredRegexes(RegexLanguage language) {
+        precompile(language, entries);
+    }
+
+    static void precompile(RegexLanguage language, List<Entry> toCompile) {
+        for (Entry entry : toCompile) {
+            try {
+                RegexEngine engine = RegexEngineBuilder.createRegexEngine(language, RegexOptions.parse(entry.options), null);
+                RegexSource source = new RegexSource(entry.pattern, entry.flags, entry.encoding == null ? engine.getDefaultEncoding(entry.flags) : Encodings.getEncoding(entry.encoding));
+                Object compiledRegex = engine.compile(source).getCompiledRegexObject();
+                if (compiledRegex instanceof CompiledRegexObject && ((CompiledRegexObject) compiledRegex).getCompiledRegex() instanceof TRegexExecRootNode) {
+                    ((TRegexExecRootNode) ((CompiledRegexObject) compiledRegex).getCompiledRegex()).precompileDFA();
+                }
+            } catch (RegexSyntaxException e) {
+                throw new IllegalArgumentException("invalid precompiled regex " + entry + ": " + e.getMessage(), e);
+            } catch (UnsupportedRegexException e) {
+                // the regex will be compiled at run time, e.g. by a fallback compiler
+                Loggers.LOG_BAILOUT_MESSAGES.fine(() -> "precompilation: " + e.getReason() + ": " + entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.regex;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.interop.ArityException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.UnknownIdentifierException;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.library.ExportLibrary;
+import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.regex.runtime.nodes.ExpectByteArrayHostObjectNode;
+import com.oracle.truffle.regex.tregex.buffer.LongArrayBuffer;
+import com.oracle.truffle.regex.tregex.nodes.dfa.TRegexDFAExecutorNode;
+import com.oracle.truffle.regex.tregex.nodes.dfa.TRegexDFAStreamRootNode;
+import com.oracle.truffle.regex.tregex.string.Encodings;
+import com.oracle.truffle.regex.tregex.string.Encodings.Encoding;
+import com.oracle.truffle.regex.util.TruffleReadOnlyKeysArray;
+import com.oracle.truffle.regex.util.TruffleReadOnlyLongArray;
+
+/**
+ * {@link RegexStreamMatcher} matches a {@link RegexObject} against an input stream that is
+ * delivered in chunks, e.g. from a network socket or a file that should not be loaded into memory
+ * as a whole. It is created by the {@code createStreamMatcher} method of {@link RegexObject} and
+ * exposes the following properties:
+ * <ol>
+ * <li>{@link RegexStreamMatcherFeedMethod} {@code feed}: an executable method that appends a chunk
+ * to the stream. It accepts two parameters:
+ * <ol>
+ * <li>{@link Object} {@code chunk}: the next chunk of the stream, either a {@link String} or a
+ * {@code byte[]} host object. All chunks of a stream must be of the same type, and a chunk may end
+ * in the middle of a code point.</li>
+ * <li>{@link Boolean} {@code isLast}: whether this is the last chunk of the stream.</li>
+ * </ol>
+ * The return value is an array of the absolute end offsets of all matches that were completed
+ * with this chunk, in ascending order. Matches are searched for like in a global ECMAScript regex
+ * search: every search starts at the end of the previous match, or one code point after it, if the
+ * previous match was empty.</li>
+ * <li>{@code long position}: the number of code units fed so far.</li>
+ * <li>{@code boolean done}: whether no further matches can be reported.</li>
+ * </ol>
+ * <p>
+ * The state of the forward DFA is kept across chunks, so every code unit of the stream is read
+ * only once per search. The matcher retains only the data a future search can still depend on:
+ * the incomplete code point at the end of the last chunk, a few code units of look-behind history,
+ * and - while the DFA is trying to extend a match it has already found - the code units read since
+ * the end of that tentative match. The last part is not bounded by the regex: {@code /a.*b/} keeps
+ * everything after {@code "ab"} until the next {@code 'b'} or the end of the stream. The retained
+ * data is therefore limited to {@code maxRetainedLength} code units. The call of {@code feed} that
+ * leaves more than that retained throws a {@link RegexStreamOverflowException} instead of returning
+ * the matches completed with its chunk, and the matcher is {@code done}.
+ * <p>
+ * Chunks are copied into a {@code byte[]} or {@code char[]} buffer that is compacted only when half
+ * of it has been consumed. The DFA reads {@code byte[]} buffers directly. For {@link String} chunks,
+ * every call of {@code feed} creates one {@link String} from the point the DFA resumes at, and
+ * creates it again from an earlier point only when a search ends and the next one has to re-read
+ * retained data. Either way, feeding a stream takes time linear in its length.
+ * <p>
+ * Start offsets of matches are not reported, since they would require the capture group DFA to run
+ * over the complete match.
+ */
+@ExportLibrary(InteropLibrary.class)
+public final class RegexStreamMatcher extends AbstractConstantKeysObject {
+
+    private static final String PROP_FEED = "feed";
+    private static final String PROP_POSITION = "position";
+    private static final String PROP_DONE = "done";
+    private static final TruffleReadOnlyKeysArray KEYS = new TruffleReadOnlyKeysArray(PROP_FEED, PROP_POSITION, PROP_DONE);
+
+    /**
+     * The default limit of the retained data, in code units.
+     */
+    public static final int DEFAULT_MAX_RETAINED_LENGTH = 1 << 24;
+
+    private final CallTarget chunkCallTarget;
+    private final Encoding encoding;
+    private final int historyLength;
+    private final int maxRetainedLength;
+
+    /**
+     * The retained data of previous chunks, followed by the current chunk, in
+     * {@code buffer[bufferStart:bufferEnd]}. The buffer is a {@code char[]} for {@link String} chunks
+     * and a {@code byte[]} for {@code byte[]} chunks, and may have unused capacity after
+     * {@link #bufferEnd}.
+     */
+    private Object buffer;
+    private int bufferStart;
+    private int bufferEnd;
+    /**
+     * Absolute offset of {@code buffer[0]} in the stream.
+     */
+    private long bufferOffset;
+    /**
+     * Absolute offset the current search started at.
+     */
+    private long searchStart;
+    /**
+     * The previous match ended at {@link #searchStart} and was empty, so the next search has to
+     * start one code point later.
+     */
+    private boolean skipCodePoint;
+    /**
+     * The DFA state a search was suspended in, {@code 0} if there is no search in progress.
+     */
+    private int suspendedState;
+    /**
+     * Absolute offset the suspended search will resume at.
+     */
+    private long resumeOffset;
+    /**
+     * Absolute end offset of the latest tentative match of the current search, {@code -1} if none
+     * has been found yet.
+     */
+    private long tentativeMatchEnd = -1;
+    private boolean done;
+
+    RegexStreamMatcher(TRegexDFAStreamRootNode streamRootNode, CallTarget chunkCallTarget, int maxRetainedLength) {
+        this.chunkCallTarget = chunkCallTarget;
+        this.encoding = streamRootNode == null ? null : streamRootNode.getEncoding();
+        this.historyLength = streamRootNode == null ? 0 : streamRootNode.getHistoryLength();
+        this.maxRetainedLength = maxRetainedLength;
+        this.done = chunkCallTarget == null;
+    }
+
+    public long getPosition() {
+        return bufferOffset + bufferEnd;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public RegexStreamMatcherFeedMethod getFeedMethod() {
+        // this allocation should get virtualized and optimized away by graal
+        return new RegexStreamMatcherFeedMethod(this);
+    }
+
+    /**
+     * Appends {@code chunk} to the stream and returns the end offsets of all matches completed
+     * with it.
+     *
+     * @throws RegexStreamOverflowException if this chunk leaves more than
+     *             {@code maxRetainedLength} code units retained.
+     */
+    @TruffleBoundary
+    public long[] feed(Object chunk, boolean isLast) {
+        assert isValidChunk(chunk);
+        appendChunk(chunk);
+        if (done) {
+            discardConsumedData();
+            return new long[0];
+        }
+        final int limit = isLast ? bufferEnd : completeCodePointsLength();
+        LongArrayBuffer matches = new LongArrayBuffer(8);
+        // the String the DFA reads for char[] buffers, starting at buffer[strStart]
+        String str = null;
+        int strStart = 0;
+        while (true) {
+            final int index;
+            if (suspendedState == 0) {
+                if (skipCodePoint) {
+                    int start = (int) (searchStart - bufferOffset);
+                    if (start == limit) {
+                        // we don't know the length of the next code point yet
+                        done = isLast;
+                        break;
+                    }
+                    searchStart += codePointLength(start, limit);
+                    skipCodePoint = false;
+                }
+                index = (int) (searchStart - bufferOffset);
+            } else {
+                index = (int) (resumeOffset - bufferOffset);
+            }
+            Object input = buffer;
+            int inputStart = 0;
+            if (buffer instanceof char[]) {
+                int from = Math.max(bufferStart, index - historyLength);
+                if (str == null || from < strStart) {
+                    str = new String((char[]) buffer, from, bufferEnd - from);
+                    strStart = from;
+                }
+                input = str;
+                inputStart = strStart;
+            }
+            long result = (long) chunkCallTarget.call(input, index - inputStart, limit - inputStart, suspendedState, isLast);
+            int matchEnd = (int) result;
+            suspendedState = (int) (result >>> 32);
+            if (matchEnd != TRegexDFAExecutorNode.NO_MATCH) {
+                tentativeMatchEnd = bufferOffset + inputStart + matchEnd;
+            }
+            if (suspendedState != 0) {
+                assert !isLast;
+                resumeOffset = bufferOffset + limit;
+                break;
+            }
+            if (tentativeMatchEnd < 0) {
+                // no match starting at or after searchStart exists
+                done = true;
+                break;
+            }
+            matches.add(tentativeMatchEnd);
+            skipCodePoint = tentativeMatchEnd == searchStart;
+            searchStart = tentativeMatchEnd;
+            tentativeMatchEnd = -1;
+        }
+        discardConsumedData();
+        if (bufferEnd - bufferStart > maxRetainedLength) {
+            done = true;
+            discardConsumedData();
+            throw new RegexStreamOverflowException(maxRetainedLength);
+        }
+        return matches.toArray();
+    }
+
+    /**
+     * All chunks of a stream must be of the same type.
+     */
+    public boolean isValidChunk(Object chunk) {
+        if (chunk instanceof String) {
+            return buffer == null || buffer instanceof char[];
+        }
+        return chunk instanceof byte[] && (buffer == null || buffer instanceof byte[]);
+    }
+
+    private void appendChunk(Object chunk) {
+        int retained = bufferEnd - bufferStart;
+        int chunkLength = chunk instanceof String ? ((String) chunk).length() : ((byte[]) chunk).length;
+        int required = retained + chunkLength;
+        int capacity = buffer == null ? 0 : buffer instanceof char[] ? ((char[]) buffer).length : ((byte[]) buffer).length;
+        if (required > capacity / 2) {
+            /*
+             * Keep at least half of the buffer free after compacting, so that the retained data is
+             * moved at most once per chunks of half the buffer size.
+             */
+            int newCapacity = Math.max(required * 2, 64);
+            Object newBuffer = chunk instanceof String ? new char[newCapacity] : new byte[newCapacity];
+            if (retained > 0) {
+                System.arraycopy(buffer, bufferStart, newBuffer, 0, retained);
+            }
+            buffer = newBuffer;
+        } else if (bufferEnd + chunkLength > capacity) {
+            System.arraycopy(buffer, bufferStart, buffer, 0, retained);
+        } else {
+            copyChunk(chunk, bufferEnd);
+            bufferEnd += chunkLength;
+            return;
+        }
+        copyChunk(chunk, retained);
+        bufferOffset += bufferStart;
+        bufferStart = 0;
+        bufferEnd = required;
+    }
+
+    private void copyChunk(Object chunk, int destination) {
+        if (chunk instanceof String) {
+            String str = (String) chunk;
+            str.getChars(0, str.length(), (char[]) buffer, destination);
+        } else {
+            byte[] bytes = (byte[]) chunk;
+            System.arraycopy(bytes, 0, buffer, destination, bytes.length);
+        }
+    }
+
+    /**
+     * Drops all data no future search can depend on: a new search will start at or after the end
+     * of the current tentative match, or at or after the end of the data consumed so far, and may
+     * look back up to {@link #historyLength} code units from there. Dropped data is only skipped,
+     * it is removed from the buffer when the next chunk is appended.
+     */
+    private void discardConsumedData() {
+        if (done) {
+            bufferOffset += bufferEnd;
+            buffer = null;
+            bufferStart = 0;
+            bufferEnd = 0;
+            return;
+        }
+        long keepFrom;
+        if (suspendedState != 0) {
+            keepFrom = (tentativeMatchEnd >= 0 ? tentativeMatchEnd : resumeOffset) - historyLength;
+        } else {
+            keepFrom = searchStart - historyLength;
+        }
+        int discard = (int) (keepFrom - bufferOffset) - bufferStart;
+        if (discard > 0) {
+            bufferStart += discard;
+        }
+    }
+
+    /**
+     * Returns the length of the buffer without a trailing incomplete code point.
+     */
+    private int completeCodePointsLength() {
+        int length = bufferEnd;
+        if (encoding == Encodings.UTF_16) {
+            char[] chars = (char[]) buffer;
+            if (length > bufferStart && Character.isHighSurrogate(chars[length - 1])) {
+                return length - 1;
+            }
+        } else if (encoding == Encodings.UTF_8) {
+            byte[] bytes = (byte[]) buffer;
+            for (int i = length - 1; i >= Math.max(bufferStart, length - 4); i--) {
+                int b = Byte.toUnsignedInt(bytes[i]);
+                if (b >> 6 != 2) {
+                    return b < 0xc0 || i + Integer.numberOfLeadingZeros(~(b << 24)) <= length ? length : i;
+                }
+            }
+        }
+        return length;
+    }
+
+    private int codePointLength(int index, int limit) {
+        if (encoding == Encodings.UTF_16) {
+            char[] chars = (char[]) buffer;
+            return Character.isHighSurrogate(chars[index]) && index + 1 < limit && Character.isLowSurrogate(chars[index + 1]) ? 2 : 1;
+        } else if (encoding == Encodings.UTF_8) {
+            int b = Byte.toUnsignedInt(((byte[]) buffer)[index]);
+            return b < 0xc0 ? 1 : Math.min(Integer.numberOfLeadingZeros(~(b << 24)), limit - index);
+        }
+        return 1;
+    }
+
+    @Override
+    public TruffleReadOnlyKeysArray getKeys() {
+        return KEYS;
+    }
+
+    @Override
+    public Object readMemberImpl(String symbol) throws UnknownIdentifierException {
+        switch (symbol) {
+            case PROP_FEED:
+                return getFeedMethod();
+            case PROP_POSITION:
+                return getPosition();
+            case PROP_DONE:
+                return isDone();
+            default:
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                throw UnknownIdentifierException.create(symbol);
+        }
+    }
+
+    @ExportLibrary(InteropLibrary.class)
+    public static final class RegexStreamMatcherFeedMethod extends AbstractRegexObject {
+
+        private final RegexStreamMatcher matcher;
+
+        public RegexStreamMatcherFeedMethod(RegexStreamMatcher matcher) {
+            this.matcher = matcher;
+        }
+
+        public RegexStreamMatcher getMatcher() {
+            return matcher;
+        }
+
+        @SuppressWarnings("static-method")
+        @ExportMessage
+        boolean isExecutable() {
+            return true;
+        }
+
+        @ExportMessage
+        Object execute(Object[] args,
+                        @CachedLibrary(limit = "2") InteropLibrary chunks,
+                        @CachedLibrary(limit = "2") InteropLibrary booleans,
+                        @Cached ExpectByteArrayHostObjectNode expectByteArrayHostObjectNode) throws ArityException, UnsupportedTypeException, UnsupportedMessageException {
+            if (args.length != 2) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                throw ArityException.create(2, args.length);
+            }
+            if (!booleans.isBoolean(args[1])) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                throw UnsupportedTypeException.create(args);
+            }
+            Object chunk = chunks.isString(args[0]) ? chunks.asString(args[0]) : expectByteArrayHostObjectNode.execute(args[0]);
+            if (!matcher.isValidChunk(chunk)) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                throw UnsupportedTypeException.create(args, "all chunks of a stream must be of the same type");
+            }
+            return new TruffleReadOnlyLongArray(matcher.feed(chunk, booleans.asBoolean(args[1])));
+        }
+    }
+}
@@ -68,6 +68,7 @@ import com.oracle.truffle.regex.tregex.nodes.TRegexExecRootNode;
 import com.oracle.truffle.regex.tregex.nodes.TRegexExecutorNode;
 import com.oracle.truffle.regex.tregex.nodes.dfa.TRegexDFAExecutorNode;
 import com.oracle.truffle.regex.tregex.nodes.dfa.TRegexDFAExecutorProperties;
+import com.oracle.truffle.regex.tregex.nodes.dfa.TRegexDFAStreamRootNode;
 import com.oracle.truffle.regex.tregex.nodes.nfa.TRegexBacktrackingNFAExecutorNode;
 import com.oracle.truffle.regex.tregex.nodes.nfa.TRegexLiteralLookAroundExecutorNode;
 import com.oracle.truffle.regex.tregex.nodes.nfa.TRegexNFAExecutorNode;
@@ -243,6 +244,33 @@ public final class TRegexCompilationRequest {
         return createDFAExecutor(nfa, true, true, true, false);
     }
 
+    @TruffleBoundary
+    TRegexDFAStreamRootNode compileStreamingDFAExecutor() {
+        try {
+            createAST();
+            if (ast.getRoot().isDead()) {
+                return null;
+            }
+            if (!canTransformToDFA(ast)) {
+                throw new UnsupportedRegexException("streaming matching requires a DFA");
+            }
+            createNFA();
+            if (nfa.isDead()) {
+                return null;
+            }
+            // the streaming executor still needs a root node for reading the input
+            root = new TRegexExecRootNode(tRegexCompiler, ast, new TRegexNFAExecutorNode(nfa));
+            TRegexDFAExecutorNode executorNode = createDFAExecutor(nfa, new TRegexDFAExecutorProperties(true, true, false, false,
+                            tRegexCompiler.getOptions().isRegressionTestMode(), nfa.getAst().getRoot().getMinPath(), true), "stream");
+            executorNode.setRoot(root);
+            return new TRegexDFAStreamRootNode(tRegexCompiler.getLanguage(), source, executorNode);
+        } catch (UnsupportedRegexException e) {
+            e.setReason("TRegex: " + e.getReason());
+            e.setRegex(source);
+            throw e;
+        }
+    }
+
     private static boolean canTransformToDFA(RegexAST ast) throws UnsupportedRegexException {
         RegexProperties p = ast.getProperties();
         return ast.getNumberOfNodes() <= TRegexOptions.TRegexMaxParseTreeSizeForDFA &&
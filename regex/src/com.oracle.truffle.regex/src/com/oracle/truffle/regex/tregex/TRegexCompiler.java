@@ -47,10 +47,12 @@ import com.oracle.truffle.regex.RegexLanguage;
 import com.oracle.truffle.regex.RegexOptions;
 import com.oracle.truffle.regex.RegexSource;
 import com.oracle.truffle.regex.RegexSyntaxException;
+import com.oracle.truffle.regex.UnsupportedRegexException;
 import com.oracle.truffle.regex.tregex.nfa.NFA;
 import com.oracle.truffle.regex.tregex.nodes.TRegexExecRootNode;
 import com.oracle.truffle.regex.tregex.nodes.TRegexExecRootNode.LazyCaptureGroupRegexSearchNode;
 import com.oracle.truffle.regex.tregex.nodes.dfa.TRegexDFAExecutorNode;
+import com.oracle.truffle.regex.tregex.nodes.dfa.TRegexDFAStreamRootNode;
 import com.oracle.truffle.regex.tregex.nodes.nfa.TRegexBacktrackingNFAExecutorNode;
 import com.oracle.truffle.regex.tregex.parser.flavors.RegexFlavor;
 import com.oracle.truffle.regex.tregex.parser.flavors.RegexFlavorProcessor;
@@ -76,17 +78,31 @@ public final class TRegexCompiler implements RegexCompiler {
     @TruffleBoundary
     @Override
     public CompiledRegexObject compile(RegexSource source) throws RegexSyntaxException {
+        return new TRegexCompilationRequest(this, toECMAScriptSource(source)).compile();
+    }
+
+    private RegexSource toECMAScriptSource(RegexSource source) {
         RegexFlavor flavor = options.getFlavor();
-        RegexSource ecmascriptSource = source;
         if (flavor != null) {
             /*
              * We rewrite the pattern here, to avoid rewriting again when switching to other
              * matching strategies via the other compile* methods below.
              */
             RegexFlavorProcessor flavorProcessor = flavor.forRegex(source);
-            ecmascriptSource = flavorProcessor.toECMAScriptRegex();
+            return flavorProcessor.toECMAScriptRegex();
         }
-        return new TRegexCompilationRequest(this, ecmascriptSource).compile();
+        return source;
+    }
+
+    /**
+     * Compiles a forward DFA executor for matching {@code source} on an input stream that is
+     * delivered in chunks. Returns {@code null} if the regex can never match.
+     *
+     * @throws UnsupportedRegexException if the regex cannot be matched by a DFA.
+     */
+    @TruffleBoundary
+    public TRegexDFAStreamRootNode compileStreamingDFAExecutor(RegexSource source) throws RegexSyntaxException, UnsupportedRegexException {
+        return new TRegexCompilationRequest(this, toECMAScriptSource(source)).compileStreamingDFAExecutor();
     }
 
     @TruffleBoundary
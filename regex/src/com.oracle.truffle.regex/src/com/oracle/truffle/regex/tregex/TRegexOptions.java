@@ -157,7 +157,7 @@ public class TRegexOptions {
     public static final int TRegexMaxDFASize = 2_400;
 
     /**
-     * Maximum number of entries in the global compilation cache in
+     * Maximum number of entries in each compilation cache in
      * {@link com.oracle.truffle.regex.RegexLanguage}.
      */
     public static final int RegexMaxCacheSize = 1_000;
@@ -193,6 +193,32 @@ public class TRegexOptions {
      */
     public static final int TRegexMaxNumberOfNFAStatesInOneDFATransition = 255;
 
+    /**
+     * Try to memoize failing (NFA state, index) pairs in the backtracking executor. Memoization is
+     * only used for expressions where a match from a given state and index does not depend on any
+     * other backtracker state, i.e. expressions without back-references and quantifier counters.
+     * It turns the exponential runtime of expressions like {@code (?!x)(a|a)*b} into a linear one.
+     */
+    public static final boolean TRegexEnableBacktrackingMemoization = true;
+
+    /**
+     * Maximum number of {@code long} words allocated for the backtracker's memoization table in
+     * one regex execution. Every word covers one memoized NFA state at 64 indices. If the table is
+     * full, states at indices that are not covered yet are explored without being recorded, so
+     * expressions with exponential backtracking may become exponential again on inputs longer than
+     * {@code 64 * TRegexMaxBacktrackingMemoizationTableSize / (number of memoized states)}. This is
+     * logged to the {@code regex.BacktrackingMemoization} logger.
+     */
+    public static final int TRegexMaxBacktrackingMemoizationTableSize = 1 << 16;
+
+    /**
+     * Use a table-driven scan loop for DFA states that loop back to themselves on a character class
+     * with too many exit characters for an {@code indexOf} search, e.g. {@code [^<>&"']*} or
+     * {@code [a-zA-Z0-9_]*}. Only applies if the character class and its complement can be told
+     * apart by looking at the lowest 256 code unit values.
+     */
+    public static final boolean TRegexEnableLoopOptTable = true;
+
     static {
         assert TRegexTraceFinderMaxNumberOfResults <= 254;
         assert TRegexParserTreeMaxSize <= Integer.MAX_VALUE;
@@ -572,7 +572,7 @@ public final class DFAGenerator implements JsonConvertible {
                         (props.hasAlternations() || props.hasLookAroundAssertions());
 
         // inner-literal-optimization
-        if (isForward() && isSearching() && !isGenericCG() && !nfa.getAst().getFlags().isSticky() && props.hasInnerLiteral()) {
+        if (isForward() && isSearching() && !isGenericCG() && !executorProps.isStreaming() && !nfa.getAst().getFlags().isSticky() && props.hasInnerLiteral()) {
             int literalEnd = props.getInnerLiteralEnd();
             int literalStart = props.getInnerLiteralStart();
             Sequence rootSeq = nfa.getAst().getRoot().getFirstAlternative();
@@ -862,8 +862,13 @@ public final class DFAGenerator implements JsonConvertible {
                 if (successors[i] == id) {
                     loopToSelf = (short) i;
                     CodePointSet loopMB = s.getSuccessors()[i].getCodePointSet();
-                    if (coversCharSpace && !loopMB.matchesEverything(getEncoding()) && loopMB.inverseValueCount(getEncoding()) <= 4) {
-                        loopOptimizationNode = getEncoding().extractLoopOptNode(loopMB);
+                    if (coversCharSpace && !loopMB.matchesEverything(getEncoding())) {
+                        if (loopMB.inverseValueCount(getEncoding()) <= 4) {
+                            loopOptimizationNode = getEncoding().extractLoopOptNode(loopMB);
+                        }
+                        if (loopOptimizationNode == null && TRegexOptions.TRegexEnableLoopOptTable) {
+                            loopOptimizationNode = getEncoding().extractLoopOptTableNode(loopMB);
+                        }
                     }
                 }
                 assert successors[i] >= 0 && successors[i] < ret.length;
@@ -254,6 +254,19 @@ public class TRegexExecRootNode extends RegexExecRootNode implements RegexProfil
         return regexProfile;
     }
 
+    /**
+     * Generates the lazy DFA right away instead of waiting for
+     * {@link RegexProfile#shouldGenerateDFA()}. Used for regular expressions that are precompiled
+     * at native image build time.
+     */
+    public void precompileDFA() {
+        if (!backtrackingMode && lazyDFANode == null) {
+            switchToLazyDFA();
+            // free the NFA for garbage collection
+            nfaNode = null;
+        }
+    }
+
     private synchronized void switchToLazyDFA() {
         compileLazyDFA();
         if (lazyDFANode != LAZY_DFA_BAILED_OUT) {
@@ -52,6 +52,7 @@ import com.oracle.truffle.regex.tregex.nodes.TRegexExecutorLocals;
 import com.oracle.truffle.regex.tregex.nodes.TRegexExecutorNode;
 import com.oracle.truffle.regex.tregex.nodes.input.InputIndexOfNode;
 import com.oracle.truffle.regex.tregex.nodes.input.InputIndexOfStringNode;
+import com.oracle.truffle.regex.tregex.nodes.input.InputIndexOfTableNode;
 import com.oracle.truffle.regex.tregex.string.AbstractString;
 import com.oracle.truffle.regex.tregex.util.DebugUtil;
 import com.oracle.truffle.regex.tregex.util.json.Json;
@@ -61,9 +62,9 @@ import com.oracle.truffle.regex.tregex.util.json.JsonValue;
 public class DFAStateNode extends DFAAbstractStateNode {
 
     /**
-     * This node is used when all except a very small set of code points will loop back to the
-     * current DFA state. This node's {@link #execute(Object, int, int)} method will search for the
-     * given small set of code points in an optimized, possibly vectorized loop.
+     * This node is used when all except a small or easily classified set of code points will loop
+     * back to the current DFA state. This node's {@link #execute(Object, int, int)} method will
+     * search for the given set of code points in an optimized, possibly vectorized loop.
      */
     public abstract static class LoopOptimizationNode extends Node {
 
@@ -71,6 +72,14 @@ public class DFAStateNode extends DFAAbstractStateNode {
 
         public abstract int encodedLength();
 
+        /**
+         * Returns {@code true} if every code point found by {@link #execute(Object, int, int)} is
+         * encoded in exactly {@link #encodedLength()} code units.
+         */
+        public boolean isFixedCodePointWidth() {
+            return true;
+        }
+
         abstract LoopOptimizationNode nodeSplitCopy();
     }
 
@@ -187,6 +196,68 @@ public class DFAStateNode extends DFAAbstractStateNode {
         }
     }
 
+    /**
+     * Optimized search for the first code unit that does not loop back to the current state, for
+     * loops whose set of exit code points is too large for {@link LoopOptIndexOfAnyNode}. The
+     * search uses a lookup table over the lowest 256 code unit values, see
+     * {@link InputIndexOfTableNode}.
+     */
+    public static final class LoopOptIndexOfTableNode extends LoopOptimizationNode {
+
+        @CompilationFinal(dimensions = 1) private final byte[] table;
+        private final byte highValue;
+        private final boolean fixedCodePointWidth;
+        @Child private InputIndexOfTableNode indexOfNode;
+
+        /**
+         * @param table lookup table of size 256. A non-zero entry denotes a code unit that exits
+         *            the loop.
+         * @param highExits {@code true} if all code units greater than 255 exit the loop.
+         * @param fixedCodePointWidth {@code true} if all code points exiting the loop are encoded
+         *            in a single code unit.
+         */
+        public LoopOptIndexOfTableNode(byte[] table, boolean highExits, boolean fixedCodePointWidth) {
+            assert table.length == 256;
+            this.table = table;
+            this.highValue = (byte) (highExits ? 1 : 0);
+            this.fixedCodePointWidth = fixedCodePointWidth;
+        }
+
+        private LoopOptIndexOfTableNode(LoopOptIndexOfTableNode copy) {
+            this.table = copy.table;
+            this.highValue = copy.highValue;
+            this.fixedCodePointWidth = copy.fixedCodePointWidth;
+        }
+
+        @Override
+        public int execute(Object input, int fromIndex, int maxIndex) {
+            return getIndexOfNode().execute(input, fromIndex, maxIndex, table, highValue);
+        }
+
+        @Override
+        public int encodedLength() {
+            return 1;
+        }
+
+        @Override
+        public boolean isFixedCodePointWidth() {
+            return fixedCodePointWidth;
+        }
+
+        @Override
+        LoopOptimizationNode nodeSplitCopy() {
+            return new LoopOptIndexOfTableNode(this);
+        }
+
+        private InputIndexOfTableNode getIndexOfNode() {
+            if (indexOfNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                indexOfNode = insert(InputIndexOfTableNode.create());
+            }
+            return indexOfNode;
+        }
+    }
+
     private static final byte FLAG_FINAL_STATE = 1;
     private static final byte FLAG_ANCHORED_FINAL_STATE = 1 << 1;
     private static final byte FLAG_HAS_BACKWARD_PREFIX_STATE = 1 << 2;
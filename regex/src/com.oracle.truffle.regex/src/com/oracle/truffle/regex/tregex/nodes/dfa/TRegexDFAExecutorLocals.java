@@ -52,6 +52,8 @@ public final class TRegexDFAExecutorLocals extends TRegexExecutorLocals {
     private int result;
     private short lastTransition;
     private int lastIndex;
+    private short suspendedState;
+    private boolean lastChunk;
     private final DFACaptureGroupTrackingData cgData;
 
     public TRegexDFAExecutorLocals(Object input, int fromIndex, int index, int maxIndex, DFACaptureGroupTrackingData cgData) {
@@ -103,6 +105,33 @@ public final class TRegexDFAExecutorLocals extends TRegexExecutorLocals {
         this.result = result;
     }
 
+    /**
+     * The ID of the DFA state a {@link TRegexDFAExecutorProperties#isStreaming() streaming}
+     * executor stopped in when it reached the end of the current chunk, or {@code 0} if the
+     * executor did not stop at the end of the chunk. When set before calling the executor, the
+     * executor resumes matching in the given state at {@link #getIndex()}, instead of starting a
+     * new search.
+     */
+    public short getSuspendedState() {
+        return suspendedState;
+    }
+
+    public void setSuspendedState(short suspendedState) {
+        this.suspendedState = suspendedState;
+    }
+
+    /**
+     * Whether the current chunk is the last one of the input stream. Only used by
+     * {@link TRegexDFAExecutorProperties#isStreaming() streaming} executors.
+     */
+    public boolean isLastChunk() {
+        return lastChunk;
+    }
+
+    public void setLastChunk(boolean lastChunk) {
+        this.lastChunk = lastChunk;
+    }
+
     public DFACaptureGroupTrackingData getCGData() {
         return cgData;
     }
@@ -55,6 +55,7 @@ import com.oracle.truffle.regex.tregex.nodes.dfa.Matchers.UTF16Matchers;
 import com.oracle.truffle.regex.tregex.nodes.dfa.Matchers.UTF16RawMatchers;
 import com.oracle.truffle.regex.tregex.nodes.dfa.Matchers.UTF8Matchers;
 import com.oracle.truffle.regex.tregex.string.Encodings;
+import com.oracle.truffle.regex.tregex.util.Exceptions;
 
 public final class TRegexDFAExecutorNode extends TRegexExecutorNode {
 
@@ -182,7 +183,7 @@ public final class TRegexDFAExecutorNode extends TRegexExecutorNode {
             Arrays.fill(locals.getCGData().results, -1);
         }
         // check if input is long enough for a match
-        if (props.getMinResultLength() > 0 &&
+        if (!props.isStreaming() && props.getMinResultLength() > 0 &&
                         (isForward() ? locals.getMaxIndex() - locals.getIndex() : locals.getIndex() - Math.max(0, locals.getFromIndex() - getPrefixLength())) < props.getMinResultLength()) {
             // no match possible, break immediately
             return isGenericCG() || isSimpleCG() ? null : TRegexDFAExecutorNode.NO_MATCH;
@@ -214,6 +215,21 @@ public final class TRegexDFAExecutorNode extends TRegexExecutorNode {
                 if (isGenericCG()) {
                     locals.setLastTransition((short) 0);
                 }
+                if (props.isStreaming() && locals.getSuspendedState() != 0) {
+                    /*
+                     * We are resuming a search that was suspended at the end of the previous
+                     * chunk - jump directly to the DFA state we stopped in.
+                     */
+                    initNextIndex(locals);
+                    for (int i = 1; i < states.length; i++) {
+                        if (i == locals.getSuspendedState()) {
+                            locals.setSuspendedState((short) 0);
+                            ip = i;
+                            continue outer;
+                        }
+                    }
+                    throw Exceptions.shouldNotReachHere();
+                }
                 if (isSearching()) {
                     assert isForward();
                     /*
@@ -288,7 +304,7 @@ public final class TRegexDFAExecutorNode extends TRegexExecutorNode {
                         int postLoopIndex = indexOfResult < 0 ? getMaxIndex(locals) : indexOfResult;
                         state.afterIndexOf(locals, this, locals.getIndex(), postLoopIndex);
                         assert locals.getIndex() == postLoopIndex;
-                        if (successors.length == 2 && indexOfResult >= 0) {
+                        if (successors.length == 2 && indexOfResult >= 0 && state.loopOptimizationNode.isFixedCodePointWidth()) {
                             int successor = (state.getLoopToSelf() + 1) & 1;
                             CompilerAsserts.partialEvaluationConstant(successor);
                             inputIncNextIndexRaw(locals, state.loopOptimizationNode.encodedLength());
@@ -297,6 +313,14 @@ public final class TRegexDFAExecutorNode extends TRegexExecutorNode {
                         }
                     }
                     if (!inputHasNext(locals)) {
+                        if (props.isStreaming() && !locals.isLastChunk()) {
+                            /*
+                             * The end of the current chunk is not the end of the input - save
+                             * the current state and wait for the next chunk.
+                             */
+                            locals.setSuspendedState((short) ip);
+                            break;
+                        }
                         state.atEnd(locals, this);
                         if (isBackward() && state.hasBackwardPrefixState() && locals.getIndex() > 0) {
                             assert locals.getIndex() == locals.getFromIndex();
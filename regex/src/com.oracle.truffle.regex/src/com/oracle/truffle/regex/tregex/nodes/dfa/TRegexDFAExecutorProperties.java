@@ -52,6 +52,7 @@ public final class TRegexDFAExecutorProperties {
     @CompilationFinal private boolean simpleCGMustCopy;
     private final boolean regressionTestMode;
     private final int minResultLength;
+    private final boolean streaming;
 
     public TRegexDFAExecutorProperties(
                     boolean forward,
@@ -60,12 +61,25 @@ public final class TRegexDFAExecutorProperties {
                     boolean allowSimpleCG,
                     boolean regressionTestMode,
                     int minResultLength) {
+        this(forward, searching, genericCG, allowSimpleCG, regressionTestMode, minResultLength, false);
+    }
+
+    public TRegexDFAExecutorProperties(
+                    boolean forward,
+                    boolean searching,
+                    boolean genericCG,
+                    boolean allowSimpleCG,
+                    boolean regressionTestMode,
+                    int minResultLength,
+                    boolean streaming) {
+        assert !streaming || (forward && searching && !genericCG && !allowSimpleCG);
         this.forward = forward;
         this.searching = searching;
         this.genericCG = genericCG;
         this.allowSimpleCG = allowSimpleCG;
         this.regressionTestMode = regressionTestMode;
         this.minResultLength = minResultLength;
+        this.streaming = streaming;
     }
 
     public boolean isForward() {
@@ -122,4 +136,15 @@ public final class TRegexDFAExecutorProperties {
     public int getMinResultLength() {
         return minResultLength;
     }
+
+    /**
+     * True if the DFA executor is fed its input in chunks by a {@link TRegexDFAStreamRootNode}. A
+     * streaming executor does not treat the end of a chunk as the end of the input, unless
+     * {@link TRegexDFAExecutorLocals#isLastChunk()} is set. Instead, it suspends and saves the
+     * current DFA state in {@link TRegexDFAExecutorLocals#getSuspendedState()}, to be resumed
+     * with the next chunk.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
 }
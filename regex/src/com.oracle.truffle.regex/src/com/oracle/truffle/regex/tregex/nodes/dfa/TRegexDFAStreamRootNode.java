@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.regex.tregex.nodes.dfa;
+
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.regex.RegexBodyNode;
+import com.oracle.truffle.regex.RegexLanguage;
+import com.oracle.truffle.regex.RegexSource;
+import com.oracle.truffle.regex.tregex.string.Encodings.Encoding;
+
+/**
+ * Runs a {@link TRegexDFAExecutorProperties#isStreaming() streaming} forward DFA on a single chunk
+ * of an input stream. Arguments:
+ * <ol>
+ * <li>{@link Object} {@code input}: the current chunk, i.e. a {@link String} or {@code byte[]},
+ * possibly prepended with data retained from previous chunks.</li>
+ * <li>{@code int index}: the index to start searching at, or, if a suspended state is given, the
+ * index to resume matching at.</li>
+ * <li>{@code int maxIndex}: the end of the data available in {@code input}. No code point may
+ * cross this index, unless it is the end of the stream.</li>
+ * <li>{@code int suspendedState}: the DFA state returned by the previous call, or {@code 0} to
+ * start a new search.</li>
+ * <li>{@code boolean lastChunk}: whether {@code maxIndex} is the end of the stream.</li>
+ * </ol>
+ * The result is a {@code long} whose upper 32 bits contain the DFA state the executor suspended
+ * in, or {@code 0} if the search is finished, and whose lower 32 bits contain the end index of the
+ * latest match found during this call, or {@link TRegexDFAExecutorNode#NO_MATCH}.
+ */
+public final class TRegexDFAStreamRootNode extends RegexBodyNode {
+
+    @Child private TRegexDFAExecutorNode executor;
+
+    public TRegexDFAStreamRootNode(RegexLanguage language, RegexSource source, TRegexDFAExecutorNode executor) {
+        super(language, source);
+        assert executor.getProperties().isStreaming();
+        this.executor = executor;
+    }
+
+    public Encoding getEncoding() {
+        return executor.getEncoding();
+    }
+
+    /**
+     * Number of code units that must be available in front of the starting index of a new search:
+     * the search rewinds up to {@link TRegexDFAExecutorNode#getPrefixLength()} code points to check
+     * look-behind assertions, and must be able to tell the beginning of the stream from the
+     * beginning of the buffer.
+     */
+    public int getHistoryLength() {
+        return getEncoding().getEncodedSize(Character.MAX_CODE_POINT) * Math.max(1, executor.getPrefixLength()) + 1;
+    }
+
+    @Override
+    public Object execute(VirtualFrame frame) {
+        final Object[] args = frame.getArguments();
+        assert args.length == 5;
+        final Object input = args[0];
+        final int index = (int) args[1];
+        final int maxIndex = (int) args[2];
+        TRegexDFAExecutorLocals locals = new TRegexDFAExecutorLocals(input, index, index, maxIndex, null);
+        locals.setSuspendedState((short) (int) args[3]);
+        locals.setLastChunk((boolean) args[4]);
+        executor.execute(locals, false);
+        return ((long) locals.getSuspendedState() << 32) | (locals.getResultInt() & 0xffffffffL);
+    }
+
+    @Override
+    public String getEngineLabel() {
+        return "TRegex stream";
+    }
+}
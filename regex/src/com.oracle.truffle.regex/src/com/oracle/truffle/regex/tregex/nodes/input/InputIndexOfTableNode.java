@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.regex.tregex.nodes.input;
+
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.nodes.Node;
+
+/**
+ * Searches for the first code unit in {@code [fromIndex, maxIndex)} that is marked in a lookup
+ * table over the lowest 256 code unit values. Code units not covered by the table are treated as
+ * marked iff {@code highValue} is non-zero.
+ * <p>
+ * The scan loops over {@code byte[]} and {@link String} inputs process the input in blocks of
+ * {@link #BLOCK_SIZE} code units, combining all table lookups of one block with a bitwise or and
+ * checking the result only once per block. The lookups in one block are independent of each other,
+ * which gives the compiler a straight-line loop body without early exits that it can schedule and
+ * unroll freely. Once a block containing a marked code unit is found, it is re-scanned one code
+ * unit at a time.
+ */
+public abstract class InputIndexOfTableNode extends Node {
+
+    private static final int BLOCK_SIZE = 8;
+
+    public static InputIndexOfTableNode create() {
+        return InputIndexOfTableNodeGen.create();
+    }
+
+    public abstract int execute(Object input, int fromIndex, int maxIndex, byte[] table, byte highValue);
+
+    @Specialization
+    public int doBytes(byte[] input, int fromIndex, int maxIndex, byte[] table, @SuppressWarnings("unused") byte highValue) {
+        assert table.length == 256;
+        int i = fromIndex;
+        for (; i <= maxIndex - BLOCK_SIZE; i += BLOCK_SIZE) {
+            int block = table[input[i] & 0xff] | table[input[i + 1] & 0xff] | table[input[i + 2] & 0xff] | table[input[i + 3] & 0xff] |
+                            table[input[i + 4] & 0xff] | table[input[i + 5] & 0xff] | table[input[i + 6] & 0xff] | table[input[i + 7] & 0xff];
+            if (block != 0) {
+                break;
+            }
+        }
+        for (; i < maxIndex; i++) {
+            if (table[input[i] & 0xff] != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Specialization
+    public int doString(String input, int fromIndex, int maxIndex, byte[] table, byte highValue) {
+        assert table.length == 256;
+        int i = fromIndex;
+        for (; i <= maxIndex - BLOCK_SIZE; i += BLOCK_SIZE) {
+            int block = lookup(table, highValue, input.charAt(i)) | lookup(table, highValue, input.charAt(i + 1)) | lookup(table, highValue, input.charAt(i + 2)) |
+                            lookup(table, highValue, input.charAt(i + 3)) | lookup(table, highValue, input.charAt(i + 4)) | lookup(table, highValue, input.charAt(i + 5)) |
+                            lookup(table, highValue, input.charAt(i + 6)) | lookup(table, highValue, input.charAt(i + 7));
+            if (block != 0) {
+                break;
+            }
+        }
+        for (; i < maxIndex; i++) {
+            if (lookup(table, highValue, input.charAt(i)) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Specialization
+    public int doTruffleObj(TruffleObject input, int fromIndex, int maxIndex, byte[] table, byte highValue,
+                    @Cached InputReadNode charAtNode) {
+        for (int i = fromIndex; i < maxIndex; i++) {
+            if (lookup(table, highValue, charAtNode.execute(input, i)) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lookup(byte[] table, byte highValue, int c) {
+        return c < table.length ? table[c] : highValue;
+    }
+}
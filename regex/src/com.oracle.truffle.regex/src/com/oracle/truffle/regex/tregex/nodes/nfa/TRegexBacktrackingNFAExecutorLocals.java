@@ -44,9 +44,11 @@ import java.util.Arrays;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.regex.tregex.TRegexOptions;
 import com.oracle.truffle.regex.tregex.nfa.PureNFATransition;
 import com.oracle.truffle.regex.tregex.nodes.TRegexExecutorLocals;
 import com.oracle.truffle.regex.tregex.parser.Token.Quantifier;
+import com.oracle.truffle.regex.tregex.util.Loggers;
 import com.oracle.truffle.regex.util.BitSets;
 
 /**
@@ -72,6 +74,15 @@ import com.oracle.truffle.regex.util.BitSets;
  *
  * frame size: 2 + n_capture_groups*2 + n_quantifiers + n_zero_width_quantifiers
  * </pre>
+ *
+ * If the executor uses memoization, this class also holds the memoization table, a set of (NFA
+ * state, index) pairs that were already entered. It is organized in pages covering 64 consecutive
+ * indices each, starting at {@code fromIndex}. The pages and the directory of pages are allocated
+ * on demand, so their size depends on the range of indices the backtracker actually visits, not on
+ * the length of the input. Once the table holds
+ * {@link TRegexOptions#TRegexMaxBacktrackingMemoizationTableSize} words, no more pages are
+ * allocated: states at indices without a page are explored without being recorded, which is
+ * logged to {@link Loggers#LOG_BACKTRACKING_MEMOIZATION}.
  */
 public final class TRegexBacktrackingNFAExecutorLocals extends TRegexExecutorLocals {
 
@@ -86,6 +97,9 @@ public final class TRegexBacktrackingNFAExecutorLocals extends TRegexExecutorLoc
     private int lastResultSp = -1;
     private int lastInnerLiteralIndex;
     private int lastInitialStateIndex;
+    private long[][] memoPages;
+    private int memoTableSize;
+    private boolean memoTableFull;
 
     public TRegexBacktrackingNFAExecutorLocals(Object input, int fromIndex, int index, int maxIndex, int nCaptureGroups, int nQuantifiers, int nZeroWidthQuantifiers, int maxNTransitions) {
         this(input, fromIndex, index, maxIndex, nCaptureGroups, nQuantifiers, nZeroWidthQuantifiers, new Stack(new int[getStackFrameSize(nCaptureGroups, nQuantifiers, nZeroWidthQuantifiers) * 4]), 0,
@@ -311,6 +325,57 @@ public final class TRegexBacktrackingNFAExecutorLocals extends TRegexExecutorLoc
         this.lastInitialStateIndex = i;
     }
 
+    /**
+     * Records that the backtracker entered the NFA state with memoization slot {@code memoSlot}
+     * at the current index.
+     *
+     * @return {@code true} if the state was already entered at the current index before. In that
+     *         case, all paths starting from there have failed already, and the backtracker can
+     *         backtrack immediately.
+     */
+    public boolean checkAndMarkVisited(int memoSlot, int nMemoSlots) {
+        int offset = getIndex() - getFromIndex();
+        assert offset >= 0;
+        int pageIndex = offset >> 6;
+        if (memoPages == null || pageIndex >= memoPages.length) {
+            growMemoPages(pageIndex);
+        }
+        long[] page = memoPages[pageIndex];
+        if (page == null) {
+            if (memoTableSize + nMemoSlots > TRegexOptions.TRegexMaxBacktrackingMemoizationTableSize) {
+                if (!memoTableFull) {
+                    memoTableFull = true;
+                    logMemoTableFull(getIndex());
+                }
+                return false;
+            }
+            page = new long[nMemoSlots];
+            memoPages[pageIndex] = page;
+            memoTableSize += nMemoSlots;
+        }
+        long bit = 1L << offset;
+        if ((page[memoSlot] & bit) != 0) {
+            return true;
+        }
+        page[memoSlot] |= bit;
+        return false;
+    }
+
+    /**
+     * Grows the directory of memoization pages geometrically, so that it covers the page with index
+     * {@code pageIndex}.
+     */
+    private void growMemoPages(int pageIndex) {
+        int maxPages = ((getMaxIndex() - getFromIndex()) >> 6) + 1;
+        int length = Math.min(Math.max(pageIndex + 1, memoPages == null ? 16 : memoPages.length * 2), maxPages);
+        memoPages = memoPages == null ? new long[length][] : Arrays.copyOf(memoPages, length);
+    }
+
+    @TruffleBoundary
+    private static void logMemoTableFull(int index) {
+        Loggers.LOG_BACKTRACKING_MEMOIZATION.fine(() -> "memoization table full at index " + index + ", exploring the remaining indices without memoization");
+    }
+
     @TruffleBoundary
     public void printStack(int curPc) {
         for (int i = sp; i >= 0; i -= stackFrameSize) {
@@ -48,6 +48,7 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.regex.RegexRootNode;
 import com.oracle.truffle.regex.charset.CharMatchers;
 import com.oracle.truffle.regex.charset.CodePointSet;
+import com.oracle.truffle.regex.tregex.TRegexOptions;
 import com.oracle.truffle.regex.tregex.buffer.CompilationBuffer;
 import com.oracle.truffle.regex.tregex.matchers.CharMatcher;
 import com.oracle.truffle.regex.tregex.nfa.PureNFA;
@@ -70,6 +71,13 @@ import com.oracle.truffle.regex.tregex.util.Exceptions;
 /**
  * This regex executor uses a backtracking algorithm on the NFA. It is used for all expressions that
  * cannot be matched with the DFA, such as expressions with backreferences.
+ * <p>
+ * If a match starting from an NFA state at a given index depends on nothing but the state and the
+ * index, the executor memoizes the (state, index) pairs it has already entered: once such a pair
+ * is entered a second time, all paths from the first visit must have failed, so the executor can
+ * backtrack immediately. This bounds the number of visits per pair to one and prevents the
+ * exponential runtime caused by nested or overlapping quantifiers. Only non-deterministic states
+ * are memoized, since paths can only fork there.
  */
 public final class TRegexBacktrackingNFAExecutorNode extends TRegexExecutorNode {
 
@@ -87,6 +95,12 @@ public final class TRegexBacktrackingNFAExecutorNode extends TRegexExecutorNode
     private final boolean loopbackInitialState;
     private final InnerLiteral innerLiteral;
     @CompilationFinal(dimensions = 1) private final TRegexExecutorNode[] lookAroundExecutors;
+    /**
+     * Memoization slot of every NFA state, {@code -1} for states that are not memoized.
+     * {@code null} if memoization is disabled.
+     */
+    @CompilationFinal(dimensions = 1) private final int[] memoSlots;
+    private final int nMemoSlots;
     @Children private CharMatcher[] matchers;
 
     @Child InputRegionMatchesNode regionMatchesNode;
@@ -126,6 +140,24 @@ public final class TRegexBacktrackingNFAExecutorNode extends TRegexExecutorNode
             s.initIsDeterministic(forward, compilationBuffer);
         }
         this.maxNTransitions = maxTransitions;
+        /*
+         * Look-around executors get new locals on every invocation, so they would have to
+         * allocate a new memoization table every time. Therefore, only the root NFA is memoized.
+         */
+        if (TRegexOptions.TRegexEnableBacktrackingMemoization && nfa == nfaMap.getRoot() && !nfaMap.getAst().getProperties().hasBackReferences() && nQuantifiers == 0 &&
+                        nZeroWidthQuantifiers == 0) {
+            int[] slots = new int[nfa.getNumberOfStates()];
+            int nSlots = 0;
+            for (int i = 0; i < slots.length; i++) {
+                PureNFAState s = nfa.getState(i);
+                slots[i] = s.isFinalState(forward) || s.isDeterministic() ? -1 : nSlots++;
+            }
+            this.memoSlots = nSlots == 0 ? null : slots;
+            this.nMemoSlots = nSlots;
+        } else {
+            this.memoSlots = null;
+            this.nMemoSlots = 0;
+        }
     }
 
     public void initialize(TRegexExecRootNode rootNode) {
@@ -302,6 +334,9 @@ public final class TRegexBacktrackingNFAExecutorNode extends TRegexExecutorNode
             locals.pushResult();
             return IP_END;
         }
+        if (memoSlots != null && memoSlots[curState.getId()] >= 0 && locals.checkAndMarkVisited(memoSlots[curState.getId()], nMemoSlots)) {
+            return IP_BACKTRACK;
+        }
         /*
          * Do very expensive operations per-state instead of per-transition, to avoid code size
          * explosion. Drawback: these postponed operations cannot be checked eagerly, so their state
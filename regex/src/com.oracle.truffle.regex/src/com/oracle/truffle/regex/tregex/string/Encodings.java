@@ -49,6 +49,7 @@ import com.oracle.truffle.regex.tregex.nodes.dfa.DFAStateNode;
 import com.oracle.truffle.regex.tregex.nodes.dfa.DFAStateNode.LoopOptIndexOfAnyByteNode;
 import com.oracle.truffle.regex.tregex.nodes.dfa.DFAStateNode.LoopOptIndexOfAnyCharNode;
 import com.oracle.truffle.regex.tregex.nodes.dfa.DFAStateNode.LoopOptIndexOfStringNode;
+import com.oracle.truffle.regex.tregex.nodes.dfa.DFAStateNode.LoopOptIndexOfTableNode;
 import com.oracle.truffle.regex.tregex.nodes.dfa.DFAStateNode.LoopOptimizationNode;
 import com.oracle.truffle.regex.tregex.nodes.dfa.Matchers;
 import com.oracle.truffle.regex.tregex.nodes.dfa.Matchers.Builder;
@@ -65,6 +66,18 @@ public final class Encodings {
     public static final Encoding LATIN_1 = new Encoding.Latin1();
 
     public static Encoding getEncoding(String name) {
+        Encoding encoding = findEncoding(name);
+        if (encoding == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            throw Exceptions.shouldNotReachHere("Unknown Encoding \"" + name + "\"");
+        }
+        return encoding;
+    }
+
+    /**
+     * Returns the encoding called {@code name}, or {@code null} if there is no such encoding.
+     */
+    public static Encoding findEncoding(String name) {
         switch (name) {
             case "UTF-8":
                 return UTF_8;
@@ -79,8 +92,7 @@ public final class Encodings {
             case "LATIN-1":
                 return LATIN_1;
             default:
-                CompilerDirectives.transferToInterpreterAndInvalidate();
-                throw Exceptions.shouldNotReachHere("Unknown Encoding \"" + name + "\"");
+                return null;
         }
     }
 
@@ -104,6 +116,42 @@ public final class Encodings {
 
         public abstract DFAStateNode.LoopOptimizationNode extractLoopOptNode(CodePointSet loopCPS);
 
+        /**
+         * Creates a {@link LoopOptIndexOfTableNode} for a loop transition on {@code loopCPS}, or
+         * returns {@code null} if this encoding does not support table-driven loop scanning.
+         * Intended for loops whose set of exit code points is too large for
+         * {@link #extractLoopOptNode(CodePointSet)}.
+         */
+        public DFAStateNode.LoopOptimizationNode extractLoopOptTableNode(@SuppressWarnings("unused") CodePointSet loopCPS) {
+            return null;
+        }
+
+        /**
+         * Builds a {@link LoopOptIndexOfTableNode}, if all code units in
+         * {@code [tableCutoff, 255]} and all code units greater than 255 either stay in the loop or
+         * exit it, i.e. the loop and its exit set may only be distinguished by code units less than
+         * {@code tableCutoff}. {@code tableCutoff} must be chosen such that code units below it
+         * always represent a complete code point.
+         */
+        LoopOptimizationNode createLoopOptTableNode(CodePointSet loopCPS, int tableCutoff) {
+            CodePointSet exitCPS = loopCPS.createInverse(this);
+            final boolean highExits;
+            if (exitCPS.getMax() < tableCutoff) {
+                highExits = false;
+            } else if (loopCPS.getMax() < tableCutoff) {
+                highExits = true;
+            } else {
+                return null;
+            }
+            byte[] table = new byte[256];
+            for (int c = 0; c < table.length; c++) {
+                if (c < tableCutoff ? exitCPS.contains(c) : highExits) {
+                    table[c] = 1;
+                }
+            }
+            return new LoopOptIndexOfTableNode(table, highExits, isFixedCodePointWidth(exitCPS));
+        }
+
         public abstract int getNumberOfDecodingSteps();
 
         public Matchers.Builder createMatchersBuilder() {
@@ -238,6 +286,11 @@ public final class Encodings {
                 }
             }
 
+            @Override
+            public LoopOptimizationNode extractLoopOptTableNode(CodePointSet cps) {
+                return createLoopOptTableNode(cps, 0x100);
+            }
+
             public static boolean isHighSurrogate(int c, boolean forward) {
                 return forward ? isHighSurrogate(c) : isLowSurrogate(c);
             }
@@ -324,6 +377,11 @@ public final class Encodings {
                 return new LoopOptIndexOfAnyCharNode(cps.inverseToCharArray(this));
             }
 
+            @Override
+            public LoopOptimizationNode extractLoopOptTableNode(CodePointSet cps) {
+                return createLoopOptTableNode(cps, 0x100);
+            }
+
             @Override
             public int getNumberOfDecodingSteps() {
                 return 1;
@@ -417,6 +475,11 @@ public final class Encodings {
                 }
             }
 
+            @Override
+            public LoopOptimizationNode extractLoopOptTableNode(CodePointSet cps) {
+                return createLoopOptTableNode(cps, 0x80);
+            }
+
             @Override
             public int getNumberOfDecodingSteps() {
                 return 4;
@@ -474,6 +537,11 @@ public final class Encodings {
                 return new LoopOptIndexOfAnyCharNode(cps.inverseToCharArray(this));
             }
 
+            @Override
+            public LoopOptimizationNode extractLoopOptTableNode(CodePointSet cps) {
+                return createLoopOptTableNode(cps, 0x100);
+            }
+
             @Override
             public int getNumberOfDecodingSteps() {
                 return 1;
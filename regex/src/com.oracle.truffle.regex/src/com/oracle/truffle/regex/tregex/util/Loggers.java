@@ -52,4 +52,6 @@ public final class Loggers {
     public static final TruffleLogger LOG_COMPILER_FALLBACK = TruffleLogger.getLogger("regex", "CompilerFallback");
     public static final TruffleLogger LOG_INTERNAL_ERRORS = TruffleLogger.getLogger("regex", "InternalErrors");
     public static final TruffleLogger LOG_TREGEX_COMPILATIONS = TruffleLogger.getLogger("regex", "TRegexCompilations");
+    public static final TruffleLogger LOG_COMPILATION_CACHE = TruffleLogger.getLogger("regex", "CompilationCache");
+    public static final TruffleLogger LOG_BACKTRACKING_MEMOIZATION = TruffleLogger.getLogger("regex", "BacktrackingMemoization");
 }
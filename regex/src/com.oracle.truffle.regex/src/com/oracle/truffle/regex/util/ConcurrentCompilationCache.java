@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.regex.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A size-bounded cache of compilation results that can be shared by many threads.
+ * <ul>
+ * <li>Lookups of entries that are already compiled do not take any lock.</li>
+ * <li>Compilation is single-flight: if several threads miss on the same key at the same time, only
+ * one of them compiles, the others wait for its result.</li>
+ * <li>When the cache grows beyond its maximum size, entries are evicted with the CLOCK
+ * approximation of the least-recently-used policy: a hit only sets a flag in the entry, and
+ * eviction removes the entries whose flag has not been set since the last sweep.</li>
+ * </ul>
+ * The cache also counts hits and misses and the total time spent compiling.
+ */
+public final class ConcurrentCompilationCache<K, V> {
+
+    private final class Entry {
+
+        private volatile V value;
+        private volatile boolean referenced;
+
+        synchronized V getOrCompute(K key, Function<? super K, ? extends V> compiler) {
+            V result = value;
+            if (result != null) {
+                hits.increment();
+                return result;
+            }
+            misses.increment();
+            long start = System.nanoTime();
+            try {
+                result = compiler.apply(key);
+            } catch (Throwable t) {
+                /*
+                 * The entry would never get a value and could never be evicted. Threads that are
+                 * waiting for it compile again when they get the lock.
+                 */
+                map.remove(key, this);
+                throw t;
+            } finally {
+                compilationTime.add(System.nanoTime() - start);
+            }
+            value = result;
+            return result;
+        }
+    }
+
+    private final int maxCacheSize;
+    private final ConcurrentHashMap<K, Entry> map = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder compilationTime = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ConcurrentCompilationCache(int maxCacheSize) {
+        assert maxCacheSize > 0;
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    /**
+     * Returns the value cached for {@code key}, compiling it with {@code compiler} on a miss. If
+     * {@code compiler} throws, its entry is removed from the cache and the next lookup of
+     * {@code key} compiles again.
+     */
+    public V get(K key, Function<? super K, ? extends V> compiler) {
+        Entry entry = map.get(key);
+        if (entry == null) {
+            Entry newEntry = new Entry();
+            entry = map.putIfAbsent(key, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+                if (map.size() > maxCacheSize) {
+                    evict();
+                }
+            }
+        }
+        V value = entry.value;
+        if (value != null) {
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+            return value;
+        }
+        return entry.getOrCompute(key, compiler);
+    }
+
+    /**
+     * Sweeps over the entries until the cache is back to its maximum size. Entries that were hit
+     * since the last sweep get a second chance, entries that are still being compiled are never
+     * evicted.
+     */
+    private synchronized void evict() {
+        for (int pass = 0; pass < 2 && map.size() > maxCacheSize; pass++) {
+            Iterator<Map.Entry<K, Entry>> iterator = map.entrySet().iterator();
+            while (iterator.hasNext() && map.size() > maxCacheSize) {
+                Entry entry = iterator.next().getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else if (entry.value != null) {
+                    iterator.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public int getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Total time spent in the compiler, in nanoseconds.
+     */
+    public long getCompilationTime() {
+        return compilationTime.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size: %d/%d, hits: %d, misses: %d, evictions: %d, compilation time: %.3f ms",
+                        size(), maxCacheSize, getHits(), getMisses(), getEvictions(), getCompilationTime() / 1e6);
+    }
+}
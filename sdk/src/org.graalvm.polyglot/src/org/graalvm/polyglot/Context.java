@@ -531,6 +531,27 @@ public final class Context implements AutoCloseable {
         impl.resetLimits();
     }
 
+    /**
+     * Resets this context to the state it had after its languages were initialized, so that it can
+     * be reused for unrelated evaluations instead of creating a new context, e.g. by a
+     * {@link ContextPool}. All initialized languages reset their language contexts, the
+     * {@link #getPolyglotBindings() polyglot bindings} are cleared and the accumulators of the
+     * resource limits are {@link #resetLimits() reset}. Code that was parsed and compiled in the
+     * context is kept.
+     * <p>
+     * Languages need to explicitly support reset. If one of the initialized languages does not
+     * support it, <code>false</code> is returned and the context is left in an unspecified state;
+     * it must not be reused and should be {@link #close() closed}.
+     *
+     * @return <code>true</code> if the context was reset, else <code>false</code>
+     * @throws IllegalStateException if the context is already closed, if it is currently executing
+     *             on any thread, or if it was obtained using {@link Context#getCurrent()}.
+     * @since 20.3
+     */
+    public boolean reset() {
+        return impl.reset(this);
+    }
+
     /**
      * Converts a host value to a polyglot {@link Value value} representation. This conversion is
      * applied implicitly whenever {@link Value#execute(Object...) execution} or
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.polyglot;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of initialized contexts that are reused for unrelated evaluations, e.g. one request per
+ * context in a multi-tenant service. A context is {@link #acquire() acquired} from the pool, used
+ * by one client, and {@link #release(Context) released} back to the pool, which
+ * {@link Context#reset() resets} it before handing it out again. Contexts whose languages do not
+ * support reset are closed on release instead.
+ * <p>
+ * All contexts of the pool are built by the same {@link Context.Builder}. To share code between the
+ * contexts the builder should specify an explicit {@link Context.Builder#engine(Engine) engine}.
+ * <p>
+ * Usage example:
+ *
+ * <pre>
+ * try (Engine engine = Engine.create();
+ *                 ContextPool pool = ContextPool.create(Context.newBuilder().engine(engine), 8, "js")) {
+ *     Context context = pool.acquire();
+ *     try {
+ *         context.eval("js", "42");
+ *     } finally {
+ *         pool.release(context);
+ *     }
+ * }
+ * </pre>
+ *
+ * This class is thread-safe.
+ *
+ * @since 20.3
+ */
+public final class ContextPool implements AutoCloseable {
+
+    private final Context.Builder builder;
+    private final String[] languages;
+    private final int capacity;
+    private final ConcurrentLinkedDeque<Context> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    private ContextPool(Context.Builder builder, int capacity, String[] languages) {
+        this.builder = builder;
+        this.capacity = capacity;
+        this.languages = languages;
+    }
+
+    /**
+     * Creates a pool and fills it with <code>capacity</code> contexts in which all given languages
+     * are {@link Context#initialize(String) initialized}.
+     *
+     * @param builder the builder used to create the contexts of the pool
+     * @param capacity the maximum number of idle contexts kept in the pool
+     * @param languageIds the languages to initialize in every context of the pool
+     * @throws IllegalArgumentException if the capacity is negative or a language does not exist
+     * @since 20.3
+     */
+    public static ContextPool create(Context.Builder builder, int capacity, String... languageIds) {
+        Objects.requireNonNull(builder);
+        Objects.requireNonNull(languageIds);
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity must not be negative.");
+        }
+        ContextPool pool = new ContextPool(builder, capacity, languageIds.clone());
+        for (int i = 0; i < capacity; i++) {
+            pool.idle.addLast(pool.createContext());
+            pool.idleCount.incrementAndGet();
+        }
+        return pool;
+    }
+
+    /**
+     * Returns an initialized context from the pool, or creates a new one if the pool is empty. The
+     * context is exclusively owned by the caller until it is {@link #release(Context) released}.
+     *
+     * @throws IllegalStateException if the pool is closed
+     * @since 20.3
+     */
+    public Context acquire() {
+        checkClosed();
+        Context context = idle.pollFirst();
+        if (context != null) {
+            idleCount.decrementAndGet();
+            return context;
+        }
+        return createContext();
+    }
+
+    /**
+     * Returns a context that was {@link #acquire() acquired} from this pool. The context is
+     * {@link Context#reset() reset} and kept for later use if the pool is not full, otherwise it is
+     * {@link Context#close() closed}. The caller must not use the context after releasing it.
+     *
+     * @throws IllegalStateException if the context is still executing
+     * @since 20.3
+     */
+    public void release(Context context) {
+        Objects.requireNonNull(context);
+        if (!closed && idleCount.get() < capacity && context.reset()) {
+            if (idleCount.incrementAndGet() <= capacity) {
+                idle.addFirst(context);
+                if (!closed) {
+                    return;
+                }
+                // the pool was closed concurrently
+                if (!idle.remove(context)) {
+                    return;
+                }
+            }
+            idleCount.decrementAndGet();
+        }
+        context.close();
+    }
+
+    /**
+     * Closes all idle contexts of the pool. Contexts that are currently acquired are closed when
+     * they are released.
+     *
+     * @since 20.3
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Context context;
+        while ((context = idle.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            context.close();
+        }
+    }
+
+    private Context createContext() {
+        Context context;
+        synchronized (builder) {
+            context = builder.build();
+        }
+        try {
+            for (String languageId : languages) {
+                context.initialize(languageId);
+            }
+        } catch (RuntimeException e) {
+            context.close();
+            throw e;
+        }
+        return context;
+    }
+
+    private void checkClosed() {
+        if (closed) {
+            throw new IllegalStateException("The context pool is already closed.");
+        }
+    }
+}
@@ -321,6 +321,95 @@ public final class Value {
         return impl.getArraySize(receiver);
     }
 
+    /**
+     * Copies <code>length</code> array elements of this value, starting at <code>srcIndex</code>,
+     * into <code>dst</code> starting at <code>dstIndex</code>. All elements are copied in a single
+     * operation, which is considerably faster than reading the elements one by one with
+     * {@link #getArrayElement(long)} or converting the value with {@link #as(Class)}. Arrays that are
+     * backed by a host array of the same primitive type are copied directly. Every copied element
+     * must be convertible to <code>long</code> as specified by {@link #fitsInLong()}.
+     *
+     * @throws ArrayIndexOutOfBoundsException if the source range does not exist in this array or
+     *             if the destination range is outside of <code>dst</code>.
+     * @throws ClassCastException if an element cannot be converted to <code>long</code> without
+     *             loss of precision.
+     * @throws UnsupportedOperationException if the value does not have any
+     *             {@link #hasArrayElements() array elements}.
+     * @throws IllegalStateException if the context is already closed.
+     * @throws PolyglotException if a guest language error occurred during execution.
+     * @since 20.3
+     */
+    public void copyTo(long[] dst, long srcIndex, int dstIndex, int length) {
+        checkCopyRange(dst.length, dstIndex, length);
+        impl.copyTo(receiver, srcIndex, dst, dstIndex, length);
+    }
+
+    /**
+     * Copies array elements of this value into an <code>int</code> array. Every copied element must
+     * be convertible as specified by {@link #fitsInInt()}.
+     *
+     * @see #copyTo(long[], long, int, int)
+     * @since 20.3
+     */
+    public void copyTo(int[] dst, long srcIndex, int dstIndex, int length) {
+        checkCopyRange(dst.length, dstIndex, length);
+        impl.copyTo(receiver, srcIndex, dst, dstIndex, length);
+    }
+
+    /**
+     * Copies array elements of this value into a <code>short</code> array. Every copied element
+     * must be convertible as specified by {@link #fitsInShort()}.
+     *
+     * @see #copyTo(long[], long, int, int)
+     * @since 20.3
+     */
+    public void copyTo(short[] dst, long srcIndex, int dstIndex, int length) {
+        checkCopyRange(dst.length, dstIndex, length);
+        impl.copyTo(receiver, srcIndex, dst, dstIndex, length);
+    }
+
+    /**
+     * Copies array elements of this value into a <code>byte</code> array. Every copied element must
+     * be convertible as specified by {@link #fitsInByte()}.
+     *
+     * @see #copyTo(long[], long, int, int)
+     * @since 20.3
+     */
+    public void copyTo(byte[] dst, long srcIndex, int dstIndex, int length) {
+        checkCopyRange(dst.length, dstIndex, length);
+        impl.copyTo(receiver, srcIndex, dst, dstIndex, length);
+    }
+
+    /**
+     * Copies array elements of this value into a <code>double</code> array. Every copied element
+     * must be convertible as specified by {@link #fitsInDouble()}.
+     *
+     * @see #copyTo(long[], long, int, int)
+     * @since 20.3
+     */
+    public void copyTo(double[] dst, long srcIndex, int dstIndex, int length) {
+        checkCopyRange(dst.length, dstIndex, length);
+        impl.copyTo(receiver, srcIndex, dst, dstIndex, length);
+    }
+
+    /**
+     * Copies array elements of this value into a <code>float</code> array. Every copied element
+     * must be convertible as specified by {@link #fitsInFloat()}.
+     *
+     * @see #copyTo(long[], long, int, int)
+     * @since 20.3
+     */
+    public void copyTo(float[] dst, long srcIndex, int dstIndex, int length) {
+        checkCopyRange(dst.length, dstIndex, length);
+        impl.copyTo(receiver, srcIndex, dst, dstIndex, length);
+    }
+
+    private static void checkCopyRange(int dstLength, int dstIndex, int length) {
+        if (dstIndex < 0 || length < 0 || dstIndex > dstLength - length) {
+            throw new ArrayIndexOutOfBoundsException(String.format("Invalid destination range [%s, %s) for array of length %s.", dstIndex, (long) dstIndex + length, dstLength));
+        }
+    }
+
     /**
      * Returns <code>true</code> if this value generally supports containing members. To check
      * whether a value has <i>no</i> members use
@@ -421,6 +421,8 @@ public abstract class AbstractPolyglotImpl {
 
         public abstract void resetLimits();
 
+        public abstract boolean reset(Context sourceContext);
+
     }
 
     public abstract static class AbstractEngineImpl {
@@ -576,6 +578,8 @@ public abstract class AbstractPolyglotImpl {
 
         public abstract long getArraySize(Object receiver);
 
+        public abstract void copyTo(Object receiver, long srcIndex, Object dst, int dstIndex, int length);
+
         public boolean hasMembers(Object receiver) {
             return false;
         }
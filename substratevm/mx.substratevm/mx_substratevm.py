@@ -366,11 +366,15 @@ def native_image_context(common_args=None, hosted_assertions=True, native_image_
             mx.log(timestr() + 'Shutting down completed')
 
 native_image_context.hosted_assertions = ['-J-ea', '-J-esa']
-_native_unittest_features = '--features=com.oracle.svm.test.ImageInfoTest$TestFeature,com.oracle.svm.test.ServiceLoaderTest$TestFeature,com.oracle.svm.test.SecurityServiceTest$TestFeature'
+_native_unittest_features = '--features=com.oracle.svm.test.ImageInfoTest$TestFeature,com.oracle.svm.test.ServiceLoaderTest$TestFeature,com.oracle.svm.test.SecurityServiceTest$TestFeature,com.oracle.svm.test.StringInternTest$TestFeature,com.oracle.svm.test.ImageHeapLayoutTest$TestFeature,com.oracle.svm.test.CompressedImageHeapTest$TestFeature'
 
 IMAGE_ASSERTION_FLAGS = ['-H:+VerifyGraalGraphs', '-H:+VerifyPhases']
 
 def svm_gate_body(args, tasks):
+    with Task('hosted unittests', tasks, tags=[GraalTags.test]) as t:
+        if t:
+            mx_unittest.unittest(['com.oracle.svm.hosted.test'])
+
     build_native_image_image()
     with native_image_context(IMAGE_ASSERTION_FLAGS) as native_image:
         with Task('image demos', tasks, tags=[GraalTags.helloworld]) as t:
@@ -417,6 +421,13 @@ def svm_gate_body(args, tasks):
                     # We need the -H:+EnableAllSecurityServices for com.oracle.svm.test.SecurityServiceTest
                     native_unittest(['--build-args', _native_unittest_features, '-H:+EnableAllSecurityServices'] + blacklist_args)
 
+        with Task('native unittests with compressed image heap', tasks, tags=[GraalTags.test]) as t:
+            if t:
+                # An odd block size ensures that the last block of the compressed part is short
+                native_unittest(['com.oracle.svm.test.CompressedImageHeapTest', '--build-args', '--features=com.oracle.svm.test.CompressedImageHeapTest$TestFeature',
+                                 '-H:+CompressImageHeap', '-H:CompressImageHeapBlockSize=4099'])
+                _image_heap_compression_startup(native_image, [])
+
         with Task('Run Truffle NFI unittests with SVM image', tasks, tags=["svmjunit"]) as t:
             if t:
                 testlib = mx_subst.path_substitutions.substitute('-Dnative.test.lib=<path:truffle:TRUFFLE_TEST_NATIVE>/<lib:nativetest>')
@@ -430,6 +441,10 @@ def svm_gate_body(args, tasks):
                 if t:
                     run_musl_basic_tests()
 
+        with Task('Run Truffle host accessor unittests with SVM image', tasks, tags=["svmjunit"]) as t:
+            if t:
+                native_unittest(['com.oracle.truffle.api.test.polyglot.HostAccessorTest', '--build-args', '--macro:truffle'])
+
     with Task('Check mx native-image --help', tasks, tags=[GraalTags.nativeimagehelp]) as t:
         if t:
             mx.log('Running mx native-image --help output check.')
@@ -704,6 +719,27 @@ def _helloworld(native_image, javac_command, path, build_only, args):
         if actual_output != expected_output:
             raise Exception('Unexpected output: ' + str(actual_output) + "  !=  " + str(expected_output))
 
+def _image_heap_compression_startup(native_image, args, runs=20):
+    for option in ['-H:-CompressImageHeap', '-H:+CompressImageHeap']:
+        path = join(svmbuild_dir(), 'imageheapcompression', 'compressed' if option.startswith('-H:+') else 'uncompressed')
+        _helloworld(native_image, [mx.get_jdk().javac], path, True, [option] + args)
+        image = join(path, 'helloworld')
+        start = time.time()
+        for _ in range(runs):
+            mx.run([image], out=lambda _: None)
+        elapsed = (time.time() - start) / runs
+        mx.log('{}: image size {} bytes, {:.2f} ms per run'.format(option, os.path.getsize(image), elapsed * 1000))
+
+
+@mx.command(suite.name, 'image-heap-compression-startup', '[image-options]')
+def image_heap_compression_startup(args):
+    """
+    builds Hello, World! images with and without a compressed image heap, and reports their sizes
+    and their average run time, which is dominated by isolate creation.
+    """
+    native_image_context_run(_image_heap_compression_startup, args, build_if_missing=True)
+
+
 def _debuginfotest(native_image, path, build_only, args):
     mkpath(path)
     parent = os.path.dirname(path)
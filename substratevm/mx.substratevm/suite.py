@@ -586,6 +586,20 @@ suite = {
             "testProject": True,
         },
 
+        "com.oracle.svm.hosted.test": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "com.oracle.svm.hosted",
+                "mx:JUNIT",
+            ],
+            "checkstyle": "com.oracle.svm.core",
+            "workingSets": "SVM",
+            "javaCompliance": "8+",
+            "spotbugs": "false",
+            "testProject": True,
+        },
+
         "com.oracle.svm.reflect": {
             "subDir": "src",
             "sourceDirs": ["src"],
@@ -1102,6 +1116,19 @@ suite = {
           "testDistribution" : True,
         },
 
+        "SVM_HOSTED_TESTS" : {
+          "subDir": "src",
+          "relpath" : True,
+          "dependencies" : [
+            "com.oracle.svm.hosted.test",
+          ],
+          "distDependencies": [
+            "mx:JUNIT",
+            "SVM",
+          ],
+          "testDistribution" : True,
+        },
+
         "POLYGLOT_NATIVE_API" : {
             "subDir": "src",
             "dependencies": [
@@ -71,6 +71,8 @@ import com.oracle.svm.core.heap.NoAllocationVerifier;
 import com.oracle.svm.core.heap.ObjectVisitor;
 import com.oracle.svm.core.heap.ReferenceHandler;
 import com.oracle.svm.core.jdk.RuntimeSupport;
+import com.oracle.svm.core.jfr.FlightRecorder;
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.os.CommittedMemoryProvider;
 import com.oracle.svm.core.snippets.ImplicitExceptions;
@@ -152,6 +154,7 @@ public final class GCImpl implements GC {
         assert getCollectionEpoch().equal(requestingEpoch);
 
         timers.mutator.close();
+        long startTicks = JfrEvents.ticks();
         startCollectionOrExit();
 
         timers.resetAllExceptMutator();
@@ -166,6 +169,9 @@ public final class GCImpl implements GC {
         printGCAfter(cause.getName());
 
         finishCollection();
+        if (FlightRecorder.isEnabled()) {
+            JfrEvents.emitGarbageCollection(getCollectionEpoch().rawValue(), cause.getId(), completeCollection, startTicks, JfrEvents.ticks());
+        }
         timers.mutator.open();
 
         trace.string("]").newline();
@@ -423,11 +429,13 @@ public final class GCImpl implements GC {
             Log trace = Log.noopLog().string("[GCImpl.scavenge:").string("  fromDirtyRoots: ").bool(fromDirtyRoots).newline();
             try (Timer rst = timers.rootScan.open()) {
                 trace.string("  Cheney scan: ");
+                StringDeduplication.beginScavenge();
                 if (fromDirtyRoots) {
                     cheneyScanFromDirtyRoots();
                 } else {
                     cheneyScanFromRoots();
                 }
+                StringDeduplication.endScavenge();
             }
             trace.string("  Discovered references: ");
             try (Timer drt = timers.referenceObjects.open()) {
@@ -1103,5 +1111,10 @@ public final class GCImpl implements GC {
         log.string(prefix).string("GCNanos: ").signed(gcNanos).newline();
         log.string(prefix).string("TotalNanos: ").signed(totalNanos).newline();
         log.string(prefix).string("GCLoadPercent: ").signed(roundedGCLoad).newline();
+
+        if (HeapOptions.StringDeduplication.getValue()) {
+            log.string(prefix).string("DeduplicatedStrings: ").signed(StringDeduplication.getStringsDeduplicated()).newline();
+            log.string(prefix).string("DeduplicatedStringBytes: ").unsigned(StringDeduplication.getBytesSaved()).newline();
+        }
     }
 }
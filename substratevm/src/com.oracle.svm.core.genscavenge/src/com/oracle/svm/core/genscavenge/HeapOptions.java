@@ -43,6 +43,12 @@ public final class HeapOptions {
     @Option(help = "Print the time for each of the phases of each collection, if +VerboseGC.")//
     public static final RuntimeOptionKey<Boolean> PrintGCTimes = new RuntimeOptionKey<>(false);
 
+    @Option(help = "Share the backing arrays of strings with equal contents when they are promoted to the old generation.")//
+    public static final RuntimeOptionKey<Boolean> StringDeduplication = new RuntimeOptionKey<>(false);
+
+    @Option(help = "Maximum number of distinct string arrays considered for deduplication in a single collection.")//
+    public static final RuntimeOptionKey<Integer> StringDeduplicationTableSize = new RuntimeOptionKey<>(64 * 1024);
+
     @Option(help = "Trace each object promotion (generates significant amounts of output).")//
     public static final HostedOptionKey<Boolean> TraceObjectPromotion = new HostedOptionKey<>(false);
 
@@ -88,7 +88,11 @@ final class OldGeneration extends Generation {
 
     @AlwaysInline("GC performance")
     public Object promoteAlignedObject(Object original, Space originalSpace) {
-        return getToSpace().promoteAlignedObject(original, originalSpace);
+        Object copy = getToSpace().promoteAlignedObject(original, originalSpace);
+        if (StringDeduplication.isActive() && copy instanceof String) {
+            StringDeduplication.deduplicate((String) copy);
+        }
+        return copy;
     }
 
     @AlwaysInline("GC performance")
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.genscavenge;
+
+import org.graalvm.compiler.serviceprovider.GraalUnsafeAccess;
+import org.graalvm.compiler.word.ObjectAccess;
+import org.graalvm.compiler.word.Word;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.impl.UnmanagedMemorySupport;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.config.ConfigurationValues;
+import com.oracle.svm.core.hub.LayoutEncoding;
+import com.oracle.svm.core.snippets.KnownIntrinsics;
+import com.oracle.svm.core.util.VMError;
+
+// Checkstyle: stop
+import sun.misc.Unsafe;
+// Checkstyle: resume
+
+/**
+ * Deduplicates the backing arrays of {@link String} objects when they are promoted to the old
+ * generation: if another string promoted during the same scavenge already has an array with the
+ * same contents, the promoted string is changed to share that array, and its own array is not
+ * copied. Arrays are immutable once they back a string, so sharing them is not observable.
+ *
+ * The table of candidate arrays is allocated in native memory at the start of each scavenge and is
+ * discarded at its end, because the addresses of the arrays it refers to are only stable until the
+ * next collection.
+ */
+final class StringDeduplication {
+    private static final Unsafe UNSAFE = GraalUnsafeAccess.getUnsafe();
+
+    private static final long VALUE_OFFSET;
+    static {
+        try {
+            VALUE_OFFSET = UNSAFE.objectFieldOffset(String.class.getDeclaredField("value"));
+        } catch (Throwable ex) {
+            throw VMError.shouldNotReachHere(ex);
+        }
+    }
+
+    /** Each entry consists of the hash of the array contents, followed by the array address. */
+    private static final int ENTRY_WORDS = 2;
+
+    private static Pointer table = WordFactory.nullPointer();
+    private static int tableMask;
+    private static int entryCount;
+
+    private static UnsignedWord bytesSaved = WordFactory.zero();
+    private static long stringsDeduplicated;
+
+    private StringDeduplication() {
+    }
+
+    /** Returns the total size of the string arrays that were not copied because of sharing. */
+    static UnsignedWord getBytesSaved() {
+        return bytesSaved;
+    }
+
+    static long getStringsDeduplicated() {
+        return stringsDeduplicated;
+    }
+
+    static boolean isActive() {
+        return table.isNonNull();
+    }
+
+    static void beginScavenge() {
+        assert table.isNull();
+        if (!HeapOptions.StringDeduplication.getValue()) {
+            return;
+        }
+        int capacity = Integer.highestOneBit(Math.max(HeapOptions.StringDeduplicationTableSize.getValue(), 16));
+        UnsignedWord size = WordFactory.unsigned(capacity).multiply(ENTRY_WORDS * ConfigurationValues.getTarget().wordSize);
+        /* If the table cannot be allocated, this scavenge simply does not deduplicate. */
+        table = ImageSingletons.lookup(UnmanagedMemorySupport.class).calloc(size);
+        tableMask = capacity - 1;
+        entryCount = 0;
+    }
+
+    static void endScavenge() {
+        if (table.isNonNull()) {
+            ImageSingletons.lookup(UnmanagedMemorySupport.class).free(table);
+            table = WordFactory.nullPointer();
+        }
+    }
+
+    /** Called with the old generation copy of a string that has just been promoted. */
+    static void deduplicate(String copy) {
+        Object value = ObjectAccess.readObject(copy, WordFactory.signed(VALUE_OFFSET));
+        if (value == null) {
+            return;
+        }
+        Pointer valuePointer = Word.objectToUntrackedPointer(value);
+        boolean inImageHeap = HeapImpl.getHeapImpl().isInImageHeap(valuePointer);
+        if (!inImageHeap) {
+            UnsignedWord header = ObjectHeaderImpl.readHeaderFromPointer(valuePointer);
+            if (ObjectHeaderImpl.isForwardedHeader(header)) {
+                value = ObjectHeaderImpl.getForwardedObject(valuePointer);
+                valuePointer = Word.objectToUntrackedPointer(value);
+                header = ObjectHeaderImpl.readHeaderFromPointer(valuePointer);
+            }
+            if (!ObjectHeaderImpl.isAlignedHeader(value, header)) {
+                /* Arrays in unaligned chunks are large and are promoted in place. */
+                return;
+            }
+        }
+
+        int hash = hashContents(value);
+        int index = hash & tableMask;
+        for (int probes = 0; probes <= tableMask; probes++) {
+            Pointer entry = getEntry(index);
+            Pointer candidate = entry.readWord(ConfigurationValues.getTarget().wordSize);
+            if (candidate.isNull()) {
+                break;
+            }
+            if (candidate.equal(valuePointer)) {
+                /* The array is already shared with a string that was promoted earlier. */
+                return;
+            }
+            if (entry.readWord(0).equal(WordFactory.unsigned(hash)) && equalContents(candidate.toObject(), value)) {
+                if (!inImageHeap && isEvacuated(value)) {
+                    bytesSaved = bytesSaved.add(LayoutEncoding.getSizeFromObject(value));
+                }
+                stringsDeduplicated++;
+                ObjectAccess.writeObject(copy, WordFactory.signed(VALUE_OFFSET), candidate.toObject());
+                return;
+            }
+            index = (index + 1) & tableMask;
+        }
+
+        if (!inImageHeap) {
+            Space space = HeapChunk.getSpace(AlignedHeapChunk.getEnclosingChunk(value));
+            if (isEvacuated(value)) {
+                value = HeapImpl.getHeapImpl().getOldGeneration().promoteAlignedObject(value, space);
+                ObjectAccess.writeObject(copy, WordFactory.signed(VALUE_OFFSET), value);
+            } else if (!space.isOldSpace()) {
+                /* Sharing an array in a survivor space would create old-to-young references. */
+                return;
+            }
+        }
+        insert(hash, Word.objectToUntrackedPointer(value));
+    }
+
+    /** Returns true if the array is in a space that the current scavenge evacuates. */
+    private static boolean isEvacuated(Object array) {
+        Space space = HeapChunk.getSpace(AlignedHeapChunk.getEnclosingChunk(array));
+        /* The old generation is only evacuated by complete collections. */
+        return space.isFromSpace() && (space.isYoungSpace() || GCImpl.getGCImpl().isCompleteCollection());
+    }
+
+    private static void insert(int hash, Pointer array) {
+        /* Keep the load factor below 3/4 so that lookups terminate quickly. */
+        if (entryCount >= (tableMask + 1) / 4 * 3) {
+            return;
+        }
+        int index = hash & tableMask;
+        while (getEntry(index).readWord(ConfigurationValues.getTarget().wordSize).isNonNull()) {
+            index = (index + 1) & tableMask;
+        }
+        Pointer entry = getEntry(index);
+        entry.writeWord(0, WordFactory.unsigned(hash));
+        entry.writeWord(ConfigurationValues.getTarget().wordSize, array);
+        entryCount++;
+    }
+
+    private static Pointer getEntry(int index) {
+        return table.add(WordFactory.unsigned(index).multiply(ENTRY_WORDS * ConfigurationValues.getTarget().wordSize));
+    }
+
+    private static UnsignedWord getContentsSize(Object array) {
+        int encoding = KnownIntrinsics.readHub(array).getLayoutEncoding();
+        int length = KnownIntrinsics.readArrayLength(array);
+        return LayoutEncoding.getArrayElementOffset(encoding, length).subtract(LayoutEncoding.getArrayBaseOffset(encoding));
+    }
+
+    private static int hashContents(Object array) {
+        Pointer start = Word.objectToUntrackedPointer(array).add(LayoutEncoding.getArrayBaseOffset(KnownIntrinsics.readHub(array).getLayoutEncoding()));
+        UnsignedWord size = getContentsSize(array);
+        int hash = KnownIntrinsics.readArrayLength(array);
+        for (UnsignedWord offset = WordFactory.zero(); offset.belowThan(size); offset = offset.add(1)) {
+            hash = 31 * hash + start.readByte(offset);
+        }
+        return hash;
+    }
+
+    private static boolean equalContents(Object a, Object b) {
+        if (KnownIntrinsics.readHub(a) != KnownIntrinsics.readHub(b) || KnownIntrinsics.readArrayLength(a) != KnownIntrinsics.readArrayLength(b)) {
+            return false;
+        }
+        UnsignedWord baseOffset = LayoutEncoding.getArrayBaseOffset(KnownIntrinsics.readHub(a).getLayoutEncoding());
+        Pointer pa = Word.objectToUntrackedPointer(a).add(baseOffset);
+        Pointer pb = Word.objectToUntrackedPointer(b).add(baseOffset);
+        UnsignedWord size = getContentsSize(a);
+        for (UnsignedWord offset = WordFactory.zero(); offset.belowThan(size); offset = offset.add(1)) {
+            if (pa.readByte(offset) != pb.readByte(offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -24,6 +24,12 @@
  */
 package com.oracle.svm.core.genscavenge;
 
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.jfr.FlightRecorder;
+import com.oracle.svm.core.jfr.JfrEvents;
+import com.oracle.svm.core.jfr.JfrSymbolRepository;
 import com.oracle.svm.core.log.Log;
 
 /**
@@ -32,12 +38,25 @@ import com.oracle.svm.core.log.Log;
  */
 final class Timer implements AutoCloseable {
     private final String name;
+    /** The flight recorder phase level of this timer, or -1 if it is not recorded. */
+    private final int jfrPhaseLevel;
+    private final long jfrNameSymbol;
     private long openNanos;
     private long closeNanos;
     private long collectedNanos;
 
     Timer(String name) {
         this.name = name;
+        this.jfrPhaseLevel = -1;
+        this.jfrNameSymbol = 0L;
+    }
+
+    /** Creates a timer whose intervals are recorded as GC phases by the flight recorder. */
+    @Platforms(Platform.HOSTED_ONLY.class)
+    Timer(String name, int jfrPhaseLevel) {
+        this.name = name;
+        this.jfrPhaseLevel = jfrPhaseLevel;
+        this.jfrNameSymbol = JfrSymbolRepository.register(name);
     }
 
     public String getName() {
@@ -58,6 +77,10 @@ final class Timer implements AutoCloseable {
         }
         closeNanos = System.nanoTime();
         collectedNanos += closeNanos - openNanos;
+        if (FlightRecorder.isEnabled() && jfrPhaseLevel >= 0) {
+            long gcId = GCImpl.getGCImpl().getCollectionEpoch().rawValue();
+            JfrEvents.emitGCPhasePause(gcId, jfrPhaseLevel, jfrNameSymbol, openNanos, closeNanos);
+        }
     }
 
     public void reset() {
@@ -90,24 +113,25 @@ final class Timer implements AutoCloseable {
 
 /** Collection timers primarily for {@link GCImpl}. */
 final class Timers {
-    final Timer blackenImageHeapRoots = new Timer("blackenImageHeapRoots");
-    final Timer blackenDirtyCardRoots = new Timer("blackenDirtyCardRoots");
-    final Timer blackenStackRoots = new Timer("blackenStackRoots");
-    final Timer cheneyScanFromRoots = new Timer("cheneyScanFromRoots");
-    final Timer cheneyScanFromDirtyRoots = new Timer("cheneyScanFromDirtyRoots");
-    final Timer collection = new Timer("collection");
-    final Timer referenceObjects = new Timer("referenceObjects");
-    final Timer promotePinnedObjects = new Timer("promotePinnedObjects");
-    final Timer rootScan = new Timer("rootScan");
-    final Timer scanGreyObjects = new Timer("scanGreyObjects");
-    final Timer releaseSpaces = new Timer("releaseSpaces");
-    final Timer verifyAfter = new Timer("verifyAfter");
-    final Timer verifyBefore = new Timer("verifyBefore");
-    final Timer walkThreadLocals = new Timer("walkThreadLocals");
-    final Timer walkRuntimeCodeCache = new Timer("walkRuntimeCodeCache");
-    final Timer cleanRuntimeCodeCache = new Timer("cleanRuntimeCodeCache");
+    final Timer blackenImageHeapRoots = new Timer("blackenImageHeapRoots", 1);
+    final Timer blackenDirtyCardRoots = new Timer("blackenDirtyCardRoots", 1);
+    final Timer blackenStackRoots = new Timer("blackenStackRoots", 1);
+    final Timer cheneyScanFromRoots = new Timer("cheneyScanFromRoots", 1);
+    final Timer cheneyScanFromDirtyRoots = new Timer("cheneyScanFromDirtyRoots", 1);
+    final Timer collection = new Timer("collection", 0);
+    final Timer referenceObjects = new Timer("referenceObjects", 1);
+    final Timer promotePinnedObjects = new Timer("promotePinnedObjects", 1);
+    final Timer rootScan = new Timer("rootScan", 1);
+    final Timer scanGreyObjects = new Timer("scanGreyObjects", 1);
+    final Timer releaseSpaces = new Timer("releaseSpaces", 1);
+    final Timer verifyAfter = new Timer("verifyAfter", 1);
+    final Timer verifyBefore = new Timer("verifyBefore", 1);
+    final Timer walkThreadLocals = new Timer("walkThreadLocals", 1);
+    final Timer walkRuntimeCodeCache = new Timer("walkRuntimeCodeCache", 1);
+    final Timer cleanRuntimeCodeCache = new Timer("cleanRuntimeCodeCache", 1);
     final Timer mutator = new Timer("mutator");
 
+    @Platforms(Platform.HOSTED_ONLY.class)
     Timers() {
     }
 
@@ -78,6 +78,11 @@ public class SubstrateLLVMLoweringProvider extends SubstrateBasicLoweringProvide
         return false;
     }
 
+    @Override
+    public boolean supportsLoopVectorization() {
+        return false;
+    }
+
     @Override
     public boolean targetingLLVM() {
         return true;
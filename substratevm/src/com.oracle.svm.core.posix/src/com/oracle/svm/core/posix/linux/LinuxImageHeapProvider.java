@@ -58,6 +58,7 @@ import com.oracle.svm.core.c.CGlobalData;
 import com.oracle.svm.core.c.CGlobalDataFactory;
 import com.oracle.svm.core.c.function.CEntryPointErrors;
 import com.oracle.svm.core.heap.Heap;
+import com.oracle.svm.core.os.CompressedImageHeap;
 import com.oracle.svm.core.os.ImageHeapProvider;
 import com.oracle.svm.core.os.VirtualMemoryProvider;
 import com.oracle.svm.core.os.VirtualMemoryProvider.Access;
@@ -113,22 +114,28 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
         UnsignedWord alignment = WordFactory.unsigned(Heap.getHeap().getPreferredAddressSpaceAlignment());
         Pointer imageHeapBegin = IMAGE_HEAP_BEGIN.get();
         UnsignedWord imageHeapSizeInFile = ((Pointer) IMAGE_HEAP_END.get()).subtract(imageHeapBegin);
-        UnsignedWord requiredReservedSize = imageHeapSizeInFile.add(imageHeapOffsetInAddressSpace);
+        /*
+         * A compressed part at the beginning of the image heap is not in the image file, so the
+         * image heap symbols only describe the rest of the image heap (see CompressedImageHeap).
+         */
+        UnsignedWord decompressedSize = CompressedImageHeap.getDecompressedSize();
+        UnsignedWord imageHeapSize = imageHeapSizeInFile.add(decompressedSize);
+        UnsignedWord requiredReservedSize = imageHeapSize.add(imageHeapOffsetInAddressSpace);
         if (reservedAddressSpace.isNonNull() && reservedSize.belowThan(requiredReservedSize)) {
             return CEntryPointErrors.INSUFFICIENT_ADDRESS_SPACE;
         }
 
         /*
-         * If we don't need a contiguous address space, we use the image heap loaded by the loader
-         * for the first isolate. For creating isolates after that (or if we need a contiguous
-         * address space), we create copy-on-write mappings from our image file. We cache the file
-         * descriptor and determined offset in the file for subsequent isolate initializations. To
-         * avoid stalling threads, we intentionally allow for racing during first-time
-         * initialization.
+         * If we don't need a contiguous address space and the image heap is not compressed, we use
+         * the image heap loaded by the loader for the first isolate. For creating isolates after
+         * that (or if we need a contiguous address space), we create copy-on-write mappings from
+         * our image file. We cache the file descriptor and determined offset in the file for
+         * subsequent isolate initializations. To avoid stalling threads, we intentionally allow for
+         * racing during first-time initialization.
          */
         UnsignedWord pageSize = VirtualMemoryProvider.get().getGranularity();
         SignedWord fd = CACHED_IMAGE_FD.get().read();
-        if (reservedAddressSpace.isNull() && FIRST_ISOLATE_FD.equal(fd)) {
+        if (reservedAddressSpace.isNull() && FIRST_ISOLATE_FD.equal(fd) && !CompressedImageHeap.isEnabled()) {
             assert imageHeapOffsetInAddressSpace == 0 : "the image heap that was loaded by the loader does not support a heap address space offset";
             SignedWord previous = ((Pointer) CACHED_IMAGE_FD.get()).compareAndSwapWord(0, FIRST_ISOLATE_FD, UNASSIGNED_FD, LocationIdentity.ANY_LOCATION);
             if (FIRST_ISOLATE_FD.equal(previous) && PointerUtils.isAMultiple(imageHeapBegin, alignment)) {
@@ -151,7 +158,7 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
             }
             fd = CACHED_IMAGE_FD.get().read();
         }
-        if (UNASSIGNED_FD.equal(fd) || (reservedAddressSpace.isNonNull() && fd.equal(FIRST_ISOLATE_FD))) {
+        if (UNASSIGNED_FD.equal(fd) || FIRST_ISOLATE_FD.equal(fd)) {
             /*
              * Locate the backing file of the image heap. Unfortunately, we must open the file by
              * its path. As a precaution against unlink races, we verify the file we open matches
@@ -200,7 +207,7 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
         Pointer allocatedMemory = WordFactory.nullPointer();
         if (reservedAddressSpace.isNull()) {
             assert imageHeapOffsetInAddressSpace == 0;
-            allocatedMemory = VirtualMemoryProvider.get().reserve(imageHeapSizeInFile, alignment);
+            allocatedMemory = VirtualMemoryProvider.get().reserve(imageHeapSize, alignment);
             if (allocatedMemory.isNull()) {
                 return CEntryPointErrors.RESERVE_ADDRESS_SPACE_FAILED;
             }
@@ -209,22 +216,39 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
             heap = reservedAddressSpace.add(imageHeapOffsetInAddressSpace);
         }
 
+        /* The compressed part is decompressed into private memory instead of being mapped. */
         UnsignedWord fileOffset = CACHED_IMAGE_HEAP_OFFSET.get().read();
-        heap = VirtualMemoryProvider.get().mapFile(heap, imageHeapSizeInFile, fd, fileOffset, Access.READ);
-        if (heap.isNull()) {
+        Pointer mappedBegin = VirtualMemoryProvider.get().mapFile(heap.add(decompressedSize), imageHeapSizeInFile, fd, fileOffset, Access.READ);
+        if (mappedBegin.isNull()) {
             freeImageHeap(allocatedMemory);
             return CEntryPointErrors.MAP_HEAP_FAILED;
         }
+        heap = mappedBegin.subtract(decompressedSize);
+        if (decompressedSize.aboveThan(0)) {
+            if (VirtualMemoryProvider.get().commit(heap, decompressedSize, Access.READ | Access.WRITE).isNull()) {
+                freeImageHeap(allocatedMemory);
+                return CEntryPointErrors.MAP_HEAP_FAILED;
+            }
+            int decompressResult = CompressedImageHeap.decompress(heap);
+            if (decompressResult != CEntryPointErrors.NO_ERROR) {
+                freeImageHeap(allocatedMemory);
+                return decompressResult;
+            }
+            if (VirtualMemoryProvider.get().protect(heap, decompressedSize, Access.READ) != 0) {
+                freeImageHeap(allocatedMemory);
+                return CEntryPointErrors.PROTECT_HEAP_FAILED;
+            }
+        }
 
         Pointer relocPointer = IMAGE_HEAP_A_RELOCATABLE_POINTER.get();
         ComparableWord relocatedValue = relocPointer.readWord(0);
-        ComparableWord mappedValue = heap.readWord(relocPointer.subtract(imageHeapBegin));
+        ComparableWord mappedValue = mappedBegin.readWord(relocPointer.subtract(imageHeapBegin));
         if (relocatedValue.notEqual(mappedValue)) {
             /*
              * Addresses were relocated by dynamic linker, so copy them, but first remap the pages
              * to avoid swapping them in from disk.
              */
-            Pointer relocsBegin = heap.add(IMAGE_HEAP_RELOCATABLE_BEGIN.get().subtract(imageHeapBegin));
+            Pointer relocsBegin = mappedBegin.add(IMAGE_HEAP_RELOCATABLE_BEGIN.get().subtract(imageHeapBegin));
             UnsignedWord relocsSize = IMAGE_HEAP_RELOCATABLE_END.get().subtract(IMAGE_HEAP_RELOCATABLE_BEGIN.get());
             if (!isAMultiple(relocsSize, pageSize)) {
                 freeImageHeap(allocatedMemory);
@@ -242,7 +266,7 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
         }
 
         // Unprotect writable pages
-        Pointer writableBegin = heap.add(IMAGE_HEAP_WRITABLE_BEGIN.get().subtract(imageHeapBegin));
+        Pointer writableBegin = mappedBegin.add(IMAGE_HEAP_WRITABLE_BEGIN.get().subtract(imageHeapBegin));
         UnsignedWord writableSize = IMAGE_HEAP_WRITABLE_END.get().subtract(IMAGE_HEAP_WRITABLE_BEGIN.get());
         if (VirtualMemoryProvider.get().protect(writableBegin, writableSize, Access.READ | Access.WRITE) != 0) {
             freeImageHeap(allocatedMemory);
@@ -251,7 +275,7 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
 
         basePointer.write(heap.subtract(imageHeapOffsetInAddressSpace));
         if (endPointer.isNonNull()) {
-            endPointer.write(roundUp(heap.add(imageHeapSizeInFile), pageSize));
+            endPointer.write(roundUp(heap.add(imageHeapSize), pageSize));
         }
         return CEntryPointErrors.NO_ERROR;
     }
@@ -281,8 +305,8 @@ public class LinuxImageHeapProvider implements ImageHeapProvider {
                     return CEntryPointErrors.MAP_HEAP_FAILED;
                 }
             } else {
-                Word imageHeapSizeInFile = IMAGE_HEAP_END.get().subtract(IMAGE_HEAP_BEGIN.get());
-                if (VirtualMemoryProvider.get().free(imageHeap, imageHeapSizeInFile) != 0) {
+                UnsignedWord imageHeapSize = IMAGE_HEAP_END.get().subtract(IMAGE_HEAP_BEGIN.get()).add(CompressedImageHeap.getDecompressedSize());
+                if (VirtualMemoryProvider.get().free(imageHeap, imageHeapSize) != 0) {
                     return CEntryPointErrors.MAP_HEAP_FAILED;
                 }
             }
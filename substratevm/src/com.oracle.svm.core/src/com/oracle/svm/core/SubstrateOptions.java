@@ -248,6 +248,12 @@ public class SubstrateOptions {
         }
     };
 
+    @Option(help = "Compress the read-only primitive and reference partitions of the image heap in the image file and decompress them when an isolate is created (requires SpawnIsolates).")//
+    public static final HostedOptionKey<Boolean> CompressImageHeap = new HostedOptionKey<>(false);
+
+    @Option(help = "The size in bytes of the blocks in which the image heap is compressed independently of each other.")//
+    public static final HostedOptionKey<Integer> CompressImageHeapBlockSize = new HostedOptionKey<>(64 * 1024);
+
     @Option(help = "Trace VMOperation execution.")//
     public static final HostedOptionKey<Boolean> TraceVMOperations = new HostedOptionKey<>(false);
 
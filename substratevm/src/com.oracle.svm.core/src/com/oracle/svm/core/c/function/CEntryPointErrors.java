@@ -123,6 +123,9 @@ public final class CEntryPointErrors {
     @Description("Releasing the isolate's image heap memory failed.") //
     public static final int FREE_IMAGE_HEAP_FAILED = 20;
 
+    @Description("Decompressing the image heap failed.") //
+    public static final int DECOMPRESS_IMAGE_HEAP_FAILED = 21;
+
     public static String getDescription(int code) {
         String result = null;
         if (code >= 0 && code < DESCRIPTIONS.length) {
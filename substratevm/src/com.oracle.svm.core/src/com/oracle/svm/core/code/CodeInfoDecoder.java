@@ -89,6 +89,9 @@ public final class CodeInfoDecoder {
     }
 
     static void lookupCodeInfo(CodeInfo info, long ip, CodeInfoQueryResult codeInfoQueryResult) {
+        if (FrameInfoCache.lookup(info, ip, codeInfoQueryResult)) {
+            return;
+        }
         long sizeEncoding = initialSizeEncoding();
         long entryIP = lookupEntryIP(ip);
         long entryOffset = loadEntryOffset(info, ip);
@@ -96,10 +99,8 @@ public final class CodeInfoDecoder {
             int entryFlags = loadEntryFlags(info, entryOffset);
             sizeEncoding = updateSizeEncoding(info, entryOffset, entryFlags, sizeEncoding);
             if (entryIP == ip) {
-                codeInfoQueryResult.encodedFrameSize = sizeEncoding;
-                codeInfoQueryResult.exceptionOffset = loadExceptionOffset(info, entryOffset, entryFlags);
-                codeInfoQueryResult.referenceMapIndex = loadReferenceMapIndex(info, entryOffset, entryFlags);
-                codeInfoQueryResult.frameInfo = loadFrameInfo(info, entryOffset, entryFlags);
+                fillCodeInfoQueryResult(info, codeInfoQueryResult, sizeEncoding, entryOffset, entryFlags);
+                FrameInfoCache.put(info, ip, sizeEncoding, entryOffset, entryFlags);
                 return;
             }
 
@@ -113,6 +114,13 @@ public final class CodeInfoDecoder {
         codeInfoQueryResult.frameInfo = CodeInfoQueryResult.NO_FRAME_INFO;
     }
 
+    static void fillCodeInfoQueryResult(CodeInfo info, CodeInfoQueryResult codeInfoQueryResult, long sizeEncoding, long entryOffset, int entryFlags) {
+        codeInfoQueryResult.encodedFrameSize = sizeEncoding;
+        codeInfoQueryResult.exceptionOffset = loadExceptionOffset(info, entryOffset, entryFlags);
+        codeInfoQueryResult.referenceMapIndex = loadReferenceMapIndex(info, entryOffset, entryFlags);
+        codeInfoQueryResult.frameInfo = loadFrameInfo(info, entryOffset, entryFlags);
+    }
+
     static void lookupCodeInfo(CodeInfo info, long ip, SimpleCodeInfoQueryResult codeInfoQueryResult) {
         long sizeEncoding = initialSizeEncoding();
         long entryIP = lookupEntryIP(ip);
@@ -497,4 +505,6 @@ class CodeInfoDecoderCounters {
     final Counter lookupEntryOffsetCount = new Counter(counters, "lookupEntryOffset", "");
     final Counter loadEntryFlagsCount = new Counter(counters, "loadEntryFlags", "");
     final Counter advanceOffset = new Counter(counters, "advanceOffset", "");
+    final Counter frameInfoCacheHitCount = new Counter(counters, "frameInfoCacheHit", "");
+    final Counter frameInfoCacheMissCount = new Counter(counters, "frameInfoCacheMiss", "");
 }
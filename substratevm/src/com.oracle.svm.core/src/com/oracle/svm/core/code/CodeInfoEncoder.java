@@ -95,6 +95,7 @@ public class CodeInfoEncoder {
         final Counter registerValueCount = new Counter(group, "Number of register values", "Number of register values encoded");
         final Counter constantValueCount = new Counter(group, "Number of constant values", "Number of constant values encoded");
         final Counter virtualObjectsCount = new Counter(group, "Number of virtual objects", "Number of virtual objects encoded");
+        final Counter sharedFrameInfoCount = new Counter(group, "Number of shared frame infos", "Number of frame infos that share the encoding of another frame info");
     }
 
     static class IPData {
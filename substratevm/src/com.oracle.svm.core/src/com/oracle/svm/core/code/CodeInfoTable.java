@@ -273,6 +273,7 @@ class CodeInfoFeature implements Feature {
     public void duringSetup(DuringSetupAccess access) {
         ImageSingletons.add(CodeInfoTableCounters.class, new CodeInfoTableCounters());
         ImageSingletons.add(CodeInfoDecoderCounters.class, new CodeInfoDecoderCounters());
+        ImageSingletons.add(FrameInfoCache.class, new FrameInfoCache());
         ImageSingletons.add(CodeInfoEncoder.Counters.class, new CodeInfoEncoder.Counters());
         ImageSingletons.add(ImageCodeInfo.class, new ImageCodeInfo());
         ImageSingletons.add(RuntimeCodeCache.class, new RuntimeCodeCache());
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.code;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.nodes.extended.MembarNode;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.SubstrateUtil;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.util.UserError;
+
+import jdk.vm.ci.code.MemoryBarriers;
+
+/**
+ * A cache of recently looked up {@link CodeInfoQueryResult code information} of the image code,
+ * keyed by the relative IP. Stack walks for exception stack traces and stack introspection
+ * repeatedly query the same IPs, and finding the entry of an IP requires a linear walk of the code
+ * info table from the nearest index entry.
+ *
+ * The cache only holds the position of the entry in the code info table and the frame size
+ * encoding that was accumulated by the walk. It does not hold any decoded objects: the
+ * {@link FrameInfoQueryResult frame information} is still decoded into a result that is owned by
+ * the caller, so results of different queries never share mutable state.
+ *
+ * The cache is direct-mapped, and its entries are allocated when the image is built, so that
+ * looking up or updating an entry never allocates. An entry is updated in place and guarded by a
+ * sequence number that is odd while an update is in progress: a lookup that observes an odd or a
+ * changed sequence number is treated as a miss, and an update that races with another update is
+ * dropped. Code compiled at run time is not cached because its metadata can be freed when the code
+ * is invalidated.
+ */
+public final class FrameInfoCache {
+    public static class Options {
+        @Option(help = "Number of entries of the cache for code info lookups of image code, 0 to disable the cache. Must be a power of 2.")//
+        public static final HostedOptionKey<Integer> FrameInfoCacheSize = new HostedOptionKey<>(1024);
+    }
+
+    static final class Entry {
+        volatile long sequence;
+        long ip = -1;
+        long sizeEncoding;
+        long entryOffset;
+        int entryFlags;
+    }
+
+    private static final AtomicLongFieldUpdater<Entry> SEQUENCE_UPDATER = AtomicLongFieldUpdater.newUpdater(Entry.class, "sequence");
+
+    private final Entry[] entries;
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    FrameInfoCache() {
+        int size = Options.FrameInfoCacheSize.getValue();
+        UserError.guarantee(size >= 0 && Integer.bitCount(size) <= 1, "FrameInfoCacheSize must be 0 or a power of 2: %d", size);
+        entries = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry();
+        }
+    }
+
+    @Fold
+    static FrameInfoCache singleton() {
+        return ImageSingletons.lookup(FrameInfoCache.class);
+    }
+
+    @Fold
+    static boolean isEnabled() {
+        return Options.FrameInfoCacheSize.getValue() > 0;
+    }
+
+    private static boolean isCacheable(CodeInfo info) {
+        return isEnabled() && !SubstrateUtil.HOSTED && info.equal(CodeInfoTable.getImageCodeInfo());
+    }
+
+    private Entry entryFor(long ip) {
+        long hash = ip * 0x9E3779B97F4A7C15L;
+        return entries[(int) (hash >>> 32) & (entries.length - 1)];
+    }
+
+    /** Fills in the result and returns true if the table position for the IP is cached. */
+    static boolean lookup(CodeInfo info, long ip, CodeInfoQueryResult result) {
+        if (!isCacheable(info)) {
+            return false;
+        }
+        Entry entry = singleton().entryFor(ip);
+        long sequence = entry.sequence;
+        long entryIP = entry.ip;
+        long sizeEncoding = entry.sizeEncoding;
+        long entryOffset = entry.entryOffset;
+        int entryFlags = entry.entryFlags;
+        /* The fields must be read before the sequence number is checked again. */
+        MembarNode.memoryBarrier(MemoryBarriers.LOAD_LOAD);
+        if ((sequence & 1) != 0 || entryIP != ip || entry.sequence != sequence) {
+            CodeInfoDecoder.counters().frameInfoCacheMissCount.inc();
+            return false;
+        }
+        CodeInfoDecoder.counters().frameInfoCacheHitCount.inc();
+        CodeInfoDecoder.fillCodeInfoQueryResult(info, result, sizeEncoding, entryOffset, entryFlags);
+        return true;
+    }
+
+    static void put(CodeInfo info, long ip, long sizeEncoding, long entryOffset, int entryFlags) {
+        if (!isCacheable(info)) {
+            return;
+        }
+        Entry entry = singleton().entryFor(ip);
+        long sequence = entry.sequence;
+        if ((sequence & 1) != 0 || !SEQUENCE_UPDATER.compareAndSet(entry, sequence, sequence + 1)) {
+            /* Another thread is updating the entry. */
+            return;
+        }
+        entry.ip = ip;
+        entry.sizeEncoding = sizeEncoding;
+        entry.entryOffset = entryOffset;
+        entry.entryFlags = entryFlags;
+        entry.sequence = sequence + 2;
+    }
+}
@@ -36,6 +36,7 @@ import com.oracle.svm.core.c.NonmovableArrays;
 import com.oracle.svm.core.c.NonmovableObjectArray;
 import com.oracle.svm.core.code.FrameInfoQueryResult.ValueInfo;
 import com.oracle.svm.core.code.FrameInfoQueryResult.ValueType;
+import com.oracle.svm.core.jfr.FlightRecorder;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.meta.SharedMethod;
 import com.oracle.svm.core.meta.SubstrateObjectConstant;
@@ -224,6 +225,10 @@ public class FrameInfoDecoder {
                 cur.sourceClass = NonmovableArrays.getObject(CodeInfoAccess.getFrameInfoSourceClasses(info), sourceClassIndex);
                 cur.sourceMethodName = NonmovableArrays.getObject(CodeInfoAccess.getFrameInfoSourceMethodNames(info), sourceMethodNameIndex);
                 cur.sourceLineNumber = sourceLineNumber;
+                if (encodeSourceSignatures()) {
+                    int sourceMethodSignatureIndex = readBuffer.getUVInt();
+                    cur.sourceMethodSignature = NonmovableArrays.getObject(CodeInfoAccess.getFrameInfoNames(info), sourceMethodSignatureIndex);
+                }
             }
 
             if (debugNames) {
@@ -275,6 +280,14 @@ public class FrameInfoDecoder {
         return SubstrateOptions.StackTrace.getValue();
     }
 
+    /**
+     * The descriptors of source methods are only needed to tell overloads apart in the stack
+     * traces of the flight recorder. They are stored in the table of names.
+     */
+    protected static boolean encodeSourceSignatures() {
+        return encodeSourceReferences() && FlightRecorder.isEnabled();
+    }
+
     protected static final int BCI_SHIFT = 2;
     protected static final int DURING_CALL_MASK = 2;
     protected static final int RETHROW_EXCEPTION_MASK = 1;
@@ -26,9 +26,12 @@ package com.oracle.svm.core.code;
 
 import static com.oracle.svm.core.util.VMError.shouldNotReachHere;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.graalvm.compiler.core.common.LIRKind;
@@ -121,6 +124,9 @@ public class FrameInfoEncoder {
              * perform our own de-duplication.
              */
             resultFrameInfo.sourceMethodName = stringTable.deduplicate(source.getMethodName(), true);
+            if (FrameInfoDecoder.encodeSourceSignatures()) {
+                resultFrameInfo.sourceMethodSignature = stringTable.deduplicate(method.getSignature().toMethodDescriptor(), true);
+            }
             resultFrameInfo.sourceLineNumber = source.getLineNumber();
 
             if (fillValueNames) {
@@ -155,6 +161,7 @@ public class FrameInfoEncoder {
 
                     resultFrameInfo.sourceClass = targetFrameInfo.sourceClass;
                     resultFrameInfo.sourceMethodName = targetFrameInfo.sourceMethodName;
+                    resultFrameInfo.sourceMethodSignature = targetFrameInfo.sourceMethodSignature;
                     resultFrameInfo.sourceLineNumber = targetFrameInfo.sourceLineNumber;
 
                     if (fillValueNames) {
@@ -224,6 +231,9 @@ public class FrameInfoEncoder {
             for (FrameInfoQueryResult cur = data.frame; cur != null; cur = cur.caller) {
                 sourceClasses.addObject(cur.sourceClass);
                 sourceMethodNames.addObject(cur.sourceMethodName);
+                if (FrameInfoDecoder.encodeSourceSignatures()) {
+                    names.addObject(cur.sourceMethodSignature);
+                }
 
                 if (encodeDebugNames) {
                     for (ValueInfo valueInfo : cur.valueInfos) {
@@ -522,7 +532,7 @@ public class FrameInfoEncoder {
             sourceClassesArray = sourceClasses.encodeAll(new Class<?>[sourceClasses.getLength()]);
             sourceMethodNamesArray = sourceMethodNames.encodeAll(new String[sourceMethodNames.getLength()]);
         }
-        if (encodeDebugNames) {
+        if (encodeDebugNames || FrameInfoDecoder.encodeSourceSignatures()) {
             namesArray = names.encodeAll(new String[names.getLength()]);
         }
         NonmovableArray<Byte> frameInfoEncodings = encodeFrameDatas();
@@ -552,9 +562,27 @@ public class FrameInfoEncoder {
 
     private NonmovableArray<Byte> encodeFrameDatas() {
         UnsafeArrayTypeWriter encodingBuffer = UnsafeArrayTypeWriter.create(ByteArrayReader.supportsUnalignedMemoryAccess());
+        /*
+         * Frame data with the same encoding is stored only once. This is common for frame
+         * information that is only needed for stack traces: it consists of just the source
+         * positions of the (inlined) frames, which are the same for all calls on a source line.
+         */
+        Map<ByteBuffer, Long> sharedEncodings = new HashMap<>();
         for (FrameData data : allDebugInfos) {
-            data.indexInEncodings = encodingBuffer.getBytesWritten();
-            encodeFrameData(data, encodingBuffer);
+            UnsafeArrayTypeWriter dataBuffer = UnsafeArrayTypeWriter.create(ByteArrayReader.supportsUnalignedMemoryAccess());
+            encodeFrameData(data, dataBuffer);
+            byte[] encoding = dataBuffer.toArray();
+            Long index = sharedEncodings.get(ByteBuffer.wrap(encoding));
+            if (index == null) {
+                index = encodingBuffer.getBytesWritten();
+                for (byte b : encoding) {
+                    encodingBuffer.putS1(b);
+                }
+                sharedEncodings.put(ByteBuffer.wrap(encoding), index);
+            } else {
+                ImageSingletons.lookup(Counters.class).sharedFrameInfoCount.inc();
+            }
+            data.indexInEncodings = index;
         }
         NonmovableArray<Byte> frameInfoEncodings = NonmovableArrays.createByteArray(TypeConversion.asS4(encodingBuffer.getBytesWritten()));
         encodingBuffer.toByteBuffer(NonmovableArrays.asByteBuffer(frameInfoEncodings));
@@ -609,6 +637,9 @@ public class FrameInfoEncoder {
                 encodingBuffer.putSV(classIndex);
                 encodingBuffer.putSV(methodIndex);
                 encodingBuffer.putSV(cur.sourceLineNumber);
+                if (FrameInfoDecoder.encodeSourceSignatures()) {
+                    encodingBuffer.putUV(names.getIndex(cur.sourceMethodSignature));
+                }
             }
 
             if (encodeDebugNames) {
@@ -700,6 +731,7 @@ class FrameInfoVerifier {
 
             assert Objects.equals(expectedFrame.sourceClass, actualFrame.sourceClass);
             assert Objects.equals(expectedFrame.sourceMethodName, actualFrame.sourceMethodName);
+            assert Objects.equals(expectedFrame.sourceMethodSignature, actualFrame.sourceMethodSignature);
             assert expectedFrame.sourceLineNumber == actualFrame.sourceLineNumber;
 
             assert expectedFrame.sourceClassIndex == actualFrame.sourceClassIndex;
@@ -157,6 +157,7 @@ public class FrameInfoQueryResult {
     protected ValueInfo[][] virtualObjects;
     protected Class<?> sourceClass;
     protected String sourceMethodName;
+    protected String sourceMethodSignature;
     protected int sourceLineNumber;
 
     // Index of sourceClass in CodeInfoDecoder.frameInfoSourceClasses
@@ -183,6 +184,7 @@ public class FrameInfoQueryResult {
         virtualObjects = null;
         sourceClass = null;
         sourceMethodName = "";
+        sourceMethodSignature = "";
         sourceLineNumber = -1;
         sourceClassIndex = -1;
         sourceMethodNameIndex = -1;
@@ -293,6 +295,14 @@ public class FrameInfoQueryResult {
         return sourceMethodName;
     }
 
+    /**
+     * Returns the descriptor of the source method, or an empty string if method signatures are not
+     * {@linkplain FrameInfoDecoder#encodeSourceSignatures() encoded}.
+     */
+    public String getSourceMethodSignature() {
+        return sourceMethodSignature;
+    }
+
     public String getSourceFileName() {
         return sourceClass != null ? DynamicHub.fromClass(sourceClass).getSourceFileName() : null;
     }
@@ -81,6 +81,11 @@ public class GCCause {
         return GCCauses[causeId];
     }
 
+    /** Returns all causes indexed by their id. Ids without a cause have a null entry. */
+    public static GCCause[] getGCCauses() {
+        return GCCauses;
+    }
+
     @Platforms(Platform.HOSTED_ONLY.class)
     public static void cacheReverseMapping() {
         GCCauses = HostedGCCauseList.toArray(new GCCause[HostedGCCauseList.size()]);
@@ -24,6 +24,9 @@
  */
 package com.oracle.svm.core.jdk;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -34,8 +37,14 @@ import com.oracle.svm.core.annotate.UnknownObjectField;
 
 public final class StringInternSupport {
 
-    /** The String intern table at run time. */
-    private final ConcurrentHashMap<String, String> internedStrings;
+    /**
+     * The String intern table at run time. Strings are only weakly reachable from the table, so
+     * strings that are no longer used elsewhere are reclaimed by the garbage collector. The GC
+     * clears and enqueues the {@link InternedString} entries of reclaimed strings during reference
+     * processing, and the stale entries are removed on the next call to {@link #intern}.
+     */
+    private final ConcurrentHashMap<Object, InternedString> internedStrings;
+    private final ReferenceQueue<String> staleEntries;
 
     /**
      * The native image contains a lot of interned strings. All Java String literals, and all class
@@ -52,6 +61,7 @@ public final class StringInternSupport {
     @Platforms(Platform.HOSTED_ONLY.class)
     public StringInternSupport() {
         this.internedStrings = new ConcurrentHashMap<>(16, 0.75f, 1);
+        this.staleEntries = new ReferenceQueue<>();
     }
 
     @Platforms(Platform.HOSTED_ONLY.class)
@@ -60,7 +70,9 @@ public final class StringInternSupport {
     }
 
     protected String intern(String str) {
-        String result = internedStrings.get(str);
+        expungeStaleEntries();
+        InternedString entry = internedStrings.get(new LookupKey(str));
+        String result = (entry != null) ? entry.get() : null;
         if (result != null) {
             return result;
         } else {
@@ -74,10 +86,75 @@ public final class StringInternSupport {
         if (imageIdx >= 0) {
             result = imageInternedStrings[imageIdx];
         }
-        String oldValue = internedStrings.putIfAbsent(result, result);
-        if (oldValue != null) {
-            result = oldValue;
+        InternedString newEntry = new InternedString(result, staleEntries);
+        while (true) {
+            InternedString oldEntry = internedStrings.putIfAbsent(newEntry, newEntry);
+            if (oldEntry == null) {
+                return result;
+            }
+            String oldValue = oldEntry.get();
+            if (oldValue != null) {
+                return oldValue;
+            }
+            /* The previously interned string has been reclaimed, so replace its stale entry. */
+            internedStrings.remove(oldEntry, oldEntry);
+        }
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends String> stale;
+        while ((stale = staleEntries.poll()) != null) {
+            internedStrings.remove(stale, stale);
+        }
+    }
+
+    /**
+     * An entry of the intern table. It keeps the hash code of its string so that it can still be
+     * found and removed after the string has been reclaimed. Entries whose string has been
+     * reclaimed are only equal to themselves.
+     */
+    private static final class InternedString extends WeakReference<String> {
+        private final int hash;
+
+        InternedString(String value, ReferenceQueue<String> queue) {
+            super(value, queue);
+            this.hash = value.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof InternedString) || ((InternedString) obj).hash != hash) {
+                return false;
+            }
+            String value = get();
+            return value != null && value.equals(((InternedString) obj).get());
+        }
+    }
+
+    /** A short-lived key to look up the entry of a string without creating a weak reference. */
+    private static final class LookupKey {
+        private final String value;
+
+        LookupKey(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof InternedString && value.equals(((InternedString) obj).get());
         }
-        return result;
     }
 }
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.compiler.options.Option;
+import org.graalvm.compiler.options.OptionType;
+import org.graalvm.nativeimage.IsolateThread;
+
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.log.Log;
+import com.oracle.svm.core.option.HostedOptionKey;
+import com.oracle.svm.core.option.RuntimeOptionKey;
+import com.oracle.svm.core.thread.JavaVMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+
+/**
+ * A low-overhead recorder of VM events that writes recordings in the JFR file format, so that
+ * existing tools such as {@code jfr} and JDK Mission Control can analyze them.
+ *
+ * Events are recorded into {@linkplain JfrBuffers thread-local buffers} without synchronization.
+ * A recorder thread periodically flushes full buffers to the recording file and, if a sampling
+ * interval is set, takes {@linkplain JfrSampler execution samples}. The constant pools and the
+ * metadata are written when the VM exits.
+ */
+public final class FlightRecorder {
+
+    public static class Options {
+        @Option(help = "Include the flight recorder, which records VM events in the JFR file format.", type = OptionType.User)//
+        public static final HostedOptionKey<Boolean> FlightRecorder = new HostedOptionKey<>(false);
+
+        @Option(help = "Record events from VM startup and write them to the given .jfr file when the VM exits.", type = OptionType.User)//
+        public static final RuntimeOptionKey<String> StartFlightRecording = new RuntimeOptionKey<>("");
+
+        @Option(help = "Interval in milliseconds between execution samples of all threads, or 0 to disable sampling. Every sample stops all threads at a safepoint.")//
+        public static final RuntimeOptionKey<Integer> FlightRecorderSamplingInterval = new RuntimeOptionKey<>(0);
+
+        @Option(help = "Interval in milliseconds at which full event buffers are written to the recording file.")//
+        public static final RuntimeOptionKey<Integer> FlightRecorderFlushInterval = new RuntimeOptionKey<>(1000);
+
+        @Option(help = "Minimum duration in milliseconds of contended monitor enters, monitor waits and thread parks that are recorded.")//
+        public static final RuntimeOptionKey<Integer> FlightRecorderBlockingThreshold = new RuntimeOptionKey<>(20);
+
+        @Option(help = "Size in bytes of the event buffer of each thread.")//
+        public static final RuntimeOptionKey<Integer> FlightRecorderThreadBufferSize = new RuntimeOptionKey<>(64 * 1024);
+
+        @Option(help = "Maximum number of bytes in full event buffers that are retained between flushes. Events beyond that are dropped.")//
+        public static final RuntimeOptionKey<Long> FlightRecorderGlobalBufferSize = new RuntimeOptionKey<>(32L * 1024 * 1024);
+    }
+
+    private static volatile boolean recording;
+    /** True until the last events were flushed, so that retired buffers are written and not freed. */
+    private static volatile boolean writing;
+    private static long blockingThresholdTicks;
+
+    private static JfrChunkWriter writer;
+    private static JfrThreadRepository threads;
+    private static JfrStackTraceRepository stackTraces;
+    private static Thread recorderThread;
+
+    private FlightRecorder() {
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return Options.FlightRecorder.getValue();
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static boolean isWriting() {
+        return writing;
+    }
+
+    static long getBlockingThresholdTicks() {
+        return blockingThresholdTicks;
+    }
+
+    static void startup() {
+        String path = Options.StartFlightRecording.getValue();
+        if (!path.isEmpty()) {
+            start(path);
+        }
+    }
+
+    /**
+     * Starts a recording to the given file if no recording was started yet in this VM. A recording
+     * started this way can be completed with {@link #stopRecording} before the VM exits.
+     */
+    public static void startRecording(String path) {
+        if (writer == null) {
+            start(path);
+        }
+    }
+
+    /**
+     * Stops the recording and writes the remaining events, the constant pools and the metadata to
+     * the recording file. Does nothing if no recording is active.
+     */
+    public static void stopRecording() {
+        shutdown();
+    }
+
+    private static void start(String path) {
+        try {
+            writer = new JfrChunkWriter(path);
+        } catch (IOException ex) {
+            Log.log().string("Could not start the flight recording: ").string(ex.getMessage()).newline();
+            return;
+        }
+        JfrBuffers.initialize(Options.FlightRecorderThreadBufferSize.getValue(), Options.FlightRecorderGlobalBufferSize.getValue());
+        JfrClassRepository.initialize();
+        threads = new JfrThreadRepository();
+        stackTraces = new JfrStackTraceRepository();
+        blockingThresholdTicks = TimeUnit.MILLISECONDS.toNanos(Options.FlightRecorderBlockingThreshold.getValue());
+        writing = true;
+        recording = true;
+
+        if (SubstrateOptions.MultiThreaded.getValue()) {
+            recorderThread = new Thread(FlightRecorder::runRecorder, "JFR Recorder Thread");
+            recorderThread.setDaemon(true);
+            recorderThread.start();
+        }
+    }
+
+    private static void runRecorder() {
+        int samplingInterval = Options.FlightRecorderSamplingInterval.getValue();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Options.FlightRecorderFlushInterval.getValue());
+        JfrSampler sampler = new JfrSampler(stackTraces);
+        long lastFlush = System.nanoTime();
+        while (recording) {
+            try {
+                Thread.sleep(samplingInterval > 0 ? samplingInterval : Options.FlightRecorderFlushInterval.getValue());
+            } catch (InterruptedException ex) {
+                return;
+            }
+            if (samplingInterval > 0) {
+                sampler.sample(Thread.currentThread());
+            }
+            if (System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                flush();
+                lastFlush = System.nanoTime();
+            }
+        }
+    }
+
+    /** Writes the events of all threads to the recording file. */
+    private static void flush() {
+        JavaVMOperation.enqueueBlockingSafepoint("JFR flush", () -> {
+            for (IsolateThread vmThread = VMThreads.firstThread(); vmThread.isNonNull(); vmThread = VMThreads.nextThread(vmThread)) {
+                JfrBuffers.retireThreadBuffer(vmThread);
+            }
+            threads.registerLiveThreads();
+        });
+        JfrBuffer buffer = JfrBuffers.takeFullBuffers();
+        while (buffer.isNonNull()) {
+            JfrBuffer next = buffer.getNext();
+            try {
+                writer.write(buffer);
+            } catch (IOException ex) {
+                Log.log().string("Could not write the flight recording: ").string(ex.getMessage()).newline();
+            } finally {
+                JfrBuffers.free(buffer);
+            }
+            buffer = next;
+        }
+    }
+
+    static void shutdown() {
+        if (!recording) {
+            return;
+        }
+        /*
+         * Events recorded from now on are discarded. Events are written in uninterruptible code, so
+         * the safepoint of the final flush retires all events that were recorded before.
+         */
+        recording = false;
+        if (recorderThread != null) {
+            recorderThread.interrupt();
+            try {
+                recorderThread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        writing = false;
+
+        long lostBytes = JfrBuffers.getLostBytes();
+        if (lostBytes > 0) {
+            Log.log().string("Flight recording dropped ").signed(lostBytes).string(" bytes of events because the buffers were full.").newline();
+        }
+        try {
+            writer.finish(threads, stackTraces);
+        } catch (IOException ex) {
+            Log.log().string("Could not write the flight recording: ").string(ex.getMessage()).newline();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.nativeimage.c.struct.RawField;
+import org.graalvm.nativeimage.c.struct.RawStructure;
+import org.graalvm.word.PointerBase;
+import org.graalvm.word.UnsignedWord;
+
+/**
+ * Header of a block of native memory that holds encoded events. The event data immediately follows
+ * the header. A buffer is written by a single thread until it is full or flushed, after which it is
+ * handed over to the global list of full buffers in {@link JfrBuffers}.
+ */
+@RawStructure
+public interface JfrBuffer extends PointerBase {
+    /** The number of bytes available for event data, excluding the header. */
+    @RawField
+    UnsignedWord getCapacity();
+
+    @RawField
+    void setCapacity(UnsignedWord value);
+
+    /** The number of bytes of event data that have been committed. */
+    @RawField
+    UnsignedWord getCommitted();
+
+    @RawField
+    void setCommitted(UnsignedWord value);
+
+    /** Next buffer in the list of full buffers. */
+    @RawField
+    JfrBuffer getNext();
+
+    @RawField
+    void setNext(JfrBuffer value);
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.nativeimage.ImageSingletons;
+import org.graalvm.nativeimage.IsolateThread;
+import org.graalvm.nativeimage.c.struct.SizeOf;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.locks.VMMutex;
+import com.oracle.svm.core.os.UnmanagedMemorySupport;
+import com.oracle.svm.core.threadlocal.FastThreadLocalFactory;
+import com.oracle.svm.core.threadlocal.FastThreadLocalWord;
+
+/**
+ * Management of the native memory that holds events before they are written to the recording file.
+ *
+ * Every thread writes events into its own {@link JfrBuffer}, so recording an event does not need
+ * any synchronization. All accesses to a thread-local buffer are {@link Uninterruptible}, which
+ * guarantees that a buffer is never observed in a partially written state at a safepoint. When a
+ * buffer is full, it is appended to a global list of full buffers and the thread continues with a
+ * fresh buffer. The global list is only manipulated while holding {@link #mutex}, which is never
+ * held across a safepoint. The amount of memory retained in the global list is limited: when the
+ * limit is reached, the events of newly retired buffers are dropped and counted.
+ */
+public final class JfrBuffers {
+    private static final FastThreadLocalWord<JfrBuffer> threadLocalBuffer = FastThreadLocalFactory.createWord();
+
+    private static final VMMutex mutex = new VMMutex();
+
+    private static UnsignedWord threadBufferSize;
+    private static UnsignedWord fullBuffersLimit;
+
+    private static JfrBuffer fullBuffersHead;
+    private static JfrBuffer fullBuffersTail;
+    private static UnsignedWord fullBuffersBytes = WordFactory.zero();
+    private static long lostBytes;
+
+    private JfrBuffers() {
+    }
+
+    static void initialize(long threadBufferBytes, long fullBuffersLimitBytes) {
+        threadBufferSize = WordFactory.unsigned(threadBufferBytes);
+        fullBuffersLimit = WordFactory.unsigned(fullBuffersLimitBytes);
+    }
+
+    /**
+     * Returns the buffer of the current thread with at least the given number of bytes available,
+     * or null if no memory could be allocated.
+     */
+    @Uninterruptible(reason = "Accesses a JFR buffer.", callerMustBe = true)
+    static JfrBuffer acquire(int bytes) {
+        JfrBuffer buffer = threadLocalBuffer.get();
+        if (buffer.isNonNull()) {
+            if (getAvailable(buffer).aboveOrEqual(bytes)) {
+                return buffer;
+            }
+            threadLocalBuffer.set(WordFactory.nullPointer());
+            retire(buffer);
+        }
+        buffer = allocate(threadBufferSize);
+        threadLocalBuffer.set(buffer);
+        return buffer;
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static Pointer getCommittedEnd(JfrBuffer buffer) {
+        return getData(buffer).add(buffer.getCommitted());
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static void commit(JfrBuffer buffer, Pointer end) {
+        assert end.belowOrEqual(getData(buffer).add(buffer.getCapacity())) : "buffer overflow";
+        buffer.setCommitted(end.subtract(getData(buffer)));
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static Pointer getData(JfrBuffer buffer) {
+        return ((Pointer) buffer).add(SizeOf.unsigned(JfrBuffer.class));
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    private static UnsignedWord getAvailable(JfrBuffer buffer) {
+        return buffer.getCapacity().subtract(buffer.getCommitted());
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    private static JfrBuffer allocate(UnsignedWord capacity) {
+        JfrBuffer buffer = ImageSingletons.lookup(UnmanagedMemorySupport.class).malloc(SizeOf.unsigned(JfrBuffer.class).add(capacity));
+        if (buffer.isNonNull()) {
+            buffer.setCapacity(capacity);
+            buffer.setCommitted(WordFactory.zero());
+            buffer.setNext(WordFactory.nullPointer());
+        }
+        return buffer;
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static void free(JfrBuffer buffer) {
+        ImageSingletons.lookup(UnmanagedMemorySupport.class).free(buffer);
+    }
+
+    /**
+     * Hands over the buffer of the given thread to the global list. This is called when the thread
+     * exits, and for all threads when the recording is flushed at a safepoint.
+     */
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    public static void retireThreadBuffer(IsolateThread thread) {
+        JfrBuffer buffer = threadLocalBuffer.get(thread);
+        if (buffer.isNonNull()) {
+            threadLocalBuffer.set(thread, WordFactory.nullPointer());
+            retire(buffer);
+        }
+    }
+
+    @Uninterruptible(reason = "Locks without transition and accesses a JFR buffer.", callerMustBe = true)
+    private static void retire(JfrBuffer buffer) {
+        if (buffer.getCommitted().equal(0) || !FlightRecorder.isWriting()) {
+            free(buffer);
+            return;
+        }
+        mutex.lockNoTransition();
+        try {
+            if (fullBuffersBytes.add(buffer.getCommitted()).aboveThan(fullBuffersLimit)) {
+                lostBytes += buffer.getCommitted().rawValue();
+                free(buffer);
+                return;
+            }
+            buffer.setNext(WordFactory.nullPointer());
+            if (fullBuffersTail.isNull()) {
+                fullBuffersHead = buffer;
+            } else {
+                fullBuffersTail.setNext(buffer);
+            }
+            fullBuffersTail = buffer;
+            fullBuffersBytes = fullBuffersBytes.add(buffer.getCommitted());
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /**
+     * Removes all full buffers from the global list and returns them in the order in which they
+     * were retired. The caller takes ownership of the buffers and must {@link #free} them.
+     */
+    @Uninterruptible(reason = "Locks without transition.")
+    static JfrBuffer takeFullBuffers() {
+        mutex.lockNoTransition();
+        try {
+            JfrBuffer result = fullBuffersHead;
+            fullBuffersHead = WordFactory.nullPointer();
+            fullBuffersTail = WordFactory.nullPointer();
+            fullBuffersBytes = WordFactory.zero();
+            return result;
+        } finally {
+            mutex.unlock();
+        }
+    }
+
+    /** Returns the number of bytes of event data that was dropped because of the memory limit. */
+    @Uninterruptible(reason = "Locks without transition.")
+    static long getLostBytes() {
+        mutex.lockNoTransition();
+        try {
+            return lostBytes;
+        } finally {
+            mutex.unlock();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte array for the parts of a recording that are written from Java code, i.e., the
+ * constant pools and the metadata. Uses the same encoding as {@link JfrNativeEventWriter}.
+ */
+final class JfrByteStream {
+    private byte[] bytes = new byte[4096];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    private void ensure(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+        }
+    }
+
+    void putByte(byte value) {
+        ensure(1);
+        bytes[size++] = value;
+    }
+
+    void putBoolean(boolean value) {
+        putByte((byte) (value ? 1 : 0));
+    }
+
+    void putInt(int value) {
+        putLong(value & 0xFFFFFFFFL);
+    }
+
+    /** @see JfrNativeEventWriter#putLong */
+    void putLong(long value) {
+        ensure(9);
+        long v = value;
+        for (int i = 0; i < 8; i++) {
+            if ((v & ~0x7FL) == 0) {
+                bytes[size++] = (byte) v;
+                return;
+            }
+            bytes[size++] = (byte) (v | 0x80L);
+            v >>>= 7;
+        }
+        bytes[size++] = (byte) v;
+    }
+
+    void putString(String value) {
+        if (value == null) {
+            putByte(JfrChunkWriter.STRING_ENCODING_NULL);
+        } else if (value.isEmpty()) {
+            putByte(JfrChunkWriter.STRING_ENCODING_EMPTY);
+        } else {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putByte(JfrChunkWriter.STRING_ENCODING_UTF8);
+            putInt(utf8.length);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+    }
+
+    /** Reserves space for the size of an event and returns the start position of the event. */
+    int beginEvent(long typeId) {
+        int start = size;
+        ensure(JfrNativeEventWriter.PADDED_SIZE_BYTES);
+        size += JfrNativeEventWriter.PADDED_SIZE_BYTES;
+        putLong(typeId);
+        return start;
+    }
+
+    void endEvent(int start) {
+        int value = size - start;
+        bytes[start] = (byte) ((value & 0x7F) | 0x80);
+        bytes[start + 1] = (byte) (((value >>> 7) & 0x7F) | 0x80);
+        bytes[start + 2] = (byte) (((value >>> 14) & 0x7F) | 0x80);
+        bytes[start + 3] = (byte) ((value >>> 21) & 0x7F);
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+}
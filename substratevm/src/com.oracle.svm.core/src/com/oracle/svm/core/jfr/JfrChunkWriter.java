@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.nativeimage.c.type.CTypeConversion;
+
+/**
+ * Writes a recording as a single chunk of the JFR file format (version 2.0). The chunk consists of
+ * a fixed-size header, the event data of all flushed buffers, a checkpoint event with the constant
+ * pools, and the metadata event. The header is written last because it contains the positions of
+ * the checkpoint and the metadata.
+ */
+final class JfrChunkWriter {
+    static final byte STRING_ENCODING_NULL = 0;
+    static final byte STRING_ENCODING_EMPTY = 1;
+    static final byte STRING_ENCODING_CONSTANT_POOL = 2;
+    static final byte STRING_ENCODING_UTF8 = 3;
+
+    private static final byte[] MAGIC = {'F', 'L', 'R', '\0'};
+    private static final short MAJOR_VERSION = 2;
+    private static final short MINOR_VERSION = 0;
+    private static final int HEADER_SIZE = 68;
+    private static final int FEATURE_COMPRESSED_INTS = 1;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long startNanos;
+    private final long startTicks;
+
+    JfrChunkWriter(String path) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        this.startNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        this.startTicks = JfrEvents.ticks();
+        file.setLength(0);
+        file.write(new byte[HEADER_SIZE]);
+    }
+
+    /** Appends the committed event data of the buffer, directly from native memory. */
+    void write(JfrBuffer buffer) throws IOException {
+        ByteBuffer data = CTypeConversion.asByteBuffer(JfrBuffers.getData(buffer), (int) buffer.getCommitted().rawValue());
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    void finish(JfrThreadRepository threads, JfrStackTraceRepository stackTraces) throws IOException {
+        long endTicks = JfrEvents.ticks();
+        JfrByteStream out = new JfrByteStream();
+
+        long checkpointPosition = channel.position();
+        int start = out.beginEvent(JfrMetadata.CONSTANT_POOL_TYPE_ID);
+        out.putLong(endTicks);
+        out.putLong(0); // duration
+        out.putLong(0); // delta to the previous checkpoint, there is none
+        out.putBoolean(true); // flush
+        out.putInt(5); // number of constant pools
+        JfrSymbolRepository.writeConstants(out);
+        threads.writeConstants(out);
+        stackTraces.writeStackTraceConstants(out);
+        stackTraces.writeMethodConstants(out);
+        JfrClassRepository.writeConstants(out);
+        out.endEvent(start);
+        out.writeTo(file);
+
+        long metadataPosition = channel.position();
+        out.reset();
+        JfrMetadata.write(out, endTicks);
+        out.writeTo(file);
+
+        long chunkSize = channel.position();
+        file.seek(0);
+        file.write(MAGIC);
+        file.writeShort(MAJOR_VERSION);
+        file.writeShort(MINOR_VERSION);
+        file.writeLong(chunkSize);
+        file.writeLong(checkpointPosition);
+        file.writeLong(metadataPosition);
+        file.writeLong(startNanos);
+        file.writeLong(endTicks - startTicks); // duration in nanoseconds, since ticks are nanoseconds
+        file.writeLong(startTicks);
+        file.writeLong(TimeUnit.SECONDS.toNanos(1)); // ticks per second
+        file.writeInt(FEATURE_COMPRESSED_INTS);
+        file.close();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.svm.core.heap.Heap;
+import com.oracle.svm.core.hub.DynamicHub;
+
+/**
+ * The classes that events refer to. The id of a class is derived from its
+ * {@link DynamicHub#getTypeID() type id}, so that looking up an id neither allocates nor
+ * synchronizes, which matters because ids are requested while entering contended monitors.
+ * Referenced classes are marked so that only those are written to the constant pool.
+ */
+final class JfrClassRepository {
+    static final long NULL_ID = 0;
+
+    private static boolean[] referenced;
+
+    private JfrClassRepository() {
+    }
+
+    static void initialize() {
+        int maxTypeId = 0;
+        for (Class<?> clazz : Heap.getHeap().getClassList()) {
+            maxTypeId = Math.max(maxTypeId, DynamicHub.fromClass(clazz).getTypeID());
+        }
+        referenced = new boolean[maxTypeId + 1];
+    }
+
+    static long getId(Class<?> clazz) {
+        int typeId = DynamicHub.fromClass(clazz).getTypeID();
+        boolean[] r = referenced;
+        if (r != null && typeId < r.length) {
+            /* Racy, but threads only ever store true. */
+            r[typeId] = true;
+        }
+        return typeId + 1L;
+    }
+
+    static void writeConstants(JfrByteStream out) {
+        List<Class<?>> classes = new ArrayList<>();
+        for (Class<?> clazz : Heap.getHeap().getClassList()) {
+            int typeId = DynamicHub.fromClass(clazz).getTypeID();
+            if (typeId < referenced.length && referenced[typeId]) {
+                classes.add(clazz);
+            }
+        }
+        out.putLong(JfrMetadata.CLASS);
+        out.putInt(classes.size());
+        for (Class<?> clazz : classes) {
+            out.putLong(getId(clazz));
+            out.putString(clazz.getName());
+            out.putInt(clazz.getModifiers());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.word.Pointer;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.thread.JavaThreads;
+
+/**
+ * Recording of individual events into the buffer of the current thread. The emit methods are
+ * {@link Uninterruptible} and do not allocate, so they can be called from the garbage collector
+ * and from the safepoint mechanism. All values that need Java objects, e.g., class ids, must be
+ * computed by the caller.
+ *
+ * The order of the fields written here must match the declarations in {@link JfrMetadata}.
+ */
+public final class JfrEvents {
+    /** An upper bound for the encoded size of each of the events below. */
+    static final int MAX_EVENT_SIZE = 128;
+
+    private JfrEvents() {
+    }
+
+    /** Returns the current time in ticks of the recording. */
+    public static long ticks() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Returns true if a blocking operation that started at the given ticks took long enough to be
+     * recorded.
+     */
+    public static boolean exceedsBlockingThreshold(long startTicks, long endTicks) {
+        return endTicks - startTicks >= FlightRecorder.getBlockingThresholdTicks();
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    public static void emitGarbageCollection(long gcId, int causeId, boolean complete, long startTicks, long endTicks) {
+        if (!FlightRecorder.isRecording()) {
+            return;
+        }
+        JfrBuffer buffer = JfrBuffers.acquire(MAX_EVENT_SIZE);
+        if (buffer.isNull()) {
+            return;
+        }
+        Pointer start = JfrBuffers.getCommittedEnd(buffer);
+        Pointer p = JfrNativeEventWriter.beginEvent(start, JfrMetadata.GARBAGE_COLLECTION);
+        p = JfrNativeEventWriter.putLong(p, startTicks);
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        p = JfrNativeEventWriter.putInt(p, (int) gcId);
+        p = JfrNativeEventWriter.putStringReference(p, complete ? JfrSymbolRepository.COMPLETE_COLLECTION : JfrSymbolRepository.INCREMENTAL_COLLECTION);
+        p = JfrNativeEventWriter.putStringReference(p, JfrSymbolRepository.getGCCauseSymbol(causeId));
+        /* A collection is a single pause. */
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        commit(buffer, start, p);
+    }
+
+    /**
+     * Records a phase of a collection pause. Level 0 is the whole pause, level 1 are the phases
+     * within the pause.
+     */
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    public static void emitGCPhasePause(long gcId, int level, long nameSymbol, long startTicks, long endTicks) {
+        if (!FlightRecorder.isRecording()) {
+            return;
+        }
+        JfrBuffer buffer = JfrBuffers.acquire(MAX_EVENT_SIZE);
+        if (buffer.isNull()) {
+            return;
+        }
+        Pointer start = JfrBuffers.getCommittedEnd(buffer);
+        Pointer p = JfrNativeEventWriter.beginEvent(start, level == 0 ? JfrMetadata.GC_PHASE_PAUSE : JfrMetadata.GC_PHASE_PAUSE_LEVEL_1);
+        p = JfrNativeEventWriter.putLong(p, startTicks);
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        p = JfrNativeEventWriter.putInt(p, (int) gcId);
+        p = JfrNativeEventWriter.putStringReference(p, nameSymbol);
+        commit(buffer, start, p);
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    public static void emitSafepointBegin(long safepointId, int totalThreadCount, long startTicks, long endTicks) {
+        if (!FlightRecorder.isRecording()) {
+            return;
+        }
+        JfrBuffer buffer = JfrBuffers.acquire(MAX_EVENT_SIZE);
+        if (buffer.isNull()) {
+            return;
+        }
+        Pointer start = JfrBuffers.getCommittedEnd(buffer);
+        Pointer p = JfrNativeEventWriter.beginEvent(start, JfrMetadata.SAFEPOINT_BEGIN);
+        p = JfrNativeEventWriter.putLong(p, startTicks);
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        p = JfrNativeEventWriter.putLong(p, JavaThreads.getCurrentThreadId());
+        p = JfrNativeEventWriter.putLong(p, safepointId);
+        p = JfrNativeEventWriter.putInt(p, totalThreadCount);
+        p = JfrNativeEventWriter.putInt(p, 0);
+        commit(buffer, start, p);
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    public static void emitSafepointEnd(long safepointId, long startTicks, long endTicks) {
+        if (!FlightRecorder.isRecording()) {
+            return;
+        }
+        JfrBuffer buffer = JfrBuffers.acquire(MAX_EVENT_SIZE);
+        if (buffer.isNull()) {
+            return;
+        }
+        Pointer start = JfrBuffers.getCommittedEnd(buffer);
+        Pointer p = JfrNativeEventWriter.beginEvent(start, JfrMetadata.SAFEPOINT_END);
+        p = JfrNativeEventWriter.putLong(p, startTicks);
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        p = JfrNativeEventWriter.putLong(p, JavaThreads.getCurrentThreadId());
+        p = JfrNativeEventWriter.putLong(p, safepointId);
+        commit(buffer, start, p);
+    }
+
+    public static void emitJavaMonitorEnter(Object monitor, long startTicks, long endTicks) {
+        if (FlightRecorder.isRecording() && exceedsBlockingThreshold(startTicks, endTicks)) {
+            emitJavaMonitorEnter0(JfrClassRepository.getId(monitor.getClass()), startTicks, endTicks);
+        }
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    private static void emitJavaMonitorEnter0(long classId, long startTicks, long endTicks) {
+        JfrBuffer buffer = JfrBuffers.acquire(MAX_EVENT_SIZE);
+        if (buffer.isNull()) {
+            return;
+        }
+        Pointer start = JfrBuffers.getCommittedEnd(buffer);
+        Pointer p = JfrNativeEventWriter.beginEvent(start, JfrMetadata.JAVA_MONITOR_ENTER);
+        p = JfrNativeEventWriter.putLong(p, startTicks);
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        p = JfrNativeEventWriter.putLong(p, JavaThreads.getCurrentThreadId());
+        p = JfrNativeEventWriter.putLong(p, classId);
+        commit(buffer, start, p);
+    }
+
+    public static void emitJavaMonitorWait(Object monitor, long timeoutMillis, long startTicks, long endTicks) {
+        if (FlightRecorder.isRecording() && exceedsBlockingThreshold(startTicks, endTicks)) {
+            emitJavaMonitorWait0(JfrClassRepository.getId(monitor.getClass()), timeoutMillis, startTicks, endTicks);
+        }
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    private static void emitJavaMonitorWait0(long classId, long timeoutMillis, long startTicks, long endTicks) {
+        JfrBuffer buffer = JfrBuffers.acquire(MAX_EVENT_SIZE);
+        if (buffer.isNull()) {
+            return;
+        }
+        Pointer start = JfrBuffers.getCommittedEnd(buffer);
+        Pointer p = JfrNativeEventWriter.beginEvent(start, JfrMetadata.JAVA_MONITOR_WAIT);
+        p = JfrNativeEventWriter.putLong(p, startTicks);
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        p = JfrNativeEventWriter.putLong(p, JavaThreads.getCurrentThreadId());
+        p = JfrNativeEventWriter.putLong(p, classId);
+        p = JfrNativeEventWriter.putLong(p, timeoutMillis);
+        commit(buffer, start, p);
+    }
+
+    /**
+     * Records a call of {@code Unsafe.park}. As in the JDK, the timeout is {@link Long#MIN_VALUE}
+     * for a park with an absolute deadline, and the deadline is {@link Long#MIN_VALUE} otherwise.
+     */
+    public static void emitThreadPark(Object blocker, boolean isAbsolute, long time, long startTicks, long endTicks) {
+        if (FlightRecorder.isRecording() && exceedsBlockingThreshold(startTicks, endTicks)) {
+            long classId = blocker == null ? JfrClassRepository.NULL_ID : JfrClassRepository.getId(blocker.getClass());
+            long timeout = isAbsolute ? Long.MIN_VALUE : time;
+            long until = isAbsolute ? time : Long.MIN_VALUE;
+            emitThreadPark0(classId, timeout, until, startTicks, endTicks);
+        }
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    private static void emitThreadPark0(long classId, long timeout, long until, long startTicks, long endTicks) {
+        JfrBuffer buffer = JfrBuffers.acquire(MAX_EVENT_SIZE);
+        if (buffer.isNull()) {
+            return;
+        }
+        Pointer start = JfrBuffers.getCommittedEnd(buffer);
+        Pointer p = JfrNativeEventWriter.beginEvent(start, JfrMetadata.THREAD_PARK);
+        p = JfrNativeEventWriter.putLong(p, startTicks);
+        p = JfrNativeEventWriter.putLong(p, endTicks - startTicks);
+        p = JfrNativeEventWriter.putLong(p, JavaThreads.getCurrentThreadId());
+        p = JfrNativeEventWriter.putLong(p, classId);
+        p = JfrNativeEventWriter.putLong(p, timeout);
+        p = JfrNativeEventWriter.putLong(p, until);
+        commit(buffer, start, p);
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.")
+    static void emitExecutionSample(long sampledThreadId, long stackTraceId, long ticks) {
+        JfrBuffer buffer = JfrBuffers.acquire(MAX_EVENT_SIZE);
+        if (buffer.isNull()) {
+            return;
+        }
+        Pointer start = JfrBuffers.getCommittedEnd(buffer);
+        Pointer p = JfrNativeEventWriter.beginEvent(start, JfrMetadata.EXECUTION_SAMPLE);
+        p = JfrNativeEventWriter.putLong(p, ticks);
+        p = JfrNativeEventWriter.putLong(p, sampledThreadId);
+        p = JfrNativeEventWriter.putLong(p, stackTraceId);
+        commit(buffer, start, p);
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    private static void commit(JfrBuffer buffer, Pointer start, Pointer end) {
+        JfrNativeEventWriter.endEvent(start, end);
+        JfrBuffers.commit(buffer, end);
+    }
+}
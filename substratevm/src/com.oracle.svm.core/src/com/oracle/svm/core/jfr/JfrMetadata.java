@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The type ids of the recording and the metadata event that describes them. The layout of the
+ * event fields declared here must match the order in which {@link JfrEvents} writes them. Type
+ * names, field names and annotations follow the JDK event definitions so that existing JFR tooling
+ * can interpret the events.
+ */
+final class JfrMetadata {
+    /* Reserved ids of the file format. */
+    static final long METADATA_TYPE_ID = 0;
+    static final long CONSTANT_POOL_TYPE_ID = 1;
+
+    /* Types. */
+    static final long BOOLEAN = 4;
+    static final long INT = 5;
+    static final long LONG = 6;
+    static final long STRING = 7;
+    static final long LABEL = 10;
+    static final long TIMESTAMP = 11;
+    static final long TIMESPAN = 12;
+    static final long THREAD = 20;
+    static final long CLASS = 21;
+    static final long METHOD = 22;
+    static final long STACK_FRAME = 23;
+    static final long STACK_TRACE = 24;
+
+    /* Events. */
+    static final long GARBAGE_COLLECTION = 100;
+    static final long GC_PHASE_PAUSE = 101;
+    static final long GC_PHASE_PAUSE_LEVEL_1 = 102;
+    static final long SAFEPOINT_BEGIN = 103;
+    static final long SAFEPOINT_END = 104;
+    static final long JAVA_MONITOR_ENTER = 105;
+    static final long JAVA_MONITOR_WAIT = 106;
+    static final long THREAD_PARK = 107;
+    static final long EXECUTION_SAMPLE = 108;
+
+    private JfrMetadata() {
+    }
+
+    /** An element of the metadata tree. */
+    private static final class Element {
+        final String name;
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        final List<Element> children = new ArrayList<>();
+
+        Element(String name) {
+            this.name = name;
+        }
+
+        Element attribute(String key, Object value) {
+            attributes.put(key, String.valueOf(value));
+            return this;
+        }
+
+        Element add(Element child) {
+            children.add(child);
+            return child;
+        }
+
+        void collectStrings(Map<String, Integer> pool) {
+            intern(pool, name);
+            for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                intern(pool, entry.getKey());
+                intern(pool, entry.getValue());
+            }
+            for (Element child : children) {
+                child.collectStrings(pool);
+            }
+        }
+
+        void write(JfrByteStream out, Map<String, Integer> pool) {
+            out.putInt(pool.get(name));
+            out.putInt(attributes.size());
+            for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                out.putInt(pool.get(entry.getKey()));
+                out.putInt(pool.get(entry.getValue()));
+            }
+            out.putInt(children.size());
+            for (Element child : children) {
+                child.write(out, pool);
+            }
+        }
+
+        private static void intern(Map<String, Integer> pool, String s) {
+            if (!pool.containsKey(s)) {
+                pool.put(s, pool.size());
+            }
+        }
+    }
+
+    private static Element type(Element metadata, String name, long id) {
+        return metadata.add(new Element("class")).attribute("name", name).attribute("id", id);
+    }
+
+    private static Element annotationType(Element metadata, String name, long id) {
+        Element type = type(metadata, name, id).attribute("superType", "java.lang.annotation.Annotation");
+        field(type, "value", STRING);
+        return type;
+    }
+
+    private static Element event(Element metadata, String name, long id, String label, boolean hasDuration, boolean hasThread) {
+        Element type = type(metadata, name, id).attribute("superType", "jdk.jfr.Event");
+        annotation(type, LABEL, label);
+        annotation(field(type, "startTime", LONG), TIMESTAMP, "TICKS");
+        if (hasDuration) {
+            annotation(field(type, "duration", LONG), TIMESPAN, "TICKS");
+        }
+        if (hasThread) {
+            constantPoolField(type, "eventThread", THREAD);
+        }
+        return type;
+    }
+
+    private static Element field(Element type, String name, long fieldType) {
+        return type.add(new Element("field")).attribute("name", name).attribute("class", fieldType);
+    }
+
+    private static Element constantPoolField(Element type, String name, long fieldType) {
+        return field(type, name, fieldType).attribute("constantPool", true);
+    }
+
+    private static Element annotation(Element owner, long annotationType, String value) {
+        owner.add(new Element("annotation")).attribute("class", annotationType).attribute("value", value);
+        return owner;
+    }
+
+    private static Element describe() {
+        Element root = new Element("root");
+        Element metadata = root.add(new Element("metadata"));
+
+        type(metadata, "boolean", BOOLEAN);
+        type(metadata, "int", INT);
+        type(metadata, "long", LONG);
+        type(metadata, "java.lang.String", STRING);
+        annotationType(metadata, "jdk.jfr.Label", LABEL);
+        annotationType(metadata, "jdk.jfr.Timestamp", TIMESTAMP);
+        annotationType(metadata, "jdk.jfr.Timespan", TIMESPAN);
+
+        Element thread = type(metadata, "java.lang.Thread", THREAD);
+        field(thread, "osName", STRING);
+        field(thread, "osThreadId", LONG);
+        field(thread, "javaName", STRING);
+        field(thread, "javaThreadId", LONG);
+
+        Element clazz = type(metadata, "java.lang.Class", CLASS);
+        field(clazz, "name", STRING);
+        field(clazz, "modifiers", INT);
+
+        Element method = type(metadata, "jdk.types.Method", METHOD);
+        constantPoolField(method, "type", CLASS);
+        field(method, "name", STRING);
+        field(method, "descriptor", STRING);
+        field(method, "modifiers", INT);
+        field(method, "hidden", BOOLEAN);
+
+        Element frame = type(metadata, "jdk.types.StackFrame", STACK_FRAME);
+        constantPoolField(frame, "method", METHOD);
+        field(frame, "lineNumber", INT);
+        field(frame, "bytecodeIndex", INT);
+
+        Element stackTrace = type(metadata, "jdk.types.StackTrace", STACK_TRACE);
+        field(stackTrace, "truncated", BOOLEAN);
+        field(stackTrace, "frames", STACK_FRAME).attribute("dimension", 1);
+
+        Element gc = event(metadata, "jdk.GarbageCollection", GARBAGE_COLLECTION, "Garbage Collection", true, false);
+        field(gc, "gcId", INT);
+        field(gc, "name", STRING);
+        field(gc, "cause", STRING);
+        annotation(field(gc, "sumOfPauses", LONG), TIMESPAN, "TICKS");
+        annotation(field(gc, "longestPause", LONG), TIMESPAN, "TICKS");
+
+        Element phase = event(metadata, "jdk.GCPhasePause", GC_PHASE_PAUSE, "GC Phase Pause", true, false);
+        field(phase, "gcId", INT);
+        field(phase, "name", STRING);
+
+        Element phaseLevel1 = event(metadata, "jdk.GCPhasePauseLevel1", GC_PHASE_PAUSE_LEVEL_1, "GC Phase Pause Level 1", true, false);
+        field(phaseLevel1, "gcId", INT);
+        field(phaseLevel1, "name", STRING);
+
+        Element safepointBegin = event(metadata, "jdk.SafepointBegin", SAFEPOINT_BEGIN, "Safepoint Begin", true, true);
+        field(safepointBegin, "safepointId", LONG);
+        field(safepointBegin, "totalThreadCount", INT);
+        field(safepointBegin, "jniCriticalThreadCount", INT);
+
+        Element safepointEnd = event(metadata, "jdk.SafepointEnd", SAFEPOINT_END, "Safepoint End", true, true);
+        field(safepointEnd, "safepointId", LONG);
+
+        Element monitorEnter = event(metadata, "jdk.JavaMonitorEnter", JAVA_MONITOR_ENTER, "Java Monitor Blocked", true, true);
+        constantPoolField(monitorEnter, "monitorClass", CLASS);
+
+        Element monitorWait = event(metadata, "jdk.JavaMonitorWait", JAVA_MONITOR_WAIT, "Java Monitor Wait", true, true);
+        constantPoolField(monitorWait, "monitorClass", CLASS);
+        annotation(field(monitorWait, "timeout", LONG), TIMESPAN, "MILLISECONDS");
+
+        Element park = event(metadata, "jdk.ThreadPark", THREAD_PARK, "Java Thread Park", true, true);
+        constantPoolField(park, "parkedClass", CLASS);
+        annotation(field(park, "timeout", LONG), TIMESPAN, "NANOSECONDS");
+        annotation(field(park, "until", LONG), TIMESTAMP, "MILLISECONDS_SINCE_EPOCH");
+
+        Element sample = event(metadata, "jdk.ExecutionSample", EXECUTION_SAMPLE, "Method Profiling Sample", false, false);
+        constantPoolField(sample, "sampledThread", THREAD);
+        constantPoolField(sample, "stackTrace", STACK_TRACE);
+
+        Element region = root.add(new Element("region"));
+        region.attribute("locale", "en_US").attribute("gmtOffset", 0);
+        return root;
+    }
+
+    static void write(JfrByteStream out, long ticks) {
+        Element root = describe();
+        Map<String, Integer> pool = new LinkedHashMap<>();
+        root.collectStrings(pool);
+
+        int start = out.beginEvent(METADATA_TYPE_ID);
+        out.putLong(ticks);
+        out.putLong(0); // duration
+        out.putLong(0); // metadata id
+        out.putInt(pool.size());
+        for (String s : pool.keySet()) {
+            out.putString(s);
+        }
+        root.write(out, pool);
+        out.endEvent(start);
+    }
+}
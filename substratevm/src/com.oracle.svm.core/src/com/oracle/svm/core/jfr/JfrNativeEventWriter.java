@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.word.Pointer;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+
+/**
+ * Encodes event data into native memory using the compressed integer encoding of the JFR file
+ * format. All methods take the current write position and return the position after the written
+ * data. The caller is responsible for ensuring that enough memory is available, see
+ * {@link JfrEvents#MAX_EVENT_SIZE}.
+ */
+final class JfrNativeEventWriter {
+    /**
+     * The size of an event is written with a fixed width so that it can be patched after the
+     * event data is complete.
+     */
+    static final int PADDED_SIZE_BYTES = 4;
+
+    private JfrNativeEventWriter() {
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static Pointer beginEvent(Pointer start, long typeId) {
+        return putLong(start.add(PADDED_SIZE_BYTES), typeId);
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static void endEvent(Pointer start, Pointer end) {
+        putPaddedInt(start, (int) end.subtract(start).rawValue());
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static Pointer putBoolean(Pointer pos, boolean value) {
+        pos.writeByte(0, (byte) (value ? 1 : 0));
+        return pos.add(1);
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static Pointer putInt(Pointer pos, int value) {
+        return putLong(pos, value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a variable-length integer: the first eight bytes hold seven bits each with the high
+     * bit indicating that more bytes follow, and a ninth byte holds the remaining eight bits.
+     */
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static Pointer putLong(Pointer pos, long value) {
+        long v = value;
+        Pointer p = pos;
+        for (int i = 0; i < 8; i++) {
+            if ((v & ~0x7FL) == 0) {
+                p.writeByte(0, (byte) v);
+                return p.add(1);
+            }
+            p.writeByte(0, (byte) (v | 0x80L));
+            p = p.add(1);
+            v >>>= 7;
+        }
+        p.writeByte(0, (byte) v);
+        return p.add(1);
+    }
+
+    /** Writes a reference to an entry of the string constant pool. */
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    static Pointer putStringReference(Pointer pos, long symbolId) {
+        pos.writeByte(0, JfrChunkWriter.STRING_ENCODING_CONSTANT_POOL);
+        return putLong(pos.add(1), symbolId);
+    }
+
+    @Uninterruptible(reason = "Accesses a JFR buffer.", mayBeInlined = true)
+    private static void putPaddedInt(Pointer pos, int value) {
+        pos.writeByte(0, (byte) ((value & 0x7F) | 0x80));
+        pos.writeByte(1, (byte) (((value >>> 7) & 0x7F) | 0x80));
+        pos.writeByte(2, (byte) (((value >>> 14) & 0x7F) | 0x80));
+        pos.writeByte(3, (byte) ((value >>> 21) & 0x7F));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import org.graalvm.nativeimage.CurrentIsolate;
+import org.graalvm.nativeimage.IsolateThread;
+
+import com.oracle.svm.core.code.FrameInfoQueryResult;
+import com.oracle.svm.core.stack.JavaStackFrameVisitor;
+import com.oracle.svm.core.stack.JavaStackWalker;
+import com.oracle.svm.core.thread.JavaThreads;
+import com.oracle.svm.core.thread.JavaVMOperation;
+import com.oracle.svm.core.thread.VMThreads;
+import com.oracle.svm.core.thread.VMThreads.StatusSupport;
+
+/**
+ * Takes execution samples of all threads. Native images cannot interrupt a thread at an arbitrary
+ * instruction and walk its stack, so samples are taken at a safepoint. The samples are therefore
+ * biased towards safepoint polls, like the samples of most JVM profilers.
+ */
+final class JfrSampler {
+    private static final int MAX_DEPTH = 64;
+
+    private final JfrStackTraceRepository stackTraces;
+    private final SampleVisitor visitor;
+
+    JfrSampler(JfrStackTraceRepository stackTraces) {
+        this.stackTraces = stackTraces;
+        this.visitor = new SampleVisitor(stackTraces);
+    }
+
+    void sample(Thread recorderThread) {
+        JavaVMOperation.enqueueBlockingSafepoint("JFR execution sample", () -> sampleAtSafepoint(recorderThread));
+    }
+
+    private void sampleAtSafepoint(Thread recorderThread) {
+        long ticks = JfrEvents.ticks();
+        for (IsolateThread vmThread = VMThreads.firstThread(); vmThread.isNonNull(); vmThread = VMThreads.nextThread(vmThread)) {
+            if (vmThread == CurrentIsolate.getCurrentThread() || StatusSupport.isStatusIgnoreSafepoints(vmThread)) {
+                continue;
+            }
+            Thread thread = JavaThreads.fromVMThread(vmThread);
+            if (thread == null || thread == recorderThread) {
+                continue;
+            }
+            visitor.reset();
+            JavaStackWalker.walkThread(vmThread, visitor);
+            if (visitor.depth > 0) {
+                long stackTraceId = stackTraces.getStackTraceId(visitor.methodIds, visitor.lineNumbers, visitor.bcis, visitor.depth, visitor.truncated);
+                JfrEvents.emitExecutionSample(thread.getId(), stackTraceId, ticks);
+            }
+        }
+    }
+
+    private static final class SampleVisitor extends JavaStackFrameVisitor {
+        private final JfrStackTraceRepository stackTraces;
+        final long[] methodIds = new long[MAX_DEPTH];
+        final int[] lineNumbers = new int[MAX_DEPTH];
+        final int[] bcis = new int[MAX_DEPTH];
+        int depth;
+        boolean truncated;
+
+        SampleVisitor(JfrStackTraceRepository stackTraces) {
+            this.stackTraces = stackTraces;
+        }
+
+        void reset() {
+            depth = 0;
+            truncated = false;
+        }
+
+        @Override
+        public boolean visitFrame(FrameInfoQueryResult frameInfo) {
+            if (depth == MAX_DEPTH) {
+                truncated = true;
+                return false;
+            }
+            methodIds[depth] = stackTraces.getMethodId(frameInfo);
+            lineNumbers[depth] = frameInfo.getSourceLineNumber();
+            bcis[depth] = frameInfo.getBci();
+            depth++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.oracle.svm.core.code.FrameInfoQueryResult;
+
+/**
+ * The stack traces and methods referenced by execution samples. Only accessed by the thread that
+ * takes the samples and writes the recording, so no synchronization is necessary.
+ */
+final class JfrStackTraceRepository {
+
+    private static final class MethodEntry {
+        final long id;
+        final Class<?> clazz;
+        final String name;
+        final String descriptor;
+
+        MethodEntry(long id, Class<?> clazz, String name, String descriptor) {
+            this.id = id;
+            this.clazz = clazz;
+            this.name = name;
+            this.descriptor = descriptor;
+        }
+    }
+
+    private static final class StackTrace {
+        final long[] methodIds;
+        final int[] lineNumbers;
+        final int[] bcis;
+        final boolean truncated;
+        final int hash;
+
+        StackTrace(long[] methodIds, int[] lineNumbers, int[] bcis, boolean truncated) {
+            this.methodIds = methodIds;
+            this.lineNumbers = lineNumbers;
+            this.bcis = bcis;
+            this.truncated = truncated;
+            this.hash = Arrays.hashCode(methodIds) * 31 + Arrays.hashCode(lineNumbers);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof StackTrace)) {
+                return false;
+            }
+            StackTrace other = (StackTrace) obj;
+            return truncated == other.truncated && Arrays.equals(methodIds, other.methodIds) && Arrays.equals(lineNumbers, other.lineNumbers) && Arrays.equals(bcis, other.bcis);
+        }
+    }
+
+    private final Map<Class<?>, Map<String, MethodEntry>> methodsByClass = new HashMap<>();
+    private final List<MethodEntry> methods = new ArrayList<>();
+    private final Map<StackTrace, Long> stackTraceIds = new HashMap<>();
+    private final List<StackTrace> stackTraces = new ArrayList<>();
+
+    long getMethodId(FrameInfoQueryResult frameInfo) {
+        Class<?> clazz = frameInfo.getSourceClass();
+        String name = frameInfo.getSourceMethodName();
+        String descriptor = frameInfo.getSourceMethodSignature();
+        Map<String, MethodEntry> bySignature = methodsByClass.get(clazz);
+        if (bySignature == null) {
+            bySignature = new HashMap<>();
+            methodsByClass.put(clazz, bySignature);
+        }
+        /* A descriptor starts with '(', which is not allowed in method names. */
+        String signature = name + descriptor;
+        MethodEntry entry = bySignature.get(signature);
+        if (entry == null) {
+            entry = new MethodEntry(methods.size() + 1, clazz, name, descriptor);
+            bySignature.put(signature, entry);
+            methods.add(entry);
+        }
+        return entry.id;
+    }
+
+    long getStackTraceId(long[] methodIds, int[] lineNumbers, int[] bcis, int depth, boolean truncated) {
+        StackTrace key = new StackTrace(Arrays.copyOf(methodIds, depth), Arrays.copyOf(lineNumbers, depth), Arrays.copyOf(bcis, depth), truncated);
+        Long id = stackTraceIds.get(key);
+        if (id == null) {
+            stackTraces.add(key);
+            id = (long) stackTraces.size();
+            stackTraceIds.put(key, id);
+        }
+        return id;
+    }
+
+    void writeMethodConstants(JfrByteStream out) {
+        out.putLong(JfrMetadata.METHOD);
+        out.putInt(methods.size());
+        for (MethodEntry method : methods) {
+            out.putLong(method.id);
+            out.putLong(method.clazz == null ? JfrClassRepository.NULL_ID : JfrClassRepository.getId(method.clazz));
+            out.putString(method.name);
+            out.putString(method.descriptor);
+            /* The modifiers are not available from the frame information. */
+            out.putInt(0);
+            out.putBoolean(false);
+        }
+    }
+
+    void writeStackTraceConstants(JfrByteStream out) {
+        out.putLong(JfrMetadata.STACK_TRACE);
+        out.putInt(stackTraces.size());
+        for (int i = 0; i < stackTraces.size(); i++) {
+            StackTrace stackTrace = stackTraces.get(i);
+            out.putLong(i + 1);
+            out.putBoolean(stackTrace.truncated);
+            out.putInt(stackTrace.methodIds.length);
+            for (int j = 0; j < stackTrace.methodIds.length; j++) {
+                out.putLong(stackTrace.methodIds[j]);
+                out.putInt(stackTrace.lineNumbers[j]);
+                out.putInt(stackTrace.bcis[j]);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.graalvm.nativeimage.Platform;
+import org.graalvm.nativeimage.Platforms;
+
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.heap.GCCause;
+import com.oracle.svm.core.util.VMError;
+
+/**
+ * The strings that events refer to through the string constant pool. Events that are recorded
+ * from uninterruptible code cannot write the characters of a string, so all such strings are
+ * registered during image generation and referenced by their id. The names of {@link GCCause GC
+ * causes} are referenced by an id derived from the cause id.
+ */
+public final class JfrSymbolRepository {
+    @Platforms(Platform.HOSTED_ONLY.class) private static final List<String> hostedSymbols = new ArrayList<>();
+
+    private static final long GC_CAUSE_BASE = 1L << 32;
+
+    static final long INCREMENTAL_COLLECTION = register("Incremental GC");
+    static final long COMPLETE_COLLECTION = register("Full GC");
+
+    private static String[] symbols;
+
+    private JfrSymbolRepository() {
+    }
+
+    /** Registers a string during image generation and returns the id to use in events. */
+    @Platforms(Platform.HOSTED_ONLY.class)
+    public static long register(String value) {
+        /* Checkstyle: allow synchronization. */
+        synchronized (hostedSymbols) { /* Checkstyle: disallow synchronization. */
+            VMError.guarantee(symbols == null, "Symbols must be registered before the analysis.");
+            int index = hostedSymbols.indexOf(value);
+            if (index < 0) {
+                index = hostedSymbols.size();
+                hostedSymbols.add(value);
+            }
+            /* Id 0 is reserved for null. */
+            return index + 1;
+        }
+    }
+
+    @Platforms(Platform.HOSTED_ONLY.class)
+    static String[] freeze() {
+        /* Checkstyle: allow synchronization. */
+        synchronized (hostedSymbols) { /* Checkstyle: disallow synchronization. */
+            symbols = hostedSymbols.toArray(new String[hostedSymbols.size()]);
+            return symbols;
+        }
+    }
+
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    static long getGCCauseSymbol(int causeId) {
+        return GC_CAUSE_BASE + causeId;
+    }
+
+    static void writeConstants(JfrByteStream out) {
+        GCCause[] causes = GCCause.getGCCauses();
+        int count = symbols.length;
+        for (GCCause cause : causes) {
+            if (cause != null) {
+                count++;
+            }
+        }
+        out.putLong(JfrMetadata.STRING);
+        out.putInt(count);
+        for (int i = 0; i < symbols.length; i++) {
+            out.putLong(i + 1);
+            out.putString(symbols[i]);
+        }
+        for (GCCause cause : causes) {
+            if (cause != null) {
+                out.putLong(getGCCauseSymbol(cause.getId()));
+                out.putString(cause.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.jfr;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.graalvm.nativeimage.IsolateThread;
+
+import com.oracle.svm.core.thread.JavaThreads;
+import com.oracle.svm.core.thread.VMThreads;
+
+/**
+ * The threads that events refer to, keyed by their {@link Thread#getId() Java thread id}. Events
+ * only record the id, so the names of all live threads are captured whenever the recording is
+ * flushed. A thread that exits before the first flush after its first event appears without a
+ * name.
+ */
+final class JfrThreadRepository {
+    private final Map<Long, String> names = new HashMap<>();
+
+    /** Must be called at a safepoint so that the thread list is stable. */
+    void registerLiveThreads() {
+        for (IsolateThread vmThread = VMThreads.firstThread(); vmThread.isNonNull(); vmThread = VMThreads.nextThread(vmThread)) {
+            Thread thread = JavaThreads.fromVMThread(vmThread);
+            if (thread != null) {
+                names.put(thread.getId(), thread.getName());
+            }
+        }
+    }
+
+    void writeConstants(JfrByteStream out) {
+        out.putLong(JfrMetadata.THREAD);
+        out.putInt(names.size());
+        for (Map.Entry<Long, String> entry : names.entrySet()) {
+            out.putLong(entry.getKey());
+            out.putString(entry.getValue());
+            out.putLong(entry.getKey());
+            out.putString(entry.getValue());
+            out.putLong(entry.getKey());
+        }
+    }
+}
@@ -56,6 +56,8 @@ import com.oracle.svm.core.annotate.RestrictHeapAccess.Access;
 import com.oracle.svm.core.annotate.TargetClass;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.hub.DynamicHub;
+import com.oracle.svm.core.jfr.FlightRecorder;
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.snippets.KnownIntrinsics;
 import com.oracle.svm.core.snippets.SubstrateForeignCallTarget;
 import com.oracle.svm.core.stack.StackOverflowCheck;
@@ -231,7 +233,16 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
     @Override
     public void monitorEnter(Object obj) {
         ReentrantLock lockObject = getOrCreateMonitor(obj, true);
-        lockObject.lock();
+        if (FlightRecorder.isEnabled() && FlightRecorder.isRecording()) {
+            /* Only contended monitor enters are timed and recorded. */
+            if (!lockObject.tryLock()) {
+                long startTicks = JfrEvents.ticks();
+                lockObject.lock();
+                JfrEvents.emitJavaMonitorEnter(obj, startTicks, JfrEvents.ticks());
+            }
+        } else {
+            lockObject.lock();
+        }
     }
 
     @SubstrateForeignCallTarget(stubCallingConvention = false)
@@ -350,10 +361,17 @@ public class MultiThreadedMonitorSupport extends MonitorSupport {
          */
         ReentrantLock lock = ensureLocked(obj);
         Condition condition = getOrCreateCondition(lock, true);
-        if (timeoutMillis == 0L) {
-            condition.await();
-        } else {
-            condition.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        long startTicks = FlightRecorder.isEnabled() ? JfrEvents.ticks() : 0L;
+        try {
+            if (timeoutMillis == 0L) {
+                condition.await();
+            } else {
+                condition.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            if (FlightRecorder.isEnabled()) {
+                JfrEvents.emitJavaMonitorWait(obj, timeoutMillis, startTicks, JfrEvents.ticks());
+            }
         }
     }
 
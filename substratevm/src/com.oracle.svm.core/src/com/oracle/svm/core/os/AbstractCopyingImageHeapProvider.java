@@ -54,49 +54,62 @@ public abstract class AbstractCopyingImageHeapProvider implements ImageHeapProvi
         int imageHeapOffsetInAddressSpace = Heap.getHeap().getImageHeapOffsetInAddressSpace();
         Word imageHeapBegin = IMAGE_HEAP_BEGIN.get();
         Word imageHeapSizeInFile = IMAGE_HEAP_END.get().subtract(imageHeapBegin);
+        /*
+         * A compressed part at the beginning of the image heap is not in the image file, so the
+         * image heap symbols only describe the rest of the image heap (see CompressedImageHeap).
+         */
+        UnsignedWord decompressedSize = CompressedImageHeap.getDecompressedSize();
+        UnsignedWord imageHeapSize = imageHeapSizeInFile.add(decompressedSize);
 
         Pointer heap;
         Pointer allocatedMemory = WordFactory.nullPointer();
         if (reservedAddressSpace.isNull()) {
             assert imageHeapOffsetInAddressSpace == 0;
             UnsignedWord alignment = WordFactory.unsigned(Heap.getHeap().getPreferredAddressSpaceAlignment());
-            allocatedMemory = VirtualMemoryProvider.get().reserve(imageHeapSizeInFile, alignment);
+            allocatedMemory = VirtualMemoryProvider.get().reserve(imageHeapSize, alignment);
             if (allocatedMemory.isNull()) {
                 return CEntryPointErrors.RESERVE_ADDRESS_SPACE_FAILED;
             }
             heap = allocatedMemory;
         } else {
-            Word requiredReservedSize = imageHeapSizeInFile.add(imageHeapOffsetInAddressSpace);
+            UnsignedWord requiredReservedSize = imageHeapSize.add(imageHeapOffsetInAddressSpace);
             if (reservedSize.belowThan(requiredReservedSize)) {
                 return CEntryPointErrors.INSUFFICIENT_ADDRESS_SPACE;
             }
             heap = reservedAddressSpace.add(imageHeapOffsetInAddressSpace);
         }
 
-        heap = VirtualMemoryProvider.get().commit(heap, imageHeapSizeInFile, VirtualMemoryProvider.Access.READ | VirtualMemoryProvider.Access.WRITE);
+        heap = VirtualMemoryProvider.get().commit(heap, imageHeapSize, VirtualMemoryProvider.Access.READ | VirtualMemoryProvider.Access.WRITE);
         if (heap.isNull()) {
             freeImageHeap(allocatedMemory);
             return CEntryPointErrors.RESERVE_ADDRESS_SPACE_FAILED;
         }
 
-        int copyResult = copyMemory(imageHeapBegin, imageHeapSizeInFile, heap);
+        int copyResult = copyMemory(imageHeapBegin, imageHeapSizeInFile, heap.add(decompressedSize));
         if (copyResult != CEntryPointErrors.NO_ERROR) {
             freeImageHeap(allocatedMemory);
             return copyResult;
         }
+        if (decompressedSize.aboveThan(0)) {
+            int decompressResult = CompressedImageHeap.decompress(heap);
+            if (decompressResult != CEntryPointErrors.NO_ERROR) {
+                freeImageHeap(allocatedMemory);
+                return decompressResult;
+            }
+        }
 
         UnsignedWord pageSize = VirtualMemoryProvider.get().getGranularity();
-        UnsignedWord writableBeginPageOffset = UnsignedUtils.roundDown(IMAGE_HEAP_WRITABLE_BEGIN.get().subtract(imageHeapBegin), pageSize);
+        UnsignedWord writableBeginPageOffset = UnsignedUtils.roundDown(IMAGE_HEAP_WRITABLE_BEGIN.get().subtract(imageHeapBegin).add(decompressedSize), pageSize);
         if (writableBeginPageOffset.aboveThan(0)) {
             if (VirtualMemoryProvider.get().protect(heap, writableBeginPageOffset, VirtualMemoryProvider.Access.READ) != 0) {
                 freeImageHeap(allocatedMemory);
                 return CEntryPointErrors.PROTECT_HEAP_FAILED;
             }
         }
-        UnsignedWord writableEndPageOffset = UnsignedUtils.roundUp(IMAGE_HEAP_WRITABLE_END.get().subtract(imageHeapBegin), pageSize);
-        if (writableEndPageOffset.belowThan(imageHeapSizeInFile)) {
+        UnsignedWord writableEndPageOffset = UnsignedUtils.roundUp(IMAGE_HEAP_WRITABLE_END.get().subtract(imageHeapBegin).add(decompressedSize), pageSize);
+        if (writableEndPageOffset.belowThan(imageHeapSize)) {
             Pointer afterWritableBoundary = heap.add(writableEndPageOffset);
-            Word afterWritableSize = imageHeapSizeInFile.subtract(writableEndPageOffset);
+            UnsignedWord afterWritableSize = imageHeapSize.subtract(writableEndPageOffset);
             if (VirtualMemoryProvider.get().protect(afterWritableBoundary, afterWritableSize, VirtualMemoryProvider.Access.READ) != 0) {
                 freeImageHeap(allocatedMemory);
                 return CEntryPointErrors.PROTECT_HEAP_FAILED;
@@ -105,7 +118,7 @@ public abstract class AbstractCopyingImageHeapProvider implements ImageHeapProvi
 
         basePointer.write(heap.subtract(imageHeapOffsetInAddressSpace));
         if (endPointer.isNonNull()) {
-            endPointer.write(roundUp(heap.add(imageHeapSizeInFile), pageSize));
+            endPointer.write(roundUp(heap.add(imageHeapSize), pageSize));
         }
         return CEntryPointErrors.NO_ERROR;
     }
@@ -118,8 +131,8 @@ public abstract class AbstractCopyingImageHeapProvider implements ImageHeapProvi
     public int freeImageHeap(PointerBase imageHeap) {
         if (imageHeap.isNonNull()) {
             assert Heap.getHeap().getImageHeapOffsetInAddressSpace() == 0;
-            Word imageHeapSizeInFile = IMAGE_HEAP_END.get().subtract(IMAGE_HEAP_BEGIN.get());
-            if (VirtualMemoryProvider.get().free(imageHeap, imageHeapSizeInFile) != 0) {
+            UnsignedWord imageHeapSize = IMAGE_HEAP_END.get().subtract(IMAGE_HEAP_BEGIN.get()).add(CompressedImageHeap.getDecompressedSize());
+            if (VirtualMemoryProvider.get().free(imageHeap, imageHeapSize) != 0) {
                 return CEntryPointErrors.FREE_IMAGE_HEAP_FAILED;
             }
         }
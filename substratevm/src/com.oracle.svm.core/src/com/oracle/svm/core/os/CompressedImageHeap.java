@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.core.os;
+
+import static com.oracle.svm.core.Isolates.IMAGE_HEAP_COMPRESSED;
+
+import org.graalvm.compiler.api.replacements.Fold;
+import org.graalvm.word.Pointer;
+import org.graalvm.word.UnsignedWord;
+import org.graalvm.word.WordFactory;
+
+import com.oracle.svm.core.Isolates;
+import com.oracle.svm.core.MemoryUtil;
+import com.oracle.svm.core.SubstrateOptions;
+import com.oracle.svm.core.annotate.Uninterruptible;
+import com.oracle.svm.core.c.function.CEntryPointErrors;
+import com.oracle.svm.core.util.UnsignedUtils;
+
+/**
+ * Support for image heaps whose read-only primitive and reference partitions are stored compressed
+ * in the image file (see {@link SubstrateOptions#CompressImageHeap}).
+ *
+ * The compressed part always starts at the beginning of the image heap and ends at the (page
+ * aligned) beginning of the read-only relocatable partition, so it never contains relocations. The
+ * image heap section in the image file starts only where the compressed part ends, and the
+ * compressed data is appended to it after the end of the image heap. The image heap symbols, such
+ * as {@link Isolates#IMAGE_HEAP_BEGIN}, are defined relative to that section, so they describe only
+ * the part of the image heap that is in the file, and the image heap of an isolate starts
+ * {@link #getDecompressedSize()} bytes before the address that corresponds to
+ * {@link Isolates#IMAGE_HEAP_BEGIN}. The compressed data starts with a header:
+ *
+ * <pre>
+ *   long decompressedSize     size of the compressed part of the image heap in bytes
+ *   int  blockSize            uncompressed size of each block (the last block can be smaller)
+ *   int  blockCount
+ *   int  blockOffsets[blockCount + 1]   offsets of the blocks from the start of the header
+ * </pre>
+ *
+ * Each block is compressed independently with a simple LZ77 encoding: a sequence of a token byte
+ * whose high nibble is the number of literal bytes and whose low nibble is the match length minus
+ * {@link #MIN_MATCH}, with a nibble value of 15 meaning that further length bytes follow until a
+ * byte that is not 255, then the literal bytes, then a 2-byte little-endian match offset. The last
+ * sequence of a block consists only of literals. A block whose compressed size equals its
+ * uncompressed size is stored verbatim.
+ */
+public final class CompressedImageHeap {
+    public static final int DECOMPRESSED_SIZE_OFFSET = 0;
+    public static final int BLOCK_SIZE_OFFSET = 8;
+    public static final int BLOCK_COUNT_OFFSET = 12;
+    public static final int BLOCK_OFFSETS_OFFSET = 16;
+
+    public static final int MIN_MATCH = 4;
+    public static final int MAX_MATCH_OFFSET = 0xFFFF;
+    public static final int EXTENDED_LENGTH = 15;
+
+    private CompressedImageHeap() {
+    }
+
+    @Fold
+    public static boolean isEnabled() {
+        return SubstrateOptions.CompressImageHeap.getValue();
+    }
+
+    /**
+     * Returns the number of bytes at the beginning of the image heap that are not mapped from the
+     * image file but must be decompressed, which is zero if the image heap is not compressed.
+     */
+    @Uninterruptible(reason = "Called during isolate initialization.")
+    public static UnsignedWord getDecompressedSize() {
+        if (!isEnabled()) {
+            return WordFactory.zero();
+        }
+        return IMAGE_HEAP_COMPRESSED.get().readWord(DECOMPRESSED_SIZE_OFFSET);
+    }
+
+    /**
+     * Decompresses the compressed part of the image heap to the given address, which must be the
+     * start of committed and writable memory of at least {@link #getDecompressedSize()} bytes.
+     */
+    @Uninterruptible(reason = "Called during isolate initialization.")
+    public static int decompress(Pointer heap) {
+        if (!isEnabled()) {
+            return CEntryPointErrors.NO_ERROR;
+        }
+        Pointer compressed = IMAGE_HEAP_COMPRESSED.get();
+        UnsignedWord decompressedSize = compressed.readWord(DECOMPRESSED_SIZE_OFFSET);
+        UnsignedWord blockSize = WordFactory.unsigned(compressed.readInt(BLOCK_SIZE_OFFSET));
+        int blockCount = compressed.readInt(BLOCK_COUNT_OFFSET);
+        for (int i = 0; i < blockCount; i++) {
+            int begin = compressed.readInt(BLOCK_OFFSETS_OFFSET + i * Integer.BYTES);
+            int end = compressed.readInt(BLOCK_OFFSETS_OFFSET + (i + 1) * Integer.BYTES);
+            UnsignedWord blockOffset = blockSize.multiply(i);
+            UnsignedWord length = UnsignedUtils.min(decompressedSize.subtract(blockOffset), blockSize);
+            if (!decompressBlock(compressed.add(begin), compressed.add(end), heap.add(blockOffset), length)) {
+                return CEntryPointErrors.DECOMPRESS_IMAGE_HEAP_FAILED;
+            }
+        }
+        return CEntryPointErrors.NO_ERROR;
+    }
+
+    @Uninterruptible(reason = "Called during isolate initialization.")
+    private static boolean decompressBlock(Pointer begin, Pointer end, Pointer dest, UnsignedWord length) {
+        if (end.subtract(begin).equal(length)) {
+            MemoryUtil.copyConjointMemoryAtomic(begin, dest, length);
+            return true;
+        }
+        Pointer destEnd = dest.add(length);
+        Pointer in = begin;
+        Pointer out = dest;
+        while (in.belowThan(end)) {
+            int token = in.readByte(0) & 0xFF;
+            in = in.add(1);
+
+            UnsignedWord literals = WordFactory.unsigned(token >>> 4);
+            if (literals.equal(EXTENDED_LENGTH)) {
+                int b;
+                do {
+                    if (in.aboveOrEqual(end)) {
+                        return false;
+                    }
+                    b = in.readByte(0) & 0xFF;
+                    in = in.add(1);
+                    literals = literals.add(b);
+                } while (b == 0xFF);
+            }
+            if (in.add(literals).aboveThan(end) || out.add(literals).aboveThan(destEnd)) {
+                return false;
+            }
+            MemoryUtil.copyConjointMemoryAtomic(in, out, literals);
+            in = in.add(literals);
+            out = out.add(literals);
+            if (in.equal(end)) {
+                break;
+            }
+
+            if (in.add(2).aboveThan(end)) {
+                return false;
+            }
+            int offset = (in.readByte(0) & 0xFF) | ((in.readByte(1) & 0xFF) << 8);
+            in = in.add(2);
+            UnsignedWord matchLength = WordFactory.unsigned(token & 0xF);
+            if (matchLength.equal(EXTENDED_LENGTH)) {
+                int b;
+                do {
+                    if (in.aboveOrEqual(end)) {
+                        return false;
+                    }
+                    b = in.readByte(0) & 0xFF;
+                    in = in.add(1);
+                    matchLength = matchLength.add(b);
+                } while (b == 0xFF);
+            }
+            matchLength = matchLength.add(MIN_MATCH);
+            if (offset == 0 || out.subtract(dest).belowThan(offset) || out.add(matchLength).aboveThan(destEnd)) {
+                return false;
+            }
+            /* Matches can overlap with the bytes they produce, so copy them byte by byte. */
+            Pointer match = out.subtract(offset);
+            for (UnsignedWord i = WordFactory.zero(); i.belowThan(matchLength); i = i.add(1)) {
+                out.writeByte(i, match.readByte(i));
+            }
+            out = out.add(matchLength);
+        }
+        return out.equal(destEnd);
+    }
+}
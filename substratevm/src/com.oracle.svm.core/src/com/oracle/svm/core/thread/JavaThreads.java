@@ -63,6 +63,8 @@ import com.oracle.svm.core.jdk.StackTraceUtils;
 import com.oracle.svm.core.jdk.UninterruptibleUtils;
 import com.oracle.svm.core.jdk.UninterruptibleUtils.AtomicReference;
 import com.oracle.svm.core.jdk.management.ManagementSupport;
+import com.oracle.svm.core.jfr.FlightRecorder;
+import com.oracle.svm.core.jfr.JfrBuffers;
 import com.oracle.svm.core.locks.VMMutex;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.monitor.MonitorSupport;
@@ -184,6 +186,16 @@ public abstract class JavaThreads {
         return toTarget(thread).wasStartedByCurrentIsolate;
     }
 
+    /**
+     * Returns the {@linkplain Thread#getId() id} of the current thread, or 0 if no Java thread has
+     * been assigned to it yet.
+     */
+    @Uninterruptible(reason = "Called from uninterruptible code.", mayBeInlined = true)
+    public static long getCurrentThreadId() {
+        Thread thread = currentThread.get();
+        return thread == null ? 0 : toTarget(thread).tid;
+    }
+
     /* End of accessor functions. */
 
     public static Thread fromVMThread(IsolateThread vmThread) {
@@ -354,6 +366,10 @@ public abstract class JavaThreads {
         if (!thread.isDaemon()) {
             nonDaemonThreads.decrementAndGet();
         }
+
+        if (FlightRecorder.isEnabled()) {
+            JfrBuffers.retireThreadBuffer(vmThread);
+        }
     }
 
     /** Have each thread, except this one, tear itself down. */
@@ -52,6 +52,8 @@ import com.oracle.svm.core.annotate.StubCallingConvention;
 import com.oracle.svm.core.annotate.Uninterruptible;
 import com.oracle.svm.core.heap.Heap;
 import com.oracle.svm.core.jdk.UninterruptibleUtils;
+import com.oracle.svm.core.jfr.FlightRecorder;
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.log.Log;
 import com.oracle.svm.core.nodes.CFunctionEpilogueNode;
 import com.oracle.svm.core.nodes.CFunctionPrologueNode;
@@ -514,6 +516,9 @@ public final class Safepoint {
         /** The thread requesting a safepoint. */
         private volatile IsolateThread requestingThread;
 
+        /** A counter that identifies safepoints in flight recorder events. */
+        private long safepointId;
+
         @Platforms(Platform.HOSTED_ONLY.class)
         private Master() {
             this.safepointState = NOT_AT_SAFEPOINT;
@@ -537,6 +542,7 @@ public final class Safepoint {
                 VMThreads.THREAD_MUTEX.lock();
             }
 
+            long startTicks = FlightRecorder.isEnabled() ? JfrEvents.ticks() : 0L;
             requestingThread = CurrentIsolate.getCurrentThread();
             Statistics.reset();
             Statistics.setStartNanos();
@@ -546,6 +552,10 @@ public final class Safepoint {
             waitForSafepoints(reason);
             Statistics.setFrozenNanos();
             safepointState = AT_SAFEPOINT;
+            if (FlightRecorder.isEnabled()) {
+                safepointId++;
+                JfrEvents.emitSafepointBegin(safepointId, countThreads(), startTicks, JfrEvents.ticks());
+            }
             return lock;
         }
 
@@ -555,10 +565,14 @@ public final class Safepoint {
             assert SubstrateOptions.MultiThreaded.getValue() : "Should only thaw from a safepoint when multi-threaded.";
             assert VMOperationControl.mayExecuteVmOperations();
 
+            long startTicks = FlightRecorder.isEnabled() ? JfrEvents.ticks() : 0L;
             safepointState = NOT_AT_SAFEPOINT;
             releaseSafepoints(reason);
             ImageSingletons.lookup(Heap.class).endSafepoint();
             Statistics.setThawedNanos();
+            if (FlightRecorder.isEnabled()) {
+                JfrEvents.emitSafepointEnd(safepointId, startTicks, JfrEvents.ticks());
+            }
             requestingThread = WordFactory.nullPointer();
 
             if (unlock) {
@@ -569,6 +583,14 @@ public final class Safepoint {
             VMThreads.singleton().cleanupExitedOsThreads();
         }
 
+        private static int countThreads() {
+            int count = 0;
+            for (IsolateThread vmThread = VMThreads.firstThread(); vmThread.isNonNull(); vmThread = VMThreads.nextThread(vmThread)) {
+                count++;
+            }
+            return count;
+        }
+
         private static boolean isMyself(IsolateThread thread) {
             return thread == CurrentIsolate.getCurrentThread();
         }
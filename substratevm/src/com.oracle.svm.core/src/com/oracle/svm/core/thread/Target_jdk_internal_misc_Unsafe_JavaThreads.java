@@ -24,9 +24,13 @@
  */
 package com.oracle.svm.core.thread;
 
+import java.util.concurrent.locks.LockSupport;
+
 import com.oracle.svm.core.annotate.Substitute;
 import com.oracle.svm.core.annotate.TargetClass;
 import com.oracle.svm.core.jdk.Package_jdk_internal_misc;
+import com.oracle.svm.core.jfr.FlightRecorder;
+import com.oracle.svm.core.jfr.JfrEvents;
 import com.oracle.svm.core.util.TimeUtils;
 
 @TargetClass(classNameProvider = Package_jdk_internal_misc.class, className = "Unsafe")
@@ -43,6 +47,7 @@ final class Target_jdk_internal_misc_Unsafe_JavaThreads {
      */
     @Substitute
     private void park(boolean isAbsolute, long time) {
+        long startTicks = FlightRecorder.isEnabled() ? JfrEvents.ticks() : 0L;
         /* Decide what kind of park I am doing. */
         if (!isAbsolute && time == 0L) {
             /* Park without deadline. */
@@ -56,6 +61,9 @@ final class Target_jdk_internal_misc_Unsafe_JavaThreads {
          * Unsafe.park does not distinguish between timing out, being unparked, and being
          * interrupted, but the thread's interrupt status must be preserved.
          */
+        if (FlightRecorder.isEnabled()) {
+            JfrEvents.emitThreadPark(LockSupport.getBlocker(Thread.currentThread()), isAbsolute, time, startTicks, JfrEvents.ticks());
+        }
     }
 
     /**
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.test;
+
+import static com.oracle.svm.core.os.CompressedImageHeap.BLOCK_COUNT_OFFSET;
+import static com.oracle.svm.core.os.CompressedImageHeap.BLOCK_OFFSETS_OFFSET;
+import static com.oracle.svm.core.os.CompressedImageHeap.DECOMPRESSED_SIZE_OFFSET;
+import static com.oracle.svm.core.os.CompressedImageHeap.EXTENDED_LENGTH;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.oracle.svm.hosted.image.ImageHeapCompressor;
+
+public class ImageHeapCompressorTest {
+
+    private static final int BLOCK_SIZE = 4099;
+
+    private final Random random = new Random(42);
+
+    private static byte[] roundTrip(byte[] heap, int size, ByteOrder byteOrder) {
+        byte[] compressed = new ImageHeapCompressor(BLOCK_SIZE).compress(heap, size, byteOrder);
+        Assert.assertArrayEquals(Arrays.copyOf(heap, size), ImageHeapCompressor.decompress(compressed, byteOrder));
+        return compressed;
+    }
+
+    private static int blockCount(byte[] compressed) {
+        return ByteBuffer.wrap(compressed).order(ByteOrder.LITTLE_ENDIAN).getInt(BLOCK_COUNT_OFFSET);
+    }
+
+    private static int storedBlockSize(byte[] compressed, int block) {
+        ByteBuffer header = ByteBuffer.wrap(compressed).order(ByteOrder.LITTLE_ENDIAN);
+        return header.getInt(BLOCK_OFFSETS_OFFSET + (block + 1) * Integer.BYTES) - header.getInt(BLOCK_OFFSETS_OFFSET + block * Integer.BYTES);
+    }
+
+    @Test
+    public void incompressibleBlocksAreStoredVerbatim() {
+        byte[] heap = new byte[3 * BLOCK_SIZE];
+        random.nextBytes(heap);
+        byte[] compressed = roundTrip(heap, heap.length, ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(3, blockCount(compressed));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(BLOCK_SIZE, storedBlockSize(compressed, i));
+        }
+    }
+
+    @Test
+    public void longMatches() {
+        int[] lengths = {1, 4, 5, EXTENDED_LENGTH + 3, EXTENDED_LENGTH + 4, EXTENDED_LENGTH + 5, EXTENDED_LENGTH + 255 + 3, EXTENDED_LENGTH + 255 + 4, EXTENDED_LENGTH + 255 + 5,
+                        EXTENDED_LENGTH + 2 * 255 + 4, 3000, BLOCK_SIZE - 20};
+        for (int length : lengths) {
+            byte[] heap = new byte[BLOCK_SIZE];
+            random.nextBytes(heap);
+            Arrays.fill(heap, 10, 10 + length, (byte) 0x5A);
+            byte[] compressed = roundTrip(heap, heap.length, ByteOrder.LITTLE_ENDIAN);
+            if (length > 300) {
+                Assert.assertTrue("run of " + length + " bytes is compressed", storedBlockSize(compressed, 0) < BLOCK_SIZE);
+            }
+        }
+    }
+
+    @Test
+    public void longLiteralRuns() {
+        /* Literal runs that need several extended length bytes, followed by a match. */
+        byte[] heap = new byte[2 * BLOCK_SIZE];
+        random.nextBytes(heap);
+        Arrays.fill(heap, 600, BLOCK_SIZE, (byte) 0);
+        Arrays.fill(heap, BLOCK_SIZE + EXTENDED_LENGTH + 255, 2 * BLOCK_SIZE, (byte) 1);
+        roundTrip(heap, heap.length, ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void shortFinalBlock() {
+        byte[] heap = new byte[2 * BLOCK_SIZE + 17];
+        for (int i = 0; i < heap.length; i++) {
+            heap[i] = (byte) (i % 37);
+        }
+        byte[] compressed = roundTrip(heap, heap.length, ByteOrder.LITTLE_ENDIAN);
+        Assert.assertEquals(3, blockCount(compressed));
+        Assert.assertTrue(storedBlockSize(compressed, 2) <= 17);
+    }
+
+    @Test
+    public void onlyPrefixIsCompressed() {
+        byte[] heap = new byte[BLOCK_SIZE + 100];
+        random.nextBytes(heap);
+        byte[] compressed = roundTrip(heap, BLOCK_SIZE / 2, ByteOrder.BIG_ENDIAN);
+        Assert.assertEquals(BLOCK_SIZE / 2, ByteBuffer.wrap(compressed).order(ByteOrder.BIG_ENDIAN).getLong(DECOMPRESSED_SIZE_OFFSET));
+    }
+
+    @Test
+    public void corruptedBlockIsDetected() {
+        byte[] heap = new byte[BLOCK_SIZE];
+        Arrays.fill(heap, (byte) 7);
+        byte[] compressed = new ImageHeapCompressor(BLOCK_SIZE).compress(heap, heap.length, ByteOrder.LITTLE_ENDIAN);
+        /* Truncate the match length of the only sequence, so that the block is too short. */
+        compressed[compressed.length - 2] = 0;
+        try {
+            ImageHeapCompressor.decompress(compressed, ByteOrder.LITTLE_ENDIAN);
+            Assert.fail("corrupted block was not detected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
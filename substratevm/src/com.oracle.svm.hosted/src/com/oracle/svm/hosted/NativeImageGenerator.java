@@ -635,13 +635,15 @@ public class NativeImageGenerator {
                 try (DebugContext.Scope buildScope = debug.scope("CreateBootImage", codeCacheProvider)) {
                     try (StopTimer t = new Timer(imageName, "image").start()) {
 
-                        // Start building the model of the native image heap.
-                        heap.addInitialObjects();
-                        // Then build the model of the code cache, which can
-                        // add objects to the native image heap.
-                        codeCache.addConstantsToHeap();
-                        // Finish building the model of the native image heap.
-                        heap.addTrailingObjects();
+                        try (StopTimer ht = new Timer(imageName, "(heap)").start()) {
+                            // Start building the model of the native image heap.
+                            heap.addInitialObjects();
+                            // Then build the model of the code cache, which can
+                            // add objects to the native image heap.
+                            codeCache.addConstantsToHeap();
+                            // Finish building the model of the native image heap.
+                            heap.addTrailingObjects();
+                        }
 
                         AfterHeapLayoutAccessImpl config = new AfterHeapLayoutAccessImpl(featureHandler, loader, heap, hMetaAccess, debug);
                         featureHandler.forEachFeature(feature -> feature.afterHeapLayout(config));
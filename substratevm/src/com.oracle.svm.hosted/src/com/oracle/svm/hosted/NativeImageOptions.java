@@ -80,6 +80,9 @@ public class NativeImageOptions {
     @Option(help = "Print the sizes of the native image heap as the image is built")//
     public static final HostedOptionKey<Boolean> PrintImageHeapPartitionSizes = new HostedOptionKey<>(false);
 
+    @Option(help = "Discover the objects of the native image heap and write them to the image in parallel")//
+    public static final HostedOptionKey<Boolean> ParallelImageHeap = new HostedOptionKey<>(true);
+
     @Option(help = "Print features-specific information")//
     public static final HostedOptionKey<Boolean> PrintFeatures = new HostedOptionKey<>(false);
 
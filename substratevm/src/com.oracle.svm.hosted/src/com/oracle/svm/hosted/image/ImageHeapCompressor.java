@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.hosted.image;
+
+import static com.oracle.svm.core.os.CompressedImageHeap.BLOCK_COUNT_OFFSET;
+import static com.oracle.svm.core.os.CompressedImageHeap.BLOCK_OFFSETS_OFFSET;
+import static com.oracle.svm.core.os.CompressedImageHeap.BLOCK_SIZE_OFFSET;
+import static com.oracle.svm.core.os.CompressedImageHeap.DECOMPRESSED_SIZE_OFFSET;
+import static com.oracle.svm.core.os.CompressedImageHeap.EXTENDED_LENGTH;
+import static com.oracle.svm.core.os.CompressedImageHeap.MAX_MATCH_OFFSET;
+import static com.oracle.svm.core.os.CompressedImageHeap.MIN_MATCH;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.graalvm.compiler.core.common.NumUtil;
+
+import com.oracle.svm.core.os.CompressedImageHeap;
+
+/**
+ * Produces the compressed representation of the beginning of the image heap that is described in
+ * {@link CompressedImageHeap}.
+ */
+public final class ImageHeapCompressor {
+    private static final int HASH_BITS = 14;
+
+    private final int blockSize;
+    private final int[] hashTable = new int[1 << HASH_BITS];
+
+    public ImageHeapCompressor(int blockSize) {
+        assert blockSize > 0;
+        this.blockSize = blockSize;
+    }
+
+    /** Compresses the first {@code size} bytes of {@code heap}. */
+    public byte[] compress(byte[] heap, int size, ByteOrder byteOrder) {
+        int blockCount = (size + blockSize - 1) / blockSize;
+        int headerSize = BLOCK_OFFSETS_OFFSET + (blockCount + 1) * Integer.BYTES;
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(byteOrder);
+        header.putLong(DECOMPRESSED_SIZE_OFFSET, size);
+        header.putInt(BLOCK_SIZE_OFFSET, blockSize);
+        header.putInt(BLOCK_COUNT_OFFSET, blockCount);
+
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        for (int i = 0; i < blockCount; i++) {
+            header.putInt(BLOCK_OFFSETS_OFFSET + i * Integer.BYTES, NumUtil.safeToInt(headerSize + blocks.size()));
+            int begin = i * blockSize;
+            int end = Math.min(begin + blockSize, size);
+            byte[] block = compressBlock(heap, begin, end);
+            if (block.length < end - begin) {
+                blocks.write(block, 0, block.length);
+            } else {
+                blocks.write(heap, begin, end - begin);
+            }
+        }
+        header.putInt(BLOCK_OFFSETS_OFFSET + blockCount * Integer.BYTES, NumUtil.safeToInt(headerSize + blocks.size()));
+
+        byte[] result = Arrays.copyOf(header.array(), headerSize + blocks.size());
+        System.arraycopy(blocks.toByteArray(), 0, result, headerSize, blocks.size());
+        return result;
+    }
+
+    /**
+     * Decompresses data that was produced by {@link #compress}. This does the same as
+     * {@link CompressedImageHeap#decompress} on byte arrays, so that the encoding can be verified
+     * at image build time. Malformed data results in an {@link IllegalArgumentException}.
+     */
+    public static byte[] decompress(byte[] compressed, ByteOrder byteOrder) {
+        ByteBuffer header = ByteBuffer.wrap(compressed).order(byteOrder);
+        int size = NumUtil.safeToInt(header.getLong(DECOMPRESSED_SIZE_OFFSET));
+        int blockSize = header.getInt(BLOCK_SIZE_OFFSET);
+        int blockCount = header.getInt(BLOCK_COUNT_OFFSET);
+        byte[] result = new byte[size];
+        for (int i = 0; i < blockCount; i++) {
+            int begin = header.getInt(BLOCK_OFFSETS_OFFSET + i * Integer.BYTES);
+            int end = header.getInt(BLOCK_OFFSETS_OFFSET + (i + 1) * Integer.BYTES);
+            int blockOffset = i * blockSize;
+            decompressBlock(compressed, begin, end, result, blockOffset, Math.min(size - blockOffset, blockSize));
+        }
+        return result;
+    }
+
+    private static void decompressBlock(byte[] src, int begin, int end, byte[] dest, int destBegin, int length) {
+        if (end - begin == length) {
+            System.arraycopy(src, begin, dest, destBegin, length);
+            return;
+        }
+        int destEnd = destBegin + length;
+        int in = begin;
+        int out = destBegin;
+        while (in < end) {
+            int token = src[in++] & 0xFF;
+
+            int literals = token >>> 4;
+            if (literals == EXTENDED_LENGTH) {
+                int b;
+                do {
+                    check(in < end);
+                    b = src[in++] & 0xFF;
+                    literals += b;
+                } while (b == 0xFF);
+            }
+            check(in + literals <= end && out + literals <= destEnd);
+            System.arraycopy(src, in, dest, out, literals);
+            in += literals;
+            out += literals;
+            if (in == end) {
+                break;
+            }
+
+            check(in + 2 <= end);
+            int offset = (src[in] & 0xFF) | (src[in + 1] & 0xFF) << 8;
+            in += 2;
+            int matchLength = token & 0xF;
+            if (matchLength == EXTENDED_LENGTH) {
+                int b;
+                do {
+                    check(in < end);
+                    b = src[in++] & 0xFF;
+                    matchLength += b;
+                } while (b == 0xFF);
+            }
+            matchLength += MIN_MATCH;
+            check(offset != 0 && out - destBegin >= offset && out + matchLength <= destEnd);
+            /* Matches can overlap with the bytes they produce, so copy them byte by byte. */
+            for (int i = 0; i < matchLength; i++) {
+                dest[out + i] = dest[out - offset + i];
+            }
+            out += matchLength;
+        }
+        check(out == destEnd);
+    }
+
+    private static void check(boolean condition) {
+        if (!condition) {
+            throw new IllegalArgumentException("Malformed compressed image heap block");
+        }
+    }
+
+    private byte[] compressBlock(byte[] src, int begin, int end) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Arrays.fill(hashTable, -1);
+        int anchor = begin;
+        int pos = begin;
+        while (pos <= end - MIN_MATCH) {
+            int sequence = readInt(src, pos);
+            int hash = (sequence * 0x9E3779B1) >>> (Integer.SIZE - HASH_BITS);
+            int candidate = hashTable[hash];
+            hashTable[hash] = pos;
+            if (candidate >= begin && pos - candidate <= MAX_MATCH_OFFSET && readInt(src, candidate) == sequence) {
+                int length = MIN_MATCH;
+                while (pos + length < end && src[candidate + length] == src[pos + length]) {
+                    length++;
+                }
+                writeSequence(out, src, anchor, pos - anchor, pos - candidate, length);
+                pos += length;
+                anchor = pos;
+            } else {
+                pos++;
+            }
+        }
+        writeLastLiterals(out, src, anchor, end - anchor);
+        return out.toByteArray();
+    }
+
+    private static int readInt(byte[] src, int pos) {
+        return (src[pos] & 0xFF) | (src[pos + 1] & 0xFF) << 8 | (src[pos + 2] & 0xFF) << 16 | (src[pos + 3] & 0xFF) << 24;
+    }
+
+    private static void writeSequence(ByteArrayOutputStream out, byte[] src, int literalsBegin, int literals, int offset, int matchLength) {
+        int extraMatchLength = matchLength - MIN_MATCH;
+        out.write(Math.min(literals, EXTENDED_LENGTH) << 4 | Math.min(extraMatchLength, EXTENDED_LENGTH));
+        writeExtendedLength(out, literals);
+        out.write(src, literalsBegin, literals);
+        out.write(offset & 0xFF);
+        out.write(offset >>> 8);
+        writeExtendedLength(out, extraMatchLength);
+    }
+
+    private static void writeLastLiterals(ByteArrayOutputStream out, byte[] src, int literalsBegin, int literals) {
+        out.write(Math.min(literals, EXTENDED_LENGTH) << 4);
+        writeExtendedLength(out, literals);
+        out.write(src, literalsBegin, literals);
+    }
+
+    private static void writeExtendedLength(ByteArrayOutputStream out, int length) {
+        if (length >= EXTENDED_LENGTH) {
+            int remaining = length - EXTENDED_LENGTH;
+            while (remaining >= 0xFF) {
+                out.write(0xFF);
+                remaining -= 0xFF;
+            }
+            out.write(remaining);
+        }
+    }
+}
@@ -61,6 +61,8 @@ import org.graalvm.nativeimage.c.function.CFunctionPointer;
 
 import com.oracle.graal.pointsto.meta.AnalysisMethod;
 import com.oracle.graal.pointsto.meta.AnalysisType;
+import com.oracle.graal.pointsto.util.Timer;
+import com.oracle.graal.pointsto.util.Timer.StopTimer;
 import com.oracle.objectfile.BasicProgbitsSectionImpl;
 import com.oracle.objectfile.BuildDependency;
 import com.oracle.objectfile.LayoutDecision;
@@ -92,7 +94,9 @@ import com.oracle.svm.core.image.ImageHeapLayoutInfo;
 import com.oracle.svm.core.image.ImageHeapPartition;
 import com.oracle.svm.core.meta.SubstrateObjectConstant;
 import com.oracle.svm.core.option.HostedOptionValues;
+import com.oracle.svm.core.option.SubstrateOptionsParser;
 import com.oracle.svm.core.util.UserError;
+import com.oracle.svm.core.util.VMError;
 import com.oracle.svm.hosted.NativeImageOptions;
 import com.oracle.svm.hosted.c.CGlobalDataFeature;
 import com.oracle.svm.hosted.c.GraalAccess;
@@ -133,6 +137,8 @@ public abstract class NativeBootImage extends AbstractBootImage {
     private Section roDataSection;
     private Section rwDataSection;
     private Section heapSection;
+    /** The offset in the image heap at which the heap section starts, see CompressedImageHeap. */
+    private int heapSectionOffset;
 
     public NativeBootImage(NativeImageKind k, HostedUniverse universe, HostedMetaAccess metaAccess, NativeLibraries nativeLibs, NativeImageHeap heap, NativeImageCodeCache codeCache,
                     List<HostedMethod> entryPoints, ClassLoader imageClassLoader) {
@@ -466,26 +472,46 @@ public abstract class NativeBootImage extends AbstractBootImage {
             // boundaries, so we take care of this ourselves in CommittedMemoryProvider, if we can.
             int alignment = objectFile.getPageSize();
             RelocatableBuffer heapSectionBuffer = new RelocatableBuffer(heapLayout.getImageHeapSize(), objectFile.getByteOrder());
-            ProgbitsSectionImpl heapSectionImpl = new BasicProgbitsSectionImpl(heapSectionBuffer.getBackingArray());
-            heapSection = objectFile.newProgbitsSection(SectionName.SVM_HEAP.getFormatDependentName(objectFile.getFormat()), alignment, writable, false, heapSectionImpl);
-            objectFile.createDefinedSymbol(heapSection.getName(), heapSection, 0, 0, false, false);
 
-            long offsetOfARelocatablePointer = writer.writeHeap(debug, heapSectionBuffer);
+            long offsetOfARelocatablePointer;
+            try (StopTimer t = new Timer(universe.getBigBang().getHostVM().getImageName(), "(heap write)").start()) {
+                offsetOfARelocatablePointer = writer.writeHeap(debug, heapSectionBuffer);
+            }
             assert !SubstrateOptions.SpawnIsolates.getValue() || heapSectionBuffer.getByteBuffer().getLong((int) offsetOfARelocatablePointer) == 0L;
 
+            // - With a compressed image heap, the section starts after the compressed part of the
+            // image heap, and the compressed data is appended to the section (see
+            // CompressedImageHeap). All heap symbols are then defined relative to the start of the
+            // section, so the begin symbol marks the part of the image heap that is in the file.
+            byte[] heapSectionContent = heapSectionBuffer.getBackingArray();
+            heapSectionOffset = 0;
+            if (SubstrateOptions.CompressImageHeap.getValue()) {
+                heapSectionOffset = NumUtil.safeToInt(heapLayout.getReadOnlyRelocatableOffset());
+                try (StopTimer t = new Timer(universe.getBigBang().getHostVM().getImageName(), "(heap compress)").start()) {
+                    heapSectionContent = compressImageHeap(heapSectionBuffer, heapLayout);
+                }
+            }
+            ProgbitsSectionImpl heapSectionImpl = new BasicProgbitsSectionImpl(heapSectionContent);
+            heapSection = objectFile.newProgbitsSection(SectionName.SVM_HEAP.getFormatDependentName(objectFile.getFormat()), alignment, writable, false, heapSectionImpl);
+            objectFile.createDefinedSymbol(heapSection.getName(), heapSection, 0, 0, false, false);
+
             defineDataSymbol(Isolates.IMAGE_HEAP_BEGIN_SYMBOL_NAME, heapSection, 0);
-            defineDataSymbol(Isolates.IMAGE_HEAP_END_SYMBOL_NAME, heapSection, heapLayout.getImageHeapSize());
-            defineDataSymbol(Isolates.IMAGE_HEAP_RELOCATABLE_BEGIN_SYMBOL_NAME, heapSection, heapLayout.getReadOnlyRelocatableOffset());
-            defineDataSymbol(Isolates.IMAGE_HEAP_RELOCATABLE_END_SYMBOL_NAME, heapSection, heapLayout.getReadOnlyRelocatableOffset() + heapLayout.getReadOnlyRelocatableSize());
-            defineDataSymbol(Isolates.IMAGE_HEAP_A_RELOCATABLE_POINTER_SYMBOL_NAME, heapSection, offsetOfARelocatablePointer);
-            defineDataSymbol(Isolates.IMAGE_HEAP_WRITABLE_BEGIN_SYMBOL_NAME, heapSection, heapLayout.getWritableOffset());
-            defineDataSymbol(Isolates.IMAGE_HEAP_WRITABLE_END_SYMBOL_NAME, heapSection, heapLayout.getWritableOffset() + heapLayout.getWritableSize());
+            defineDataSymbol(Isolates.IMAGE_HEAP_END_SYMBOL_NAME, heapSection, heapLayout.getImageHeapSize() - heapSectionOffset);
+            defineDataSymbol(Isolates.IMAGE_HEAP_RELOCATABLE_BEGIN_SYMBOL_NAME, heapSection, heapLayout.getReadOnlyRelocatableOffset() - heapSectionOffset);
+            defineDataSymbol(Isolates.IMAGE_HEAP_RELOCATABLE_END_SYMBOL_NAME, heapSection,
+                            heapLayout.getReadOnlyRelocatableOffset() + heapLayout.getReadOnlyRelocatableSize() - heapSectionOffset);
+            defineDataSymbol(Isolates.IMAGE_HEAP_A_RELOCATABLE_POINTER_SYMBOL_NAME, heapSection, offsetOfARelocatablePointer - heapSectionOffset);
+            defineDataSymbol(Isolates.IMAGE_HEAP_WRITABLE_BEGIN_SYMBOL_NAME, heapSection, heapLayout.getWritableOffset() - heapSectionOffset);
+            defineDataSymbol(Isolates.IMAGE_HEAP_WRITABLE_END_SYMBOL_NAME, heapSection, heapLayout.getWritableOffset() + heapLayout.getWritableSize() - heapSectionOffset);
+            if (SubstrateOptions.CompressImageHeap.getValue()) {
+                defineDataSymbol(Isolates.IMAGE_HEAP_COMPRESSED_SYMBOL_NAME, heapSection, heapLayout.getImageHeapSize() - heapSectionOffset);
+            }
 
             // Mark the sections with the relocations from the maps.
             markRelocationSitesFromBuffer(textBuffer, textImpl);
             markRelocationSitesFromBuffer(roDataBuffer, roDataImpl);
             markRelocationSitesFromBuffer(rwDataBuffer, rwDataImpl);
-            markRelocationSitesFromBuffer(heapSectionBuffer, heapSectionImpl);
+            markRelocationSitesFromBuffer(heapSectionBuffer, heapSectionImpl, heapSectionOffset);
 
             // We print the heap statistics after the heap was successfully written because this
             // could modify objects that will be part of the image heap.
@@ -527,10 +553,37 @@ public abstract class NativeBootImage extends AbstractBootImage {
         return deduplicated.size() != heap.getObjectCount();
     }
 
+    private byte[] compressImageHeap(RelocatableBuffer heapSectionBuffer, ImageHeapLayoutInfo heapLayout) {
+        UserError.guarantee(SubstrateOptions.SpawnIsolates.getValue(), "Compressing the image heap requires isolate support. Use %s or %s.",
+                        SubstrateOptionsParser.commandArgument(SubstrateOptions.SpawnIsolates, "+"), SubstrateOptionsParser.commandArgument(SubstrateOptions.CompressImageHeap, "-"));
+        int compressedSize = heapSectionOffset;
+        int mappedSize = NumUtil.safeToInt(heapLayout.getImageHeapSize()) - compressedSize;
+        ImageHeapCompressor compressor = new ImageHeapCompressor(SubstrateOptions.CompressImageHeapBlockSize.getValue());
+        byte[] compressed = compressor.compress(heapSectionBuffer.getBackingArray(), compressedSize, objectFile.getByteOrder());
+        assert Arrays.equals(ImageHeapCompressor.decompress(compressed, objectFile.getByteOrder()), Arrays.copyOf(heapSectionBuffer.getBackingArray(), compressedSize));
+
+        byte[] content = new byte[mappedSize + compressed.length];
+        System.arraycopy(heapSectionBuffer.getBackingArray(), compressedSize, content, 0, mappedSize);
+        System.arraycopy(compressed, 0, content, mappedSize, compressed.length);
+        if (NativeImageOptions.PrintImageHeapPartitionSizes.getValue()) {
+            System.out.printf("PrintImageHeapPartitionSizes:  compressed: %d bytes in %d bytes%n", compressedSize, compressed.length);
+        }
+        return content;
+    }
+
     private void markRelocationSitesFromBuffer(RelocatableBuffer buffer, ProgbitsSectionImpl sectionImpl) {
+        markRelocationSitesFromBuffer(buffer, sectionImpl, 0);
+    }
+
+    /**
+     * Marks the relocation sites of a buffer whose contents start at {@code bufferOffset} in the
+     * buffer, which is non-zero only for a compressed image heap.
+     */
+    private void markRelocationSitesFromBuffer(RelocatableBuffer buffer, ProgbitsSectionImpl sectionImpl, int bufferOffset) {
         for (Map.Entry<Integer, RelocatableBuffer.Info> entry : buffer.getSortedRelocations()) {
-            final int offset = entry.getKey();
+            final int offset = entry.getKey() - bufferOffset;
             final RelocatableBuffer.Info info = entry.getValue();
+            VMError.guarantee(offset >= 0, "Relocation in compressed part of the image heap");
 
             assert GraalAccess.getOriginalTarget().arch instanceof AArch64 || checkEmbeddedOffset(sectionImpl, offset, info);
 
@@ -589,7 +642,7 @@ public abstract class NativeBootImage extends AbstractBootImage {
         assert info.getRelocationSize() == 4 || info.getRelocationSize() == 8 : "Data relocation size should be 4 or 8 bytes.";
         assert targetObjectInfo != null;
         String targetSectionName = heapSection.getName();
-        long address = targetObjectInfo.getAddress();
+        long address = targetObjectInfo.getAddress() - heapSectionOffset;
         long relocationInfoAddend = info.hasExplicitAddend() ? info.getExplicitAddend() : 0L;
         long relocationAddend = address + relocationInfoAddend;
         sectionImpl.markRelocationSite(offset, info.getRelocationSize(), info.getRelocationKind(), targetSectionName, false, relocationAddend);
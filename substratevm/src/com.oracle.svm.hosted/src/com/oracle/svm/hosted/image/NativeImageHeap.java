@@ -29,20 +29,26 @@ import static com.oracle.svm.core.util.VMError.shouldNotReachHere;
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.graalvm.compiler.api.replacements.Fold;
 import org.graalvm.compiler.core.common.CompressEncoding;
 import org.graalvm.compiler.core.common.NumUtil;
 import org.graalvm.compiler.core.common.SuppressFBWarnings;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.debug.DebugHandlersFactory;
+import org.graalvm.compiler.options.OptionValues;
 import org.graalvm.nativeimage.ImageSingletons;
 import org.graalvm.nativeimage.c.function.RelocatedPointer;
 import org.graalvm.word.UnsignedWord;
@@ -50,6 +56,8 @@ import org.graalvm.word.WordBase;
 
 import com.oracle.graal.pointsto.meta.AnalysisUniverse;
 import com.oracle.graal.pointsto.util.AnalysisError;
+import com.oracle.graal.pointsto.util.CompletionExecutor;
+import com.oracle.graal.pointsto.util.CompletionExecutor.DebugContextRunnable;
 import com.oracle.svm.core.StaticFieldsSupport;
 import com.oracle.svm.core.SubstrateOptions;
 import com.oracle.svm.core.config.ConfigurationValues;
@@ -65,10 +73,11 @@ import com.oracle.svm.core.image.ImageHeapPartition;
 import com.oracle.svm.core.jdk.StringInternSupport;
 import com.oracle.svm.core.meta.SubstrateObjectConstant;
 import com.oracle.svm.core.util.HostedStringDeduplication;
+import com.oracle.svm.core.util.InterruptImageBuilding;
 import com.oracle.svm.core.util.UserError;
 import com.oracle.svm.core.util.VMError;
+import com.oracle.svm.hosted.NativeImageOptions;
 import com.oracle.svm.hosted.config.HybridLayout;
-import com.oracle.svm.hosted.meta.HostedArrayClass;
 import com.oracle.svm.hosted.meta.HostedClass;
 import com.oracle.svm.hosted.meta.HostedField;
 import com.oracle.svm.hosted.meta.HostedInstanceClass;
@@ -106,7 +115,7 @@ public final class NativeImageHeap implements ImageHeap {
     private final Set<Object> blacklist = Collections.newSetFromMap(new IdentityHashMap<>());
 
     /** A map from hosted classes to classes that have hybrid layouts in the native image heap. */
-    private final Map<HostedClass, HybridLayout<?>> hybridLayouts = new HashMap<>();
+    private final Map<HostedClass, HybridLayout<?>> hybridLayouts = new ConcurrentHashMap<>();
 
     /** A Map to build what will be the String intern map in the native image heap. */
     private final Map<String, String> internedStrings = new HashMap<>();
@@ -115,6 +124,15 @@ public final class NativeImageHeap implements ImageHeap {
     private final Phase addObjectsPhase = Phase.factory();
     private final Phase internStringsPhase = Phase.factory();
 
+    /** The number of objects that a single task scans when the image heap is built in parallel. */
+    private static final int PARALLEL_SCAN_BATCH_SIZE = 1024;
+
+    /**
+     * The maximum number of objects that are scanned ahead of the worklist, which bounds the memory
+     * that is used for the results of the parallel scan.
+     */
+    private static final int SCAN_AHEAD_LIMIT = 256 * PARALLEL_SCAN_BATCH_SIZE;
+
     /** A queue of objects that need to be added to the native image heap, to avoid recursion. */
     private final Deque<AddObjectData> addObjectWorklist = new ArrayDeque<>();
 
@@ -262,6 +280,10 @@ public final class NativeImageHeap implements ImageHeap {
      * Not every object is added to the heap, for various reasons.
      */
     public void addObject(final Object original, boolean immutableFromParent, final Object reason) {
+        addObject(original, immutableFromParent, reason, null);
+    }
+
+    private void addObject(final Object original, boolean immutableFromParent, final Object reason, ScannedObject scanned) {
         assert addObjectsPhase.isAllowed() : "Objects cannot be added at phase: " + addObjectsPhase.toString() + " with reason: " + reason;
 
         if (original == null || original instanceof WordBase) {
@@ -302,7 +324,7 @@ public final class NativeImageHeap implements ImageHeap {
 
         final ObjectInfo existing = objects.get(original);
         if (existing == null) {
-            addObjectToBootImageHeap(original, immutableFromParent, identityHashCode, reason);
+            addObjectToBootImageHeap(original, immutableFromParent, identityHashCode, reason, scanned);
         }
     }
 
@@ -361,69 +383,85 @@ public final class NativeImageHeap implements ImageHeap {
      * This is the mechanics of recursively adding the object and all its fields and array elements
      * to the model of the native image heap.
      */
-    private void addObjectToBootImageHeap(final Object object, boolean immutableFromParent, final int identityHashCode, final Object reason) {
-
-        final Optional<HostedType> optionalType = getMetaAccess().optionalLookupJavaType(object.getClass());
-        final HostedType type = requireType(optionalType, object, reason);
+    private void addObjectToBootImageHeap(final Object object, boolean immutableFromParent, final int identityHashCode, final Object reason, ScannedObject scanned) {
+        final ScannedObject scan = (scanned != null) ? scanned : scanObject(object);
+        final HostedType type = requireType(scan.optionalType, object, reason);
         final DynamicHub hub = type.getHub();
-        final ObjectInfo info;
 
         boolean immutable = immutableFromParent || isKnownImmutable(object);
-        boolean written = false;
-        boolean references = false;
-        boolean relocatable = false; /* always false when !spawnIsolates() */
+        if (scan.hybridBitSet != null) {
+            blacklist.add(scan.hybridBitSet);
+        }
+        if (scan.hybridArray != null) {
+            blacklist.add(scan.hybridArray);
+        }
 
-        if (type.isInstanceClass()) {
-            final HostedInstanceClass clazz = (HostedInstanceClass) type;
-            // If the type has a monitor field, it has a reference field that is written.
-            if (clazz.getMonitorFieldOffset() != 0) {
-                written = true;
-                references = true;
-                // also not immutable: users of registerAsImmutable() must take precautions
-            }
+        final ObjectInfo info = addToImageHeap(object, (HostedClass) type, scan.size, identityHashCode, reason);
+        if (scan.missingType != null) {
+            throw reportIllegalType(scan.missingType, info);
+        }
+        recursiveAddObject(hub, false, info);
+        for (Object reference : scan.references) {
+            recursiveAddObject(reference, scan.referencesAreImmutable, info);
+        }
+
+        if (scan.relocatable && !isKnownImmutable(object)) {
+            VMError.shouldNotReachHere("Object with relocatable pointers must be explicitly immutable: " + object);
+        }
+        heapLayouter.assignObjectToPartition(info, !scan.written || immutable, scan.hasReferences, scan.relocatable);
+    }
 
-            final JavaConstant con = SubstrateObjectConstant.forObject(object);
-            HostedField hybridBitsetField = null;
-            HostedField hybridArrayField = null;
-            Object hybridArray = null;
-            final long size;
-
-            if (HybridLayout.isHybrid(clazz)) {
-                HybridLayout<?> hybridLayout = hybridLayouts.get(clazz);
-                if (hybridLayout == null) {
-                    hybridLayout = new HybridLayout<>(clazz, objectLayout);
-                    hybridLayouts.put(clazz, hybridLayout);
+    /**
+     * Reads the fields or array elements of an object that is added to the image heap. This only
+     * reads from the hosted object and does not modify the model of the image heap, so it can be
+     * done for many objects concurrently.
+     */
+    private ScannedObject scanObject(final Object object) {
+        final ScannedObject scan = new ScannedObject(getMetaAccess().optionalLookupJavaType(object.getClass()));
+        if (!scan.optionalType.isPresent() || !scan.optionalType.get().isInstantiated()) {
+            return scan;
+        }
+        final HostedType type = scan.optionalType.get();
+
+        try {
+            if (type.isInstanceClass()) {
+                final HostedInstanceClass clazz = (HostedInstanceClass) type;
+                // If the type has a monitor field, it has a reference field that is written.
+                if (clazz.getMonitorFieldOffset() != 0) {
+                    scan.written = true;
+                    scan.hasReferences = true;
+                    // also not immutable: users of registerAsImmutable() must take precautions
                 }
 
-                /*
-                 * The hybrid array and bit set are written within the hybrid object. So they may
-                 * not be written as separate objects. We use the blacklist to check that.
-                 */
-                hybridBitsetField = hybridLayout.getBitsetField();
-                if (hybridBitsetField != null) {
-                    Object bitSet = readObjectField(hybridBitsetField, con);
-                    if (bitSet != null) {
-                        blacklist.add(bitSet);
+                final JavaConstant con = SubstrateObjectConstant.forObject(object);
+                HostedField hybridBitsetField = null;
+                HostedField hybridArrayField = null;
+
+                if (HybridLayout.isHybrid(clazz)) {
+                    HybridLayout<?> hybridLayout = hybridLayouts.computeIfAbsent(clazz, c -> new HybridLayout<>(clazz, objectLayout));
+
+                    /*
+                     * The hybrid array and bit set are written within the hybrid object. So they
+                     * may not be written as separate objects. We use the blacklist to check that.
+                     */
+                    hybridBitsetField = hybridLayout.getBitsetField();
+                    if (hybridBitsetField != null) {
+                        scan.hybridBitSet = readObjectField(hybridBitsetField, con);
                     }
-                }
 
-                hybridArrayField = hybridLayout.getArrayField();
-                hybridArray = readObjectField(hybridArrayField, con);
-                if (hybridArray != null) {
-                    blacklist.add(hybridArray);
-                    written = true;
-                }
+                    hybridArrayField = hybridLayout.getArrayField();
+                    scan.hybridArray = readObjectField(hybridArrayField, con);
+                    if (scan.hybridArray != null) {
+                        scan.written = true;
+                    }
 
-                size = hybridLayout.getTotalSize(Array.getLength(hybridArray));
-            } else {
-                size = LayoutEncoding.getInstanceSize(hub.getLayoutEncoding()).rawValue();
-            }
+                    scan.size = hybridLayout.getTotalSize(Array.getLength(scan.hybridArray));
+                } else {
+                    scan.size = LayoutEncoding.getInstanceSize(clazz.getHub().getLayoutEncoding()).rawValue();
+                }
 
-            info = addToImageHeap(object, clazz, size, identityHashCode, reason);
-            try {
-                recursiveAddObject(hub, false, info);
                 // Recursively add all the fields of the object.
-                final boolean fieldsAreImmutable = object instanceof String;
+                scan.referencesAreImmutable = object instanceof String;
                 for (HostedField field : clazz.getInstanceFields(true)) {
                     if (field.isAccessed() && !field.equals(hybridArrayField) && !field.equals(hybridBitsetField)) {
                         boolean fieldRelocatable = false;
@@ -435,8 +473,8 @@ public final class NativeImageHeap implements ImageHeap {
                                 if (spawnIsolates()) {
                                     fieldRelocatable = fieldValue instanceof RelocatedPointer;
                                 }
-                                recursiveAddObject(fieldValue, fieldsAreImmutable, info);
-                                references = true;
+                                scan.addReference(fieldValue);
+                                scan.hasReferences = true;
                             }
                         }
                         /*
@@ -444,42 +482,31 @@ public final class NativeImageHeap implements ImageHeap {
                          * eventual value is assigned at runtime by the dynamic linker and it cannot
                          * be inlined. Relocatable pointers are read-only for our purposes, however.
                          */
-                        relocatable = relocatable || fieldRelocatable;
-                        written = written || (field.isWritten() && !field.isFinal() && !fieldRelocatable);
+                        scan.relocatable = scan.relocatable || fieldRelocatable;
+                        scan.written = scan.written || (field.isWritten() && !field.isFinal() && !fieldRelocatable);
                     }
 
                 }
-                if (hybridArray instanceof Object[]) {
-                    relocatable = addArrayElements((Object[]) hybridArray, relocatable, info);
-                    references = true;
+                if (scan.hybridArray instanceof Object[]) {
+                    addArrayElements((Object[]) scan.hybridArray, scan);
+                    scan.hasReferences = true;
                 }
-            } catch (AnalysisError.TypeNotFoundError ex) {
-                throw reportIllegalType(ex.getType(), info);
-            }
 
-        } else if (type.isArray()) {
-            HostedArrayClass clazz = (HostedArrayClass) type;
-            final long size = objectLayout.getArraySize(type.getComponentType().getStorageKind(), Array.getLength(object));
-            info = addToImageHeap(object, clazz, size, identityHashCode, reason);
-            try {
-                recursiveAddObject(hub, false, info);
+            } else if (type.isArray()) {
+                scan.size = objectLayout.getArraySize(type.getComponentType().getStorageKind(), Array.getLength(object));
                 if (object instanceof Object[]) {
-                    relocatable = addArrayElements((Object[]) object, false, info);
-                    references = true;
+                    addArrayElements((Object[]) object, scan);
+                    scan.hasReferences = true;
                 }
-                written = true; /* How to know if any of the array elements are written? */
-            } catch (AnalysisError.TypeNotFoundError ex) {
-                throw reportIllegalType(ex.getType(), info);
-            }
-
-        } else {
-            throw shouldNotReachHere();
-        }
+                scan.written = true; /* How to know if any of the array elements are written? */
 
-        if (relocatable && !isKnownImmutable(object)) {
-            VMError.shouldNotReachHere("Object with relocatable pointers must be explicitly immutable: " + object);
+            } else {
+                throw shouldNotReachHere();
+            }
+        } catch (AnalysisError.TypeNotFoundError ex) {
+            scan.missingType = ex.getType();
         }
-        heapLayouter.assignObjectToPartition(info, !written || immutable, references, relocatable);
+        return scan;
     }
 
     private static HostedType requireType(Optional<HostedType> optionalType, Object object, Object reason) {
@@ -564,16 +591,14 @@ public final class NativeImageHeap implements ImageHeap {
     }
 
     // Deep-copy an array from the host heap to the model of the native image heap.
-    private boolean addArrayElements(Object[] array, boolean otherFieldsRelocatable, Object reason) {
-        boolean relocatable = otherFieldsRelocatable;
+    private void addArrayElements(Object[] array, ScannedObject scan) {
         for (Object element : array) {
             Object value = aUniverse.replaceObject(element);
             if (spawnIsolates()) {
-                relocatable = relocatable || value instanceof RelocatedPointer;
+                scan.relocatable = scan.relocatable || value instanceof RelocatedPointer;
             }
-            recursiveAddObject(value, false, reason);
+            scan.addReference(value);
         }
-        return relocatable;
     }
 
     /*
@@ -587,9 +612,139 @@ public final class NativeImageHeap implements ImageHeap {
     }
 
     private void processAddObjectWorklist() {
+        Map<Object, ScannedObject> scans = NativeImageOptions.ParallelImageHeap.getValue() ? new IdentityHashMap<>() : null;
         while (!addObjectWorklist.isEmpty()) {
             AddObjectData data = addObjectWorklist.pop();
-            addObject(data.original, data.immutableFromParent, data.reason);
+            ScannedObject scanned = null;
+            if (scans != null) {
+                if (needsScan(data.original, scans)) {
+                    scanAheadInParallel(data.original, scans);
+                }
+                scanned = scans.remove(data.original);
+            }
+            addObject(data.original, data.immutableFromParent, data.reason, scanned);
+        }
+    }
+
+    /**
+     * {@linkplain #scanObject Scans} the objects that are reachable from the given object and the
+     * top of the worklist, in waves: the objects of a wave are scanned concurrently, and the
+     * objects they reference form the next wave. At most {@link #SCAN_AHEAD_LIMIT} scanned objects
+     * are retained, and the next objects are scanned when the worklist loop reaches an object that
+     * was not scanned yet. Only the scanning is done in parallel. The objects are then added to the
+     * model of the image heap by the sequential worklist loop, so they are added in exactly the same
+     * order as with {@code -H:-ParallelImageHeap} and the image heap layout does not change.
+     */
+    private void scanAheadInParallel(Object first, Map<Object, ScannedObject> scans) {
+        List<Object> wave = new ArrayList<>();
+        addToScanWave(first, scans, wave);
+        int inspected = 0;
+        for (AddObjectData data : addObjectWorklist) {
+            if (scans.size() >= SCAN_AHEAD_LIMIT || inspected++ >= SCAN_AHEAD_LIMIT) {
+                break;
+            }
+            addToScanWave(data.original, scans, wave);
+        }
+        while (!wave.isEmpty()) {
+            Object[] waveObjects = wave.toArray();
+            wave.clear();
+
+            ScannedObject[] waveScans = new ScannedObject[waveObjects.length];
+            if (waveObjects.length < PARALLEL_SCAN_BATCH_SIZE) {
+                scanWave(waveObjects, waveScans, 0, waveObjects.length);
+            } else {
+                List<Runnable> tasks = new ArrayList<>();
+                for (int start = 0; start < waveObjects.length; start += PARALLEL_SCAN_BATCH_SIZE) {
+                    int batchStart = start;
+                    int batchEnd = Math.min(start + PARALLEL_SCAN_BATCH_SIZE, waveObjects.length);
+                    tasks.add(() -> scanWave(waveObjects, waveScans, batchStart, batchEnd));
+                }
+                executeInParallel(tasks);
+            }
+
+            for (int i = 0; i < waveObjects.length; i++) {
+                ScannedObject scan = waveScans[i];
+                scans.put(waveObjects[i], scan);
+                if (scans.size() >= SCAN_AHEAD_LIMIT) {
+                    /* The references are scanned when the worklist loop reaches them. */
+                    continue;
+                }
+                if (scan.optionalType.isPresent()) {
+                    addToScanWave(scan.optionalType.get().getHub(), scans, wave);
+                }
+                for (Object reference : scan.references) {
+                    addToScanWave(reference, scans, wave);
+                }
+            }
+        }
+    }
+
+    private boolean needsScan(Object original, Map<Object, ScannedObject> scans) {
+        return original != null && !(original instanceof WordBase) && !(original instanceof Class) && !objects.containsKey(original) && !scans.containsKey(original);
+    }
+
+    private void addToScanWave(Object original, Map<Object, ScannedObject> scans, List<Object> wave) {
+        if (needsScan(original, scans)) {
+            /* Reserve the entry so that an object is only scanned once. */
+            scans.put(original, null);
+            wave.add(original);
+        }
+    }
+
+    private void scanWave(Object[] wave, ScannedObject[] scans, int start, int end) {
+        for (int i = start; i < end; i++) {
+            /* The model of the image heap is not modified while a wave is scanned. */
+            scans[i] = scanObject(wave[i]);
+        }
+    }
+
+    /** Runs the given tasks on the thread pool of the image builder and waits for their completion. */
+    void executeInParallel(Collection<Runnable> tasks) {
+        CompletionExecutor executor = new CompletionExecutor(universe.getBigBang(), universe.getBigBang().getExecutor().getExecutorService(), universe.getBigBang().getHeartbeatCallback());
+        executor.init();
+        for (Runnable task : tasks) {
+            executor.execute(new DebugContextRunnable() {
+                @Override
+                public void run(DebugContext debug) {
+                    task.run();
+                }
+
+                @Override
+                public DebugContext getDebug(OptionValues options, List<DebugHandlersFactory> factories) {
+                    return DebugContext.disabled(options);
+                }
+            });
+        }
+        executor.start();
+        try {
+            executor.complete();
+        } catch (InterruptedException ex) {
+            throw new InterruptImageBuilding();
+        }
+        executor.shutdown();
+    }
+
+    /** The result of {@link NativeImageHeap#scanObject}. */
+    static final class ScannedObject {
+        final Optional<HostedType> optionalType;
+        final List<Object> references = new ArrayList<>();
+        boolean referencesAreImmutable;
+        boolean written;
+        boolean hasReferences;
+        boolean relocatable; /* always false when !spawnIsolates() */
+        long size;
+        Object hybridBitSet;
+        Object hybridArray;
+        ResolvedJavaType missingType;
+
+        ScannedObject(Optional<HostedType> optionalType) {
+            this.optionalType = optionalType;
+        }
+
+        void addReference(Object reference) {
+            if (reference != null) {
+                references.add(reference);
+            }
         }
     }
 
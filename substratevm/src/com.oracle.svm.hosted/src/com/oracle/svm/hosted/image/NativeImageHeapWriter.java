@@ -29,7 +29,11 @@ import static com.oracle.svm.core.util.VMError.shouldNotReachHere;
 import java.lang.reflect.Array;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.graalvm.compiler.core.common.CompressEncoding;
 import org.graalvm.compiler.core.common.NumUtil;
@@ -50,6 +54,7 @@ import com.oracle.svm.core.heap.ObjectHeader;
 import com.oracle.svm.core.hub.DynamicHub;
 import com.oracle.svm.core.image.ImageHeapLayoutInfo;
 import com.oracle.svm.core.meta.SubstrateObjectConstant;
+import com.oracle.svm.hosted.NativeImageOptions;
 import com.oracle.svm.hosted.config.HybridLayout;
 import com.oracle.svm.hosted.image.NativeImageHeap.ObjectInfo;
 import com.oracle.svm.hosted.meta.HostedClass;
@@ -68,12 +73,16 @@ import jdk.vm.ci.meta.ResolvedJavaMethod;
 public final class NativeImageHeapWriter {
     private final NativeImageHeap heap;
     private final ImageHeapLayoutInfo heapLayout;
-    private long sectionOffsetOfARelocatablePointer;
+    /** The lowest offset of a relocatable pointer, which does not depend on the write order. */
+    private final AtomicLong sectionOffsetOfARelocatablePointer;
+
+    /** The number of objects that a single task writes when the heap is written in parallel. */
+    private static final int PARALLEL_WRITE_BATCH_SIZE = 4096;
 
     public NativeImageHeapWriter(NativeImageHeap heap, ImageHeapLayoutInfo heapLayout) {
         this.heap = heap;
         this.heapLayout = heapLayout;
-        this.sectionOffsetOfARelocatablePointer = -1;
+        this.sectionOffsetOfARelocatablePointer = new AtomicLong(-1);
     }
 
     /**
@@ -83,9 +92,20 @@ public final class NativeImageHeapWriter {
     @SuppressWarnings("try")
     public long writeHeap(DebugContext debug, RelocatableBuffer buffer) {
         try (Indent perHeapIndent = debug.logAndIndent("BootImageHeap.writeHeap:")) {
-            for (ObjectInfo info : heap.getObjects()) {
-                assert !heap.isBlacklisted(info.getObject());
-                writeObject(info, buffer);
+            if (NativeImageOptions.ParallelImageHeap.getValue()) {
+                /*
+                 * Every object is written to its own region of the buffer, so objects can be
+                 * written concurrently. Relocations are recorded in a concurrent map.
+                 */
+                List<ObjectInfo> objects = new ArrayList<>(heap.getObjects());
+                List<Runnable> tasks = new ArrayList<>();
+                for (int start = 0; start < objects.size(); start += PARALLEL_WRITE_BATCH_SIZE) {
+                    List<ObjectInfo> batch = objects.subList(start, Math.min(start + PARALLEL_WRITE_BATCH_SIZE, objects.size()));
+                    tasks.add(() -> writeObjects(batch, buffer));
+                }
+                heap.executeInParallel(tasks);
+            } else {
+                writeObjects(heap.getObjects(), buffer);
             }
 
             // Only static fields that are writable get written to the native image heap,
@@ -94,7 +114,14 @@ public final class NativeImageHeapWriter {
 
             heap.getLayouter().writeMetadata(buffer.getByteBuffer());
         }
-        return sectionOffsetOfARelocatablePointer;
+        return sectionOffsetOfARelocatablePointer.get();
+    }
+
+    private void writeObjects(Collection<ObjectInfo> objects, RelocatableBuffer buffer) {
+        for (ObjectInfo info : objects) {
+            assert !heap.isBlacklisted(info.getObject());
+            writeObject(info, buffer);
+        }
     }
 
     private void writeStaticFields(RelocatableBuffer buffer) {
@@ -214,17 +241,17 @@ public final class NativeImageHeapWriter {
     private void addDirectRelocationWithoutAddend(RelocatableBuffer buffer, int index, int size, Object target) {
         assert !NativeImageHeap.spawnIsolates() || heapLayout.isReadOnlyRelocatable(index);
         buffer.addDirectRelocationWithoutAddend(index, size, target);
-        if (sectionOffsetOfARelocatablePointer == -1) {
-            sectionOffsetOfARelocatablePointer = index;
-        }
+        noteRelocatablePointer(index);
     }
 
     private void addDirectRelocationWithAddend(RelocatableBuffer buffer, int index, DynamicHub target, long objectHeaderBits) {
         assert !NativeImageHeap.spawnIsolates() || heapLayout.isReadOnlyRelocatable(index);
         buffer.addDirectRelocationWithAddend(index, referenceSize(), objectHeaderBits, target);
-        if (sectionOffsetOfARelocatablePointer == -1) {
-            sectionOffsetOfARelocatablePointer = index;
-        }
+        noteRelocatablePointer(index);
+    }
+
+    private void noteRelocatablePointer(int index) {
+        sectionOffsetOfARelocatablePointer.accumulateAndGet(index, (previous, offset) -> previous == -1 ? offset : Math.min(previous, offset));
     }
 
     /**
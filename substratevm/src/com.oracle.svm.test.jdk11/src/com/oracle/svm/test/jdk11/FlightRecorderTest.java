@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test.jdk11;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import org.graalvm.nativeimage.ImageInfo;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Records events with the image flight recorder and parses the recording with the JDK's JFR
+ * parser. The recorder is not on the classpath of this project, so it is called reflectively.
+ */
+public class FlightRecorderTest {
+    private static final String FLIGHT_RECORDER = "com.oracle.svm.core.jfr.FlightRecorder";
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            Class<?> recorder = access.findClassByName(FLIGHT_RECORDER);
+            if (recorder != null) {
+                try {
+                    RuntimeReflection.register(recorder);
+                    RuntimeReflection.register(recorder.getMethod("startRecording", String.class), recorder.getMethod("stopRecording"));
+                } catch (NoSuchMethodException ex) {
+                    throw new AssertionError(ex);
+                }
+            }
+        }
+    }
+
+    /** A class of its own, so that the monitor events can be told apart. */
+    static final class Lock {
+    }
+
+    @Test
+    public void recordGCAndMonitorEvents() throws Exception {
+        Assume.assumeTrue("The flight recorder is only available in images.", ImageInfo.inImageRuntimeCode());
+        Class<?> recorder = Class.forName(FLIGHT_RECORDER);
+        Method start = recorder.getMethod("startRecording", String.class);
+        Method stop = recorder.getMethod("stopRecording");
+
+        Path file = Files.createTempFile("flight-recorder-test", ".jfr");
+        try {
+            start.invoke(null, file.toString());
+            System.gc();
+            contendMonitor(new Lock());
+            stop.invoke(null);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+            List<RecordedEvent> systemGCs = eventsNamed(events, "jdk.GarbageCollection").stream().filter(e -> "java.lang.System.gc()".equals(e.getString("cause"))).collect(Collectors.toList());
+            Assert.assertEquals(1, systemGCs.size());
+            RecordedEvent gc = systemGCs.get(0);
+            Assert.assertEquals("Full GC", gc.getString("name"));
+            Assert.assertTrue(gc.getDuration().toNanos() >= 0);
+            Assert.assertFalse("No GC phase of the collection", eventsNamed(events, "jdk.GCPhasePause").isEmpty());
+
+            RecordedEvent enter = single(events, "jdk.JavaMonitorEnter");
+            Assert.assertTrue(enter.getDuration().toMillis() >= 20);
+
+            RecordedEvent wait = single(events, "jdk.JavaMonitorWait");
+            Assert.assertEquals(50, wait.getLong("timeout"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Blocks on a monitor that another thread holds for longer than the default blocking threshold
+     * of 20 ms, and then waits on it with a timeout.
+     */
+    private static void contendMonitor(Lock lock) throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            synchronized (lock) {
+                locked.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException ex) {
+                    throw new AssertionError(ex);
+                }
+            }
+        });
+        holder.start();
+        locked.await();
+        synchronized (lock) {
+            lock.wait(50);
+        }
+        holder.join();
+    }
+
+    private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    /** Returns the only event of the given type whose monitor is a {@link Lock}. */
+    private static RecordedEvent single(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> matching = eventsNamed(events, name).stream().filter(e -> Lock.class.getName().equals(e.<RecordedClass> getValue("monitorClass").getName())).collect(
+                        Collectors.toList());
+        Assert.assertEquals("Events named " + name, 1, matching.size());
+        return matching.get(0);
+    }
+}
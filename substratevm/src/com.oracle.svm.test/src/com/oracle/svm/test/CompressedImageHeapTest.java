@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeClassInitialization;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the contents of strings in the read-only part of the image heap, which is stored
+ * compressed in the image file with {@code -H:+CompressImageHeap}. The strings cover blocks that
+ * cannot be compressed and are stored verbatim, matches that are longer than a single extended
+ * length byte can encode, and overlapping matches with a short offset.
+ */
+public class CompressedImageHeapTest {
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            RuntimeClassInitialization.initializeAtBuildTime(CompressedImageHeapTest.Holder.class);
+        }
+    }
+
+    private static final long SEED = 0x5EED_C0DEL;
+
+    static final class Holder {
+        static final String RANDOM = randomString(300_000);
+        static final String RUN = runString(200_000);
+        static final String PATTERN = patternString(150_000);
+    }
+
+    static String randomString(int length) {
+        Random random = new Random(SEED);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) (0x100 + random.nextInt(0xFF00));
+        }
+        return new String(chars);
+    }
+
+    static String runString(int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'x');
+        return new String(chars);
+    }
+
+    static String patternString(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + i % 37 % 26);
+        }
+        return new String(chars);
+    }
+
+    @Test
+    public void incompressibleContents() {
+        Assert.assertEquals(randomString(Holder.RANDOM.length()), Holder.RANDOM);
+    }
+
+    @Test
+    public void longMatchContents() {
+        Assert.assertEquals(runString(Holder.RUN.length()), Holder.RUN);
+    }
+
+    @Test
+    public void repeatedPatternContents() {
+        Assert.assertEquals(patternString(Holder.PATTERN.length()), Holder.PATTERN);
+    }
+}
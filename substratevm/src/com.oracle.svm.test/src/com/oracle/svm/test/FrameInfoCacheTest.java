@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that exception stack traces stay correct when the same code positions are looked up over
+ * and over again, also by several threads at once, which exercises the frame information cache of
+ * native images.
+ */
+public class FrameInfoCacheTest {
+
+    private static final int[] DEPTHS = {1, 7, 64, 300};
+    private static final int THREADS = 4;
+    private static final int ITERATIONS = 500;
+
+    static final class TestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static int recurseEven(int depth) {
+        if (depth == 0) {
+            throw new TestException();
+        }
+        return recurseOdd(depth - 1) + 1;
+    }
+
+    private static int recurseOdd(int depth) {
+        if (depth == 0) {
+            throw new TestException();
+        }
+        return recurseEven(depth - 1) + 2;
+    }
+
+    /**
+     * Returns the frames of the recursion and of this method. The frames of the callers differ
+     * between call sites and threads.
+     */
+    private static StackTraceElement[] stackTrace(int depth) {
+        try {
+            recurseEven(depth);
+        } catch (TestException e) {
+            return Arrays.copyOf(e.getStackTrace(), depth + 2);
+        }
+        throw new AssertionError("no exception");
+    }
+
+    private static void checkShape(StackTraceElement[] trace, int depth) {
+        for (int i = 0; i <= depth; i++) {
+            String expected = (depth - i) % 2 == 0 ? "recurseEven" : "recurseOdd";
+            Assert.assertEquals(FrameInfoCacheTest.class.getName(), trace[i].getClassName());
+            Assert.assertEquals(expected, trace[i].getMethodName());
+        }
+        Assert.assertEquals("stackTrace", trace[depth + 1].getMethodName());
+    }
+
+    @Test
+    public void repeatedStackTraces() {
+        for (int depth : DEPTHS) {
+            StackTraceElement[] expected = stackTrace(depth);
+            checkShape(expected, depth);
+            for (int i = 0; i < ITERATIONS; i++) {
+                Assert.assertArrayEquals(expected, stackTrace(depth));
+            }
+        }
+    }
+
+    @Test
+    public void concurrentStackTraces() throws InterruptedException {
+        StackTraceElement[][] expected = new StackTraceElement[DEPTHS.length][];
+        for (int d = 0; d < DEPTHS.length; d++) {
+            expected[d] = stackTrace(DEPTHS[d]);
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int offset = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        int d = (i + offset) % DEPTHS.length;
+                        StackTraceElement[] actual = stackTrace(DEPTHS[d]);
+                        if (!Arrays.equals(expected[d], actual)) {
+                            throw new AssertionError("unexpected stack trace: " + Arrays.toString(actual));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.nativeimage.ImageInfo;
+import org.graalvm.nativeimage.PinnedObject;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeClassInitialization;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Checks that objects are added to the image heap in the order of the sequential worklist, also
+ * when the image heap is built in parallel: the worklist is processed last in, first out, so the
+ * objects of every subtree of a tree that is only reachable through its root are placed
+ * contiguously, directly after the root of the subtree.
+ */
+public class ImageHeapLayoutTest {
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            RuntimeClassInitialization.initializeAtBuildTime(ImageHeapLayoutTest.Holder.class);
+            RuntimeClassInitialization.initializeAtBuildTime(ImageHeapLayoutTest.Node.class);
+        }
+    }
+
+    static final class Node {
+        Node left;
+        Node right;
+        int size;
+
+        Node(int depth) {
+            size = 1;
+            if (depth > 0) {
+                left = new Node(depth - 1);
+                right = new Node(depth - 1);
+                size += left.size + right.size;
+            }
+        }
+    }
+
+    static final class Holder {
+        static final Node TREE = new Node(8);
+    }
+
+    @Test
+    public void subtreesAreContiguous() {
+        Assume.assumeTrue(ImageInfo.inImageRuntimeCode());
+
+        List<Node> nodes = new ArrayList<>();
+        collect(Holder.TREE, nodes);
+        nodes.sort((a, b) -> Long.compareUnsigned(addressOf(a), addressOf(b)));
+        Map<Node, Integer> ranks = new IdentityHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            ranks.put(nodes.get(i), i);
+        }
+        checkPreorder(Holder.TREE, ranks);
+    }
+
+    private static void collect(Node node, List<Node> nodes) {
+        if (node != null) {
+            nodes.add(node);
+            collect(node.left, nodes);
+            collect(node.right, nodes);
+        }
+    }
+
+    private static long addressOf(Node node) {
+        try (PinnedObject pinned = PinnedObject.create(node)) {
+            return pinned.addressOfObject().rawValue();
+        }
+    }
+
+    private static void checkPreorder(Node node, Map<Node, Integer> ranks) {
+        if (node.left == null) {
+            return;
+        }
+        int rank = ranks.get(node);
+        int leftRank = ranks.get(node.left);
+        int rightRank = ranks.get(node.right);
+        Node first = (leftRank < rightRank) ? node.left : node.right;
+        Node second = (leftRank < rightRank) ? node.right : node.left;
+        Assert.assertEquals("first child directly follows its parent", rank + 1, (int) ranks.get(first));
+        Assert.assertEquals("second child directly follows the subtree of the first", rank + 1 + first.size, (int) ranks.get(second));
+        checkPreorder(node.left, ranks);
+        checkPreorder(node.right, ranks);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+
+import org.graalvm.nativeimage.ImageInfo;
+import org.graalvm.nativeimage.RuntimeOptions;
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class StringInternTest {
+
+    public static class TestFeature implements Feature {
+        @Override
+        public void beforeAnalysis(BeforeAnalysisAccess access) {
+            try {
+                RuntimeReflection.register(String.class.getDeclaredField("value"));
+            } catch (NoSuchFieldException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /** Returns a string that is not a literal and is not interned yet. */
+    private static String newString(String prefix) {
+        return new StringBuilder(prefix).append('-').append(System.nanoTime()).toString();
+    }
+
+    @Test
+    public void internedStringKeepsIdentity() {
+        String interned = newString("kept").intern();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        String copy = new String(interned.toCharArray());
+        Assert.assertNotSame(interned, copy);
+        Assert.assertSame(interned, copy.intern());
+    }
+
+    private static WeakReference<String> internUnreachable() {
+        return new WeakReference<>(newString("unreachable").intern());
+    }
+
+    @Test
+    public void unreachableInternedStringIsCollected() {
+        WeakReference<String> ref = internUnreachable();
+        for (int i = 0; i < 10 && ref.get() != null; i++) {
+            System.gc();
+        }
+        Assert.assertNull("interned string is still reachable from the intern table", ref.get());
+    }
+
+    @Test
+    public void promotedDuplicatesShareValue() throws ReflectiveOperationException {
+        Assume.assumeTrue(ImageInfo.inImageRuntimeCode());
+        Field value = String.class.getDeclaredField("value");
+        value.setAccessible(true);
+
+        String first = newString("duplicate");
+        String second = new String(first.toCharArray());
+        Assert.assertNotSame(value.get(first), value.get(second));
+
+        RuntimeOptions.set("StringDeduplication", true);
+        try {
+            System.gc();
+        } finally {
+            RuntimeOptions.set("StringDeduplication", false);
+        }
+        Assert.assertEquals(first, second);
+        Assert.assertSame(value.get(first), value.get(second));
+    }
+}
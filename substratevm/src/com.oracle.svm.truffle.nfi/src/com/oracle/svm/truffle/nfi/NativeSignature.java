@@ -48,6 +48,8 @@ import org.graalvm.word.PointerBase;
 import org.graalvm.word.WordBase;
 import org.graalvm.word.WordFactory;
 
+import java.nio.ByteOrder;
+
 final class NativeSignature {
 
     @CContext(LibFFIHeaderDirectives.class)
@@ -85,6 +87,13 @@ final class NativeSignature {
 
     static class ExecuteHelper {
 
+        /**
+         * Keep in sync with {@code LibFFISignature.MAX_DIRECT_ARGS}.
+         */
+        static final int MAX_DIRECT_ARGS = 8;
+
+        private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+
         static int alignUp(int index, int alignment) {
             int ret = index;
             if (ret % alignment != 0) {
@@ -149,6 +158,39 @@ final class NativeSignature {
                 UnmanagedMemory.free(argPtrs);
             }
         }
+
+        /**
+         * Calls a signature with only primitive and pointer arguments. Every argument is stored in
+         * its own slot of {@code args}, so the argument pointers point directly into the pinned
+         * array and no environment or local handles are needed.
+         */
+        @SuppressWarnings("try")
+        static void executeDirect(ffi_cif cif, PointerBase ret, long functionPointer, long[] args) {
+            int nargs = cif.nargs();
+            assert nargs <= MAX_DIRECT_ARGS;
+            WordPointer argPtrs = StackValue.get(MAX_DIRECT_ARGS, SizeOf.get(WordPointer.class));
+
+            try (PinnedObject argBuffer = PinnedObject.create(args)) {
+                for (int i = 0; i < nargs; i++) {
+                    Pointer slot = argBuffer.addressOfArrayElement(i);
+                    if (BIG_ENDIAN) {
+                        // smaller values are stored in the low bits at the end of the slot
+                        slot = slot.add(Long.BYTES - (int) cif.arg_types().read(i).size().rawValue());
+                    }
+                    argPtrs.write(i, slot);
+                }
+
+                try (NativeErrnoContext mirror = new NativeErrnoContext()) {
+                    LibFFI.ffi_call(cif, WordFactory.pointer(functionPointer), ret, argPtrs);
+                }
+
+                Throwable pending = NativeClosure.pendingException.get();
+                if (pending != null) {
+                    NativeClosure.pendingException.set(null);
+                    throw rethrow(pending);
+                }
+            }
+        }
     }
 
     @SuppressWarnings({"unchecked"})
@@ -193,6 +193,16 @@ final class Target_com_oracle_truffle_nfi_impl_NFIContext {
         }
     }
 
+    @Substitute
+    @TruffleBoundary
+    @SuppressWarnings("static-method")
+    long executeDirect(long cif, long functionPointer, long[] args) {
+        ffi_cif ffiCif = WordFactory.pointer(cif);
+        CLongPointer retPtr = StackValue.get(8);
+        ExecuteHelper.executeDirect(ffiCif, retPtr, functionPointer, args);
+        return retPtr.read();
+    }
+
     @Substitute
     private static void loadNFILib() {
         // do nothing, the NFI library is statically linked to the SVM image
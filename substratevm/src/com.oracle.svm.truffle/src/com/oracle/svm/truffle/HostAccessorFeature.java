@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the LICENSE file that accompanied this code.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ * Please contact Oracle, 500 Oracle Parkway, Redwood Shores, CA 94065 USA
+ * or visit www.oracle.com if you need additional information or have any
+ * questions.
+ */
+package com.oracle.svm.truffle;
+
+//Checkstyle: allow reflection
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+import org.graalvm.polyglot.HostAccess;
+
+import com.oracle.svm.core.SubstrateUtil;
+import com.oracle.svm.core.annotate.Alias;
+import com.oracle.svm.core.annotate.Substitute;
+import com.oracle.svm.core.annotate.TargetClass;
+import com.oracle.svm.core.jdk.Package_jdk_internal_reflect;
+import com.oracle.svm.hosted.FeatureImpl.BeforeAnalysisAccessImpl;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Calls the generated reflection accessors of exported host members directly.
+ * <p>
+ * In a native image, host interop uses {@code java.lang.reflect} instead of method handles. For
+ * every member registered for reflection, the image builder already generates a direct accessor
+ * stub that unpacks the argument array, unboxes the arguments and calls the target. This feature
+ * registers all members annotated with {@link HostAccess.Export} for reflection, so that their
+ * stubs exist, and substitutes the reflective call sites of the polyglot implementation to call the
+ * stub directly. This skips the access checks and the accessor lookup of {@link Method#invoke}.
+ * The members of a class are only registered once the class is reachable, so that exported members
+ * of otherwise unused classes do not end up in the image.
+ * <p>
+ * The stubs are not inlined by partial evaluation: the accessor is read from a non-final field of
+ * the reflection object and called virtually, so the call stays behind a {@link TruffleBoundary}.
+ * Making it inlinable would also make every accessor stub and its target a runtime compilation
+ * candidate.
+ */
+public final class HostAccessorFeature implements Feature {
+
+    @Override
+    public List<Class<? extends Feature>> getRequiredFeatures() {
+        return Arrays.asList(TruffleFeature.class);
+    }
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess a) {
+        BeforeAnalysisAccessImpl access = (BeforeAnalysisAccessImpl) a;
+        Set<Class<?>> exportingClasses = new HashSet<>();
+        for (Method method : access.findAnnotatedMethods(HostAccess.Export.class)) {
+            exportingClasses.add(method.getDeclaringClass());
+        }
+        for (Field field : access.findAnnotatedFields(HostAccess.Export.class)) {
+            exportingClasses.add(field.getDeclaringClass());
+        }
+        for (Class<?> clazz : exportingClasses) {
+            /*
+             * Registering a member for reflection makes its class reachable. Only classes that are
+             * reachable anyway can be passed to the guest, so only their members are registered.
+             */
+            access.registerReachabilityHandler(duringAnalysis -> registerExportedMembers(clazz), clazz);
+        }
+    }
+
+    private static void registerExportedMembers(Class<?> clazz) {
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.isAnnotationPresent(HostAccess.Export.class) && isAccessible(method)) {
+                RuntimeReflection.register(method);
+            }
+        }
+        for (Field field : clazz.getDeclaredFields()) {
+            if (field.isAnnotationPresent(HostAccess.Export.class) && isAccessible(field)) {
+                RuntimeReflection.register(!Modifier.isFinal(field.getModifiers()), field);
+            }
+        }
+        for (Constructor<?> constructor : clazz.getConstructors()) {
+            if (constructor.isAnnotationPresent(HostAccess.Export.class) && isAccessible(constructor)) {
+                RuntimeReflection.register(constructor);
+            }
+        }
+    }
+
+    private static boolean isAccessible(Member member) {
+        return Modifier.isPublic(member.getModifiers()) && Modifier.isPublic(member.getDeclaringClass().getModifiers());
+    }
+
+    /*
+     * The polyglot implementation only creates reflective descriptors for public members of public
+     * classes, so the access checks of java.lang.reflect always succeed and can be skipped. Members
+     * that were not registered for reflection have no accessor and take the original reflective
+     * path, which reports the missing registration. allowInlining only lets the image compiler
+     * inline these methods into the substituted call sites; compiled guest code calls them.
+     */
+
+    @TruffleBoundary(allowInlining = true)
+    static Object invokeMethod(Method method, Object receiver, Object[] arguments) throws IllegalAccessException, InvocationTargetException {
+        Target_jdk_internal_reflect_MethodAccessor_Host accessor = SubstrateUtil.cast(method, Target_java_lang_reflect_Method_Host.class).methodAccessor;
+        if (accessor == null) {
+            return invokeMethodSlowPath(method, receiver, arguments);
+        }
+        return accessor.invoke(receiver, arguments);
+    }
+
+    @TruffleBoundary
+    private static Object invokeMethodSlowPath(Method method, Object receiver, Object[] arguments) throws IllegalAccessException, InvocationTargetException {
+        return method.invoke(receiver, arguments);
+    }
+
+    @TruffleBoundary(allowInlining = true)
+    static Object newInstance(Constructor<?> constructor, Object[] arguments) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        Target_jdk_internal_reflect_ConstructorAccessor_Host accessor = SubstrateUtil.cast(constructor, Target_java_lang_reflect_Constructor_Host.class).constructorAccessor;
+        if (accessor == null) {
+            return newInstanceSlowPath(constructor, arguments);
+        }
+        return accessor.newInstance(arguments);
+    }
+
+    @TruffleBoundary
+    private static Object newInstanceSlowPath(Constructor<?> constructor, Object[] arguments) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        return constructor.newInstance(arguments);
+    }
+
+    @TruffleBoundary(allowInlining = true)
+    static Object getField(Field field, Object receiver) throws IllegalAccessException {
+        Target_jdk_internal_reflect_FieldAccessor_Host accessor = SubstrateUtil.cast(field, Target_java_lang_reflect_Field_Host.class).fieldAccessor;
+        if (accessor == null) {
+            return getFieldSlowPath(field, receiver);
+        }
+        return accessor.get(receiver);
+    }
+
+    @TruffleBoundary
+    private static Object getFieldSlowPath(Field field, Object receiver) throws IllegalAccessException {
+        return field.get(receiver);
+    }
+
+    @TruffleBoundary(allowInlining = true)
+    static void setField(Field field, Object receiver, Object value) throws IllegalAccessException {
+        Target_jdk_internal_reflect_FieldAccessor_Host accessor = SubstrateUtil.cast(field, Target_java_lang_reflect_Field_Host.class).fieldAccessor;
+        if (accessor == null) {
+            setFieldSlowPath(field, receiver, value);
+        } else {
+            accessor.set(receiver, value);
+        }
+    }
+
+    @TruffleBoundary
+    private static void setFieldSlowPath(Field field, Object receiver, Object value) throws IllegalAccessException {
+        field.set(receiver, value);
+    }
+}
+
+@TargetClass(className = "com.oracle.truffle.polyglot.HostMethodDesc$SingleMethod$MethodReflectImpl", onlyWith = TruffleFeature.IsEnabled.class)
+final class Target_com_oracle_truffle_polyglot_HostMethodDesc_SingleMethod_MethodReflectImpl {
+
+    @Substitute
+    private static Object reflectInvoke(Method reflectionMethod, Object receiver, Object[] arguments) throws IllegalAccessException, InvocationTargetException {
+        return HostAccessorFeature.invokeMethod(reflectionMethod, receiver, arguments);
+    }
+}
+
+@TargetClass(className = "com.oracle.truffle.polyglot.HostMethodDesc$SingleMethod$ConstructorReflectImpl", onlyWith = TruffleFeature.IsEnabled.class)
+final class Target_com_oracle_truffle_polyglot_HostMethodDesc_SingleMethod_ConstructorReflectImpl {
+
+    @Substitute
+    private static Object reflectNewInstance(Constructor<?> reflectionConstructor, Object[] arguments) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        return HostAccessorFeature.newInstance(reflectionConstructor, arguments);
+    }
+}
+
+@TargetClass(className = "com.oracle.truffle.polyglot.HostFieldDesc$ReflectImpl", onlyWith = TruffleFeature.IsEnabled.class)
+final class Target_com_oracle_truffle_polyglot_HostFieldDesc_ReflectImpl {
+
+    @Substitute
+    private static Object reflectGet(Field field, Object receiver) throws IllegalAccessException {
+        return HostAccessorFeature.getField(field, receiver);
+    }
+
+    @Substitute
+    private static void reflectSet(Field field, Object receiver, Object value) throws IllegalAccessException {
+        HostAccessorFeature.setField(field, receiver, value);
+    }
+}
+
+@TargetClass(value = Method.class, onlyWith = TruffleFeature.IsEnabled.class)
+final class Target_java_lang_reflect_Method_Host {
+    @Alias Target_jdk_internal_reflect_MethodAccessor_Host methodAccessor;
+}
+
+@TargetClass(value = Constructor.class, onlyWith = TruffleFeature.IsEnabled.class)
+final class Target_java_lang_reflect_Constructor_Host {
+    @Alias Target_jdk_internal_reflect_ConstructorAccessor_Host constructorAccessor;
+}
+
+@TargetClass(value = Field.class, onlyWith = TruffleFeature.IsEnabled.class)
+final class Target_java_lang_reflect_Field_Host {
+    @Alias Target_jdk_internal_reflect_FieldAccessor_Host fieldAccessor;
+}
+
+@TargetClass(classNameProvider = Package_jdk_internal_reflect.class, className = "MethodAccessor", onlyWith = TruffleFeature.IsEnabled.class)
+interface Target_jdk_internal_reflect_MethodAccessor_Host {
+    @Alias
+    Object invoke(Object receiver, Object[] arguments) throws InvocationTargetException;
+}
+
+@TargetClass(classNameProvider = Package_jdk_internal_reflect.class, className = "ConstructorAccessor", onlyWith = TruffleFeature.IsEnabled.class)
+interface Target_jdk_internal_reflect_ConstructorAccessor_Host {
+    @Alias
+    Object newInstance(Object[] arguments) throws InstantiationException, InvocationTargetException;
+}
+
+@TargetClass(classNameProvider = Package_jdk_internal_reflect.class, className = "FieldAccessor", onlyWith = TruffleFeature.IsEnabled.class)
+interface Target_jdk_internal_reflect_FieldAccessor_Host {
+    @Alias
+    Object get(Object receiver) throws IllegalAccessException;
+
+    @Alias
+    void set(Object receiver, Object value) throws IllegalAccessException;
+}
@@ -289,7 +289,7 @@ public final class TruffleFeature implements com.oracle.svm.core.graal.GraalFeat
 
     @Override
     public List<Class<? extends Feature>> getRequiredFeatures() {
-        return Arrays.asList(GraalFeature.class, NodeClassFeature.class);
+        return Arrays.asList(GraalFeature.class, NodeClassFeature.class, HostAccessorFeature.class);
     }
 
     private static void initializeTruffleReflectively(ClassLoader imageClassLoader) {
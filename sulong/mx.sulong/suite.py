@@ -154,9 +154,10 @@ suite = {
         "com.oracle.truffle.llvm.tests.pipe",
         "truffle:TRUFFLE_TCK",
         "mx:JUNIT",
+        "mx:JMH_1_21",
       ],
       "checkstyle" : "com.oracle.truffle.llvm.runtime",
-      "annotationProcessors" : ["truffle:TRUFFLE_DSL_PROCESSOR"],
+      "annotationProcessors" : ["truffle:TRUFFLE_DSL_PROCESSOR", "mx:JMH_1_21"],
       "javaCompliance" : "1.8+",
       "javaProperties" : {
         "test.sulongtest.lib" : "<path:SULONG_TEST_NATIVE>/<lib:sulongtest>",
@@ -750,7 +751,7 @@ suite = {
       "class" : "SulongTestSuite",
       "variants" : ["O0", "O0_MISC_OPTS", "O1", "O2", "O3", "gcc_O0"],
       "buildEnv" : {
-        "SUITE_LDFLAGS" : "-lm",
+        "SUITE_LDFLAGS" : "-lm -lpthread",
         "OS" : "<os>",
       },
       "dependencies" : [
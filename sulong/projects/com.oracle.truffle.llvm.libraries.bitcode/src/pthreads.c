@@ -27,6 +27,7 @@
  * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
  * OF THE POSSIBILITY OF SUCH DAMAGE.
  */
+#include <errno.h>
 #include <pthread.h>
 
 /*
@@ -79,7 +80,11 @@ pthread_t pthread_self() {
 }
 
 int pthread_key_create(pthread_key_t *key, void (*destructor)(void *)) {
-    *key = (pthread_key_t) __sulong_thread_key_create(destructor);
+    __sulong_key_t k = __sulong_thread_key_create(destructor);
+    if (k == 0) {
+        return EAGAIN;
+    }
+    *key = (pthread_key_t) k;
     return 0;
 }
 
@@ -130,7 +130,10 @@ public class LazyToTruffleConverterImpl implements LazyToTruffleConverter {
 
         synchronized (this) {
             if (resolved == null) {
-                resolved = generateCallTarget();
+                // the function may be shared with converters of other contexts
+                synchronized (parser) {
+                    resolved = generateCallTarget();
+                }
             }
             return resolved;
         }
@@ -231,7 +234,7 @@ public class LazyToTruffleConverterImpl implements LazyToTruffleConverter {
                         frame, loopSuccessorSlot, info);
 
         RootNode rootNode = nodeFactory.createFunctionStartNode(body, frame, method.getName(), method.getSourceName(), method.getParameters().size(), source, location);
-        method.onAfterParse();
+        parser.release();
 
         if (printAST) {
             printCompactTree(rootNode);
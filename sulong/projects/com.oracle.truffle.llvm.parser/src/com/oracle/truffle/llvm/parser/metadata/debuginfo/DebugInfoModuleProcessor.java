@@ -79,6 +79,7 @@ public final class DebugInfoModuleProcessor {
         final MDBaseNode cuNode = metadata.getNamedNode(MDNamedNode.COMPILEUNIT_NAME);
         if (cuNode != null) {
             cuNode.accept(mdParser);
+            irModel.setHasDebugInfo();
         }
 
         irModel.setFunctionProcessor(new DebugInfoFunctionProcessor(cache));
@@ -63,6 +63,7 @@ public final class ModelModule {
     private final HashMap<FunctionDefinition, LazyFunctionParser> lazyFunctionParsers = new HashMap<>();
     private TargetDataLayout targetDataLayout = defaultLayout;
     private DebugInfoFunctionProcessor functionProcessor = null;
+    private boolean hasDebugInfo = false;
 
     public ModelModule() {
     }
@@ -131,6 +132,18 @@ public final class ModelModule {
         return sourceStaticMembers;
     }
 
+    /**
+     * Returns {@code true} if the module contains a debug compile unit. The debug information of
+     * such a module refers to the file system and the source context of the context that parsed it.
+     */
+    public boolean hasDebugInfo() {
+        return hasDebugInfo;
+    }
+
+    public void setHasDebugInfo() {
+        this.hasDebugInfo = true;
+    }
+
     public DebugInfoFunctionProcessor getFunctionProcessor() {
         return functionProcessor;
     }
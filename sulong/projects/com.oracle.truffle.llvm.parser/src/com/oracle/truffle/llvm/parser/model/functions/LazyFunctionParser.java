@@ -38,6 +38,7 @@ import com.oracle.truffle.llvm.parser.listeners.ParameterAttributes;
 import com.oracle.truffle.llvm.parser.listeners.Types;
 import com.oracle.truffle.llvm.parser.metadata.debuginfo.DebugInfoFunctionProcessor;
 import com.oracle.truffle.llvm.parser.model.IRScope;
+import com.oracle.truffle.llvm.parser.model.ModelModule;
 import com.oracle.truffle.llvm.parser.scanner.LLVMScanner;
 import com.oracle.truffle.llvm.parser.text.LLSourceBuilder;
 import com.oracle.truffle.llvm.runtime.options.SulongEngineOption;
@@ -80,6 +81,15 @@ public final class LazyFunctionParser {
         }
     }
 
+    /**
+     * Drops the parsed function body after it was converted. The {@link ModelModule} may be shared
+     * between contexts, so the body is parsed again if another context converts the function.
+     */
+    public void release() {
+        function.onAfterParse();
+        isParsed = false;
+    }
+
     public void parseLinkageName(LLVMParserRuntime runtime) {
         synchronized (scope) {
             FunctionMDOnly parser = new FunctionMDOnly(scope, types, function);
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates.
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors may be used to
+ * endorse or promote products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.oracle.truffle.llvm.parser.scanner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.InvalidPathException;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.graalvm.home.Version;
+import org.graalvm.polyglot.io.ByteSequence;
+
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.llvm.parser.listeners.ParserListener;
+import com.oracle.truffle.llvm.runtime.LLVMContext;
+
+/**
+ * On-disk cache of the blocks and records that the {@link LLVMScanner} decodes from a bitcode file,
+ * keyed by the SHA-256 hash of the bitcode, the Sulong version and the layout of {@link Block}. The
+ * first scan of a file records the events the scanner
+ * passes to its {@link ParserListener listeners}; later scans of the same bitcode replay them from
+ * the cache instead of decoding the bitstream.
+ *
+ * The listeners still build the model from the replayed records. Lazily parsed blocks are recorded
+ * as offsets into the bitstream, and the BLOCKINFO block is scanned again on replay to restore the
+ * abbreviations these blocks need. An entry ends with a CRC-32 checksum of its contents, which is
+ * verified before any event is replayed.
+ */
+final class BitcodeCache {
+
+    private static final String SUFFIX = ".records";
+
+    private static final int MAGIC = 0x534c4243;
+    private static final int VERSION = 2;
+    private static final int CHECKSUM_SIZE = 4;
+    private static final int HASH_BUFFER_SIZE = 8192;
+
+    private static final byte END = 0;
+    private static final byte ENTER = 1;
+    private static final byte EXIT = 2;
+    private static final byte RECORD = 3;
+    private static final byte LAZY = 4;
+    private static final byte BLOCKINFO = 5;
+
+    private static final Block[] BLOCKS = Block.values();
+
+    private final TruffleFile file;
+    private final long bitcodeLength;
+
+    private ByteArrayOutputStream log;
+    private int blockInfoDepth;
+
+    private byte[] data;
+    private int position;
+
+    private BitcodeCache(TruffleFile file, long bitcodeLength) {
+        this.file = file;
+        this.bitcodeLength = bitcodeLength;
+    }
+
+    /**
+     * Returns the cache entry of {@code bitcode} in {@code cacheDir}, or {@code null} if the cache
+     * directory cannot be used.
+     */
+    static BitcodeCache open(ByteSequence bitcode, String cacheDir, LLVMContext context) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            // entries written by other Sulong versions or for another block layout are not used
+            digest.update(Version.getCurrent().toString().getBytes(StandardCharsets.UTF_8));
+            for (Block block : BLOCKS) {
+                digest.update((byte) 0);
+                digest.update(block.name().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int length = bitcode.length();
+            for (int start = 0; start < length; start += buffer.length) {
+                int count = Math.min(buffer.length, length - start);
+                for (int i = 0; i < count; i++) {
+                    buffer[i] = bitcode.byteAt(start + i);
+                }
+                digest.update(buffer, 0, count);
+            }
+            byte[] hash = digest.digest();
+            StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX.length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            name.append(SUFFIX);
+            TruffleFile dir = context.getEnv().getPublicTruffleFile(cacheDir);
+            return new BitcodeCache(dir.resolve(name.toString()), bitcode.length());
+        } catch (NoSuchAlgorithmException | InvalidPathException | SecurityException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replays the cached events to {@code root}. Returns {@code false} without calling any
+     * listener if there is no valid cache entry.
+     */
+    boolean replay(BitStream bitstream, ParserListener root) {
+        if (!load()) {
+            return false;
+        }
+        Map<Block, List<AbbreviatedRecord[]>> defaultAbbreviations = new HashMap<>();
+        ArrayDeque<ParserListener> parents = new ArrayDeque<>();
+        RecordBuffer buffer = new RecordBuffer();
+        ParserListener parser = root;
+        while (true) {
+            byte tag = data[position++];
+            switch (tag) {
+                case END:
+                    data = null;
+                    return true;
+
+                case ENTER:
+                    parents.push(parser);
+                    parser = parser.enter(readBlock());
+                    break;
+
+                case EXIT:
+                    parser.exit();
+                    parser = parents.pop();
+                    break;
+
+                case RECORD: {
+                    int size = (int) readLong();
+                    buffer.ensureFits(size);
+                    for (int i = 0; i < size; i++) {
+                        buffer.addOpNoCheck(readLong());
+                    }
+                    parser.record(buffer);
+                    buffer.invalidate();
+                    break;
+                }
+
+                case LAZY: {
+                    Block block = readBlock();
+                    long start = readLong();
+                    long end = readLong();
+                    int idSize = (int) readLong();
+                    parser.skip(block, new LLVMScanner.LazyScanner(bitstream, new HashMap<>(defaultAbbreviations), start, end, idSize, block));
+                    break;
+                }
+
+                case BLOCKINFO: {
+                    long start = readLong();
+                    long end = readLong();
+                    int idSize = (int) readLong();
+                    LLVMScanner.scanBlockInfo(bitstream, parser.enter(Block.BLOCKINFO), defaultAbbreviations, start, end, idSize);
+                    break;
+                }
+
+                default:
+                    throw new IllegalStateException("Corrupt bitcode cache entry: " + file);
+            }
+        }
+    }
+
+    private boolean load() {
+        try {
+            if (!file.isReadable()) {
+                return false;
+            }
+            data = file.readAllBytes();
+        } catch (IOException | SecurityException e) {
+            return false;
+        }
+        position = 0;
+        int length = data.length - CHECKSUM_SIZE;
+        if (length <= 0 || data[length - 1] != END || readChecksum(length) != checksum(data, length) || readLong() != MAGIC || readLong() != VERSION || readLong() != bitcodeLength) {
+            data = null;
+            return false;
+        }
+        return true;
+    }
+
+    private static int checksum(byte[] bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return (int) crc.getValue();
+    }
+
+    private int readChecksum(int offset) {
+        int value = 0;
+        for (int i = 0; i < CHECKSUM_SIZE; i++) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Starts recording the events of a scan of the bitcode.
+     */
+    void startRecording() {
+        log = new ByteArrayOutputStream();
+        blockInfoDepth = 0;
+        writeLong(MAGIC);
+        writeLong(VERSION);
+        writeLong(bitcodeLength);
+    }
+
+    void enterBlock(Block block, long start, long end, int idSize) {
+        if (blockInfoDepth > 0) {
+            blockInfoDepth++;
+        } else if (block == Block.BLOCKINFO) {
+            // the abbreviations defined in this block are not recorded, it is scanned on replay
+            blockInfoDepth = 1;
+            log.write(BLOCKINFO);
+            writeLong(start);
+            writeLong(end);
+            writeLong(idSize);
+        } else {
+            log.write(ENTER);
+            writeLong(block.ordinal());
+        }
+    }
+
+    void exitBlock() {
+        if (blockInfoDepth > 0) {
+            blockInfoDepth--;
+        } else {
+            log.write(EXIT);
+        }
+    }
+
+    void lazyBlock(Block block, long start, long end, int idSize) {
+        assert blockInfoDepth == 0;
+        log.write(LAZY);
+        writeLong(block.ordinal());
+        writeLong(start);
+        writeLong(end);
+        writeLong(idSize);
+    }
+
+    void record(RecordBuffer buffer) {
+        if (blockInfoDepth == 0) {
+            log.write(RECORD);
+            int size = buffer.size() + 1;
+            writeLong(size);
+            for (int i = 0; i < size; i++) {
+                writeLong(buffer.getRaw(i));
+            }
+        }
+    }
+
+    /**
+     * Writes the recorded events to the cache. Failures are ignored, the bitcode is scanned again
+     * the next time it is loaded.
+     */
+    void store(LLVMContext context) {
+        log.write(END);
+        int checksum = checksum(log.toByteArray(), log.size());
+        for (int i = CHECKSUM_SIZE - 1; i >= 0; i--) {
+            log.write(checksum >>> (i * 8));
+        }
+        TruffleFile tmp = null;
+        try {
+            TruffleFile dir = file.getParent();
+            dir.createDirectories();
+            tmp = context.getEnv().createTempFile(dir, file.getName(), ".tmp");
+            try (OutputStream out = tmp.newOutputStream()) {
+                log.writeTo(out);
+            }
+            tmp.move(file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+        } catch (IOException | SecurityException | UnsupportedOperationException e) {
+            // ignore, the cache is only an optimization
+        } finally {
+            log = null;
+            if (tmp != null) {
+                try {
+                    tmp.delete();
+                } catch (IOException | SecurityException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private Block readBlock() {
+        return BLOCKS[(int) readLong()];
+    }
+
+    private long readLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            value |= (long) (b & 0x7f) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private void writeLong(long value) {
+        long v = value;
+        while ((v & ~0x7fL) != 0) {
+            log.write((int) ((v & 0x7f) | 0x80));
+            v >>>= 7;
+        }
+        log.write((int) v);
+    }
+}
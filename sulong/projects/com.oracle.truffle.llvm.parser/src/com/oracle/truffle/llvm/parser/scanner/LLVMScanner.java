@@ -45,6 +45,7 @@ import com.oracle.truffle.llvm.parser.model.ModelModule;
 import com.oracle.truffle.llvm.runtime.LLVMContext;
 import com.oracle.truffle.llvm.runtime.Magic;
 import com.oracle.truffle.llvm.runtime.except.LLVMParserException;
+import com.oracle.truffle.llvm.runtime.options.SulongEngineOption;
 import org.graalvm.polyglot.io.ByteSequence;
 
 public final class LLVMScanner {
@@ -73,6 +74,8 @@ public final class LLVMScanner {
 
     private long offset;
 
+    private BitcodeCache recorder;
+
     private LLVMScanner(BitStream bitstream, ParserListener listener) {
         this.bitstream = bitstream;
         this.parser = listener;
@@ -100,13 +103,28 @@ public final class LLVMScanner {
             throw new LLVMParserException("Not a valid Bitcode File!");
         }
 
-        scanner.scanToEnd();
+        final String cacheDir = context.getEnv().getOptions().get(SulongEngineOption.BITCODE_CACHE_DIR);
+        final BitcodeCache cache = cacheDir.isEmpty() ? null : BitcodeCache.open(bitcode, cacheDir, context);
+        if (cache == null) {
+            scanner.scanToEnd();
+        } else if (!cache.replay(bitstream, fileParser)) {
+            cache.startRecording();
+            scanner.recorder = cache;
+            scanner.scanToEnd();
+            cache.store(context);
+        }
 
         // the root block does not exist in the LLVM file and is therefore never exited by the
         // scanner
         fileParser.exit(context);
     }
 
+    static void scanBlockInfo(BitStream bitstream, ParserListener parser, Map<Block, List<AbbreviatedRecord[]>> defaultAbbreviations, long startingOffset, long endingOffset, int idSize) {
+        final LLVMScanner scanner = new LLVMScanner(bitstream, parser, defaultAbbreviations, Block.BLOCKINFO, idSize, startingOffset);
+        scanner.startSubBlock(Block.BLOCKINFO, idSize);
+        scanner.scanToOffset(endingOffset);
+    }
+
     private static <V> List<V> subList(List<V> original, int from) {
         final List<V> newList = new ArrayList<>(original.size() - from);
         for (int i = from; i < original.size(); i++) {
@@ -354,10 +372,16 @@ public final class LLVMScanner {
 
         } else if (subBlock.parseLazily()) {
             final LazyScanner lazyScanner = new LazyScanner(bitstream, new HashMap<>(defaultAbbreviations), offset, endingOffset, (int) newIdSize, subBlock);
+            if (recorder != null) {
+                recorder.lazyBlock(subBlock, offset, endingOffset, (int) newIdSize);
+            }
             offset = endingOffset;
             parser.skip(subBlock, lazyScanner);
 
         } else {
+            if (recorder != null) {
+                recorder.enterBlock(subBlock, offset, endingOffset, (int) newIdSize);
+            }
             final int localAbbreviationDefinitionsOffset = defaultAbbreviations.getOrDefault(block, Collections.emptyList()).size();
             parents.push(new ScannerState(subList(abbreviationDefinitions, localAbbreviationDefinitionsOffset), block, idSize, parser));
             parser = parser.enter(subBlock);
@@ -413,6 +437,9 @@ public final class LLVMScanner {
 
     private void exitBlock() {
         alignInt();
+        if (recorder != null) {
+            recorder.exitBlock();
+        }
         parser.exit();
 
         if (parents.isEmpty()) {
@@ -432,6 +459,9 @@ public final class LLVMScanner {
     }
 
     private void passRecordToParser() {
+        if (recorder != null) {
+            recorder.record(recordBuffer);
+        }
         parser.record(recordBuffer);
         recordBuffer.invalidate();
     }
@@ -460,7 +490,7 @@ public final class LLVMScanner {
         private final int startingIdSize;
         private final Block startingBlock;
 
-        private LazyScanner(BitStream bitstream, Map<Block, List<AbbreviatedRecord[]>> oldDefaultAbbreviations, long startingOffset, long endingOffset, int startingIdSize, Block startingBlock) {
+        LazyScanner(BitStream bitstream, Map<Block, List<AbbreviatedRecord[]>> oldDefaultAbbreviations, long startingOffset, long endingOffset, int startingIdSize, Block startingBlock) {
             this.bitstream = bitstream;
             this.oldDefaultAbbreviations = oldDefaultAbbreviations;
             this.startingOffset = startingOffset;
@@ -72,6 +72,13 @@ public final class RecordBuffer {
         index = 1;
     }
 
+    /**
+     * Returns the operand at {@code pos}, where position 0 is the record id.
+     */
+    long getRaw(int pos) {
+        return opBuffer[pos];
+    }
+
     public long getAt(int pos) {
         return opBuffer[pos + 1];
     }
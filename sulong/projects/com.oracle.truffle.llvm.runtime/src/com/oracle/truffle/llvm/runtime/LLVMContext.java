@@ -74,6 +74,7 @@ import com.oracle.truffle.llvm.runtime.global.LLVMGlobal;
 import com.oracle.truffle.llvm.runtime.global.LLVMGlobalContainer;
 import com.oracle.truffle.llvm.runtime.instruments.trace.LLVMTracerInstrument;
 import com.oracle.truffle.llvm.runtime.interop.access.LLVMInteropType;
+import com.oracle.truffle.llvm.runtime.memory.LLVMArenaAllocator;
 import com.oracle.truffle.llvm.runtime.memory.LLVMMemory;
 import com.oracle.truffle.llvm.runtime.memory.LLVMMemory.HandleContainer;
 import com.oracle.truffle.llvm.runtime.memory.LLVMMemoryOpNode;
@@ -116,6 +117,7 @@ public final class LLVMContext {
     private final ArrayList<LLVMNativePointer> caughtExceptionStack = new ArrayList<>();
     private ConcurrentHashMap<String, Integer> nativeCallStatistics;        // effectively final
     // after initialization
+    @CompilationFinal private LLVMArenaAllocator arenaAllocator;
 
     private final HandleContainer handleContainer;
     private final HandleContainer derefHandleContainer;
@@ -185,6 +187,7 @@ public final class LLVMContext {
         this.cleanupNecessary = false;
         this.destructorFunctions = new ArrayList<>();
         this.nativeCallStatistics = SulongEngineOption.optionEnabled(env.getOptions().get(SulongEngineOption.NATIVE_CALL_STATS)) ? new ConcurrentHashMap<>() : null;
+        this.arenaAllocator = env.getOptions().get(SulongEngineOption.ARENA_MALLOC) ? new LLVMArenaAllocator() : null;
         this.sigDfl = LLVMNativePointer.create(0);
         this.sigIgn = LLVMNativePointer.create(1);
         this.sigErr = LLVMNativePointer.create(-1);
@@ -219,6 +222,7 @@ public final class LLVMContext {
         }
         this.env = newEnv;
         this.nativeCallStatistics = SulongEngineOption.optionEnabled(this.env.getOptions().get(SulongEngineOption.NATIVE_CALL_STATS)) ? new ConcurrentHashMap<>() : null;
+        this.arenaAllocator = newEnv.getOptions().get(SulongEngineOption.ARENA_MALLOC) ? new LLVMArenaAllocator() : null;
         this.mainArguments = getMainArguments(newEnv);
         return true;
     }
@@ -557,6 +561,10 @@ public final class LLVMContext {
         if (lifetimeAnalysisStream != null) {
             lifetimeAnalysisStream.dispose();
         }
+
+        if (arenaAllocator != null) {
+            arenaAllocator.dispose();
+        }
     }
 
     /**
@@ -858,6 +866,14 @@ public final class LLVMContext {
         return caughtExceptionStack;
     }
 
+    /**
+     * Returns the allocator for small {@code malloc} requests, or {@code null} if small requests
+     * go to the system allocator.
+     */
+    public LLVMArenaAllocator getArenaAllocator() {
+        return arenaAllocator;
+    }
+
     public LLVMThreadingStack getThreadingStack() {
         assert threadingStack != null;
         return threadingStack;
@@ -57,6 +57,7 @@ import com.oracle.truffle.llvm.runtime.debug.debugexpr.nodes.DebugExprExecutable
 import com.oracle.truffle.llvm.runtime.debug.debugexpr.parser.DebugExprException;
 import com.oracle.truffle.llvm.runtime.debug.scope.LLVMDebuggerScopeFactory;
 import com.oracle.truffle.llvm.runtime.except.LLVMParserException;
+import com.oracle.truffle.llvm.runtime.memory.LLVMArenaAllocator;
 import com.oracle.truffle.llvm.runtime.memory.LLVMMemory;
 import com.oracle.truffle.llvm.runtime.options.SulongEngineOption;
 import org.graalvm.options.OptionDescriptors;
@@ -272,6 +273,10 @@ public class LLVMLanguage extends TruffleLanguage<LLVMContext> {
         if (context.isInitialized()) {
             context.getThreadingStack().freeStack(getLLVMMemory(), thread);
         }
+        LLVMArenaAllocator arenaAllocator = context.getArenaAllocator();
+        if (arenaAllocator != null) {
+            arenaAllocator.releaseThread(thread);
+        }
     }
 
     @Override
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates.
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors may be used to
+ * endorse or promote products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.oracle.truffle.llvm.runtime.memory;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
+
+import sun.misc.Unsafe;
+
+/**
+ * A size-class allocator for small {@code malloc} requests of a context.
+ * <p>
+ * Memory is taken from the system in arenas of {@link #ARENA_SIZE} bytes. An arena is split into
+ * slabs of {@link #SLAB_SIZE} bytes, and each slab holds blocks of a single size class. The arena of
+ * a block is found by a binary search over the arena start addresses, and its size class is then
+ * computed from the offset in the arena, so blocks need no header. Free blocks are kept in singly linked lists
+ * whose next pointers are stored in the first word of the block: one list per size class and thread,
+ * and a shared list per size class that is used to balance blocks between threads.
+ * <p>
+ * The size class lookup and the thread cache accesses are partially evaluated, so that a
+ * {@code malloc} or {@code free} in compiled code only pops or pushes a list head. The cache of the
+ * thread that created the allocator is kept in a field; the caches of other threads are looked up
+ * behind a boundary. Only moving blocks between a thread cache and the shared lists, which takes
+ * the lock and may allocate a new arena, is behind a boundary.
+ * <p>
+ * Requests larger than the largest size class, and pointers that do not belong to an arena, are not
+ * handled by this allocator; callers fall back to the system allocator for them. The free blocks
+ * cached by a thread are returned to the shared lists by {@link #releaseThread}. Memory of an arena
+ * is only returned to the system when the context is disposed. Arena pointers must not be freed or
+ * reallocated by native code.
+ */
+public final class LLVMArenaAllocator {
+
+    private static final Unsafe unsafe = getUnsafe();
+
+    private static Unsafe getUnsafe() {
+        CompilerAsserts.neverPartOfCompilation();
+        try {
+            Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return (Unsafe) theUnsafe.get(null);
+        } catch (Exception e) {
+            throw new AssertionError();
+        }
+    }
+
+    private static final int SLAB_SHIFT = 16;
+    static final long SLAB_SIZE = 1L << SLAB_SHIFT; // 64 KB
+    private static final int ARENA_SHIFT = 22;
+    static final long ARENA_SIZE = 1L << ARENA_SHIFT; // 4 MB
+    private static final int SLABS_PER_ARENA = (int) (ARENA_SIZE / SLAB_SIZE);
+
+    /** Block sizes; all are multiples of 16 to keep the alignment guarantee of malloc. */
+    private static final long[] SIZE_CLASSES = {16, 32, 48, 64, 80, 96, 128, 160, 192, 256, 320, 384, 512, 768, 1024, 1536, 2048};
+    static final long MAX_SMALL_SIZE = SIZE_CLASSES[SIZE_CLASSES.length - 1];
+
+    /** Maximum number of free blocks per size class in a thread cache. */
+    private static final int THREAD_CACHE_LIMIT = 256;
+    /** Number of blocks moved between a thread cache and the shared lists at once. */
+    private static final int TRANSFER_BATCH = 64;
+
+    /** Size class of the slabs that were not carved yet. */
+    private static final byte UNUSED_SLAB = -1;
+
+    private static final class Arena {
+        final long base;
+        final byte[] slabClass = new byte[SLABS_PER_ARENA];
+        int usedSlabs;
+
+        Arena(long base) {
+            this.base = base;
+            Arrays.fill(slabClass, UNUSED_SLAB);
+        }
+    }
+
+    private static final class ThreadCache {
+        final long[] heads = new long[SIZE_CLASSES.length];
+        final int[] counts = new int[SIZE_CLASSES.length];
+    }
+
+    private final Thread mainThread;
+    private final ThreadCache mainThreadCache;
+    private final ThreadLocal<ThreadCache> threadCaches = ThreadLocal.withInitial(this::registerThreadCache);
+
+    /** All arenas sorted by base address; copy-on-write, so lookups need no lock. */
+    private volatile Arena[] arenas = new Arena[0];
+
+    // guarded by this
+    private final long[] sharedHeads = new long[SIZE_CLASSES.length];
+    private final HashMap<Thread, ThreadCache> registeredCaches = new HashMap<>();
+    private Arena currentArena;
+
+    public LLVMArenaAllocator() {
+        this.mainThread = Thread.currentThread();
+        this.mainThreadCache = registerThreadCache();
+    }
+
+    /**
+     * Returns the size class index for a request of <code>size</code> bytes, or -1 if the request
+     * is not handled by this allocator. Folds to a constant for constant sizes.
+     */
+    @ExplodeLoop
+    static int sizeClass(long size) {
+        if (size < 0) {
+            // sizes of 2^63 bytes and more
+            return -1;
+        }
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (size <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Allocates a block of at least <code>size</code> bytes, or returns 0 if the size is not
+     * handled by this allocator.
+     */
+    public long allocate(long size) {
+        int sizeClass = sizeClass(size);
+        if (sizeClass < 0) {
+            return 0;
+        }
+        ThreadCache cache = getThreadCache();
+        long block = cache.heads[sizeClass];
+        if (block == 0) {
+            refill(cache, sizeClass);
+            block = cache.heads[sizeClass];
+        }
+        cache.heads[sizeClass] = unsafe.getLong(block);
+        cache.counts[sizeClass]--;
+        return block;
+    }
+
+    /**
+     * Frees a block of this allocator. Returns <code>false</code> without doing anything if the
+     * address does not belong to this allocator.
+     */
+    public boolean free(long address) {
+        int sizeClass = lookupSizeClass(address);
+        if (sizeClass < 0) {
+            return false;
+        }
+        ThreadCache cache = getThreadCache();
+        unsafe.putLong(address, cache.heads[sizeClass]);
+        cache.heads[sizeClass] = address;
+        if (++cache.counts[sizeClass] > THREAD_CACHE_LIMIT) {
+            flush(cache, sizeClass);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the usable size of a block of this allocator, or -1 if the address does not belong
+     * to this allocator.
+     */
+    public long getUsableSize(long address) {
+        int sizeClass = lookupSizeClass(address);
+        return sizeClass < 0 ? -1 : SIZE_CLASSES[sizeClass];
+    }
+
+    private int lookupSizeClass(long address) {
+        Arena[] sorted = arenas;
+        // find the last arena that starts at or before the address
+        int low = 0;
+        int high = sorted.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(sorted[mid].base, address) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (high < 0) {
+            return -1;
+        }
+        Arena arena = sorted[high];
+        long offset = address - arena.base;
+        if (Long.compareUnsigned(offset, ARENA_SIZE) >= 0) {
+            return -1;
+        }
+        // UNUSED_SLAB for slabs that never handed out a block
+        return arena.slabClass[(int) (offset >>> SLAB_SHIFT)];
+    }
+
+    private ThreadCache getThreadCache() {
+        if (Thread.currentThread() == mainThread) {
+            return mainThreadCache;
+        }
+        return getOtherThreadCache();
+    }
+
+    @TruffleBoundary
+    private ThreadCache getOtherThreadCache() {
+        return threadCaches.get();
+    }
+
+    private synchronized ThreadCache registerThreadCache() {
+        ThreadCache cache = new ThreadCache();
+        registeredCaches.put(Thread.currentThread(), cache);
+        return cache;
+    }
+
+    /**
+     * Returns the free blocks cached by <code>thread</code> to the shared lists, so that other
+     * threads can reuse them. Must be called when the thread is disposed and does not run code of
+     * the context anymore.
+     */
+    @TruffleBoundary
+    public void releaseThread(Thread thread) {
+        synchronized (this) {
+            // the cache of the main thread stays in use if the thread enters the context again
+            ThreadCache cache = thread == mainThread ? registeredCaches.get(thread) : registeredCaches.remove(thread);
+            if (cache != null) {
+                for (int sizeClass = 0; sizeClass < SIZE_CLASSES.length; sizeClass++) {
+                    while (cache.heads[sizeClass] != 0) {
+                        long block = cache.heads[sizeClass];
+                        cache.heads[sizeClass] = unsafe.getLong(block);
+                        unsafe.putLong(block, sharedHeads[sizeClass]);
+                        sharedHeads[sizeClass] = block;
+                    }
+                    cache.counts[sizeClass] = 0;
+                }
+            }
+        }
+        if (thread != mainThread && thread == Thread.currentThread()) {
+            threadCaches.remove();
+        }
+    }
+
+    @TruffleBoundary
+    private synchronized void refill(ThreadCache cache, int sizeClass) {
+        if (sharedHeads[sizeClass] == 0) {
+            carveSlab(sizeClass);
+        }
+        for (int i = 0; i < TRANSFER_BATCH && sharedHeads[sizeClass] != 0; i++) {
+            long block = sharedHeads[sizeClass];
+            sharedHeads[sizeClass] = unsafe.getLong(block);
+            unsafe.putLong(block, cache.heads[sizeClass]);
+            cache.heads[sizeClass] = block;
+            cache.counts[sizeClass]++;
+        }
+    }
+
+    @TruffleBoundary
+    private synchronized void flush(ThreadCache cache, int sizeClass) {
+        for (int i = 0; i < TRANSFER_BATCH; i++) {
+            long block = cache.heads[sizeClass];
+            cache.heads[sizeClass] = unsafe.getLong(block);
+            cache.counts[sizeClass]--;
+            unsafe.putLong(block, sharedHeads[sizeClass]);
+            sharedHeads[sizeClass] = block;
+        }
+    }
+
+    private void carveSlab(int sizeClass) {
+        assert Thread.holdsLock(this);
+        Arena arena = currentArena;
+        if (arena == null || arena.usedSlabs == SLABS_PER_ARENA) {
+            arena = allocateArena();
+        }
+        int slab = arena.usedSlabs++;
+        arena.slabClass[slab] = (byte) sizeClass;
+        long blockSize = SIZE_CLASSES[sizeClass];
+        long start = arena.base + slab * SLAB_SIZE;
+        long end = start + SLAB_SIZE - blockSize;
+        // link the blocks in address order
+        for (long block = end; block >= start; block -= blockSize) {
+            unsafe.putLong(block, sharedHeads[sizeClass]);
+            sharedHeads[sizeClass] = block;
+        }
+    }
+
+    private Arena allocateArena() {
+        // the system allocator returns 16 byte aligned memory, so all blocks keep that alignment
+        long base = unsafe.allocateMemory(ARENA_SIZE);
+        Arena arena = new Arena(base);
+        Arena[] oldArenas = arenas;
+        Arena[] newArenas = Arrays.copyOf(oldArenas, oldArenas.length + 1);
+        int index = oldArenas.length;
+        while (index > 0 && Long.compareUnsigned(newArenas[index - 1].base, base) > 0) {
+            newArenas[index] = newArenas[index - 1];
+            index--;
+        }
+        newArenas[index] = arena;
+        arenas = newArenas;
+        currentArena = arena;
+        return arena;
+    }
+
+    /**
+     * Releases all arenas. Must only be called when no code of the context runs anymore.
+     */
+    public synchronized void dispose() {
+        for (Arena arena : arenas) {
+            unsafe.freeMemory(arena.base);
+        }
+        arenas = new Arena[0];
+        Arrays.fill(sharedHeads, 0);
+        registeredCaches.clear();
+        currentArena = null;
+    }
+}
@@ -30,10 +30,13 @@
 package com.oracle.truffle.llvm.runtime.nodes.intrinsics.llvm;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.CachedLanguage;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.llvm.runtime.LLVMContext;
 import com.oracle.truffle.llvm.runtime.LLVMLanguage;
+import com.oracle.truffle.llvm.runtime.memory.LLVMArenaAllocator;
 import com.oracle.truffle.llvm.runtime.memory.LLVMMemSetNode;
 import com.oracle.truffle.llvm.runtime.memory.LLVMMemoryOpNode;
 import com.oracle.truffle.llvm.runtime.nodes.api.LLVMExpressionNode;
@@ -41,14 +44,30 @@ import com.oracle.truffle.llvm.runtime.pointer.LLVMNativePointer;
 
 public abstract class LLVMMemoryIntrinsic extends LLVMExpressionNode {
 
+    /**
+     * Allocates from the {@link LLVMArenaAllocator arena allocator} of the context if it is
+     * enabled and handles the size, otherwise from the system allocator.
+     */
+    protected final LLVMNativePointer allocate(LLVMContext context, LLVMLanguage language, long size) {
+        LLVMArenaAllocator arena = context.getArenaAllocator();
+        if (arena != null) {
+            long block = arena.allocate(size);
+            if (block != 0) {
+                return LLVMNativePointer.create(block);
+            }
+        }
+        return language.getLLVMMemory().allocateMemory(this, size);
+    }
+
     @NodeChild(type = LLVMExpressionNode.class)
     public abstract static class LLVMMalloc extends LLVMMemoryIntrinsic {
 
         @Specialization
         protected LLVMNativePointer doVoid(int size,
+                        @CachedContext(LLVMLanguage.class) LLVMContext context,
                         @CachedLanguage LLVMLanguage language) {
             try {
-                return language.getLLVMMemory().allocateMemory(this, size);
+                return allocate(context, language, size);
             } catch (OutOfMemoryError e) {
                 CompilerDirectives.transferToInterpreter();
                 return LLVMNativePointer.createNull();
@@ -57,9 +76,10 @@ public abstract class LLVMMemoryIntrinsic extends LLVMExpressionNode {
 
         @Specialization
         protected LLVMNativePointer doVoid(long size,
+                        @CachedContext(LLVMLanguage.class) LLVMContext context,
                         @CachedLanguage LLVMLanguage language) {
             try {
-                return language.getLLVMMemory().allocateMemory(this, size);
+                return allocate(context, language, size);
             } catch (OutOfMemoryError e) {
                 CompilerDirectives.transferToInterpreter();
                 return LLVMNativePointer.createNull();
@@ -78,10 +98,11 @@ public abstract class LLVMMemoryIntrinsic extends LLVMExpressionNode {
 
         @Specialization
         protected LLVMNativePointer doVoid(int n, int size,
+                        @CachedContext(LLVMLanguage.class) LLVMContext context,
                         @CachedLanguage LLVMLanguage language) {
             try {
                 long length = Math.multiplyExact(n, size);
-                LLVMNativePointer address = language.getLLVMMemory().allocateMemory(this, length);
+                LLVMNativePointer address = allocate(context, language, length);
                 memSet.executeWithTarget(address, (byte) 0, length);
                 return address;
             } catch (OutOfMemoryError | ArithmeticException e) {
@@ -92,10 +113,11 @@ public abstract class LLVMMemoryIntrinsic extends LLVMExpressionNode {
 
         @Specialization
         protected LLVMNativePointer doVoid(long n, long size,
+                        @CachedContext(LLVMLanguage.class) LLVMContext context,
                         @CachedLanguage LLVMLanguage language) {
             try {
                 long length = Math.multiplyExact(n, size);
-                LLVMNativePointer address = language.getLLVMMemory().allocateMemory(this, length);
+                LLVMNativePointer address = allocate(context, language, length);
                 memSet.executeWithTarget(address, (byte) 0, length);
                 return address;
             } catch (OutOfMemoryError | ArithmeticException e) {
@@ -113,15 +135,30 @@ public abstract class LLVMMemoryIntrinsic extends LLVMExpressionNode {
 
         @Specialization
         protected LLVMNativePointer doVoid(LLVMNativePointer addr, int size,
+                        @CachedContext(LLVMLanguage.class) LLVMContext context,
                         @CachedLanguage LLVMLanguage language) {
-            return doVoid(addr, (long) size, language);
+            return doVoid(addr, (long) size, context, language);
         }
 
         @Specialization
         @SuppressWarnings("deprecation")
         protected LLVMNativePointer doVoid(LLVMNativePointer addr, long size,
+                        @CachedContext(LLVMLanguage.class) LLVMContext context,
                         @CachedLanguage LLVMLanguage language) {
             try {
+                LLVMArenaAllocator arena = context.getArenaAllocator();
+                if (arena != null && !addr.isNull()) {
+                    long usableSize = arena.getUsableSize(addr.asNative());
+                    if (usableSize >= 0) {
+                        if (Long.compareUnsigned(size, usableSize) <= 0) {
+                            return addr;
+                        }
+                        LLVMNativePointer newAddr = allocate(context, language, size);
+                        language.getLLVMMemory().copyMemory(this, addr.asNative(), newAddr.asNative(), usableSize);
+                        arena.free(addr.asNative());
+                        return newAddr;
+                    }
+                }
                 return language.getLLVMMemory().reallocateMemory(this, addr, size);
             } catch (OutOfMemoryError e) {
                 CompilerDirectives.transferToInterpreter();
@@ -141,8 +178,12 @@ public abstract class LLVMMemoryIntrinsic extends LLVMExpressionNode {
 
         @Specialization
         protected Object doVoid(LLVMNativePointer address,
+                        @CachedContext(LLVMLanguage.class) LLVMContext context,
                         @CachedLanguage LLVMLanguage language) {
-            language.getLLVMMemory().free(this, address);
+            LLVMArenaAllocator arena = context.getArenaAllocator();
+            if (arena == null || !arena.free(address.asNative())) {
+                language.getLLVMMemory().free(this, address);
+            }
             return null;
         }
     }
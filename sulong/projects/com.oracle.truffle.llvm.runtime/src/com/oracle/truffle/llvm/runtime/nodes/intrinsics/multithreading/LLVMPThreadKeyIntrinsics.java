@@ -48,8 +48,8 @@ public final class LLVMPThreadKeyIntrinsics {
         @Specialization
         protected int doIntrinsic(LLVMPointer destructor,
                         @CachedContext(LLVMLanguage.class) LLVMContext context) {
-            // add new key-value to key-storage, which is a
-            // hashmap(key-value->hashmap(thread-id->specific-value))
+            // register the new key, 0 if there are too many keys; the specific values are stored
+            // in a per-thread array indexed by the slot of the key
             return context.getpThreadContext().createPThreadKey(destructor);
         }
     }
@@ -88,7 +88,7 @@ public final class LLVMPThreadStart {
             } finally {
                 // call destructors from key create
                 if (this.isThread) {
-                    for (int key = 1; key <= pThreadContext.getNumberOfPthreadKeys(); key++) {
+                    for (int key : pThreadContext.getPThreadKeys()) {
                         final LLVMPointer destructor = pThreadContext.getDestructor(key);
                         if (destructor != null && !destructor.isNull()) {
                             final LLVMPointer keyMapping = pThreadContext.getAndRemoveSpecificUnlessNull(key);
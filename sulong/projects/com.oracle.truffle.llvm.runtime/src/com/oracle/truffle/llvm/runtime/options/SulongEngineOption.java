@@ -130,6 +130,12 @@ public final class SulongEngineOption {
             deprecated = true)
     public static final OptionKey<Boolean> ENABLE_LVI = new OptionKey<>(false);
 
+    @Option(name = "llvm.arenaMalloc",
+            category = OptionCategory.EXPERT,
+            help = "Serve small malloc requests of bitcode from a Sulong-internal size-class allocator instead of the system allocator. " +
+                   "Pointers allocated this way must not be freed or reallocated by native code.")
+    public static final OptionKey<Boolean> ARENA_MALLOC = new OptionKey<>(false);
+
     @Option(name = "llvm.OSR",
             category = OptionCategory.EXPERT,
             help = "Enable on-stack-replacement of loops.")
@@ -141,6 +147,12 @@ public final class SulongEngineOption {
             help = "Enable lazy parsing of LLVM bitcode files.")
     public static final OptionKey<Boolean> LAZY_PARSING = new OptionKey<>(true);
 
+    @Option(name = "llvm.bitcodeCacheDir",
+            category = OptionCategory.EXPERT,
+            help = "Directory in which the scanned records of loaded bitcode files are cached, keyed by the hash of the bitcode. " +
+                   "Later loads of unchanged files replay the cached records instead of decoding the bitstream. Disabled if empty.")
+    public static final OptionKey<String> BITCODE_CACHE_DIR = new OptionKey<>("");
+
     @Option(name = "llvm.llDebug",
             category = OptionCategory.EXPERT,
             help = "Enable IR-level debugging of LLVM bitcode files.")
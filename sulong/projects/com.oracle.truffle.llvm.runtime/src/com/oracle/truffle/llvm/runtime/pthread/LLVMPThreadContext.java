@@ -36,6 +36,8 @@ import com.oracle.truffle.llvm.runtime.LLVMContext;
 import com.oracle.truffle.llvm.runtime.nodes.intrinsics.multithreading.LLVMPThreadStart;
 import com.oracle.truffle.llvm.runtime.pointer.LLVMPointer;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -51,10 +53,24 @@ public final class LLVMPThreadContext {
     private final ConcurrentMap<Long, Thread> threadStorage;
     private volatile boolean isCreateThreadAllowed;
 
-    private int pThreadKey;
+    /*
+     * A pthread key consists of a slot index in the lower KEY_SLOT_BITS bits and the number of
+     * times the slot has been reused in the bits above. The slots of deleted keys are reused, so
+     * the slot arrays only grow with the number of keys that exist at the same time, and a stale
+     * key of a reused slot is invalid.
+     */
+    private static final int KEY_SLOT_BITS = 16;
+    private static final int KEY_SLOT_MASK = (1 << KEY_SLOT_BITS) - 1;
+
     private final Object pThreadKeyLock;
-    private final ConcurrentMap<Integer, ConcurrentMap<Long, LLVMPointer>> pThreadKeyStorage;
-    private final ConcurrentMap<Integer, LLVMPointer> pThreadDestructorStorage;
+    // copy-on-write, indexed by slot; slot 0 is never used, so 0 is never a valid key
+    private volatile PThreadKey[] pThreadKeys;
+    private int pThreadKeySlots;
+    private final ArrayDeque<Integer> freePThreadKeySlots;
+    // the values of all keys of the current thread, indexed by slot
+    private final Thread mainThread;
+    private final ThreadSpecificValues mainThreadSpecificValues;
+    private final ThreadLocal<ThreadSpecificValues> pThreadSpecificValues;
 
     private final CallTarget pthreadCallTarget;
 
@@ -65,10 +81,13 @@ public final class LLVMPThreadContext {
         this.threadLock = new Object();
         this.threadReturnValueStorage = new ConcurrentHashMap<>();
         this.threadStorage = new ConcurrentHashMap<>();
-        this.pThreadKey = 0;
         this.pThreadKeyLock = new Object();
-        this.pThreadKeyStorage = new ConcurrentHashMap<>();
-        this.pThreadDestructorStorage = new ConcurrentHashMap<>();
+        this.pThreadKeys = new PThreadKey[1];
+        this.pThreadKeySlots = 1;
+        this.freePThreadKeySlots = new ArrayDeque<>();
+        this.mainThread = Thread.currentThread();
+        this.mainThreadSpecificValues = new ThreadSpecificValues();
+        this.pThreadSpecificValues = ThreadLocal.withInitial(ThreadSpecificValues::new);
         this.pthreadCallTarget = Truffle.getRuntime().createCallTarget(new LLVMPThreadStart.LLVMPThreadFunctionRootNode(context.getLanguage()));
         this.isCreateThreadAllowed = true;
     }
@@ -89,55 +108,70 @@ public final class LLVMPThreadContext {
         }
     }
 
+    /**
+     * Creates a new key, or returns {@code 0} if all key slots are in use.
+     */
+    @TruffleBoundary
     public int createPThreadKey(LLVMPointer destructor) {
+        assert destructor != null;
         synchronized (pThreadKeyLock) {
-            // create new key
-            pThreadKey++;
-
-            // register the key
-            registerPThreadKey(pThreadKey, destructor);
-
-            // return the created key
-            return pThreadKey;
+            PThreadKey[] keys = pThreadKeys;
+            int key;
+            if (!freePThreadKeySlots.isEmpty()) {
+                int slot = freePThreadKeySlots.poll();
+                int reuses = (keys[slot].key >>> KEY_SLOT_BITS) + 1;
+                key = ((reuses << KEY_SLOT_BITS) & Integer.MAX_VALUE) | slot;
+                keys = keys.clone();
+            } else if (pThreadKeySlots <= KEY_SLOT_MASK) {
+                key = pThreadKeySlots++;
+                keys = Arrays.copyOf(keys, key < keys.length ? keys.length : keys.length * 2);
+            } else {
+                return 0;
+            }
+            keys[key & KEY_SLOT_MASK] = new PThreadKey(key, destructor);
+            pThreadKeys = keys;
+            return key;
         }
     }
 
-    @TruffleBoundary
-    private void registerPThreadKey(int key, LLVMPointer destructor) {
-        // register destructor with new key
-        pThreadDestructorStorage.put(key, destructor);
-
-        // register key storage
-        pThreadKeyStorage.put(key, new ConcurrentHashMap<>());
-    }
-
-    public int getNumberOfPthreadKeys() {
-        return pThreadKey;
-    }
-
     @TruffleBoundary
     public void deletePThreadKey(int keyId) {
         synchronized (pThreadKeyLock) {
-            pThreadKeyStorage.remove(keyId);
-            pThreadDestructorStorage.remove(keyId);
+            if (isValidKey(keyId)) {
+                int slot = keyId & KEY_SLOT_MASK;
+                PThreadKey[] keys = pThreadKeys.clone();
+                keys[slot] = new PThreadKey(keyId, null);
+                pThreadKeys = keys;
+                freePThreadKeySlots.add(slot);
+            }
         }
     }
 
+    /**
+     * Returns all keys that currently exist.
+     */
     @TruffleBoundary
+    public int[] getPThreadKeys() {
+        PThreadKey[] keys = pThreadKeys;
+        return Arrays.stream(keys).filter(k -> k != null && k.destructor != null).mapToInt(k -> k.key).toArray();
+    }
+
+    private boolean isValidKey(int keyId) {
+        PThreadKey[] keys = pThreadKeys;
+        int slot = keyId & KEY_SLOT_MASK;
+        return slot < keys.length && keys[slot] != null && keys[slot].key == keyId && keys[slot].destructor != null;
+    }
+
     public LLVMPointer getSpecific(int keyId) {
-        final ConcurrentMap<Long, LLVMPointer> value = pThreadKeyStorage.get(keyId);
-        if (value != null) {
-            final long threadId = Thread.currentThread().getId();
-            return value.get(threadId);
+        if (isValidKey(keyId)) {
+            return getThreadSpecificValues().get(keyId);
         }
         return null;
     }
 
-    @TruffleBoundary
     public boolean setSpecific(int keyId, LLVMPointer value) {
-        final ConcurrentMap<Long, LLVMPointer> specificStore = pThreadKeyStorage.get(keyId);
-        if (specificStore != null) {
-            specificStore.put(Thread.currentThread().getId(), value);
+        if (isValidKey(keyId)) {
+            getThreadSpecificValues().set(keyId, value);
             return true;
         }
         return false;
@@ -145,12 +179,11 @@ public final class LLVMPThreadContext {
 
     @TruffleBoundary
     public LLVMPointer getAndRemoveSpecificUnlessNull(int keyId) {
-        final ConcurrentMap<Long, LLVMPointer> value = pThreadKeyStorage.get(keyId);
-        if (value != null) {
-            final long threadId = Thread.currentThread().getId();
-            final LLVMPointer keyMapping = value.get(threadId);
+        if (isValidKey(keyId)) {
+            final ThreadSpecificValues values = getThreadSpecificValues();
+            final LLVMPointer keyMapping = values.get(keyId);
             if (keyMapping != null && !keyMapping.isNull()) {
-                value.remove(threadId);
+                values.set(keyId, null);
                 return keyMapping;
             }
         }
@@ -159,7 +192,24 @@ public final class LLVMPThreadContext {
 
     @TruffleBoundary
     public LLVMPointer getDestructor(int keyId) {
-        return pThreadDestructorStorage.get(keyId);
+        return isValidKey(keyId) ? pThreadKeys[keyId & KEY_SLOT_MASK].destructor : null;
+    }
+
+    /**
+     * This Truffle version has no context thread locals, so the values of threads other than the
+     * main thread are looked up in a {@link ThreadLocal} behind a boundary. The main thread, which
+     * usually does most of the work, reaches its values without a boundary call.
+     */
+    private ThreadSpecificValues getThreadSpecificValues() {
+        if (Thread.currentThread() == mainThread) {
+            return mainThreadSpecificValues;
+        }
+        return getOtherThreadSpecificValues();
+    }
+
+    @TruffleBoundary
+    private ThreadSpecificValues getOtherThreadSpecificValues() {
+        return pThreadSpecificValues.get();
     }
 
     @TruffleBoundary
@@ -183,6 +233,7 @@ public final class LLVMPThreadContext {
     @TruffleBoundary
     public void clearThreadId() {
         threadStorage.remove(Thread.currentThread().getId());
+        pThreadSpecificValues.remove();
     }
 
     @TruffleBoundary
@@ -198,4 +249,48 @@ public final class LLVMPThreadContext {
     public CallTarget getPthreadCallTarget() {
         return pthreadCallTarget;
     }
+
+    private static final class PThreadKey {
+
+        final int key;
+        // null once the key has been deleted
+        final LLVMPointer destructor;
+
+        PThreadKey(int key, LLVMPointer destructor) {
+            this.key = key;
+            this.destructor = destructor;
+        }
+    }
+
+    /**
+     * The values of all pthread keys of one thread, indexed by slot. Only accessed by its owning
+     * thread, so a lookup is a plain array load. Each value is stored together with its key, so
+     * that a value set for a deleted key is not visible through a key that reuses its slot.
+     */
+    private static final class ThreadSpecificValues {
+
+        private LLVMPointer[] values = new LLVMPointer[8];
+        private int[] keys = new int[8];
+
+        LLVMPointer get(int key) {
+            int slot = key & KEY_SLOT_MASK;
+            return slot < keys.length && keys[slot] == key ? values[slot] : null;
+        }
+
+        void set(int key, LLVMPointer value) {
+            int slot = key & KEY_SLOT_MASK;
+            if (slot >= keys.length) {
+                grow(slot + 1);
+            }
+            values[slot] = value;
+            keys[slot] = key;
+        }
+
+        @TruffleBoundary
+        private void grow(int minLength) {
+            int length = Math.max(minLength, keys.length * 2);
+            values = Arrays.copyOf(values, length);
+            keys = Arrays.copyOf(keys, length);
+        }
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates.
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors may be used to
+ * endorse or promote products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.oracle.truffle.llvm;
+
+import com.oracle.truffle.api.source.Source;
+import com.oracle.truffle.llvm.parser.LLVMParser;
+import com.oracle.truffle.llvm.parser.model.ModelModule;
+import com.oracle.truffle.llvm.parser.model.functions.LazyFunctionParser;
+import com.oracle.truffle.llvm.runtime.LLVMContext;
+import com.oracle.truffle.llvm.runtime.LLVMLanguage;
+import com.oracle.truffle.llvm.runtime.options.SulongEngineOption;
+import org.graalvm.options.OptionValues;
+
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Shares the scanned {@link ModelModule} of Sulong's internal libraries (libsulong, libc, libc++,
+ * ...) between the contexts that use the same {@link LLVMLanguage} instance, i.e., between
+ * contexts of the same engine. The scanned module does not depend on the context. This is the only
+ * part of loading a library that is shared: {@link LLVMLanguage} keeps the exclusive context
+ * policy, so the symbols, nodes and call targets are still created per context by the
+ * {@link LLVMParser}, and function bodies are parsed again for every context that converts them
+ * (see {@link LazyFunctionParser#release()}).
+ *
+ * The cache key includes the values of the options that are read while a module is scanned or
+ * while its function bodies are parsed. Modules with debug information are not shared, since
+ * their debug information is resolved against the file system and the source context of the
+ * context that scanned them.
+ */
+final class ModelModuleCache {
+
+    private static final WeakHashMap<LLVMLanguage, HashMap<Key, SoftReference<ModelModule>>> CACHES = new WeakHashMap<>();
+
+    private static final class Key {
+
+        private final Source source;
+        private final boolean llDebug;
+        private final String llDebugSources;
+
+        Key(Source source, OptionValues options) {
+            this.source = source;
+            this.llDebug = options.get(SulongEngineOption.LL_DEBUG);
+            this.llDebugSources = options.get(SulongEngineOption.LL_DEBUG_SOURCES);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return source.equals(other.source) && llDebug == other.llDebug && llDebugSources.equals(other.llDebugSources);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, llDebug, llDebugSources);
+        }
+    }
+
+    private ModelModuleCache() {
+    }
+
+    static ModelModule getOrScan(LLVMContext context, Source source, Supplier<ModelModule> scanner) {
+        Key key = new Key(source, context.getEnv().getOptions());
+        LLVMLanguage language = context.getLanguage();
+        ModelModule cached = lookup(language, key);
+        if (cached != null) {
+            return cached;
+        }
+        // scan outside of the lock, other libraries can be scanned in parallel
+        ModelModule module = scanner.get();
+        if (module.hasDebugInfo()) {
+            return module;
+        }
+        synchronized (CACHES) {
+            cached = lookup(language, key);
+            if (cached != null) {
+                // another context scanned the same library concurrently
+                return cached;
+            }
+            CACHES.computeIfAbsent(language, l -> new HashMap<>()).put(key, new SoftReference<>(module));
+            return module;
+        }
+    }
+
+    private static ModelModule lookup(LLVMLanguage language, Key key) {
+        synchronized (CACHES) {
+            HashMap<Key, SoftReference<ModelModule>> cache = CACHES.get(language);
+            SoftReference<ModelModule> ref = cache == null ? null : cache.get(key);
+            return ref == null ? null : ref.get();
+        }
+    }
+}
@@ -1249,9 +1249,13 @@ final class Runner {
      * Parses a binary (bitcode with optional meta information from an ELF, Mach-O object file).
      */
     private LLVMParserResult parseBinary(BinaryParserResult binaryParserResult, ExternalLibrary library) {
-        ModelModule module = new ModelModule();
         Source source = binaryParserResult.getSource();
-        LLVMScanner.parseBitcode(binaryParserResult.getBitcode(), module, source, context);
+        ModelModule module;
+        if (context.isInternalLibrary(library)) {
+            module = ModelModuleCache.getOrScan(context, source, () -> scanBitcode(binaryParserResult));
+        } else {
+            module = scanBitcode(binaryParserResult);
+        }
         TargetDataLayout layout = module.getTargetDataLayout();
         DataLayout targetDataLayout = new DataLayout(layout.getDataLayout());
         NodeFactory nodeFactory = context.getLanguage().getActiveConfiguration().createNodeFactory(context, targetDataLayout);
@@ -1265,6 +1269,12 @@ final class Runner {
         return result;
     }
 
+    private ModelModule scanBitcode(BinaryParserResult binaryParserResult) {
+        ModelModule module = new ModelModule();
+        LLVMScanner.parseBitcode(binaryParserResult.getBitcode(), module, binaryParserResult.getSource(), context);
+        return module;
+    }
+
     private void createDebugInfo(ModelModule model, LLVMSymbolReadResolver symbolResolver) {
         final LLVMSourceContext sourceContext = context.getSourceContext();
 
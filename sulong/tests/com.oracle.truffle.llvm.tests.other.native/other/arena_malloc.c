@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates.
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors may be used to
+ * endorse or promote products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+#include <stdlib.h>
+#include <string.h>
+
+#define SLOTS 1024
+
+/*
+ * Allocates, grows and frees small blocks in a pseudo-random pattern and returns a checksum of
+ * their contents. Also frees strings allocated by native code, which must not go to the arena.
+ */
+long churn(int rounds) {
+    char *slots[SLOTS] = { 0 };
+    size_t sizes[SLOTS] = { 0 };
+    unsigned int seed = 42;
+    long checksum = 0;
+    for (int r = 0; r < rounds; r++) {
+        for (int i = 0; i < SLOTS; i++) {
+            seed = seed * 1103515245 + 12345;
+            int slot = (seed >> 8) % SLOTS;
+            size_t size = 1 + (seed >> 20) % 300;
+            if (slots[slot] == NULL) {
+                slots[slot] = malloc(size);
+                memset(slots[slot], slot & 0x7f, size);
+                sizes[slot] = size;
+            } else if (seed & 1) {
+                size_t newSize = sizes[slot] + size;
+                slots[slot] = realloc(slots[slot], newSize);
+                memset(slots[slot] + sizes[slot], slot & 0x7f, size);
+                sizes[slot] = newSize;
+            } else {
+                for (size_t j = 0; j < sizes[slot]; j++) {
+                    checksum += slots[slot][j];
+                }
+                free(slots[slot]);
+                slots[slot] = NULL;
+            }
+        }
+        char *copy = strdup("native string");
+        checksum += strlen(copy);
+        free(copy);
+    }
+    for (int i = 0; i < SLOTS; i++) {
+        free(slots[i]);
+    }
+    return checksum;
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2020, 2020, Oracle and/or its affiliates.
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors may be used to
+ * endorse or promote products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+#include <pthread.h>
+#include <stdio.h>
+#include <stdlib.h>
+
+/*
+ * TLS-heavy micro-benchmark: every thread keeps a thread-local allocator-like counter and an
+ * errno-like status word in pthread keys and reads and updates them in a tight loop. The
+ * iteration count can be passed as the first argument to use this as a benchmark.
+ */
+
+#define NUM_THREADS 4
+#define NUM_KEYS 8
+
+static pthread_key_t keys[NUM_KEYS];
+static long iterations = 20000;
+static int destructed = 0;
+static pthread_mutex_t destructedLock = PTHREAD_MUTEX_INITIALIZER;
+
+static void destructor(void *value) {
+    pthread_mutex_lock(&destructedLock);
+    destructed++;
+    pthread_mutex_unlock(&destructedLock);
+    free(value);
+}
+
+static void *worker(void *arg) {
+    long id = (long) arg;
+    long checksum = 0;
+    for (int k = 0; k < NUM_KEYS; k++) {
+        long *slot = malloc(sizeof(long));
+        *slot = id * NUM_KEYS + k;
+        pthread_setspecific(keys[k], slot);
+    }
+    for (long i = 0; i < iterations; i++) {
+        int k = (int) (i % NUM_KEYS);
+        long *slot = pthread_getspecific(keys[k]);
+        *slot += i & 0xff;
+        checksum += *slot;
+        /* re-publish the value, as errno-like state usually is */
+        pthread_setspecific(keys[k], slot);
+    }
+    return (void *) checksum;
+}
+
+int main(int argc, char **argv) {
+    pthread_t threads[NUM_THREADS];
+    long total = 0;
+    if (argc > 1) {
+        iterations = atol(argv[1]);
+    }
+    for (int k = 0; k < NUM_KEYS; k++) {
+        if (pthread_key_create(&keys[k], destructor) != 0) {
+            return 1;
+        }
+    }
+    for (long t = 0; t < NUM_THREADS; t++) {
+        pthread_create(&threads[t], NULL, worker, (void *) t);
+    }
+    for (int t = 0; t < NUM_THREADS; t++) {
+        void *result;
+        pthread_join(threads[t], &result);
+        total += (long) result;
+    }
+    for (int k = 0; k < NUM_KEYS; k++) {
+        pthread_key_delete(keys[k]);
+    }
+    /* the slots of deleted keys are reused, and a reused key starts out with no value */
+    int reused = 1;
+    for (int i = 0; i < 1000; i++) {
+        pthread_key_t key;
+        if (pthread_key_create(&key, NULL) != 0 || pthread_getspecific(key) != NULL) {
+            reused = 0;
+        }
+        pthread_setspecific(key, &reused);
+        pthread_key_delete(key);
+    }
+    printf("checksum: %ld\n", total);
+    printf("destructed: %d\n", destructed);
+    printf("reused: %d\n", reused);
+    return 0;
+}
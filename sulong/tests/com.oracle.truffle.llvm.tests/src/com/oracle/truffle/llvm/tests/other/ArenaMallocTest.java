@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates.
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors may be used to
+ * endorse or promote products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.oracle.truffle.llvm.tests.other;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.llvm.runtime.LLVMLanguage;
+import com.oracle.truffle.llvm.runtime.memory.LLVMArenaAllocator;
+import com.oracle.truffle.llvm.tests.BaseSuiteHarness;
+import com.oracle.truffle.llvm.tests.options.TestOptions;
+
+/**
+ * Runs a malloc/realloc/free workload with and without the arena allocator and checks that both
+ * produce the same result. {@link ArenaMallocBenchmark} compares the run time of both allocators.
+ */
+public class ArenaMallocTest {
+
+    private static final Path TEST_DIR = new File(TestOptions.TEST_SUITE_PATH, "other").toPath();
+    private static final String FILENAME = "O0_MEM2REG.bc";
+
+    private static Source source;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        source = loadSource();
+    }
+
+    static Source loadSource() throws IOException {
+        File file = TEST_DIR.resolve("arena_malloc.c" + BaseSuiteHarness.TEST_DIR_EXT).resolve(FILENAME).toFile();
+        return Source.newBuilder(LLVMLanguage.ID, file).build();
+    }
+
+    static Context createContext(boolean arenaMalloc) {
+        return Context.newBuilder().allowAllAccess(true).option("llvm.arenaMalloc", String.valueOf(arenaMalloc)).build();
+    }
+
+    private static long churn(boolean arenaMalloc, int rounds) {
+        try (Context context = createContext(arenaMalloc)) {
+            return context.eval(source).invokeMember("churn", rounds).asLong();
+        }
+    }
+
+    @Test
+    public void sameResult() {
+        Assert.assertEquals(churn(false, 20), churn(true, 20));
+    }
+
+    @Test
+    public void repeatedRuns() {
+        try (Context context = createContext(true)) {
+            long expected = context.eval(source).invokeMember("churn", 5).asLong();
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(expected, context.eval(source).invokeMember("churn", 5).asLong());
+            }
+        }
+    }
+
+    @Test
+    public void hugeSizes() {
+        LLVMArenaAllocator allocator = new LLVMArenaAllocator();
+        try {
+            Assert.assertEquals(0, allocator.allocate(-1));
+            Assert.assertEquals(0, allocator.allocate(Long.MIN_VALUE));
+        } finally {
+            allocator.dispose();
+        }
+    }
+
+    @Test
+    public void foreignAddresses() {
+        LLVMArenaAllocator allocator = new LLVMArenaAllocator();
+        try {
+            long block = allocator.allocate(16);
+            Assert.assertEquals(16, allocator.getUsableSize(block));
+            // the slabs after the first one of a fresh arena were not carved yet
+            Assert.assertEquals(-1, allocator.getUsableSize(block + 4 * 64 * 1024));
+            Assert.assertFalse(allocator.free(block + 4 * 64 * 1024));
+            Assert.assertEquals(-1, allocator.getUsableSize(block - 4 * 1024 * 1024));
+            Assert.assertTrue(allocator.free(block));
+        } finally {
+            allocator.dispose();
+        }
+    }
+
+    @Test
+    public void releaseThread() throws InterruptedException {
+        LLVMArenaAllocator allocator = new LLVMArenaAllocator();
+        try {
+            long[] block = new long[1];
+            Thread thread = new Thread(() -> {
+                block[0] = allocator.allocate(32);
+                allocator.free(block[0]);
+            });
+            thread.start();
+            thread.join();
+            allocator.releaseThread(thread);
+
+            // the blocks cached by the thread are handed out again
+            Set<Long> blocks = new HashSet<>();
+            for (int i = 0; i < 64; i++) {
+                blocks.add(allocator.allocate(32));
+            }
+            Assert.assertTrue(blocks.contains(block[0]));
+        } finally {
+            allocator.dispose();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates.
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors may be used to
+ * endorse or promote products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.oracle.truffle.llvm.tests.other;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.llvm.runtime.LLVMLanguage;
+import com.oracle.truffle.llvm.tests.BaseSuiteHarness;
+import com.oracle.truffle.llvm.tests.options.TestOptions;
+
+/**
+ * Loads the same bitcode file twice with a bitcode cache directory. The first load records the
+ * scanned records, the second one replays them.
+ */
+public class BitcodeCacheTest {
+
+    private static final Path TEST_DIR = new File(TestOptions.TEST_SUITE_PATH, "other").toPath();
+    private static final String FILENAME = "O0_MEM2REG.bc";
+
+    private static Source source;
+    private static Path cacheDir;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        source = loadSource();
+        cacheDir = Files.createTempDirectory("sulong-bitcode-cache");
+    }
+
+    @AfterClass
+    public static void tearDown() throws IOException {
+        deleteRecursively(cacheDir);
+    }
+
+    static Source loadSource() throws IOException {
+        File file = TEST_DIR.resolve("context_creation.c" + BaseSuiteHarness.TEST_DIR_EXT).resolve(FILENAME).toFile();
+        return Source.newBuilder(LLVMLanguage.ID, file).build();
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    static int run(Source source, Path dir, int arg) {
+        Context.Builder builder = Context.newBuilder().allowAllAccess(true);
+        if (dir != null) {
+            builder.option("llvm.bitcodeCacheDir", dir.toString());
+        }
+        try (Context context = builder.build()) {
+            return context.eval(source).invokeMember("run", arg).asInt();
+        }
+    }
+
+    private static long countEntries(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".records")).count();
+        }
+    }
+
+    @Test
+    public void recordAndReplay() throws IOException {
+        Assert.assertEquals(4, run(source, cacheDir, 1234));
+        long entries = countEntries(cacheDir);
+        Assert.assertTrue("no cache entries written", entries > 0);
+
+        Assert.assertEquals(3, run(source, cacheDir, -12));
+        Assert.assertEquals(entries, countEntries(cacheDir));
+    }
+
+    @Test
+    public void corruptEntryIsIgnored() throws IOException {
+        Path dir = Files.createTempDirectory("sulong-bitcode-cache");
+        try {
+            run(source, dir, 0);
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.write(file, new byte[]{1, 2, 3});
+                }
+            }
+            Assert.assertEquals(2, run(source, dir, 10));
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+
+    @Test
+    public void corruptPayloadIsIgnored() throws IOException {
+        Path dir = Files.createTempDirectory("sulong-bitcode-cache");
+        try {
+            run(source, dir, 0);
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    // keep the header and the end marker intact
+                    byte[] bytes = Files.readAllBytes(file);
+                    bytes[bytes.length / 2] ^= 0x5a;
+                    Files.write(file, bytes);
+                }
+            }
+            Assert.assertEquals(4, run(source, dir, 1234));
+            Assert.assertEquals(3, run(source, dir, -12));
+        } finally {
+            deleteRecursively(dir);
+        }
+    }
+}
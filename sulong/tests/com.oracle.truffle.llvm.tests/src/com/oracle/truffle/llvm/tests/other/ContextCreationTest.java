@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates.
+ *
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are
+ * permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of
+ * conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of
+ * conditions and the following disclaimer in the documentation and/or other materials provided
+ * with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors may be used to
+ * endorse or promote products derived from this software without specific prior written
+ * permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS
+ * OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL,
+ * EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE
+ * GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING
+ * NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.oracle.truffle.llvm.tests.other;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Engine;
+import org.graalvm.polyglot.Source;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.oracle.truffle.llvm.runtime.LLVMLanguage;
+import com.oracle.truffle.llvm.tests.BaseSuiteHarness;
+import com.oracle.truffle.llvm.tests.options.TestOptions;
+
+/**
+ * Creates many contexts on one engine. The contexts share the scanned bitcode of the default
+ * libraries. Everything else stays per context, since Sulong uses the exclusive context policy:
+ * symbols, globals, nodes and call targets are created again for every context.
+ *
+ * {@link ContextCreationBenchmark} measures the same workload.
+ */
+public class ContextCreationTest {
+
+    private static final Path TEST_DIR = new File(TestOptions.TEST_SUITE_PATH, "other").toPath();
+    private static final String FILENAME = "O0_MEM2REG.bc";
+
+    private static Engine engine;
+    private static Source source;
+
+    @BeforeClass
+    public static void setup() throws IOException {
+        engine = Engine.create();
+        source = loadSource();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        engine.close();
+    }
+
+    static Source loadSource() throws IOException {
+        File file = TEST_DIR.resolve("context_creation.c" + BaseSuiteHarness.TEST_DIR_EXT).resolve(FILENAME).toFile();
+        return Source.newBuilder(LLVMLanguage.ID, file).build();
+    }
+
+    static int createContextAndRun(Engine sharedEngine, Source bitcode, int arg) {
+        try (Context context = Context.newBuilder().engine(sharedEngine).allowAllAccess(true).build()) {
+            return context.eval(bitcode).invokeMember("run", arg).asInt();
+        }
+    }
+
+    @Test
+    public void sequentialContexts() {
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(String.valueOf(i * 1000).length(), createContextAndRun(engine, source, i * 1000));
+        }
+    }
+
+    @Test
+    public void contextsWithDifferentOptions() {
+        // the scanned libraries must not be shared between contexts with different debug options
+        for (int i = 0; i < 4; i++) {
+            try (Context context = Context.newBuilder().engine(engine).allowAllAccess(true).option("llvm.llDebug", String.valueOf(i % 2 == 0)).build()) {
+                Assert.assertEquals(String.valueOf(i).length(), context.eval(source).invokeMember("run", i).asInt());
+            }
+        }
+    }
+
+    @Test
+    public void concurrentContexts() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int arg = -i * 100;
+                results.add(executor.submit(() -> createContextAndRun(engine, source, arg)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(String.valueOf(-i * 100).length(), (int) results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -46,6 +46,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.ContextPool;
 import org.graalvm.polyglot.Engine;
 import org.graalvm.polyglot.Source;
 import org.graalvm.polyglot.Value;
@@ -95,6 +96,45 @@ public class EngineBenchmark extends TruffleBenchmark {
         return Context.create();
     }
 
+    @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+    public static class RequestState {
+        final Source source = Source.newBuilder(TEST_LANGUAGE, "1", CONTEXT_LOOKUP).buildLiteral();
+        final Engine engine = Engine.create();
+        final Context.Builder builder = Context.newBuilder(TEST_LANGUAGE).engine(engine);
+        final ContextPool pool = ContextPool.create(builder, 16, TEST_LANGUAGE);
+
+        @TearDown
+        public void tearDown() {
+            pool.close();
+            engine.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void requestNewContext(RequestState state) {
+        Context context;
+        synchronized (state.builder) {
+            context = state.builder.build();
+        }
+        try {
+            context.eval(state.source).executeVoid();
+        } finally {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void requestPooledContext(RequestState state) {
+        Context context = state.pool.acquire();
+        try {
+            context.eval(state.source).executeVoid();
+        } finally {
+            state.pool.release(context);
+        }
+    }
+
     @State(org.openjdk.jmh.annotations.Scope.Thread)
     public static class ContextLookupSingleContext {
         final Source source = Source.newBuilder(TEST_LANGUAGE, "1", CONTEXT_LOOKUP).buildLiteral();
@@ -190,6 +230,23 @@ public class EngineBenchmark extends TruffleBenchmark {
         state.context.leave();
     }
 
+    /*
+     * Every call enters and leaves the shared context on a different thread than the previous
+     * call, which measures contention of thread switches.
+     */
+    @Benchmark
+    @Threads(10)
+    public void enterLeaveMultiThread(ContextLookupMultiThread state) {
+        state.value.executeVoid();
+    }
+
+    @Benchmark
+    @Threads(10)
+    public void explicitEnterLeaveMultiThread(ContextLookupMultiThread state) {
+        state.context.enter();
+        state.context.leave();
+    }
+
     @State(org.openjdk.jmh.annotations.Scope.Benchmark)
     public static class ContextLookupMultiThreadMultiContext {
         final Source source = Source.newBuilder(TEST_LANGUAGE, "1", CONTEXT_LOOKUP).buildLiteral();
@@ -451,6 +508,11 @@ public class EngineBenchmark extends TruffleBenchmark {
         protected void initializeContext(BenchmarkContext context) throws Exception {
         }
 
+        @Override
+        protected boolean resetContext(BenchmarkContext context) {
+            return true;
+        }
+
         @Override
         protected boolean isThreadAccessAllowed(Thread thread, boolean singleThreaded) {
             return true;
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.benchmark.interop;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Guest-to-host calls of exported host members. The {@link #main(String[])} method runs the same
+ * calls without JMH so that the benchmark can also be built with native-image and compared with
+ * the JVM.
+ */
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class HostCallBenchmark {
+
+    private static final int REPEAT = 10000;
+
+    public static class Counter {
+
+        @HostAccess.Export public int value;
+
+        @HostAccess.Export
+        public Counter() {
+        }
+
+        @HostAccess.Export
+        public int add(int delta) {
+            value += delta;
+            return value;
+        }
+    }
+
+    private Context context;
+    private Value counter;
+    private Value counterClass;
+
+    @Setup
+    public void setup() {
+        context = Context.newBuilder().allowHostAccess(HostAccess.EXPLICIT).allowHostClassLookup((c) -> true).build();
+        counterClass = context.asValue(Counter.class);
+        counter = counterClass.newInstance();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int invokeMethod() {
+        Value c = counter;
+        int result = 0;
+        for (int i = 0; i < REPEAT; i++) {
+            result = c.invokeMember("add", 1).asInt();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int readField() {
+        Value c = counter;
+        int result = 0;
+        for (int i = 0; i < REPEAT; i++) {
+            result += c.getMember("value").asInt();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Object newInstance() {
+        Value clazz = counterClass;
+        Object result = null;
+        for (int i = 0; i < REPEAT; i++) {
+            result = clazz.newInstance();
+        }
+        return result;
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        HostCallBenchmark benchmark = new HostCallBenchmark();
+        benchmark.setup();
+        try {
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                benchmark.invokeMethod();
+                long invoke = System.nanoTime();
+                benchmark.readField();
+                long read = System.nanoTime();
+                benchmark.newInstance();
+                long end = System.nanoTime();
+                System.out.printf("iteration %d: invoke %.1f ns/call, read %.1f ns/call, new %.1f ns/call%n", i,
+                                (invoke - start) / (double) REPEAT, (read - invoke) / (double) REPEAT, (end - read) / (double) REPEAT);
+            }
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+}
@@ -40,10 +40,13 @@
  */
 package com.oracle.truffle.api.benchmark.interop;
 
+import java.util.Arrays;
 import java.util.Random;
 import java.util.function.IntBinaryOperator;
+import java.util.stream.Collectors;
 
 import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Value;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
@@ -104,4 +107,18 @@ public class JavaInteropSpeedBench {
         }
         return max;
     }
+
+    private static final Value LIST = Context.create().asValue(Arrays.stream(initArray(REPEAT)).boxed().collect(Collectors.toList()));
+
+    @Benchmark
+    public int[] doCopyArrayWithAs() {
+        return LIST.as(int[].class);
+    }
+
+    @Benchmark
+    public int[] doCopyArrayWithCopyTo() {
+        int[] result = new int[REPEAT];
+        LIST.copyTo(result, 0, 0, REPEAT);
+        return result;
+    }
 }
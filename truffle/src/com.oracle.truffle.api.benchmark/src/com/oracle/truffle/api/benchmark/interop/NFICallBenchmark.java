@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.benchmark.interop;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Call overhead of native functions bound with the NFI. Signatures with only primitive and pointer
+ * arguments are called without an argument buffer. Each of them is also measured in a context that
+ * forces the generic argument buffer, so both paths are compared on the same signature.
+ */
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class NFICallBenchmark {
+
+    private static final int REPEAT = 10000;
+
+    private Context directContext;
+    private Context bufferContext;
+    private Value absDirect;
+    private Value absBuffer;
+    private Value ldexpDirect;
+    private Value ldexpBuffer;
+
+    @Setup
+    public void setup() {
+        directContext = Context.newBuilder().allowNativeAccess(true).build();
+        bufferContext = Context.newBuilder().allowNativeAccess(true).allowExperimentalOptions(true).option("internal/nfi-native.ForceArgumentBuffer", "true").build();
+        Value directLibrary = directContext.eval(Source.create("nfi", "default"));
+        Value bufferLibrary = bufferContext.eval(Source.create("nfi", "default"));
+        absDirect = directLibrary.getMember("abs").invokeMember("bind", "(sint32) : sint32");
+        absBuffer = bufferLibrary.getMember("abs").invokeMember("bind", "(sint32) : sint32");
+        ldexpDirect = directLibrary.getMember("ldexp").invokeMember("bind", "(double, sint32) : double");
+        ldexpBuffer = bufferLibrary.getMember("ldexp").invokeMember("bind", "(double, sint32) : double");
+    }
+
+    @TearDown
+    public void tearDown() {
+        directContext.close();
+        bufferContext.close();
+    }
+
+    private static int callIntToInt(Value fn) {
+        int result = 0;
+        for (int i = 0; i < REPEAT; i++) {
+            result += fn.execute(-i).asInt();
+        }
+        return result;
+    }
+
+    private static double callDoubleIntToDouble(Value fn) {
+        double result = 0;
+        for (int i = 0; i < REPEAT; i++) {
+            result += fn.execute(1.5, i & 7).asDouble();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int callIntToIntDirect() {
+        return callIntToInt(absDirect);
+    }
+
+    @Benchmark
+    public int callIntToIntBuffer() {
+        return callIntToInt(absBuffer);
+    }
+
+    @Benchmark
+    public double callDoubleIntToDoubleDirect() {
+        return callDoubleIntToDouble(ldexpDirect);
+    }
+
+    @Benchmark
+    public double callDoubleIntToDoubleBuffer() {
+        return callDoubleIntToDouble(ldexpBuffer);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.test.polyglot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.PolyglotException;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Enters and leaves a multi-threaded context from many threads while it is closed or cancelled.
+ * Attached threads enter without the context lock, so this checks that an enter that starts after
+ * close returned fails, and that close does not return while another thread is entered.
+ */
+public class ContextEnterCloseStressTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 50;
+
+    static class MultiThreadedLanguage extends ProxyLanguage {
+        @Override
+        protected boolean isThreadAccessAllowed(Thread thread, boolean singleThreaded) {
+            return true;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ProxyLanguage.setDelegate(new ProxyLanguage());
+    }
+
+    @Test
+    public void testEnterLeaveWithClose() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            runEnterLeaveWithClose(false);
+        }
+    }
+
+    @Test
+    public void testEnterLeaveWithCancel() throws Exception {
+        for (int i = 0; i < ITERATIONS; i++) {
+            runEnterLeaveWithClose(true);
+        }
+    }
+
+    private static void runEnterLeaveWithClose(boolean cancel) throws Exception {
+        ProxyLanguage.setDelegate(new MultiThreadedLanguage());
+        Context context = Context.create();
+        context.initialize(ProxyLanguage.ID);
+        AtomicBoolean closeReturned = new AtomicBoolean();
+        AtomicInteger enteredAfterClose = new AtomicInteger();
+        AtomicInteger entered = new AtomicInteger();
+        CountDownLatch attached = new CountDownLatch(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    boolean first = true;
+                    while (true) {
+                        boolean startedAfterClose = closeReturned.get();
+                        try {
+                            context.enter();
+                        } catch (IllegalStateException | PolyglotException e) {
+                            // closed or cancelled
+                            if (first) {
+                                attached.countDown();
+                            }
+                            return null;
+                        }
+                        try {
+                            entered.incrementAndGet();
+                            if (startedAfterClose) {
+                                enteredAfterClose.incrementAndGet();
+                            }
+                        } finally {
+                            entered.decrementAndGet();
+                            try {
+                                context.leave();
+                            } catch (IllegalStateException | PolyglotException e) {
+                                // closed or cancelled while entered
+                            }
+                        }
+                        if (first) {
+                            first = false;
+                            attached.countDown();
+                        }
+                    }
+                }));
+            }
+            assertTrue(attached.await(10, TimeUnit.SECONDS));
+            if (cancel) {
+                // cancelled threads no longer count as entered, so only check later enters
+                context.close(true);
+            } else {
+                while (true) {
+                    try {
+                        context.close();
+                        break;
+                    } catch (IllegalStateException e) {
+                        // another thread is entered, retry
+                    }
+                }
+                assertEquals(0, entered.get());
+            }
+            closeReturned.set(true);
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(0, enteredAfterClose.get());
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+}
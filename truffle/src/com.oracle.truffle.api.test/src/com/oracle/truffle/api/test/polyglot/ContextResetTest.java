@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.test.polyglot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.ContextPool;
+import org.graalvm.polyglot.Engine;
+import org.junit.After;
+import org.junit.Test;
+
+public class ContextResetTest {
+
+    static class ResettableLanguage extends ProxyLanguage {
+
+        final boolean supported;
+        int resetCount;
+
+        ResettableLanguage(boolean supported) {
+            this.supported = supported;
+        }
+
+        @Override
+        protected boolean resetContext(LanguageContext context) {
+            resetCount++;
+            return supported;
+        }
+    }
+
+    static class BlockingResetLanguage extends ProxyLanguage {
+
+        final CountDownLatch resetStarted = new CountDownLatch(1);
+        final CountDownLatch finishReset = new CountDownLatch(1);
+
+        @Override
+        protected boolean isThreadAccessAllowed(Thread thread, boolean singleThreaded) {
+            return true;
+        }
+
+        @Override
+        protected boolean resetContext(LanguageContext context) {
+            resetStarted.countDown();
+            try {
+                return finishReset.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ProxyLanguage.setDelegate(new ProxyLanguage());
+    }
+
+    @Test
+    public void testResetSupported() {
+        ResettableLanguage language = ProxyLanguage.setDelegate(new ResettableLanguage(true));
+        try (Context context = Context.create()) {
+            context.initialize(ProxyLanguage.ID);
+            context.getPolyglotBindings().putMember("a", 42);
+            assertTrue(context.reset());
+            assertEquals(1, language.resetCount);
+            assertFalse(context.getPolyglotBindings().hasMember("a"));
+        }
+    }
+
+    @Test
+    public void testResetUnsupported() {
+        ResettableLanguage language = ProxyLanguage.setDelegate(new ResettableLanguage(false));
+        try (Context context = Context.create()) {
+            context.initialize(ProxyLanguage.ID);
+            assertFalse(context.reset());
+            assertEquals(1, language.resetCount);
+        }
+    }
+
+    @Test
+    public void testResetWhileEntered() {
+        ProxyLanguage.setDelegate(new ResettableLanguage(true));
+        try (Context context = Context.create()) {
+            context.initialize(ProxyLanguage.ID);
+            context.enter();
+            try {
+                context.reset();
+                fail();
+            } catch (IllegalStateException e) {
+            } finally {
+                context.leave();
+            }
+        }
+    }
+
+    @Test
+    public void testEnterWaitsForReset() throws Exception {
+        BlockingResetLanguage language = ProxyLanguage.setDelegate(new BlockingResetLanguage());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (Context context = Context.create()) {
+            context.initialize(ProxyLanguage.ID);
+            // make the context multi-threaded and attach the entering thread
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch left = new CountDownLatch(1);
+            Future<?> attach = executor.submit(() -> {
+                context.enter();
+                entered.countDown();
+                try {
+                    left.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                context.leave();
+                return null;
+            });
+            entered.await();
+            context.enter();
+            context.leave();
+            left.countDown();
+            attach.get();
+
+            Future<Boolean> reset = executor.submit(() -> context.reset());
+            assertTrue(language.resetStarted.await(10, TimeUnit.SECONDS));
+            Future<?> enter = executor.submit(() -> {
+                context.enter();
+                context.leave();
+                return null;
+            });
+            Thread.sleep(100);
+            assertFalse(enter.isDone());
+            language.finishReset.countDown();
+            assertTrue(reset.get());
+            enter.get();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testPoolReusesContexts() {
+        ResettableLanguage language = ProxyLanguage.setDelegate(new ResettableLanguage(true));
+        try (Engine engine = Engine.create(); ContextPool pool = ContextPool.create(Context.newBuilder().engine(engine), 1, ProxyLanguage.ID)) {
+            Context context = pool.acquire();
+            pool.release(context);
+            assertEquals(1, language.resetCount);
+            assertSame(context, pool.acquire());
+
+            // the pool is empty, a second context is created and closed on release
+            Context other = pool.acquire();
+            assertNotSame(context, other);
+            pool.release(context);
+            pool.release(other);
+            try {
+                other.initialize(ProxyLanguage.ID);
+                fail();
+            } catch (IllegalStateException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testPoolClosesUnsupportedContexts() {
+        ProxyLanguage.setDelegate(new ResettableLanguage(false));
+        try (Engine engine = Engine.create(); ContextPool pool = ContextPool.create(Context.newBuilder().engine(engine), 1, ProxyLanguage.ID)) {
+            Context context = pool.acquire();
+            pool.release(context);
+            assertNotSame(context, pool.acquire());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.api.test.polyglot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.graalvm.nativeimage.ImageInfo;
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.HostAccess;
+import org.graalvm.polyglot.Value;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Tests the host members that the native image registers for {@link HostAccess.Export exported}
+ * members. On the JVM, only the interop part is tested; the native image gate runs this test with
+ * {@code mx native-unittest}.
+ */
+public class HostAccessorTest {
+
+    public static class Exported {
+
+        @HostAccess.Export public int value = 40;
+
+        @HostAccess.Export
+        public Exported() {
+        }
+
+        @HostAccess.Export
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public int notExported() {
+            return value;
+        }
+    }
+
+    /*
+     * Not referenced by any code except by name, so the class is not reachable in a native image.
+     */
+    public static class UnreachableExported {
+
+        @HostAccess.Export
+        public int get() {
+            return 42;
+        }
+    }
+
+    @Test
+    public void testExportedMembersCallable() {
+        try (Context context = Context.newBuilder().allowHostAccess(HostAccess.EXPLICIT).build()) {
+            Value exported = context.asValue(new Exported());
+            assertEquals(3, exported.invokeMember("add", 1, 2).asInt());
+            assertEquals(40, exported.getMember("value").asInt());
+            exported.putMember("value", 2);
+            assertEquals(2, exported.getMember("value").asInt());
+            assertFalse(exported.hasMember("notExported"));
+
+            Value created = context.asValue(Exported.class).newInstance();
+            assertEquals(5, created.invokeMember("add", 2, 3).asInt());
+        }
+    }
+
+    @Test
+    public void testExportedMembersRegistered() throws ReflectiveOperationException {
+        Assume.assumeTrue(ImageInfo.inImageRuntimeCode());
+        // only the exported members have generated accessors
+        assertEquals(7, Exported.class.getMethod("add", int.class, int.class).invoke(new Exported(), 3, 4));
+        assertEquals(40, Exported.class.getField("value").get(new Exported()));
+        try {
+            Exported.class.getMethod("notExported");
+            fail("members that are not exported must not be registered for reflection");
+        } catch (NoSuchMethodException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testUnreachableExportedClassNotRegistered() {
+        Assume.assumeTrue(ImageInfo.inImageRuntimeCode());
+        try {
+            Class.forName(HostAccessorTest.class.getName() + "$UnreachableExported");
+            fail("the exported members of an unreachable class must not be registered for reflection");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+    }
+}
@@ -58,6 +58,7 @@ import static com.oracle.truffle.tck.tests.ValueAssert.Trait.STRING;
 import static com.oracle.truffle.tck.tests.ValueAssert.Trait.TIME;
 import static com.oracle.truffle.tck.tests.ValueAssert.Trait.TIMEZONE;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
@@ -359,6 +360,54 @@ public class ValueAPITest {
         assertEquals(3, vlist.getArraySize());
     }
 
+    @Test
+    public void testCopyTo() {
+        int[] ints = new int[]{1, 2, 3, 4, 5};
+        Value hostArray = context.asValue(ints);
+
+        int[] intTarget = new int[5];
+        hostArray.copyTo(intTarget, 1, 2, 3);
+        assertArrayEquals(new int[]{0, 0, 2, 3, 4}, intTarget);
+
+        long[] longTarget = new long[5];
+        hostArray.copyTo(longTarget, 0, 0, 5);
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5}, longTarget);
+
+        double[] doubleTarget = new double[3];
+        context.asValue(ProxyArray.fromArray(1, 2.5, 3)).copyTo(doubleTarget, 0, 0, 3);
+        assertArrayEquals(new double[]{1, 2.5, 3}, doubleTarget, 0);
+
+        byte[] byteTarget = new byte[2];
+        context.asValue(Arrays.asList(42, 43)).copyTo(byteTarget, 0, 0, 2);
+        assertArrayEquals(new byte[]{42, 43}, byteTarget);
+
+        try {
+            hostArray.copyTo(intTarget, 3, 0, 3);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+        }
+        try {
+            hostArray.copyTo(intTarget, 0, 3, 3);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException e) {
+        }
+        try {
+            context.asValue(ProxyArray.fromArray(1, "a")).copyTo(intTarget, 0, 0, 2);
+            fail();
+        } catch (ClassCastException e) {
+        }
+        try {
+            context.asValue(Arrays.asList(1.5)).copyTo(intTarget, 0, 0, 1);
+            fail();
+        } catch (ClassCastException e) {
+        }
+        try {
+            context.asValue(42).copyTo(intTarget, 0, 0, 1);
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
     @Test
     public void testComplexGenericCoercion() {
         TypeLiteral<List<Map<Integer, Map<String, Object[]>>>> literal = new TypeLiteral<List<Map<Integer, Map<String, Object[]>>>>() {
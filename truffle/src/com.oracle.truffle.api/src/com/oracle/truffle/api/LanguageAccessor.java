@@ -276,6 +276,11 @@ final class LanguageAccessor extends Accessor {
             env.getSpi().finalizeContext(env.context);
         }
 
+        @Override
+        public boolean resetContext(TruffleLanguage.Env env) {
+            return env.getSpi().resetContext(env.context);
+        }
+
         @Override
         public void disposeThread(TruffleLanguage.Env env, Thread current) {
             env.getSpi().disposeThread(env.context, current);
@@ -783,6 +783,27 @@ public abstract class TruffleLanguage<C> {
         return false;
     }
 
+    /**
+     * Resets the language context to the state it had after it was
+     * {@link #initializeContext(java.lang.Object) initialized}, so that the embedder can reuse the
+     * context for unrelated evaluations instead of creating a new one. See
+     * {@link org.graalvm.polyglot.Context#reset()}. The context is entered on the current thread
+     * and no other thread is active in it when this method is called.
+     * <p>
+     * Implementations must drop all state that guest code could have created or modified, e.g.
+     * global bindings, loaded modules or open streams. They may keep state that only depends on the
+     * {@link Env environment}, like initialized built-ins or cached parse results.
+     *
+     * @param context the context to reset
+     * @return {@code true} if the context was reset. Return {@code false} if the language does not
+     *         support reset or the context cannot be reset; the context is then closed instead of
+     *         being reused. By default it returns {@code false}.
+     * @since 20.3
+     */
+    protected boolean resetContext(C context) {
+        return false;
+    }
+
     /**
      * Request for parsing. Contains information of what to parse and in which context.
      *
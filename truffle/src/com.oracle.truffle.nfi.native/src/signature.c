@@ -231,6 +231,37 @@ JNIEXPORT jobject JNICALL Java_com_oracle_truffle_nfi_impl_NFIContext_executeObj
     return ret;
 }
 
+JNIEXPORT jlong JNICALL Java_com_oracle_truffle_nfi_impl_NFIContext_executeDirect(JNIEnv *env, jclass self, jlong truffleContext, jlong cif, jlong address, jlongArray args) {
+    ffi_cif *ffiCif = (ffi_cif*) cif;
+    ffi_arg ret;
+    void **argPtrs;
+    jlong *argValues;
+    int i;
+
+    /*
+     * Every argument is stored in its own 64-bit slot. Smaller values are stored in the low bits
+     * of their slot, so on big-endian machines they start at the end of the slot.
+     */
+    argPtrs = alloca(sizeof(*argPtrs) * ffiCif->nargs);
+    argValues = alloca(sizeof(*argValues) * ffiCif->nargs);
+    (*env)->GetLongArrayRegion(env, args, 0, ffiCif->nargs, argValues);
+    for (i = 0; i < ffiCif->nargs; i++) {
+#if defined(__BYTE_ORDER__) && __BYTE_ORDER__ == __ORDER_BIG_ENDIAN__
+        argPtrs[i] = ((char *) (argValues + i)) + sizeof(jlong) - ffiCif->arg_types[i]->size;
+#else
+        argPtrs[i] = argValues + i;
+#endif
+    }
+
+    errno = errnoMirror;
+
+    ffi_call(ffiCif, (void (*)(void)) address, &ret, argPtrs);
+
+    errnoMirror = errno;
+
+    return (jlong) ret;
+}
+
 
 static struct cif_data *prepareArgs(JNIEnv *env, struct __TruffleContextInternal *ctx, int nargs, jobjectArray argTypes) {
     struct cif_data *data = (struct cif_data *) malloc(sizeof(struct cif_data) + nargs * sizeof(ffi_type*));
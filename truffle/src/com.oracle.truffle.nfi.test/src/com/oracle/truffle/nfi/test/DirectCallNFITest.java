@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.nfi.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.TruffleObject;
+import com.oracle.truffle.api.interop.UnsupportedTypeException;
+import com.oracle.truffle.nfi.test.interop.BoxedPrimitive;
+import com.oracle.truffle.nfi.test.interop.NullObject;
+import com.oracle.truffle.tck.TruffleRunner;
+import com.oracle.truffle.tck.TruffleRunner.Inject;
+
+/**
+ * Signatures with only primitive and pointer arguments are called without an argument buffer.
+ * These tests check that all simple types are passed correctly on this path, that signatures with
+ * too many arguments still work, and that an array passed to a pointer argument does not break it.
+ */
+@RunWith(TruffleRunner.class)
+public class DirectCallNFITest extends NFITest {
+
+    public static class MixedArgsNode extends SendExecuteNode {
+
+        public MixedArgsNode() {
+            super("mixed_args", "(sint8, uint16, sint32, sint64, float, double, pointer) : double");
+        }
+    }
+
+    @Test
+    public void testMixedArgs(@Inject(MixedArgsNode.class) CallTarget callTarget) {
+        Object ret = callTarget.call((byte) -1, 65535, -100000, 1L << 40, 0.5f, 0.25, new NullObject());
+        Assert.assertEquals(-1 + 65535 - 100000 + (1L << 40) + 0.5 + 0.25, (double) ret, 0.0);
+    }
+
+    @Test
+    public void testBoxedArgs(@Inject(MixedArgsNode.class) CallTarget callTarget) {
+        Object ret = callTarget.call(new BoxedPrimitive(1), new BoxedPrimitive(2), new BoxedPrimitive(3), new BoxedPrimitive(4L), new BoxedPrimitive(5.0f), new BoxedPrimitive(6.0), 42L);
+        Assert.assertEquals(22.0, (double) ret, 0.0);
+    }
+
+    public static class AddFloatNode extends SendExecuteNode {
+
+        public AddFloatNode() {
+            super("add_float", "(float, float) : float");
+        }
+    }
+
+    @Test
+    public void testFloat(@Inject(AddFloatNode.class) CallTarget callTarget) {
+        Assert.assertEquals(3.75f, (float) callTarget.call(1.5f, 2.25f), 0.0f);
+        Assert.assertEquals(-0.5f, (float) callTarget.call(-2.0f, 1.5), 0.0f);
+    }
+
+    public static class ManyArgsNode extends SendExecuteNode {
+
+        public ManyArgsNode() {
+            super("many_args", "(sint64, sint64, sint64, sint64, sint64, sint64, sint64, sint64, sint64, sint64) : sint64");
+        }
+    }
+
+    @Test
+    public void testManyArgs(@Inject(ManyArgsNode.class) CallTarget callTarget) {
+        Object ret = callTarget.call(1L, 1L, 1L, 1L, 1L, 1L, 1L, 1L, 1L, 1L);
+        Assert.assertEquals(55L, ret);
+    }
+
+    public static class PointerRoundTripNode extends NFITestRootNode {
+
+        private final TruffleObject getCell = lookupAndBind("get_cell", "() : pointer");
+        private final TruffleObject store = lookupAndBind("store_sint32", "(pointer, sint32) : void");
+        private final TruffleObject load = lookupAndBind("load_sint32", "(pointer) : sint32");
+
+        @Child InteropLibrary getCellInterop = getInterop(getCell);
+        @Child InteropLibrary storeInterop = getInterop(store);
+        @Child InteropLibrary loadInterop = getInterop(load);
+
+        @Override
+        public Object executeTest(VirtualFrame frame) throws InteropException {
+            Object ptr = getCellInterop.execute(getCell);
+            storeInterop.execute(store, ptr, frame.getArguments()[0]);
+            return loadInterop.execute(load, ptr);
+        }
+    }
+
+    @Test
+    public void testPointerRoundTrip(@Inject(PointerRoundTripNode.class) CallTarget callTarget) {
+        Assert.assertEquals(-42, callTarget.call(-42));
+    }
+
+    public static class LoadNode extends SendExecuteNode {
+
+        public LoadNode() {
+            super("load_sint32", "(pointer) : sint32");
+        }
+    }
+
+    @Test
+    public void testArrayToPointer(@Inject(LoadNode.class) CallTarget callTarget) {
+        Object array = runWithPolyglot.getTruffleTestEnv().asGuestValue(new int[]{42});
+        Throwable cause = null;
+        try {
+            callTarget.call(array);
+        } catch (AssertionError e) {
+            cause = e.getCause();
+        }
+        // like with an argument buffer, a host array is not a pointer
+        Assert.assertTrue(String.valueOf(cause), cause instanceof UnsupportedTypeException);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.oracle.truffle.nfi.test;
+
+import org.graalvm.polyglot.Context;
+import org.graalvm.polyglot.Source;
+import org.graalvm.polyglot.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that signatures that are normally called without an argument buffer produce the same
+ * results when the internal {@code ForceArgumentBuffer} option sends them through the buffer.
+ */
+public class ForceArgumentBufferNFITest {
+
+    private static final String SIGNATURE = "(sint8, uint16, sint32, sint64, float, double, pointer) : double";
+
+    private final String nativeTestLib = System.getProperty("native.test.lib");
+
+    private double callMixedArgs(boolean forceArgumentBuffer) {
+        Context.Builder builder = Context.newBuilder().allowNativeAccess(true);
+        if (forceArgumentBuffer) {
+            builder.allowExperimentalOptions(true).option("internal/nfi-native.ForceArgumentBuffer", "true");
+        }
+        try (Context context = builder.build()) {
+            Value library = context.eval(Source.create("nfi", String.format("load '%s'", nativeTestLib)));
+            Value mixedArgs = library.getMember("mixed_args").invokeMember("bind", SIGNATURE);
+            return mixedArgs.execute((byte) -1, 65535, -100000, 1L << 40, 0.5f, 0.25, 42L).asDouble();
+        }
+    }
+
+    @Test
+    public void testSameResult() {
+        double expected = -1 + 65535 - 100000 + (1L << 40) + 0.5 + 0.25 + 1;
+        Assert.assertEquals(expected, callMixedArgs(false), 0.0);
+        Assert.assertEquals(expected, callMixedArgs(true), 0.0);
+    }
+}
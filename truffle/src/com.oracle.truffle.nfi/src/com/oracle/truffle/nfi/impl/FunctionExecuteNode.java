@@ -88,6 +88,12 @@ abstract class FunctionExecuteNode extends Node {
 
         final ContextReference<NFIContext> ctxRef;
 
+        /*
+         * Set once a pointer argument was a Java array, which can not be passed in an argument
+         * slot. From then on, this signature is called with an argument buffer.
+         */
+        @CompilationFinal boolean objectArgumentSeen;
+
         SignatureExecuteNode(ContextReference<NFIContext> ctxRef, LibFFISignature signature) {
             super(ctxRef.get().language);
             this.signature = signature;
@@ -110,6 +116,15 @@ abstract class FunctionExecuteNode extends Node {
                 throw silenceException(RuntimeException.class, ArityException.create(argLibs.length, args.length));
             }
 
+            if (signature.isDirectCall() && !objectArgumentSeen) {
+                try {
+                    return executeDirect(address, args);
+                } catch (NativeArgumentBuffer.Slots.ObjectArgumentException ex) {
+                    CompilerDirectives.transferToInterpreterAndInvalidate();
+                    objectArgumentSeen = true;
+                }
+            }
+
             NativeArgumentBuffer.Array buffer = signature.prepareBuffer();
             try {
                 LibFFIType[] types = signature.getArgTypes();
@@ -133,6 +148,24 @@ abstract class FunctionExecuteNode extends Node {
             return signature.execute(ctxRef.get(), address, buffer);
         }
 
+        /**
+         * Fast path for signatures with only primitive and pointer arguments. The arguments are
+         * converted into one slot each, without a byte buffer or object patches.
+         */
+        @ExplodeLoop
+        private Object executeDirect(long address, Object[] args) {
+            NativeArgumentBuffer.Slots slots = signature.prepareSlots();
+            try {
+                LibFFIType[] types = signature.getArgTypes();
+                for (int i = 0; i < argLibs.length; i++) {
+                    argLibs[i].serialize(types[i], slots, args[i]);
+                }
+            } catch (UnsupportedTypeException ex) {
+                throw silenceException(RuntimeException.class, ex);
+            }
+            return signature.executeDirect(ctxRef.get(), address, slots);
+        }
+
         @SuppressWarnings({"unchecked", "unused"})
         static <E extends Exception> RuntimeException silenceException(Class<E> type, Exception ex) throws E {
             throw (E) ex;
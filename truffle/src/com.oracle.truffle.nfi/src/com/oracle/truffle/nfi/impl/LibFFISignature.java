@@ -46,11 +46,19 @@ import com.oracle.truffle.nfi.impl.LibFFIType.Direction;
 import com.oracle.truffle.nfi.impl.NativeAllocation.FreeDestructor;
 import com.oracle.truffle.nfi.spi.types.NativeArrayTypeMirror;
 import com.oracle.truffle.nfi.spi.types.NativeSignature;
+import com.oracle.truffle.nfi.spi.types.NativeSimpleType;
 import com.oracle.truffle.nfi.spi.types.NativeTypeMirror;
 import java.util.List;
 
 final class LibFFISignature {
 
+    /**
+     * Maximum number of arguments of a signature that is called with
+     * {@link #executeDirect(NFIContext, long, NativeArgumentBuffer.Slots)}. Keep this in sync with
+     * the native image substitution of {@code NFIContext.executeDirect}.
+     */
+    static final int MAX_DIRECT_ARGS = 8;
+
     public static LibFFISignature create(NFIContext context, NativeSignature signature) {
         LibFFISignature ret = new LibFFISignature(context, signature);
         NativeAllocation.getGlobalQueue().registerNativeAllocation(ret, new FreeDestructor(ret.cif));
@@ -65,6 +73,8 @@ final class LibFFISignature {
 
     private final int realArgCount;
 
+    private final boolean directCall;
+
     private final long cif;
 
     private final Direction allowedCallDirection;
@@ -142,6 +152,10 @@ final class LibFFISignature {
             }
             primSize += type.size;
             objCount += type.objectCount;
+            if (type instanceof LibFFIType.SimpleType && ((LibFFIType.SimpleType) type).simpleType == NativeSimpleType.POINTER) {
+                // a pointer argument may be a Java array that is patched into the arguments
+                objCount++;
+            }
             if (!type.injectedArgument) {
                 argCount++;
             }
@@ -150,6 +164,19 @@ final class LibFFISignature {
         this.primitiveSize = primSize;
         this.objectCount = objCount;
         this.realArgCount = argCount;
+        this.directCall = !signature.isVarargs() && !context.env.getOptions().get(NFILanguageImpl.ForceArgumentBuffer) && isDirectCallSignature(retType, argTypes);
+    }
+
+    private static boolean isDirectCallSignature(LibFFIType retType, LibFFIType[] argTypes) {
+        if (!(retType instanceof LibFFIType.SimpleType || retType instanceof LibFFIType.VoidType) || argTypes.length > MAX_DIRECT_ARGS) {
+            return false;
+        }
+        for (LibFFIType argType : argTypes) {
+            if (!(argType instanceof LibFFIType.SimpleType)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public NativeArgumentBuffer.Array prepareBuffer() {
@@ -172,6 +199,31 @@ final class LibFFISignature {
         return realArgCount;
     }
 
+    /**
+     * Returns whether all arguments are primitives or pointers, and the return type is a primitive,
+     * a pointer or void. These signatures can be called with
+     * {@link #executeDirect(NFIContext, long, NativeArgumentBuffer.Slots)}, unless a pointer
+     * argument is a Java array.
+     */
+    public boolean isDirectCall() {
+        return directCall;
+    }
+
+    public NativeArgumentBuffer.Slots prepareSlots() {
+        assert directCall;
+        return new NativeArgumentBuffer.Slots(argTypes.length);
+    }
+
+    public Object executeDirect(NFIContext ctx, long functionPointer, NativeArgumentBuffer.Slots args) {
+        CompilerAsserts.partialEvaluationConstant(retType);
+        long ret = ctx.executeDirect(cif, functionPointer, args.slots);
+        if (retType instanceof LibFFIType.SimpleType) {
+            return ((LibFFIType.SimpleType) retType).fromPrimitive(ret);
+        } else {
+            return NativePointer.create(ctx.language, 0);
+        }
+    }
+
     public Object execute(NFIContext ctx, long functionPointer, NativeArgumentBuffer.Array argBuffer) {
         CompilerAsserts.partialEvaluationConstant(retType);
         if (retType instanceof LibFFIType.ObjectType) {
@@ -294,6 +294,10 @@ class NFIContext {
         return executeObject(nativeContext, cif, functionPointer, primArgs, patchCount, patchOffsets, objArgs);
     }
 
+    long executeDirect(long cif, long functionPointer, long[] args) {
+        return executeDirect(nativeContext, cif, functionPointer, args);
+    }
+
     @TruffleBoundary
     private static native void executeNative(long nativeContext, long cif, long functionPointer, byte[] primArgs, int patchCount, int[] patchOffsets, Object[] objArgs, byte[] ret);
 
@@ -303,6 +307,9 @@ class NFIContext {
     @TruffleBoundary
     private static native TruffleObject executeObject(long nativeContext, long cif, long functionPointer, byte[] primArgs, int patchCount, int[] patchOffsets, Object[] objArgs);
 
+    @TruffleBoundary
+    private static native long executeDirect(long nativeContext, long cif, long functionPointer, long[] args);
+
     private static native long loadLibrary(long nativeContext, String name, int flags);
 
     @TruffleBoundary
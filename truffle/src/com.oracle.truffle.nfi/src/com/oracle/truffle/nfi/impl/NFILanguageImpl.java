@@ -40,9 +40,14 @@
  */
 package com.oracle.truffle.nfi.impl;
 
+import org.graalvm.options.OptionCategory;
+import org.graalvm.options.OptionDescriptors;
+import org.graalvm.options.OptionKey;
+
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.Option;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -58,6 +63,9 @@ public class NFILanguageImpl extends TruffleLanguage<NFIContext> {
 
     public static final String MIME_TYPE = "trufflenfi/native";
 
+    @Option(help = "Call all signatures through the generic argument buffer, also those that could be called directly (for testing).", category = OptionCategory.INTERNAL) //
+    static final OptionKey<Boolean> ForceArgumentBuffer = new OptionKey<>(false);
+
     @CompilationFinal private CallTarget slowPathCall;
     @CompilationFinal private NFIBackendImpl backend;
 
@@ -73,6 +81,11 @@ public class NFILanguageImpl extends TruffleLanguage<NFIContext> {
         return backend.tools;
     }
 
+    @Override
+    protected OptionDescriptors getOptionDescriptors() {
+        return new NFILanguageImplOptionDescriptors();
+    }
+
     @Override
     protected NFIContext createContext(Env env) {
         env.registerService(new NFIBackendFactory() {
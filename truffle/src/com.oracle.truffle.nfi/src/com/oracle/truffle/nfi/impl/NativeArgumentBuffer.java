@@ -41,6 +41,7 @@
 package com.oracle.truffle.nfi.impl;
 
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.nodes.ControlFlowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -240,6 +241,111 @@ abstract class NativeArgumentBuffer {
         }
     }
 
+    /**
+     * Buffer for signatures with only primitive and pointer arguments. Every argument is stored in
+     * its own 64-bit slot, so the native side can pass the slots to the function without a layout
+     * computation or patching.
+     */
+    static final class Slots extends NativeArgumentBuffer {
+
+        final long[] slots;
+        private int idx;
+
+        Slots(int argCount) {
+            super(0);
+            this.slots = new long[argCount];
+            this.idx = 0;
+        }
+
+        @Override
+        public void align(int alignment) {
+            // every argument has its own slot
+        }
+
+        @Override
+        protected ByteBuffer getPrimBuffer() {
+            CompilerDirectives.transferToInterpreter();
+            throw new AssertionError("objects can not be stored in argument slots");
+        }
+
+        /**
+         * A pointer argument may be a Java array that has to be patched into the native arguments.
+         * Argument slots can not hold objects, so the caller has to repeat the call with an
+         * argument buffer.
+         */
+        @Override
+        public void putObject(TypeTag tag, Object o, int size) {
+            throw ObjectArgumentException.INSTANCE;
+        }
+
+        static final class ObjectArgumentException extends ControlFlowException {
+
+            private static final long serialVersionUID = 1L;
+
+            static final ObjectArgumentException INSTANCE = new ObjectArgumentException();
+        }
+
+        @Override
+        public byte getInt8() {
+            return (byte) slots[idx++];
+        }
+
+        @Override
+        public void putInt8(byte b) {
+            slots[idx++] = b;
+        }
+
+        @Override
+        public short getInt16() {
+            return (short) slots[idx++];
+        }
+
+        @Override
+        public void putInt16(short s) {
+            slots[idx++] = s;
+        }
+
+        @Override
+        public int getInt32() {
+            return (int) slots[idx++];
+        }
+
+        @Override
+        public void putInt32(int i) {
+            slots[idx++] = i;
+        }
+
+        @Override
+        public long getInt64() {
+            return slots[idx++];
+        }
+
+        @Override
+        public void putInt64(long l) {
+            slots[idx++] = l;
+        }
+
+        @Override
+        public float getFloat() {
+            return Float.intBitsToFloat((int) slots[idx++]);
+        }
+
+        @Override
+        public void putFloat(float f) {
+            slots[idx++] = Float.floatToRawIntBits(f) & 0xFFFF_FFFFL;
+        }
+
+        @Override
+        public double getDouble() {
+            return Double.longBitsToDouble(slots[idx++]);
+        }
+
+        @Override
+        public void putDouble(double d) {
+            slots[idx++] = Double.doubleToRawLongBits(d);
+        }
+    }
+
     int getPatchCount() {
         return objIdx;
     }
@@ -248,6 +248,14 @@ class HostLanguage extends TruffleLanguage<HostContext> {
         super.disposeContext(context);
     }
 
+    @Override
+    protected boolean resetContext(HostContext context) {
+        // classpath entries added by guest code are dropped together with the class loader
+        disposeContext(context);
+        context.classCache.clear();
+        return true;
+    }
+
     @Override
     protected HostContext createContext(com.oracle.truffle.api.TruffleLanguage.Env env) {
         return new HostContext();
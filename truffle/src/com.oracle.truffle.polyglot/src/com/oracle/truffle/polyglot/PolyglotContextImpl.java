@@ -159,6 +159,14 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     final Assumption singleThreaded = Truffle.getRuntime().createAssumption("Single threaded");
     private final Map<Thread, PolyglotThreadInfo> threads = new WeakHashMap<>();
 
+    /*
+     * Thread infos of the attached threads that can be read without holding the context lock. Used
+     * to enter and leave a multi-threaded context on a thread other than the cached thread without
+     * synchronizing on the context. The reference is weak such that a pooled host thread does not
+     * keep the context alive.
+     */
+    private final ThreadLocal<WeakReference<PolyglotThreadInfo>> attachedThreadInfo = new ThreadLocal<>();
+
     private volatile PolyglotThreadInfo currentThreadInfo = PolyglotThreadInfo.NULL;
     @CompilationFinal private volatile PolyglotThreadInfo constantCurrentThreadInfo = PolyglotThreadInfo.NULL;
 
@@ -176,6 +184,16 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     volatile boolean closed;
     volatile boolean invalid;
     volatile boolean disposing;
+    /*
+     * Set while a thread that holds the context lock checks that no other thread is active and
+     * then acts on the result, i.e. while closing or resetting. Other threads can then only enter
+     * the context through the context lock. A thread that enters without the lock publishes its
+     * entered count with a volatile write before it reads this flag, and the checking thread reads
+     * the published count after setting it. This makes sure that either the checking thread sees
+     * a thread that entered without the lock, or that thread sees this flag and falls back to the
+     * lock. Enters and leaves on the cached thread fast path do not pay for this handshake.
+     */
+    volatile boolean lockedEnterRequired;
     final PolyglotEngineImpl engine;
     @CompilationFinal(dimensions = 1) final PolyglotLanguageContext[] contexts;
     /* Duplicated context impl array for efficient context lookup. */
@@ -282,6 +300,47 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         PolyglotLimits.reset(this);
     }
 
+    @Override
+    public boolean reset(Context sourceContext) {
+        try {
+            checkCreatorAccess(sourceContext, "reset");
+            checkClosed();
+            /*
+             * The lock is held for the whole reset, so that no other thread can enter the context
+             * between the check for active threads and the end of the reset.
+             */
+            synchronized (this) {
+                boolean prevLockedEnterRequired = lockedEnterRequired;
+                lockedEnterRequired = true;
+                try {
+                    if (isActive()) {
+                        throw PolyglotEngineException.illegalState("The context is currently executing and cannot be reset.");
+                    }
+                    Object prev = engine.enterIfNeeded(this);
+                    try {
+                        for (PolyglotLanguageContext context : contexts) {
+                            if (context.isInitialized() && !context.reset()) {
+                                return false;
+                            }
+                        }
+                        Map<String, Value> bindings = this.polyglotBindings;
+                        if (bindings != null) {
+                            bindings.clear();
+                        }
+                    } finally {
+                        engine.leaveIfNeeded(prev, this);
+                    }
+                } finally {
+                    lockedEnterRequired = prevLockedEnterRequired;
+                }
+            }
+            PolyglotLimits.reset(this);
+            return true;
+        } catch (Throwable t) {
+            throw PolyglotImpl.guestToHostException(engine, t);
+        }
+    }
+
     private PolyglotLanguageContext[] createContextArray() {
         Collection<PolyglotLanguage> languages = engine.idToLanguage.values();
         PolyglotLanguageContext[] newContexts = new PolyglotLanguageContext[engine.contextLength];
@@ -431,11 +490,11 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     }
 
     @Override
-    public synchronized void explicitEnter(Context sourceContext) {
+    public void explicitEnter(Context sourceContext) {
         try {
             checkCreatorAccess(sourceContext, "entered");
             Object prev = engine.enter(this);
-            PolyglotThreadInfo current = getCurrentThreadInfo();
+            PolyglotThreadInfo current = lookupCurrentThreadInfo();
             assert current.getThread() == Thread.currentThread();
             current.explicitContextStack.addLast(prev);
         } catch (Throwable t) {
@@ -444,7 +503,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
     }
 
     @Override
-    public synchronized void explicitLeave(Context sourceContext) {
+    public void explicitLeave(Context sourceContext) {
         if (closed || closingThread == Thread.currentThread()) {
             // explicit leaves if already closed are allowed.
             // as close may automatically leave the context on threads.
@@ -452,7 +511,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         }
         try {
             checkCreatorAccess(sourceContext, "left");
-            PolyglotThreadInfo current = getCurrentThreadInfo();
+            PolyglotThreadInfo current = lookupCurrentThreadInfo();
             LinkedList<Object> stack = current.explicitContextStack;
             if (stack.isEmpty() || current.getThread() == null) {
                 throw PolyglotEngineException.illegalState("The context is not entered explicity. A context can only be left if it was previously entered.");
@@ -469,8 +528,61 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
         }
     }
 
+    /*
+     * Returns the thread info of the current thread without taking the context lock, or null if
+     * the thread was never attached to this context. The explicit context stack of a thread info
+     * is only accessed by its own thread and needs no further synchronization.
+     */
+    private PolyglotThreadInfo lookupCurrentThreadInfo() {
+        PolyglotThreadInfo info = currentThreadInfo;
+        if (info.getThread() == Thread.currentThread()) {
+            return info;
+        }
+        info = getAttachedThreadInfo();
+        if (info != null) {
+            return info;
+        }
+        synchronized (this) {
+            return getCurrentThreadInfo();
+        }
+    }
+
+    private PolyglotThreadInfo getAttachedThreadInfo() {
+        WeakReference<PolyglotThreadInfo> ref = attachedThreadInfo.get();
+        return ref != null ? ref.get() : null;
+    }
+
+    /*
+     * An attached thread may enter or leave without the context lock if the context is already
+     * multi-threaded, so no transition is needed, and is not being closed, cancelled, invalidated
+     * or reset. This gives the same guarantees as the cached thread fast path in
+     * PolyglotEngineImpl.enter.
+     */
+    private PolyglotThreadInfo getUnlockedThreadInfo() {
+        if (singleThreaded.isValid() || closingThread != null || cancelling || closed || invalid || lockedEnterRequired) {
+            return null;
+        }
+        PolyglotThreadInfo info = getAttachedThreadInfo();
+        if (info == null || info.cancelled) {
+            return null;
+        }
+        return info;
+    }
+
     @TruffleBoundary
     PolyglotContextImpl enterThreadChanged() {
+        PolyglotThreadInfo attached = getUnlockedThreadInfo();
+        if (attached != null) {
+            PolyglotContextImpl prev = (PolyglotContextImpl) singleContextState.contextThreadLocal.setReturnParent(this);
+            attached.enterUnlocked(engine);
+            // re-check after publishing the entered count, see lockedEnterRequired
+            if (closingThread == null && !cancelling && !closed && !invalid && !lockedEnterRequired) {
+                return prev;
+            }
+            // the context started closing or resetting concurrently -> take the synchronized path
+            attached.leaveUnlocked(engine);
+            singleContextState.contextThreadLocal.set(prev);
+        }
         Thread current = Thread.currentThread();
         PolyglotContextImpl prev;
         boolean needsInitialization = false;
@@ -496,6 +608,7 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
                     throw PolyglotEngineException.illegalState("Can not create new threads in closing context.", true);
                 }
                 threads.put(current, threadInfo);
+                attachedThreadInfo.set(new WeakReference<>(threadInfo));
             }
 
             // enter the thread info already
@@ -570,6 +683,18 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
 
     @TruffleBoundary
     PolyglotThreadInfo leaveThreadChanged() {
+        PolyglotThreadInfo attached = getUnlockedThreadInfo();
+        if (attached != null) {
+            attached.leaveUnlocked(engine);
+            // read after publishing the entered count, see lockedEnterRequired
+            if (cancelling) {
+                // a cancel started concurrently and may wait for this thread to leave
+                synchronized (this) {
+                    notifyAll();
+                }
+            }
+            return attached;
+        }
         PolyglotThreadInfo info;
         synchronized (this) {
             Thread current = Thread.currentThread();
@@ -1096,13 +1221,17 @@ final class PolyglotContextImpl extends AbstractContextImpl implements com.oracl
                     }
                 }
 
+                boolean prevLockedEnterRequired = lockedEnterRequired;
+                lockedEnterRequired = true;
                 if (hasActiveOtherThread(waitForPolyglotThreads)) {
+                    lockedEnterRequired = prevLockedEnterRequired;
                     /*
                      * We are not done executing, cannot close yet.
                      */
                     return false;
                 }
                 closingThread = Thread.currentThread();
+                lockedEnterRequired = prevLockedEnterRequired;
                 if (!threadInfo.explicitContextStack.isEmpty()) {
                     PolyglotContextImpl c = this;
                     while (!threadInfo.explicitContextStack.isEmpty()) {
@@ -375,6 +375,11 @@ final class PolyglotLanguageContext implements PolyglotImpl.VMObject {
         return false;
     }
 
+    boolean reset() {
+        assert isInitialized() && !finalized;
+        return LANGUAGE.resetContext(env);
+    }
+
     boolean dispose() {
         assert Thread.holdsLock(context);
         Env localEnv = this.env;
@@ -56,7 +56,13 @@ final class PolyglotThreadInfo {
     private final PolyglotContextImpl context;
     private final TruffleWeakReference<Thread> thread;
 
+    /*
+     * Only written by the thread itself. An enter or leave without the context lock publishes the
+     * count with a volatile write of publishedEnteredCount, which isActive reads first. Enters and
+     * leaves on the cached thread fast path or with the context lock held need no fence.
+     */
     private int enteredCount;
+    private volatile int publishedEnteredCount;
     final LinkedList<Object> explicitContextStack = new LinkedList<>();
     volatile boolean cancelled;
     private volatile long lastEntered;
@@ -96,6 +102,20 @@ final class PolyglotThreadInfo {
         }
     }
 
+    /**
+     * Like {@link #enter(PolyglotEngineImpl)}, for threads that do not hold the context lock, see
+     * {@link PolyglotContextImpl#lockedEnterRequired}.
+     */
+    void enterUnlocked(PolyglotEngineImpl engine) {
+        enter(engine);
+        publishedEnteredCount = enteredCount;
+    }
+
+    void leaveUnlocked(PolyglotEngineImpl engine) {
+        leave(engine);
+        publishedEnteredCount = enteredCount;
+    }
+
     @TruffleBoundary
     private void lowerPriority() {
         getThread().setPriority(Thread.MIN_PRIORITY);
@@ -175,7 +195,8 @@ final class PolyglotThreadInfo {
     }
 
     boolean isActive() {
-        return getThread() != null && enteredCount > 0 && !cancelled;
+        // the volatile read makes the last enter or leave without the context lock visible
+        return publishedEnteredCount >= 0 && getThread() != null && enteredCount > 0 && !cancelled;
     }
 
     @Override
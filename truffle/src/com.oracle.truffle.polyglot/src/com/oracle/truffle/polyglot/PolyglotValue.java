@@ -77,6 +77,7 @@ import com.oracle.truffle.api.interop.UnknownIdentifierException;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.LoopNode;
 import com.oracle.truffle.api.profiles.BranchProfile;
 import com.oracle.truffle.polyglot.EngineAccessor.EngineImpl;
 import com.oracle.truffle.polyglot.PolyglotLanguageContext.ToGuestValueNode;
@@ -91,6 +92,7 @@ import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.CanExecuteNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.CanInstantiateNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.CanInvokeNodeGen;
+import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.CopyToNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.GetArrayElementNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.GetArraySizeNodeGen;
 import com.oracle.truffle.polyglot.PolyglotValueFactory.InteropCodeCacheFactory.GetMemberKeysNodeGen;
@@ -198,6 +200,20 @@ abstract class PolyglotValue extends AbstractValueImpl {
         throw unsupported(context, receiver, "getArraySize()", "hasArrayElements()");
     }
 
+    @Override
+    public void copyTo(Object receiver, long srcIndex, Object dst, int dstIndex, int length) {
+        try {
+            copyToUnsupported(languageContext, receiver);
+        } catch (Throwable e) {
+            throw PolyglotImpl.guestToHostException((languageContext), e);
+        }
+    }
+
+    @TruffleBoundary
+    static void copyToUnsupported(PolyglotLanguageContext context, Object receiver) {
+        throw unsupported(context, receiver, "copyTo()", "hasArrayElements()");
+    }
+
     @Override
     public Value getMember(Object receiver, String key) {
         try {
@@ -726,6 +742,13 @@ abstract class PolyglotValue extends AbstractValueImpl {
         throw PolyglotEngineException.arrayIndexOutOfBounds(message);
     }
 
+    @TruffleBoundary
+    protected static RuntimeException invalidArrayElementType(PolyglotLanguageContext context, Object receiver, long index, Class<?> targetType) {
+        String message = String.format("Cannot copy array element %s of array %s into an array of Java type '%s': Invalid or lossy primitive coercion.",
+                        index, getValueInfo(context, receiver), targetType.getTypeName());
+        throw PolyglotEngineException.classCast(message);
+    }
+
     @TruffleBoundary
     protected static RuntimeException invalidArrayValue(PolyglotLanguageContext context, Object receiver, long identifier, Object value) {
         throw PolyglotEngineException.classCast(
@@ -951,6 +974,7 @@ abstract class PolyglotValue extends AbstractValueImpl {
         final CallTarget setArrayElement;
         final CallTarget removeArrayElement;
         final CallTarget getArraySize;
+        final CallTarget copyTo;
         final CallTarget hasMembers;
         final CallTarget hasMember;
         final CallTarget getMember;
@@ -1005,6 +1029,7 @@ abstract class PolyglotValue extends AbstractValueImpl {
             this.setArrayElement = createTarget(SetArrayElementNodeGen.create(this));
             this.removeArrayElement = createTarget(RemoveArrayElementNodeGen.create(this));
             this.getArraySize = createTarget(GetArraySizeNodeGen.create(this));
+            this.copyTo = createTarget(CopyToNodeGen.create(this));
             this.hasMember = createTarget(HasMemberNodeGen.create(this));
             this.getMember = createTarget(GetMemberNodeGen.create(this));
             this.putMember = createTarget(PutMemberNodeGen.create(this));
@@ -1599,6 +1624,131 @@ abstract class PolyglotValue extends AbstractValueImpl {
 
         }
 
+        abstract static class CopyToNode extends InteropNode {
+
+            protected CopyToNode(InteropCodeCache interop) {
+                super(interop);
+            }
+
+            @Override
+            protected Class<?>[] getArgumentTypes() {
+                return new Class<?>[]{PolyglotLanguageContext.class, polyglot.receiverType, Long.class, null, Integer.class, Integer.class};
+            }
+
+            @Override
+            protected String getOperationName() {
+                return "copyTo";
+            }
+
+            /*
+             * Host arrays of the same primitive type are copied without reading the elements
+             * through interop.
+             */
+            @Specialization(guards = "isHostArrayOf(receiver, args)")
+            static Object doHostArray(PolyglotLanguageContext context, Object receiver, Object[] args, //
+                            @Cached BranchProfile invalidIndex) {
+                long srcIndex = (long) args[ARGUMENT_OFFSET];
+                Object dst = args[ARGUMENT_OFFSET + 1];
+                int dstIndex = (int) args[ARGUMENT_OFFSET + 2];
+                int length = (int) args[ARGUMENT_OFFSET + 3];
+                Object src = ((HostObject) receiver).obj;
+                int srcLength = primitiveArrayLength(src);
+                if (srcIndex < 0 || srcIndex > srcLength - length) {
+                    invalidIndex.enter();
+                    throw invalidArrayIndex(context, receiver, srcIndex < 0 ? srcIndex : srcLength);
+                }
+                System.arraycopy(src, (int) srcIndex, dst, dstIndex, length);
+                return null;
+            }
+
+            @Specialization(limit = "CACHE_LIMIT")
+            static Object doCached(PolyglotLanguageContext context, Object receiver, Object[] args, //
+                            @CachedLibrary("receiver") InteropLibrary arrays,
+                            @CachedLibrary(limit = "CACHE_LIMIT") InteropLibrary elements,
+                            @Cached BranchProfile unsupported,
+                            @Cached BranchProfile invalidIndex,
+                            @Cached BranchProfile invalidElement) {
+                long srcIndex = (long) args[ARGUMENT_OFFSET];
+                Object dst = args[ARGUMENT_OFFSET + 1];
+                int dstIndex = (int) args[ARGUMENT_OFFSET + 2];
+                int length = (int) args[ARGUMENT_OFFSET + 3];
+                if (!arrays.hasArrayElements(receiver)) {
+                    unsupported.enter();
+                    copyToUnsupported(context, receiver);
+                }
+                int i = 0;
+                try {
+                    if (dst instanceof int[]) {
+                        int[] d = (int[]) dst;
+                        for (; i < length; i++) {
+                            d[dstIndex + i] = elements.asInt(arrays.readArrayElement(receiver, srcIndex + i));
+                        }
+                    } else if (dst instanceof long[]) {
+                        long[] d = (long[]) dst;
+                        for (; i < length; i++) {
+                            d[dstIndex + i] = elements.asLong(arrays.readArrayElement(receiver, srcIndex + i));
+                        }
+                    } else if (dst instanceof double[]) {
+                        double[] d = (double[]) dst;
+                        for (; i < length; i++) {
+                            d[dstIndex + i] = elements.asDouble(arrays.readArrayElement(receiver, srcIndex + i));
+                        }
+                    } else if (dst instanceof float[]) {
+                        float[] d = (float[]) dst;
+                        for (; i < length; i++) {
+                            d[dstIndex + i] = elements.asFloat(arrays.readArrayElement(receiver, srcIndex + i));
+                        }
+                    } else if (dst instanceof short[]) {
+                        short[] d = (short[]) dst;
+                        for (; i < length; i++) {
+                            d[dstIndex + i] = elements.asShort(arrays.readArrayElement(receiver, srcIndex + i));
+                        }
+                    } else if (dst instanceof byte[]) {
+                        byte[] d = (byte[]) dst;
+                        for (; i < length; i++) {
+                            d[dstIndex + i] = elements.asByte(arrays.readArrayElement(receiver, srcIndex + i));
+                        }
+                    } else {
+                        throw shouldNotReachHere();
+                    }
+                } catch (UnsupportedMessageException e) {
+                    invalidElement.enter();
+                    throw invalidArrayElementType(context, receiver, srcIndex + i, dst.getClass().getComponentType());
+                } catch (InvalidArrayIndexException e) {
+                    invalidIndex.enter();
+                    throw invalidArrayIndex(context, receiver, srcIndex + i);
+                } finally {
+                    LoopNode.reportLoopCount(arrays, i);
+                }
+                return null;
+            }
+
+            static boolean isHostArrayOf(Object receiver, Object[] args) {
+                if (HostObject.isInstance(receiver)) {
+                    Object obj = ((HostObject) receiver).obj;
+                    return obj != null && obj.getClass() == args[ARGUMENT_OFFSET + 1].getClass();
+                }
+                return false;
+            }
+
+            private static int primitiveArrayLength(Object array) {
+                if (array instanceof int[]) {
+                    return ((int[]) array).length;
+                } else if (array instanceof long[]) {
+                    return ((long[]) array).length;
+                } else if (array instanceof double[]) {
+                    return ((double[]) array).length;
+                } else if (array instanceof float[]) {
+                    return ((float[]) array).length;
+                } else if (array instanceof short[]) {
+                    return ((short[]) array).length;
+                } else if (array instanceof byte[]) {
+                    return ((byte[]) array).length;
+                }
+                throw shouldNotReachHere();
+            }
+        }
+
         abstract static class GetMemberNode extends InteropNode {
 
             protected GetMemberNode(InteropCodeCache interop) {
@@ -2646,6 +2796,11 @@ abstract class PolyglotValue extends AbstractValueImpl {
             return (long) RUNTIME.callProfiled(cache.getArraySize, languageContext, receiver);
         }
 
+        @Override
+        public void copyTo(Object receiver, long srcIndex, Object dst, int dstIndex, int length) {
+            RUNTIME.callProfiled(cache.copyTo, languageContext, receiver, srcIndex, dst, dstIndex, length);
+        }
+
         @Override
         public boolean hasMembers(Object receiver) {
             return (boolean) RUNTIME.callProfiled(cache.hasMembers, languageContext, receiver);
@@ -77,6 +77,13 @@ public abstract class WasmBenchmarkSuiteBase {
 
         abstract protected String benchmarkResource();
 
+        /**
+         * Allows benchmarks to grant additional permissions or set options, e.g. to preopen
+         * directories for WASI file I/O.
+         */
+        protected void configureContext(@SuppressWarnings("unused") Context.Builder contextBuilder) throws IOException {
+        }
+
         @Setup(Level.Trial)
         public void setup() throws IOException, InterruptedException {
             final Context.Builder contextBuilder = Context.newBuilder("wasm");
@@ -85,6 +92,7 @@ public abstract class WasmBenchmarkSuiteBase {
                 contextBuilder.allowExperimentalOptions(true);
                 contextBuilder.option("engine.Compilation", "false");
             }
+            configureContext(contextBuilder);
             context = contextBuilder.build();
             benchmarkCase = WasmCase.loadBenchmarkCase(benchmarkResource());
             benchmarkCase.getSources().forEach(context::eval);
@@ -46,6 +46,8 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashMap;
@@ -257,6 +259,20 @@ public abstract class WasmSuiteBase extends WasmTestBase {
             if (commandLineArgs != null) {
                 contextBuilder.arguments("wasm", commandLineArgs.split(" "));
             }
+            String preopenedDir = testCase.options().getProperty("wasi-preopened-dir");
+            if (preopenedDir != null) {
+                // The test gets an empty host directory, and is expected to clean up its files.
+                Path hostDir = Files.createTempDirectory("wasm-wasi-");
+                hostDir.toFile().deleteOnExit();
+                contextBuilder.allowIO(true);
+                contextBuilder.option("wasm.WasiMapDirs", preopenedDir + "::" + hostDir);
+                String escapingSymlink = testCase.options().getProperty("wasi-escaping-symlink");
+                if (escapingSymlink != null) {
+                    // A link in the preopened directory that points out of it.
+                    Path link = Files.createSymbolicLink(hostDir.resolve(escapingSymlink), hostDir.getParent());
+                    link.toFile().deleteOnExit();
+                }
+            }
 
             Context context;
             ArrayList<Source> sources = testCase.getSources();
@@ -0,0 +1,122 @@
+;;
+;; Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+;; DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+;;
+;; The Universal Permissive License (UPL), Version 1.0
+;;
+;; Subject to the condition set forth below, permission is hereby granted to any
+;; person obtaining a copy of this software, associated documentation and/or
+;; data (collectively the "Software"), free of charge and under any and all
+;; copyright rights in the Software, and any and all patent rights owned or
+;; freely licensable by each licensor hereunder covering either (i) the
+;; unmodified Software as contributed to or provided by such licensor, or (ii)
+;; the Larger Works (as defined below), to deal in both
+;;
+;; (a) the Software, and
+;;
+;; (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+;; one is included with the Software each a "Larger Work" to which the Software
+;; is contributed by such licensors),
+;;
+;; without restriction, including without limitation the rights to copy, create
+;; derivative works of, display, perform, and distribute the Software and make,
+;; use, sell, offer for sale, import, export, have made, and have sold the
+;; Software and the Larger Work(s), and to sublicense the foregoing rights on
+;; either these or other terms.
+;;
+;; This license is subject to the following condition:
+;;
+;; The above copyright notice and either this complete permission notice or at a
+;; minimum a reference to the UPL must be included in all copies or substantial
+;; portions of the Software.
+;;
+;; THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+;; IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+;; FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+;; AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+;; LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+;; OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+;; SOFTWARE.
+;;
+
+(module
+  (type $t0 (func (result i32)))
+  (type $t1 (func (param i32) (result i32)))
+  (type $t2 (func (param i32 i32) (result i32)))
+  (type $t3 (func (param i32 i32 i32) (result i32)))
+  (type $t4 (func (param i32 i32 i32 i32) (result i32)))
+  (type $t5 (func (param i32 i64 i32 i32) (result i32)))
+  (type $t6 (func (param i32 i32 i32 i64 i32) (result i32)))
+  (type $t7 (func (param i32 i32 i32 i32 i32 i64 i64 i32 i32) (result i32)))
+  (import "wasi_snapshot_preview1" "fd_prestat_get" (func $__wasi_fd_prestat_get (type $t2)))
+  (import "wasi_snapshot_preview1" "path_open" (func $__wasi_path_open (type $t7)))
+  (import "wasi_snapshot_preview1" "fd_write" (func $__wasi_fd_write (type $t4)))
+  (import "wasi_snapshot_preview1" "fd_seek" (func $__wasi_fd_seek (type $t5)))
+  (import "wasi_snapshot_preview1" "fd_read" (func $__wasi_fd_read (type $t4)))
+  (import "wasi_snapshot_preview1" "fd_pread" (func $__wasi_fd_pread (type $t6)))
+  (import "wasi_snapshot_preview1" "fd_close" (func $__wasi_fd_close (type $t1)))
+  (import "wasi_snapshot_preview1" "path_unlink_file" (func $__wasi_path_unlink_file (type $t3)))
+  (memory (;0;) 4)
+  (export "memory" (memory 0))
+
+  ;; Iovecs: the write buffer at 1024, and the read buffer at 2048.
+  (data (i32.const 0) "\00\04\00\00\00\01\00\00\00\08\00\00\00\01\00\00")
+  (data (i32.const 64) "data.bin")
+
+  (func (export "_main") (type $t0)
+    (local $i i32) (local $fd i32) (local $sum i32)
+
+    ;; The preopened directory is the first descriptor after the standard streams.
+    (if (call $__wasi_fd_prestat_get (i32.const 3) (i32.const 32))
+      (then (return (i32.const -1))))
+
+    ;; Fill the write buffer with 256 bytes.
+    (local.set $i (i32.const 0))
+    (block $B0
+      (loop $L0
+        (br_if $B0 (i32.ge_u (local.get $i) (i32.const 256)))
+        (i32.store8 (i32.add (i32.const 1024) (local.get $i)) (i32.mul (local.get $i) (i32.const 7)))
+        (local.set $i (i32.add (local.get $i) (i32.const 1)))
+        (br $L0)))
+
+    ;; Create the file with the rights to read, seek and write, truncating it if it exists.
+    (if (call $__wasi_path_open (i32.const 3) (i32.const 1) (i32.const 64) (i32.const 8) (i32.const 9)
+                                (i64.const 70) (i64.const 0) (i32.const 0) (i32.const 16))
+      (then (return (i32.const -2))))
+    (local.set $fd (i32.load (i32.const 16)))
+
+    (if (call $__wasi_fd_write (local.get $fd) (i32.const 0) (i32.const 1) (i32.const 20))
+      (then (return (i32.const -3))))
+    (if (i32.ne (i32.load (i32.const 20)) (i32.const 256))
+      (then (return (i32.const -4))))
+
+    ;; Rewind, and read the whole file back.
+    (if (call $__wasi_fd_seek (local.get $fd) (i64.const 0) (i32.const 0) (i32.const 24))
+      (then (return (i32.const -5))))
+    (if (call $__wasi_fd_read (local.get $fd) (i32.const 8) (i32.const 1) (i32.const 20))
+      (then (return (i32.const -6))))
+    (if (i32.ne (i32.load (i32.const 20)) (i32.const 256))
+      (then (return (i32.const -7))))
+
+    ;; Read the second half again into the start of the read buffer.
+    (if (call $__wasi_fd_pread (local.get $fd) (i32.const 8) (i32.const 1) (i64.const 128) (i32.const 20))
+      (then (return (i32.const -8))))
+    (if (i32.ne (i32.load (i32.const 20)) (i32.const 128))
+      (then (return (i32.const -9))))
+
+    (if (call $__wasi_fd_close (local.get $fd))
+      (then (return (i32.const -10))))
+    (if (call $__wasi_path_unlink_file (i32.const 3) (i32.const 64) (i32.const 8))
+      (then (return (i32.const -11))))
+
+    ;; Sum-up the read buffer.
+    (local.set $i (i32.const 0))
+    (block $B1
+      (loop $L1
+        (br_if $B1 (i32.ge_u (local.get $i) (i32.const 256)))
+        (local.set $sum (i32.add (local.get $sum) (i32.load8_u (i32.add (i32.const 2048) (local.get $i)))))
+        (local.set $i (i32.add (local.get $i) (i32.const 1)))
+        (br $L1)))
+    (local.get $sum)
+  )
+)
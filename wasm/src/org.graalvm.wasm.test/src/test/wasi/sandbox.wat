@@ -0,0 +1,119 @@
+;;
+;; Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+;; DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+;;
+;; The Universal Permissive License (UPL), Version 1.0
+;;
+;; Subject to the condition set forth below, permission is hereby granted to any
+;; person obtaining a copy of this software, associated documentation and/or
+;; data (collectively the "Software"), free of charge and under any and all
+;; copyright rights in the Software, and any and all patent rights owned or
+;; freely licensable by each licensor hereunder covering either (i) the
+;; unmodified Software as contributed to or provided by such licensor, or (ii)
+;; the Larger Works (as defined below), to deal in both
+;;
+;; (a) the Software, and
+;;
+;; (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+;; one is included with the Software each a "Larger Work" to which the Software
+;; is contributed by such licensors),
+;;
+;; without restriction, including without limitation the rights to copy, create
+;; derivative works of, display, perform, and distribute the Software and make,
+;; use, sell, offer for sale, import, export, have made, and have sold the
+;; Software and the Larger Work(s), and to sublicense the foregoing rights on
+;; either these or other terms.
+;;
+;; This license is subject to the following condition:
+;;
+;; The above copyright notice and either this complete permission notice or at a
+;; minimum a reference to the UPL must be included in all copies or substantial
+;; portions of the Software.
+;;
+;; THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+;; IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+;; FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+;; AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+;; LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+;; OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+;; SOFTWARE.
+;;
+
+(module
+  (type $t0 (func (result i32)))
+  (type $t1 (func (param i32) (result i32)))
+  (type $t3 (func (param i32 i32 i32) (result i32)))
+  (type $t4 (func (param i32 i32 i32 i32) (result i32)))
+  (type $t5 (func (param i32 i64 i32 i32) (result i32)))
+  (type $t6 (func (param i32 i32 i32 i64 i32) (result i32)))
+  (type $t7 (func (param i32 i32 i32 i32 i32 i64 i64 i32 i32) (result i32)))
+  (type $t8 (func (param i32 i32 i32 i32 i32) (result i32)))
+  (import "wasi_snapshot_preview1" "path_open" (func $__wasi_path_open (type $t7)))
+  (import "wasi_snapshot_preview1" "path_filestat_get" (func $__wasi_path_filestat_get (type $t8)))
+  (import "wasi_snapshot_preview1" "fd_write" (func $__wasi_fd_write (type $t4)))
+  (import "wasi_snapshot_preview1" "fd_seek" (func $__wasi_fd_seek (type $t5)))
+  (import "wasi_snapshot_preview1" "fd_readdir" (func $__wasi_fd_readdir (type $t6)))
+  (import "wasi_snapshot_preview1" "fd_close" (func $__wasi_fd_close (type $t1)))
+  (import "wasi_snapshot_preview1" "path_unlink_file" (func $__wasi_path_unlink_file (type $t3)))
+  (memory (;0;) 4)
+  (export "memory" (memory 0))
+
+  ;; Iovec of 16 bytes at 1024.
+  (data (i32.const 0) "\00\04\00\00\10\00\00\00")
+  (data (i32.const 64) "../x")
+  ;; A symbolic link in the preopened directory that points out of it.
+  (data (i32.const 80) "link")
+  (data (i32.const 96) "link/new.txt")
+  (data (i32.const 112) "data.bin")
+
+  (func (export "_main") (type $t0)
+    (local $fd i32)
+
+    ;; Paths that leave the preopened directory are not capable (76), lexically or through a link.
+    (if (i32.ne (call $__wasi_path_open (i32.const 3) (i32.const 1) (i32.const 64) (i32.const 4) (i32.const 1)
+                                        (i64.const 70) (i64.const 0) (i32.const 0) (i32.const 16)) (i32.const 76))
+      (then (return (i32.const -1))))
+    (if (i32.ne (call $__wasi_path_open (i32.const 3) (i32.const 1) (i32.const 80) (i32.const 4) (i32.const 2)
+                                        (i64.const 70) (i64.const 0) (i32.const 0) (i32.const 16)) (i32.const 76))
+      (then (return (i32.const -2))))
+    (if (i32.ne (call $__wasi_path_open (i32.const 3) (i32.const 1) (i32.const 96) (i32.const 12) (i32.const 1)
+                                        (i64.const 70) (i64.const 0) (i32.const 0) (i32.const 16)) (i32.const 76))
+      (then (return (i32.const -3))))
+    (if (i32.ne (call $__wasi_path_filestat_get (i32.const 3) (i32.const 1) (i32.const 80) (i32.const 4) (i32.const 256)) (i32.const 76))
+      (then (return (i32.const -4))))
+
+    ;; The link itself can still be inspected when it is not followed.
+    (if (call $__wasi_path_filestat_get (i32.const 3) (i32.const 0) (i32.const 80) (i32.const 4) (i32.const 256))
+      (then (return (i32.const -5))))
+
+    ;; Create a file, and open it again with the right to read only.
+    (if (call $__wasi_path_open (i32.const 3) (i32.const 1) (i32.const 112) (i32.const 8) (i32.const 9)
+                                (i64.const 70) (i64.const 0) (i32.const 0) (i32.const 16))
+      (then (return (i32.const -6))))
+    (if (call $__wasi_fd_close (i32.load (i32.const 16)))
+      (then (return (i32.const -7))))
+    (if (call $__wasi_path_open (i32.const 3) (i32.const 1) (i32.const 112) (i32.const 8) (i32.const 0)
+                                (i64.const 2) (i64.const 0) (i32.const 0) (i32.const 16))
+      (then (return (i32.const -8))))
+    (local.set $fd (i32.load (i32.const 16)))
+
+    ;; Writing and seeking need rights that the descriptor does not have.
+    (if (i32.ne (call $__wasi_fd_write (local.get $fd) (i32.const 0) (i32.const 1) (i32.const 20)) (i32.const 76))
+      (then (return (i32.const -9))))
+    (if (i32.ne (call $__wasi_fd_seek (local.get $fd) (i64.const 0) (i32.const 0) (i32.const 24)) (i32.const 76))
+      (then (return (i32.const -10))))
+
+    (if (call $__wasi_fd_close (local.get $fd))
+      (then (return (i32.const -11))))
+    (if (call $__wasi_path_unlink_file (i32.const 3) (i32.const 112) (i32.const 8))
+      (then (return (i32.const -12))))
+
+    ;; A cookie of 2^63 is past the end of the directory, not a negative index.
+    (i32.store (i32.const 20) (i32.const -1))
+    (if (call $__wasi_fd_readdir (i32.const 3) (i32.const 512) (i32.const 128) (i64.const 0x8000000000000000) (i32.const 20))
+      (then (return (i32.const -13))))
+    (if (i32.load (i32.const 20))
+      (then (return (i32.const -14))))
+    (i32.const 0)
+  )
+)
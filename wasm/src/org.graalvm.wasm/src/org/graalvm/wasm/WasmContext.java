@@ -45,11 +45,14 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.oracle.truffle.api.CallTarget;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.Scope;
 import com.oracle.truffle.api.TruffleLanguage.Env;
 import com.oracle.truffle.api.source.Source;
 import org.graalvm.wasm.exception.WasmValidationException;
 import org.graalvm.wasm.predefined.BuiltinModule;
+import org.graalvm.wasm.predefined.wasi.WasiFdTable;
 
 public final class WasmContext {
     private final Env env;
@@ -59,6 +62,7 @@ public final class WasmContext {
     private final TableRegistry tableRegistry;
     private final Linker linker;
     private Map<String, WasmModule> modules;
+    private WasiFdTable wasiFdTable;
 
     public static WasmContext getCurrent() {
         return WasmLanguage.getCurrentContext();
@@ -104,6 +108,30 @@ public final class WasmContext {
         return linker;
     }
 
+    /**
+     * Returns the file descriptors of the WASI programs in this context. The table is created on
+     * first use, so that contexts that do not access files do not parse the directory mappings.
+     * The creation opens channels and resolves files, so it is kept out of compiled code.
+     */
+    public WasiFdTable wasiFdTable() {
+        if (wasiFdTable == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            createWasiFdTable();
+        }
+        return wasiFdTable;
+    }
+
+    @TruffleBoundary
+    private void createWasiFdTable() {
+        wasiFdTable = new WasiFdTable(env);
+    }
+
+    void close() {
+        if (wasiFdTable != null) {
+            wasiFdTable.close();
+        }
+    }
+
     public Iterable<Scope> getTopScopes() {
         // Go through all WasmModules parsed with this context, and create a Scope for each of them.
         ArrayList<Scope> scopes = new ArrayList<>();
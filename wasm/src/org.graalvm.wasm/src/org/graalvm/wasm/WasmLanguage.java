@@ -60,6 +60,11 @@ public final class WasmLanguage extends TruffleLanguage<WasmContext> {
         return new WasmContext(env, this);
     }
 
+    @Override
+    protected void disposeContext(WasmContext context) {
+        context.close();
+    }
+
     @Override
     protected CallTarget parse(ParsingRequest request) {
         final WasmContext context = getCurrentContext();
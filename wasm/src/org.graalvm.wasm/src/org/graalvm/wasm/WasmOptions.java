@@ -57,6 +57,9 @@ public class WasmOptions {
     @Option(help = "The stack size in kilobytes to use during async parsing, or zero to use defaults.", category = OptionCategory.USER, stability = OptionStability.STABLE)//
     public static final OptionKey<Integer> AsyncParsingStackSize = new OptionKey<>(0);
 
+    @Option(help = "A comma-separated list of host directories preopened for WASI programs: <guest-path>::<host-path>.", category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL)//
+    public static final OptionKey<String> WasiMapDirs = new OptionKey<>("");
+
     public enum StoreConstantsPolicyEnum {
         ALL,
         LARGE_ONLY,
@@ -40,23 +40,29 @@
  */
 package org.graalvm.wasm.memory;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.profiles.ConditionProfile;
+import org.graalvm.nativeimage.ImageInfo;
+import org.graalvm.nativeimage.c.type.CTypeConversion;
 import org.graalvm.wasm.exception.WasmTrap;
 import org.graalvm.wasm.WasmTracing;
+import org.graalvm.word.WordFactory;
 import sun.misc.Unsafe;
 
 public class UnsafeWasmMemory extends WasmMemory {
-    private final Unsafe unsafe;
-    private long startAddress;
-    private long pageSize;
-    private final long maxPageSize;
-    private final ConditionProfile outOfBoundsAccesses = ConditionProfile.create();
+    // Checkstyle: stop constant name check
+    private static final Unsafe unsafe;
+    // Checkstyle: resume constant name check
 
-    public UnsafeWasmMemory(long initPageSize, long maxPageSize) {
+    static {
         try {
             Field f = Unsafe.class.getDeclaredField("theUnsafe");
             f.setAccessible(true);
@@ -64,6 +70,44 @@ public class UnsafeWasmMemory extends WasmMemory {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+    }
+
+    /**
+     * Creates the direct buffers through which channel I/O accesses the memory on HotSpot, by
+     * re-pointing a duplicate of an empty direct buffer. Java offers no public way to wrap native
+     * memory in a buffer, and JNI is not available to this language. Native images use the
+     * supported {@link CTypeConversion#asByteBuffer} instead, so this class is never initialized
+     * there and no direct buffer ends up in the image heap.
+     */
+    private static final class HotSpotDirectBuffers {
+        private static final ByteBuffer TEMPLATE = ByteBuffer.allocateDirect(0);
+        private static final long ADDRESS_OFFSET;
+        private static final long CAPACITY_OFFSET;
+
+        static {
+            try {
+                ADDRESS_OFFSET = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+                CAPACITY_OFFSET = unsafe.objectFieldOffset(Buffer.class.getDeclaredField("capacity"));
+            } catch (NoSuchFieldException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        static ByteBuffer view(long address, int length) {
+            final ByteBuffer view = TEMPLATE.duplicate();
+            unsafe.putLong(view, ADDRESS_OFFSET, address);
+            unsafe.putInt(view, CAPACITY_OFFSET, length);
+            view.clear();
+            return view;
+        }
+    }
+
+    private long startAddress;
+    private long pageSize;
+    private final long maxPageSize;
+    private final ConditionProfile outOfBoundsAccesses = ConditionProfile.create();
+
+    public UnsafeWasmMemory(long initPageSize, long maxPageSize) {
         this.pageSize = initPageSize;
         this.maxPageSize = maxPageSize;
         long byteSize = byteSize();
@@ -329,6 +373,32 @@ public class UnsafeWasmMemory extends WasmMemory {
     }
     // Checkstyle: resume
 
+    @Override
+    @CompilerDirectives.TruffleBoundary
+    public int readFromChannel(Node node, long address, int length, ReadableByteChannel channel) throws IOException {
+        WasmTracing.trace("read from channel address = %d, length = %d", address, length);
+        return channel.read(byteBufferView(node, address, length));
+    }
+
+    @Override
+    @CompilerDirectives.TruffleBoundary
+    public int writeToChannel(Node node, long address, int length, WritableByteChannel channel) throws IOException {
+        WasmTracing.trace("write to channel address = %d, length = %d", address, length);
+        return channel.write(byteBufferView(node, address, length));
+    }
+
+    /**
+     * Returns a direct buffer over {@code length} bytes of the memory, starting at
+     * {@code address}. The buffer must not be retained, since the memory may move when it grows.
+     */
+    private ByteBuffer byteBufferView(Node node, long address, int length) {
+        validateAddress(node, address, length);
+        if (ImageInfo.inImageCode()) {
+            return CTypeConversion.asByteBuffer(WordFactory.pointer(startAddress + address), length);
+        }
+        return HotSpotDirectBuffers.view(startAddress + address, length);
+    }
+
     @Override
     public WasmMemory duplicate() {
         final UnsafeWasmMemory other = new UnsafeWasmMemory(pageSize, maxPageSize);
@@ -40,6 +40,10 @@
  */
 package org.graalvm.wasm.memory;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.InvalidArrayIndexException;
 import com.oracle.truffle.api.interop.TruffleObject;
@@ -129,6 +133,18 @@ public abstract class WasmMemory implements TruffleObject {
     public abstract void store_i64_32(Node node, long address, int value);
     // Checkstyle: resume
 
+    /**
+     * Reads at most {@code length} bytes from the channel directly into the memory, starting at
+     * {@code address}. Returns the number of bytes read, or -1 at the end of the stream.
+     */
+    public abstract int readFromChannel(Node node, long address, int length, ReadableByteChannel channel) throws IOException;
+
+    /**
+     * Writes at most {@code length} bytes of the memory, starting at {@code address}, directly to
+     * the channel. Returns the number of bytes written.
+     */
+    public abstract int writeToChannel(Node node, long address, int length, WritableByteChannel channel) throws IOException;
+
     public abstract void clear();
 
     public abstract WasmMemory duplicate();
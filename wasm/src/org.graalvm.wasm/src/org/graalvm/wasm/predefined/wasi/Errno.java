@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.wasm.predefined.wasi;
+
+import java.io.IOException;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+
+// https://github.com/WebAssembly/WASI/blob/master/phases/snapshot/docs.md#-errno-enumu16
+public enum Errno {
+    Success(0),
+    Acces(2),
+    Badf(8),
+    Exist(20),
+    Inval(28),
+    Io(29),
+    Isdir(31),
+    Noent(44),
+    Notdir(54),
+    Notempty(55),
+    Notsup(58),
+    Perm(63),
+    Spipe(70),
+    Notcapable(76);
+
+    private final int code;
+
+    Errno(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    static Errno fromException(Exception e) {
+        if (e instanceof NoSuchFileException) {
+            return Noent;
+        } else if (e instanceof FileAlreadyExistsException) {
+            return Exist;
+        } else if (e instanceof DirectoryNotEmptyException) {
+            return Notempty;
+        } else if (e instanceof NotDirectoryException) {
+            return Notdir;
+        } else if (e instanceof AccessDeniedException || e instanceof SecurityException) {
+            return Acces;
+        } else if (e instanceof NonReadableChannelException || e instanceof NonWritableChannelException) {
+            return Badf;
+        } else if (e instanceof UnsupportedOperationException) {
+            return Notsup;
+        } else if (e instanceof IllegalArgumentException) {
+            return Inval;
+        } else if (e instanceof IOException) {
+            return Io;
+        }
+        return Inval;
+    }
+}
@@ -100,6 +100,6 @@ public class WasiClockTimeGet extends WasmBuiltinRootNode {
 
     @Override
     public String builtinNodeName() {
-        return "__wasi_args_get";
+        return "__wasi_clock_time_get";
     }
 }
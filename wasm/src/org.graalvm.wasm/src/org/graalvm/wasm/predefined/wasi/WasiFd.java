@@ -0,0 +1,379 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.wasm.predefined.wasi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.LinkOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.nodes.Node;
+import org.graalvm.wasm.memory.WasmMemory;
+
+/**
+ * An open WASI file descriptor. Files are backed by a channel that transfers data directly from
+ * and to the WebAssembly memory. Directories keep only their {@link TruffleFile}, against which
+ * the relative paths of the {@code path_*} functions are resolved.
+ */
+final class WasiFd {
+    // https://github.com/WebAssembly/WASI/blob/master/phases/snapshot/docs.md#-filetype-enumu8
+    static final byte FILETYPE_UNKNOWN = 0;
+    static final byte FILETYPE_CHARACTER_DEVICE = 2;
+    static final byte FILETYPE_DIRECTORY = 3;
+    static final byte FILETYPE_REGULAR_FILE = 4;
+    static final byte FILETYPE_SYMBOLIC_LINK = 7;
+
+    // https://github.com/WebAssembly/WASI/blob/master/phases/snapshot/docs.md#-rights-flagsu64
+    static final long RIGHTS_FD_READ = 1L << 1;
+    static final long RIGHTS_FD_SEEK = 1L << 2;
+    static final long RIGHTS_FD_TELL = 1L << 5;
+    static final long RIGHTS_FD_WRITE = 1L << 6;
+    static final long RIGHTS_ALL = (1L << 29) - 1;
+
+    // https://github.com/WebAssembly/WASI/blob/master/phases/snapshot/docs.md#-whence-enumu8
+    private static final int WHENCE_SET = 0;
+    private static final int WHENCE_CUR = 1;
+    private static final int WHENCE_END = 2;
+
+    // https://github.com/WebAssembly/WASI/blob/master/phases/snapshot/docs.md#-fdflags-flagsu16
+    private static final short FDFLAGS_APPEND = 1;
+
+    private static final int DIRENT_SIZE = 24;
+    private static final int FILESTAT_SIZE = 64;
+
+    final TruffleFile file;
+    final TruffleFile root;
+    final String preopenName;
+    private final Channel channel;
+    private final byte filetype;
+    private final short flags;
+    final long rightsBase;
+    final long rightsInheriting;
+
+    WasiFd(TruffleFile file, TruffleFile root, String preopenName, Channel channel, byte filetype, short flags, long rightsBase, long rightsInheriting) {
+        this.file = file;
+        this.root = root;
+        this.preopenName = preopenName;
+        this.channel = channel;
+        this.filetype = filetype;
+        this.flags = flags;
+        this.rightsBase = rightsBase;
+        this.rightsInheriting = rightsInheriting;
+    }
+
+    boolean isDirectory() {
+        return filetype == FILETYPE_DIRECTORY;
+    }
+
+    private boolean hasRights(long rights) {
+        return (rightsBase & rights) == rights;
+    }
+
+    /**
+     * Resolves a path relative to this directory, or returns {@code null} if the path would leave
+     * the preopened directory that this descriptor was opened from. The root of a preopened
+     * directory is canonical, and the path is checked both lexically and after resolving the
+     * symbolic links in it. The last path element is only resolved if {@code followLinks} is set,
+     * so that a link to the outside can still be removed or inspected itself.
+     */
+    TruffleFile resolve(String path, boolean followLinks) throws IOException {
+        if (path.startsWith("/")) {
+            return null;
+        }
+        final TruffleFile resolved = file.resolve(path).normalize();
+        if (!resolved.startsWith(root)) {
+            return null;
+        }
+        if (resolved.equals(root)) {
+            return resolved;
+        }
+        final TruffleFile canonical;
+        if (followLinks && resolved.exists(LinkOption.NOFOLLOW_LINKS)) {
+            canonical = resolved.getCanonicalFile();
+        } else {
+            canonical = resolved.getParent().getCanonicalFile().resolve(resolved.getName());
+        }
+        return canonical.startsWith(root) ? resolved : null;
+    }
+
+    Errno read(Node node, WasmMemory memory, int iovs, int iovsLength, int sizeAddress) throws IOException {
+        if (!hasRights(RIGHTS_FD_READ)) {
+            return Errno.Notcapable;
+        }
+        if (!(channel instanceof ReadableByteChannel)) {
+            return isDirectory() ? Errno.Isdir : Errno.Badf;
+        }
+        memory.store_i32(node, sizeAddress, transfer(node, memory, iovs, iovsLength, true));
+        return Errno.Success;
+    }
+
+    Errno write(Node node, WasmMemory memory, int iovs, int iovsLength, int sizeAddress) throws IOException {
+        if (!hasRights(RIGHTS_FD_WRITE)) {
+            return Errno.Notcapable;
+        }
+        if (!(channel instanceof WritableByteChannel)) {
+            return isDirectory() ? Errno.Isdir : Errno.Badf;
+        }
+        if ((flags & FDFLAGS_APPEND) != 0 && channel instanceof SeekableByteChannel) {
+            final SeekableByteChannel seekable = (SeekableByteChannel) channel;
+            seekable.position(seekable.size());
+        }
+        memory.store_i32(node, sizeAddress, transfer(node, memory, iovs, iovsLength, false));
+        return Errno.Success;
+    }
+
+    Errno pread(Node node, WasmMemory memory, int iovs, int iovsLength, long offset, int sizeAddress) throws IOException {
+        return positionalTransfer(node, memory, iovs, iovsLength, offset, sizeAddress, true);
+    }
+
+    Errno pwrite(Node node, WasmMemory memory, int iovs, int iovsLength, long offset, int sizeAddress) throws IOException {
+        return positionalTransfer(node, memory, iovs, iovsLength, offset, sizeAddress, false);
+    }
+
+    private Errno positionalTransfer(Node node, WasmMemory memory, int iovs, int iovsLength, long offset, int sizeAddress, boolean read) throws IOException {
+        if (!hasRights((read ? RIGHTS_FD_READ : RIGHTS_FD_WRITE) | RIGHTS_FD_SEEK)) {
+            return Errno.Notcapable;
+        }
+        if (!(channel instanceof SeekableByteChannel)) {
+            return isDirectory() ? Errno.Isdir : Errno.Spipe;
+        }
+        if (offset < 0) {
+            return Errno.Inval;
+        }
+        final SeekableByteChannel seekable = (SeekableByteChannel) channel;
+        final long position = seekable.position();
+        try {
+            seekable.position(offset);
+            memory.store_i32(node, sizeAddress, transfer(node, memory, iovs, iovsLength, read));
+        } finally {
+            seekable.position(position);
+        }
+        return Errno.Success;
+    }
+
+    /**
+     * Transfers the buffers of an iovec array, stopping at the first buffer that is not
+     * transferred completely. Streams that are not files are only read once per buffer, so that a
+     * read does not block once some input is available.
+     */
+    private int transfer(Node node, WasmMemory memory, int iovs, int iovsLength, boolean read) throws IOException {
+        int total = 0;
+        for (int i = 0; i < iovsLength; i++) {
+            final int address = memory.load_i32(node, iovs + i * 8);
+            final int length = memory.load_i32(node, iovs + i * 8 + 4);
+            int done = 0;
+            while (done < length) {
+                final int count;
+                if (read) {
+                    count = memory.readFromChannel(node, address + done, length - done, (ReadableByteChannel) channel);
+                } else {
+                    count = memory.writeToChannel(node, address + done, length - done, (WritableByteChannel) channel);
+                }
+                if (count <= 0) {
+                    break;
+                }
+                done += count;
+                if (read && !(channel instanceof SeekableByteChannel)) {
+                    break;
+                }
+            }
+            total += done;
+            if (done < length) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    Errno seek(Node node, WasmMemory memory, long offset, int whence, int positionAddress) throws IOException {
+        if (!hasRights(RIGHTS_FD_SEEK)) {
+            return Errno.Notcapable;
+        }
+        if (!(channel instanceof SeekableByteChannel)) {
+            return isDirectory() ? Errno.Badf : Errno.Spipe;
+        }
+        final SeekableByteChannel seekable = (SeekableByteChannel) channel;
+        final long base;
+        switch (whence) {
+            case WHENCE_SET:
+                base = 0;
+                break;
+            case WHENCE_CUR:
+                base = seekable.position();
+                break;
+            case WHENCE_END:
+                base = seekable.size();
+                break;
+            default:
+                return Errno.Inval;
+        }
+        final long position = base + offset;
+        if (position < 0) {
+            return Errno.Inval;
+        }
+        seekable.position(position);
+        memory.store_i64(node, positionAddress, position);
+        return Errno.Success;
+    }
+
+    Errno tell(Node node, WasmMemory memory, int positionAddress) throws IOException {
+        if (!hasRights(RIGHTS_FD_TELL)) {
+            return Errno.Notcapable;
+        }
+        if (!(channel instanceof SeekableByteChannel)) {
+            return isDirectory() ? Errno.Badf : Errno.Spipe;
+        }
+        memory.store_i64(node, positionAddress, ((SeekableByteChannel) channel).position());
+        return Errno.Success;
+    }
+
+    Errno fdstat(Node node, WasmMemory memory, int address) {
+        memory.store_i64(node, address, 0L);
+        memory.store_i32_8(node, address, filetype);
+        memory.store_i32_16(node, address + 2, flags);
+        memory.store_i64(node, address + 8, rightsBase);
+        memory.store_i64(node, address + 16, rightsInheriting);
+        return Errno.Success;
+    }
+
+    Errno filestat(Node node, WasmMemory memory, int address) throws IOException {
+        if (file == null) {
+            // The standard streams have no file behind them.
+            for (int i = 0; i < FILESTAT_SIZE; i += 8) {
+                memory.store_i64(node, address + i, 0L);
+            }
+            memory.store_i32_8(node, address + 16, filetype);
+            return Errno.Success;
+        }
+        return writeFilestat(node, memory, file, address);
+    }
+
+    static Errno writeFilestat(Node node, WasmMemory memory, TruffleFile file, int address, LinkOption... options) throws IOException {
+        final FileTime modified = file.getLastModifiedTime(options);
+        memory.store_i64(node, address, attribute(file, TruffleFile.UNIX_DEV, 0L, options));
+        memory.store_i64(node, address + 8, attribute(file, TruffleFile.UNIX_INODE, 0L, options));
+        memory.store_i64(node, address + 16, 0L);
+        memory.store_i32_8(node, address + 16, filetype(file, options));
+        memory.store_i64(node, address + 24, attribute(file, TruffleFile.UNIX_NLINK, 1, options));
+        memory.store_i64(node, address + 32, file.size(options));
+        memory.store_i64(node, address + 40, file.getLastAccessTime(options).to(TimeUnit.NANOSECONDS));
+        memory.store_i64(node, address + 48, modified.to(TimeUnit.NANOSECONDS));
+        memory.store_i64(node, address + 56, attribute(file, TruffleFile.UNIX_CTIME, modified, options).to(TimeUnit.NANOSECONDS));
+        return Errno.Success;
+    }
+
+    private static <T> T attribute(TruffleFile file, TruffleFile.AttributeDescriptor<T> descriptor, T defaultValue, LinkOption... options) throws IOException {
+        try {
+            return file.getAttribute(descriptor, options);
+        } catch (UnsupportedOperationException e) {
+            return defaultValue;
+        }
+    }
+
+    private static byte filetype(TruffleFile file, LinkOption... options) {
+        if (file.isDirectory(options)) {
+            return FILETYPE_DIRECTORY;
+        } else if (file.isRegularFile(options)) {
+            return FILETYPE_REGULAR_FILE;
+        } else if (file.isSymbolicLink()) {
+            return FILETYPE_SYMBOLIC_LINK;
+        }
+        return FILETYPE_UNKNOWN;
+    }
+
+    /**
+     * Writes the directory entries that follow the given cookie. The cookie of an entry is its
+     * index in the sorted listing, which starts with {@code .} and {@code ..}. The cookie is an
+     * unsigned 64-bit value. The last entry is truncated if it does not fit, which tells the
+     * program that the buffer was filled.
+     */
+    Errno readdir(Node node, WasmMemory memory, int buffer, int bufferLength, long cookie, int sizeAddress) throws IOException {
+        if (!isDirectory()) {
+            return Errno.Notdir;
+        }
+        final List<TruffleFile> entries = new ArrayList<>(file.list());
+        entries.sort(Comparator.comparing(TruffleFile::getName));
+        if (Long.compareUnsigned(cookie, entries.size() + 2) >= 0) {
+            memory.store_i32(node, sizeAddress, 0);
+            return Errno.Success;
+        }
+        int used = 0;
+        for (long index = cookie; index < entries.size() + 2 && used < bufferLength; index++) {
+            final String name;
+            final byte type;
+            if (index < 2) {
+                name = index == 0 ? "." : "..";
+                type = FILETYPE_DIRECTORY;
+            } else {
+                final TruffleFile entry = entries.get((int) index - 2);
+                name = entry.getName();
+                type = filetype(entry, LinkOption.NOFOLLOW_LINKS);
+            }
+            final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            final ByteBuffer dirent = ByteBuffer.allocate(DIRENT_SIZE + nameBytes.length).order(ByteOrder.LITTLE_ENDIAN);
+            dirent.putLong(index + 1).putLong(0L).putInt(nameBytes.length).put(type);
+            dirent.position(DIRENT_SIZE);
+            dirent.put(nameBytes);
+            final int length = Math.min(dirent.capacity(), bufferLength - used);
+            WasiFdTable.storeBytes(node, memory, buffer + used, dirent.array(), length);
+            used += length;
+        }
+        memory.store_i32(node, sizeAddress, used);
+        return Errno.Success;
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
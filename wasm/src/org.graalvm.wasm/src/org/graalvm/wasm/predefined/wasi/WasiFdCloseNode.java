@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018, 2019, Oracle and/or its affiliates. All rights reserved.
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
  *
  * The Universal Permissive License (UPL), Version 1.0
@@ -38,24 +38,26 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-package com.oracle.truffle.regex.util;
+package org.graalvm.wasm.predefined.wasi;
 
-import java.util.LinkedHashMap;
+import java.io.IOException;
 
-/**
- * An implementation of a cache with a least-recently-used policy via LinkedHashMap.
- */
-public final class LRUCache<K, V> extends LinkedHashMap<K, V> {
-    private static final long serialVersionUID = 7813848977534444613L;
-    private final int maxCacheSize;
+import org.graalvm.wasm.WasmLanguage;
+import org.graalvm.wasm.WasmModule;
+import org.graalvm.wasm.memory.WasmMemory;
+
+public class WasiFdCloseNode extends WasiFileSystemNode {
+    public WasiFdCloseNode(WasmLanguage language, WasmModule module) {
+        super(language, module);
+    }
 
-    public LRUCache(int maxCacheSize) {
-        super(16, 0.75F, true);
-        this.maxCacheSize = maxCacheSize;
+    @Override
+    protected Errno execute(WasiFdTable fds, WasmMemory memory, Object[] args) throws IOException {
+        return fds.close((int) args[0]);
     }
 
     @Override
-    protected boolean removeEldestEntry(java.util.Map.Entry<K, V> eldest) {
-        return size() > maxCacheSize;
+    public String builtinNodeName() {
+        return "__wasi_fd_close";
     }
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2020, Oracle and/or its affiliates. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or
+ * data (collectively the "Software"), free of charge and under any and all
+ * copyright rights in the Software, and any and all patent rights owned or
+ * freely licensable by each licensor hereunder covering either (i) the
+ * unmodified Software as contributed to or provided by such licensor, or (ii)
+ * the Larger Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ *
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ *
+ * The above copyright notice and either this complete permission notice or at a
+ * minimum a reference to the UPL must be included in all copies or substantial
+ * portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.graalvm.wasm.predefined.wasi;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.oracle.truffle.api.TruffleFile;
+import com.oracle.truffle.api.TruffleLanguage.Env;
+import com.oracle.truffle.api.nodes.Node;
+import org.graalvm.wasm.WasmOptions;
+import org.graalvm.wasm.exception.WasmExecutionException;
+import org.graalvm.wasm.memory.WasmMemory;
+
+/**
+ * The file descriptors of the WASI programs in a context. Descriptors 0, 1 and 2 are the standard
+ * streams, followed by the directories preopened with the {@code wasm.WasiMapDirs} option. Files
+ * are opened as {@link TruffleFile}s, so the IO permissions of the context apply to them.
+ */
+public final class WasiFdTable {
+    // https://github.com/WebAssembly/WASI/blob/master/phases/snapshot/docs.md#-oflags-flagsu16
+    private static final int OFLAGS_CREAT = 1;
+    private static final int OFLAGS_DIRECTORY = 2;
+    private static final int OFLAGS_EXCL = 4;
+    private static final int OFLAGS_TRUNC = 8;
+
+    // https://github.com/WebAssembly/WASI/blob/master/phases/snapshot/docs.md#-lookupflags-flagsu32
+    private static final int LOOKUPFLAGS_SYMLINK_FOLLOW = 1;
+
+    private static final LinkOption[] FOLLOW_LINKS = new LinkOption[0];
+    private static final LinkOption[] NOFOLLOW_LINKS = new LinkOption[]{LinkOption.NOFOLLOW_LINKS};
+
+    private final List<WasiFd> fds;
+
+    public WasiFdTable(Env env) {
+        this.fds = new ArrayList<>();
+        fds.add(new WasiFd(null, null, null, Channels.newChannel(env.in()), WasiFd.FILETYPE_CHARACTER_DEVICE, (short) 0, WasiFd.RIGHTS_FD_READ, 0L));
+        fds.add(new WasiFd(null, null, null, null, WasiFd.FILETYPE_CHARACTER_DEVICE, (short) 0, WasiFd.RIGHTS_FD_WRITE, 0L));
+        fds.add(new WasiFd(null, null, null, null, WasiFd.FILETYPE_CHARACTER_DEVICE, (short) 0, WasiFd.RIGHTS_FD_WRITE, 0L));
+        final String mapDirs = WasmOptions.WasiMapDirs.getValue(env.getOptions());
+        if (mapDirs.isEmpty()) {
+            return;
+        }
+        for (String mapping : mapDirs.split(",")) {
+            final String[] parts = mapping.split("::", 2);
+            if (parts.length != 2) {
+                throw new WasmExecutionException(null, "Directory mapping '" + mapping + "' is not valid.");
+            }
+            final TruffleFile directory = canonicalDirectory(env.getPublicTruffleFile(parts[1]));
+            fds.add(new WasiFd(directory, directory, parts[0], null, WasiFd.FILETYPE_DIRECTORY, (short) 0, WasiFd.RIGHTS_ALL, WasiFd.RIGHTS_ALL));
+        }
+    }
+
+    /**
+     * Returns the canonical path of a preopened directory, so that the paths resolved against it
+     * can be checked after their symbolic links are resolved.
+     */
+    private static TruffleFile canonicalDirectory(TruffleFile directory) {
+        try {
+            return directory.getCanonicalFile();
+        } catch (IOException e) {
+            // The directory does not exist (yet), every access to it fails.
+            return directory.getAbsoluteFile().normalize();
+        }
+    }
+
+    WasiFd get(int fd) {
+        return fd >= 0 && fd < fds.size() ? fds.get(fd) : null;
+    }
+
+    private int add(WasiFd fd) {
+        for (int i = 0; i < fds.size(); i++) {
+            if (fds.get(i) == null) {
+                fds.set(i, fd);
+                return i;
+            }
+        }
+        fds.add(fd);
+        return fds.size() - 1;
+    }
+
+    Errno close(int fd) throws IOException {
+        final WasiFd entry = get(fd);
+        if (entry == null) {
+            return Errno.Badf;
+        }
+        fds.set(fd, null);
+        entry.close();
+        return Errno.Success;
+    }
+
+    /**
+     * Closes all descriptors when the context is disposed.
+     */
+    public void close() {
+        for (int i = 0; i < fds.size(); i++) {
+            try {
+                close(i);
+            } catch (IOException e) {
+                // The program can no longer observe the failure.
+            }
+        }
+    }
+
+    Errno prestatGet(Node node, WasmMemory memory, int fd, int address) {
+        final WasiFd entry = get(fd);
+        if (entry == null || entry.preopenName == null) {
+            return Errno.Badf;
+        }
+        memory.store_i32(node, address, 0);
+        memory.store_i32(node, address + 4, entry.preopenName.getBytes(StandardCharsets.UTF_8).length);
+        return Errno.Success;
+    }
+
+    Errno prestatDirName(Node node, WasmMemory memory, int fd, int address, int length) {
+        final WasiFd entry = get(fd);
+        if (entry == null || entry.preopenName == null) {
+            return Errno.Badf;
+        }
+        final byte[] name = entry.preopenName.getBytes(StandardCharsets.UTF_8);
+        storeBytes(node, memory, address, name, Math.min(name.length, length));
+        return Errno.Success;
+    }
+
+    Errno pathOpen(Node node, WasmMemory memory, int dirFd, int lookupFlags, int pathAddress, int pathLength, int oflags, long rightsBase, long rightsInheriting, short fdflags, int fdAddress)
+                    throws IOException {
+        final WasiFd directory = get(dirFd);
+        if (directory == null) {
+            return Errno.Badf;
+        }
+        if (!directory.isDirectory()) {
+            return Errno.Notdir;
+        }
+        final LinkOption[] linkOptions = linkOptions(lookupFlags);
+        final TruffleFile file = directory.resolve(loadString(node, memory, pathAddress, pathLength), linkOptions.length == 0);
+        if (file == null) {
+            return Errno.Notcapable;
+        }
+        final long base = rightsBase & directory.rightsInheriting;
+        final long inheriting = rightsInheriting & directory.rightsInheriting;
+        final WasiFd opened;
+        if (file.isDirectory(linkOptions)) {
+            if ((oflags & OFLAGS_CREAT) != 0 && (oflags & OFLAGS_EXCL) != 0) {
+                return Errno.Exist;
+            }
+            if ((oflags & OFLAGS_TRUNC) != 0) {
+                return Errno.Isdir;
+            }
+            opened = new WasiFd(file, directory.root, null, null, WasiFd.FILETYPE_DIRECTORY, fdflags, base, inheriting);
+        } else if ((oflags & OFLAGS_DIRECTORY) != 0) {
+            return file.exists(linkOptions) ? Errno.Notdir : Errno.Noent;
+        } else {
+            final Set<OpenOption> options = new HashSet<>();
+            if ((base & WasiFd.RIGHTS_FD_WRITE) != 0) {
+                options.add(StandardOpenOption.WRITE);
+            }
+            if ((base & WasiFd.RIGHTS_FD_READ) != 0 || options.isEmpty()) {
+                options.add(StandardOpenOption.READ);
+            }
+            if ((oflags & OFLAGS_CREAT) != 0) {
+                options.add((oflags & OFLAGS_EXCL) != 0 ? StandardOpenOption.CREATE_NEW : StandardOpenOption.CREATE);
+            }
+            if ((oflags & OFLAGS_TRUNC) != 0) {
+                options.add(StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            if (linkOptions.length != 0) {
+                options.add(LinkOption.NOFOLLOW_LINKS);
+            }
+            opened = new WasiFd(file, directory.root, null, file.newByteChannel(options), WasiFd.FILETYPE_REGULAR_FILE, fdflags, base, inheriting);
+        }
+        memory.store_i32(node, fdAddress, add(opened));
+        return Errno.Success;
+    }
+
+    Errno pathFilestatGet(Node node, WasmMemory memory, int dirFd, int lookupFlags, int pathAddress, int pathLength, int address) throws IOException {
+        final WasiFd directory = get(dirFd);
+        if (directory == null) {
+            return Errno.Badf;
+        }
+        if (!directory.isDirectory()) {
+            return Errno.Notdir;
+        }
+        final LinkOption[] linkOptions = linkOptions(lookupFlags);
+        final TruffleFile file = directory.resolve(loadString(node, memory, pathAddress, pathLength), linkOptions.length == 0);
+        if (file == null) {
+            return Errno.Notcapable;
+        }
+        return WasiFd.writeFilestat(node, memory, file, address, linkOptions);
+    }
+
+    Errno pathCreateDirectory(Node node, WasmMemory memory, int dirFd, int pathAddress, int pathLength) throws IOException {
+        final WasiFd directory = get(dirFd);
+        if (directory == null) {
+            return Errno.Badf;
+        }
+        if (!directory.isDirectory()) {
+            return Errno.Notdir;
+        }
+        final TruffleFile file = directory.resolve(loadString(node, memory, pathAddress, pathLength), false);
+        if (file == null) {
+            return Errno.Notcapable;
+        }
+        file.createDirectory();
+        return Errno.Success;
+    }
+
+    Errno pathRemove(Node node, WasmMemory memory, int dirFd, int pathAddress, int pathLength, boolean removeDirectory) throws IOException {
+        final WasiFd directory = get(dirFd);
+        if (directory == null) {
+            return Errno.Badf;
+        }
+        if (!directory.isDirectory()) {
+            return Errno.Notdir;
+        }
+        final TruffleFile file = directory.resolve(loadString(node, memory, pathAddress, pathLength), false);
+        if (file == null) {
+            return Errno.Notcapable;
+        }
+        if (!file.exists(LinkOption.NOFOLLOW_LINKS)) {
+            return Errno.Noent;
+        }
+        final boolean isDirectory = file.isDirectory(LinkOption.NOFOLLOW_LINKS);
+        if (removeDirectory && !isDirectory) {
+            return Errno.Notdir;
+        } else if (!removeDirectory && isDirectory) {
+            return Errno.Isdir;
+        }
+        file.delete();
+        return Errno.Success;
+    }
+
+    private static LinkOption[] linkOptions(int lookupFlags) {
+        return (lookupFlags & LOOKUPFLAGS_SYMLINK_FOLLOW) != 0 ? FOLLOW_LINKS : NOFOLLOW_LINKS;
+    }
+
+    static String loadString(Node node, WasmMemory memory, int address, int length) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) memory.load_i32_8u(node, address + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void storeBytes(Node node, WasmMemory memory, int address, byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            memory.store_i32_8(node, address + i, bytes[i]);
+        }
+    }
+}
@@ -40,6 +40,7 @@
  */
 package org.graalvm.wasm.predefined.wasi;
 
+import java.io.IOException;
 import java.util.function.Consumer;
 
 import com.oracle.truffle.api.CompilerDirectives;
@@ -72,9 +73,25 @@ public class WasiFdWrite extends WasmBuiltinRootNode {
         int iovcnt = (int) args[2];
         int pnum = (int) args[3];
 
+        if (stream != 1 && stream != 2) {
+            return fdWriteFile(context.wasiFdTable(), stream, iov, iovcnt, pnum);
+        }
         return fdWrite(stream, iov, iovcnt, pnum);
     }
 
+    @CompilerDirectives.TruffleBoundary
+    private int fdWriteFile(WasiFdTable fds, int stream, int iov, int iovcnt, int pnum) {
+        final WasiFd fd = fds.get(stream);
+        if (fd == null) {
+            return Errno.Badf.code();
+        }
+        try {
+            return fd.write(this, module.symbolTable().memory(), iov, iovcnt, pnum).code();
+        } catch (IOException | SecurityException | UnsupportedOperationException | IllegalArgumentException | IllegalStateException e) {
+            return Errno.fromException(e).code();
+        }
+    }
+
     @CompilerDirectives.TruffleBoundary
     private Object fdWrite(int stream, int iov, int iovcnt, int pnum) {
         Consumer<Character> charPrinter;
@@ -109,6 +126,6 @@ public class WasiFdWrite extends WasmBuiltinRootNode {
 
     @Override
     public String builtinNodeName() {
-        return "___wasi_fd_write";
+        return "__wasi_fd_write";
     }
 }